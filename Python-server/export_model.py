@@ -0,0 +1,40 @@
+# 将训练好的 XGBoost 模型导出为 JSON 格式，供 Flink 作业中的 Java 推理器 (XgbTreeModel) 加载
+# 用法: python export_model.py [模型输出路径] [对照样本输出路径]
+import sys
+
+import pandas as pd
+
+# 导入时会按照 prediction_server.py 的流程加载数据并训练模型
+import prediction_server
+
+MODEL_JSON_PATH = sys.argv[1] if len(sys.argv) > 1 else 'controller_model_xgb.json'
+FIXTURE_PATH = sys.argv[2] if len(sys.argv) > 2 else 'controller_model_xgb_scores.csv'
+FIXTURE_ROWS = 1000
+
+if prediction_server.MODEL is None:
+    print("🛑 模型未训练成功，无法导出。")
+    sys.exit(1)
+
+# controller_model_xgb.pkl 是只包含一个 XGBClassifier 的 VotingClassifier (soft voting)，没有 get_booster()；
+# 训练后拟合好的模型在 estimators_ 中，其概率与整个 VotingClassifier 的输出相同
+estimators = getattr(prediction_server.MODEL, 'estimators_', None)
+if estimators is None:
+    xgb_model = prediction_server.MODEL
+elif len(estimators) == 1:
+    xgb_model = estimators[0]
+else:
+    print(f"🛑 VotingClassifier 中有 {len(estimators)} 个模型，Java 端只支持单个 XGBoost 模型。")
+    sys.exit(1)
+
+booster = xgb_model.get_booster()
+# 显式记录特征名，Java 端按特征名而不是按位置映射输入
+booster.feature_names = prediction_server.X_train.columns.tolist()
+booster.save_model(MODEL_JSON_PATH)
+print(f"✅ 模型已导出到 '{MODEL_JSON_PATH}'")
+
+# 导出一批样本及 Python 端的预测概率，作为 Java 推理结果的对照数据
+sample = prediction_server.X_train.head(FIXTURE_ROWS)
+fixture = sample.copy()
+fixture['score'] = prediction_server.MODEL.predict_proba(sample)[:, 1]
+fixture.to_csv(FIXTURE_PATH, index=False)
+print(f"✅ 已导出 {len(fixture)} 条对照样本到 '{FIXTURE_PATH}'")
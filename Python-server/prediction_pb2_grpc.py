@@ -40,6 +40,11 @@ class PredictionServiceStub(object):
                 request_serializer=prediction__pb2.PacketLossFeaturesRequest.SerializeToString,
                 response_deserializer=prediction__pb2.PacketLossResponse.FromString,
                 _registered_method=True)
+        self.PredictPacketLossBatch = channel.unary_unary(
+                '/PredictionService/PredictPacketLossBatch',
+                request_serializer=prediction__pb2.PacketLossBatchRequest.SerializeToString,
+                response_deserializer=prediction__pb2.PacketLossBatchResponse.FromString,
+                _registered_method=True)
 
 
 class PredictionServiceServicer(object):
@@ -54,6 +59,13 @@ class PredictionServiceServicer(object):
         context.set_details('Method not implemented!')
         raise NotImplementedError('Method not implemented!')
 
+    def PredictPacketLossBatch(self, request, context):
+        """批量预测：一次调用携带多个设备的特征集，响应中的结果与请求顺序一一对应
+        """
+        context.set_code(grpc.StatusCode.UNIMPLEMENTED)
+        context.set_details('Method not implemented!')
+        raise NotImplementedError('Method not implemented!')
+
 
 def add_PredictionServiceServicer_to_server(servicer, server):
     rpc_method_handlers = {
@@ -62,6 +74,11 @@ def add_PredictionServiceServicer_to_server(servicer, server):
                     request_deserializer=prediction__pb2.PacketLossFeaturesRequest.FromString,
                     response_serializer=prediction__pb2.PacketLossResponse.SerializeToString,
             ),
+            'PredictPacketLossBatch': grpc.unary_unary_rpc_method_handler(
+                    servicer.PredictPacketLossBatch,
+                    request_deserializer=prediction__pb2.PacketLossBatchRequest.FromString,
+                    response_serializer=prediction__pb2.PacketLossBatchResponse.SerializeToString,
+            ),
     }
     generic_handler = grpc.method_handlers_generic_handler(
             'PredictionService', rpc_method_handlers)
@@ -100,3 +117,30 @@ class PredictionService(object):
             timeout,
             metadata,
             _registered_method=True)
+
+    @staticmethod
+    def PredictPacketLossBatch(request,
+            target,
+            options=(),
+            channel_credentials=None,
+            call_credentials=None,
+            insecure=False,
+            compression=None,
+            wait_for_ready=None,
+            timeout=None,
+            metadata=None):
+        return grpc.experimental.unary_unary(
+            request,
+            target,
+            '/PredictionService/PredictPacketLossBatch',
+            prediction__pb2.PacketLossBatchRequest.SerializeToString,
+            prediction__pb2.PacketLossBatchResponse.FromString,
+            options,
+            channel_credentials,
+            insecure,
+            call_credentials,
+            compression,
+            wait_for_ready,
+            timeout,
+            metadata,
+            _registered_method=True)
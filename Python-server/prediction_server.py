@@ -40,6 +40,10 @@ def load_file(filepath):
             file_path = os.path.join(filepath, filename)
             try:
                 df = pd.read_csv(file_path)
+                # Flink 回填作业输出的特征文件没有标签列，补上标签之前不参与训练
+                if "label" not in df.columns:
+                    print(f"跳过没有 label 列的文件: {filename}")
+                    continue
                 if header_saved is None:
                     header_saved = df.columns
                 
@@ -166,6 +170,45 @@ class PredictionServiceImpl(prediction_pb2_grpc.PredictionServiceServicer):
         
         return response
 
+    def PredictPacketLossBatch(self, request, context):
+        global total_calls, packet_loss_count, normal_count
+
+        if MODEL is None:
+            context.set_code(grpc.StatusCode.INTERNAL)
+            context.set_details('模型未成功训练，服务器无法处理预测请求。')
+            return prediction_pb2.PacketLossBatchResponse()
+
+        if len(request.requests) == 0:
+            return prediction_pb2.PacketLossBatchResponse()
+
+        column_order = [
+            'mean_delay', 'min_delay', 'mid_delay', 'max_delay', 'slope_delay',
+            'mean_of_last_three', 'diff_between_last_two', 'range',
+            'delay_1', 'delay_2', 'delay_3', 'delay_4', 'delay_5'
+        ]
+        # 整批特征一次性组装成 DataFrame，由模型做向量化预测
+        input_df = pd.DataFrame(
+            [[getattr(r, column) for column in column_order] for r in request.requests],
+            columns=column_order)
+
+        try:
+            start_time = time.time()
+            prediction_array = MODEL.predict(input_df)
+            duration_ms = (time.time() - start_time) * 1000
+        except Exception as e:
+            print(f"🛑 批量预测时发生错误: {e}")
+            context.set_code(grpc.StatusCode.INTERNAL)
+            context.set_details(f'模型预测时发生错误: {e}')
+            return prediction_pb2.PacketLossBatchResponse()
+
+        results = [bool(p == 1) for p in prediction_array]
+        total_calls += len(results)
+        packet_loss_count += sum(results)
+        normal_count += len(results) - sum(results)
+        print(f"🧠 批量预测 {len(results)} 条, 其中可能丢包 {sum(results)} 条, 耗时 {duration_ms:.2f} 毫秒")
+
+        return prediction_pb2.PacketLossBatchResponse(hasPacketLoss=results)
+
 def serve():
     """
     启动 gRPC 服务器。
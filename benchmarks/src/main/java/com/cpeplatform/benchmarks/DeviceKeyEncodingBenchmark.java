@@ -0,0 +1,112 @@
+package com.cpeplatform.benchmarks;
+
+import com.cpeplatform.flink.dictionary.DeviceDictionary;
+import com.cpeplatform.flink.model.CpeLatencyData;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 字符串设备 ID 与字典编码的整数键在特征路径上的开销对比:
+ * 每条延迟记录 shuffle 时的序列化字节数与耗时、RocksDB 中每个 Keyed State 条目的键字节数，以及 keyBy 的键组计算。
+ * 字节数在 Setup 结束时打印；Keyed State 总大小约等于 设备数 × 状态数 × 键字节差。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeviceKeyEncodingBenchmark {
+
+    @Param({"14", "36"})
+    private int deviceIdLength;
+
+    @Param({"100000"})
+    private int deviceCardinality;
+
+    private CpeLatencyData[] stringRecords;
+    private CpeLatencyData[] encodedRecords;
+    private String[] deviceIds;
+    private DeviceDictionary dictionary;
+    private TypeSerializer<CpeLatencyData> serializer;
+    private DataOutputSerializer output;
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(RecordFixtures.SEED);
+        deviceIds = RecordFixtures.deviceIds(deviceCardinality, deviceIdLength);
+        dictionary = DeviceDictionary.of(deviceIds);
+        serializer = TypeInformation.of(CpeLatencyData.class).createSerializer(new ExecutionConfig());
+        output = new DataOutputSerializer(128);
+
+        stringRecords = new CpeLatencyData[deviceCardinality];
+        encodedRecords = new CpeLatencyData[deviceCardinality];
+        for (int d = 0; d < deviceCardinality; d++) {
+            long timestamp = 1_700_000_000_000L + random.nextInt(86_400_000);
+            int rtt = RecordFixtures.rtt(random);
+            stringRecords[d] = new CpeLatencyData(deviceIds[d], rtt, timestamp);
+            encodedRecords[d] = new CpeLatencyData(null, rtt, timestamp, dictionary.keyOf(deviceIds[d]));
+        }
+
+        System.out.printf("%n每条延迟记录 shuffle 字节数: string=%d encoded=%d; 每个状态条目的键字节数: string=%d long=%d%n",
+                serializedSize(stringRecords[0]), serializedSize(encodedRecords[0]),
+                keySize(StringSerializer.INSTANCE, deviceIds[0]), keySize(LongSerializer.INSTANCE, 0L));
+    }
+
+    private int serializedSize(CpeLatencyData record) throws IOException {
+        output.clear();
+        serializer.serialize(record, output);
+        return output.length();
+    }
+
+    private <K> int keySize(TypeSerializer<K> keySerializer, K key) throws IOException {
+        output.clear();
+        keySerializer.serialize(key, output);
+        return output.length();
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = cursor + 1 == deviceCardinality ? 0 : cursor + 1;
+        return i;
+    }
+
+    @Benchmark
+    public int serializeStringRecord() throws IOException {
+        return serializedSize(stringRecords[next()]);
+    }
+
+    @Benchmark
+    public int serializeEncodedRecord() throws IOException {
+        return serializedSize(encodedRecords[next()]);
+    }
+
+    @Benchmark
+    public int keyGroupString() {
+        return KeyGroupRangeAssignment.assignToKeyGroup(stringRecords[next()].getDeviceId(), 128);
+    }
+
+    @Benchmark
+    public int keyGroupLong() {
+        return KeyGroupRangeAssignment.assignToKeyGroup(encodedRecords[next()].getDeviceKey(), 128);
+    }
+
+    /**
+     * 编码本身的代价 (每条记录一次字典查找)，在 Source 一侧支付。
+     */
+    @Benchmark
+    public long encode() {
+        return dictionary.keyOf(deviceIds[next()]);
+    }
+}
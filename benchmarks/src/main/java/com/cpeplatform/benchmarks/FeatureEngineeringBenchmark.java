@@ -0,0 +1,116 @@
+package com.cpeplatform.benchmarks;
+
+import com.cpeplatform.flink.CpeDataSplittingJob.FeatureEngineeringProcessor;
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.CpeLatencyData;
+import com.cpeplatform.flink.processor.IncrementalFeatureProcessor;
+import com.cpeplatform.flink.processor.RttRingBuffer;
+import org.apache.flink.util.Collector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 特征工程的逐条记录开销: 原始的 countWindow 处理器 (含 calculateSlope) 与增量式环形缓冲区实现。
+ * 设备数量决定了工作集大小，设备多时每条记录访问的窗口数据大多不在 CPU 缓存中。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeatureEngineeringBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    private int deviceCardinality;
+
+    private String[] deviceIds;
+    // 每个设备一个完整的5点窗口，对应 countWindow(5,1) 触发时交给处理器的元素
+    private List<List<CpeLatencyData>> windows;
+    private List<List<Integer>> rttWindows;
+    private RttRingBuffer[] ringBuffers;
+    private int[] nextRtts;
+
+    private FeatureEngineeringProcessor windowProcessor;
+    private LastValueCollector<CpeFeatures> collector;
+    private int[] scratch;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(RecordFixtures.SEED);
+        deviceIds = RecordFixtures.deviceIds(deviceCardinality, 16);
+        windows = new ArrayList<>(deviceCardinality);
+        rttWindows = new ArrayList<>(deviceCardinality);
+        ringBuffers = new RttRingBuffer[deviceCardinality];
+        nextRtts = new int[1 << 16];
+        for (int d = 0; d < deviceCardinality; d++) {
+            List<CpeLatencyData> window = new ArrayList<>(RttRingBuffer.WINDOW_SIZE);
+            List<Integer> rtts = new ArrayList<>(RttRingBuffer.WINDOW_SIZE);
+            RttRingBuffer buffer = new RttRingBuffer();
+            for (int i = 0; i < RttRingBuffer.WINDOW_SIZE; i++) {
+                int rtt = RecordFixtures.rtt(random);
+                window.add(new CpeLatencyData(deviceIds[d], rtt, i));
+                rtts.add(rtt);
+                buffer.add(rtt);
+            }
+            windows.add(window);
+            rttWindows.add(rtts);
+            ringBuffers[d] = buffer;
+        }
+        for (int i = 0; i < nextRtts.length; i++) {
+            nextRtts[i] = RecordFixtures.rtt(random);
+        }
+
+        windowProcessor = new FeatureEngineeringProcessor();
+        collector = new LastValueCollector<>();
+        scratch = new int[RttRingBuffer.WINDOW_SIZE];
+    }
+
+    private int nextDevice() {
+        int device = cursor;
+        cursor = cursor + 1 == deviceCardinality ? 0 : cursor + 1;
+        return device;
+    }
+
+    @Benchmark
+    public CpeFeatures windowProcess() {
+        int device = nextDevice();
+        // process 不使用 Context，传 null 即可
+        windowProcessor.process(deviceIds[device], null, windows.get(device), collector);
+        return collector.last;
+    }
+
+    @Benchmark
+    public double calculateSlope() {
+        return FeatureEngineeringProcessor.calculateSlope(rttWindows.get(nextDevice()));
+    }
+
+    @Benchmark
+    public CpeFeatures incrementalUpdate() {
+        int device = nextDevice();
+        RttRingBuffer buffer = ringBuffers[device];
+        buffer.add(nextRtts[device & (nextRtts.length - 1)]);
+        return IncrementalFeatureProcessor.computeFeatures(deviceIds[device], buffer, scratch);
+    }
+
+    /**
+     * 只保留最后一个输出的 Collector，由基准方法返回该值，防止被 JIT 消除。
+     */
+    static final class LastValueCollector<T> implements Collector<T> {
+        T last;
+
+        @Override
+        public void collect(T record) {
+            last = record;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.cpeplatform.benchmarks;
+
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.CpeRawData;
+
+import java.util.Random;
+
+/**
+ * 基准测试用的合成数据。固定随机种子，保证不同提交之间跑的是同一份数据。
+ */
+final class RecordFixtures {
+
+    static final long SEED = 42L;
+
+    private RecordFixtures() {
+    }
+
+    /**
+     * 生成 cardinality 个长度为 idLength 的设备 ID，形如 CPE-000123xxxx。
+     */
+    static String[] deviceIds(int cardinality, int idLength) {
+        String[] ids = new String[cardinality];
+        for (int i = 0; i < cardinality; i++) {
+            StringBuilder id = new StringBuilder(idLength).append("CPE-").append(String.format("%06d", i));
+            while (id.length() < idLength) {
+                id.append((char) ('a' + id.length() % 26));
+            }
+            ids[i] = id.substring(0, idLength);
+        }
+        return ids;
+    }
+
+    static CpeRawData rawData(String deviceId, Random random) {
+        String status = random.nextInt(10) == 0 ? "OFFLINE" : "ONLINE";
+        return new CpeRawData(deviceId, status, rtt(random), 1_700_000_000_000L + random.nextInt(86_400_000));
+    }
+
+    /**
+     * RTT 大致在 20~80ms，偶尔出现尖峰，与模拟器产生的数据分布接近。
+     */
+    static int rtt(Random random) {
+        int base = 20 + random.nextInt(60);
+        return random.nextInt(20) == 0 ? base * 5 : base;
+    }
+
+    static CpeFeatures features(String deviceId, Random random) {
+        return CpeFeatures.builder()
+                .deviceId(deviceId)
+                .aggregationTimestamp(1_700_000_000_000L + random.nextInt(86_400_000))
+                .delay_1(rtt(random)).delay_2(rtt(random)).delay_3(rtt(random)).delay_4(rtt(random)).delay_5(rtt(random))
+                .mean_delay(random.nextDouble() * 100)
+                .min_delay(random.nextInt(40))
+                .mid_delay(random.nextInt(80))
+                .max_delay(random.nextInt(400))
+                .range(random.nextInt(360))
+                .mean_of_last_three(random.nextDouble() * 100)
+                .diff_between_last_two(random.nextInt(80) - 40)
+                .slope_delay(random.nextGaussian() * 10)
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.cpeplatform.benchmarks;
+
+import com.cpeplatform.flink.deserializer.CpeRawDataDeserializer;
+import com.cpeplatform.flink.deserializer.CpeRawDataProtobufDeserializer;
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.CpeRawData;
+import com.cpeplatform.flink.model.CpeStatusData;
+import com.cpeplatform.flink.serializer.JsonSerializationSchema;
+import com.cpeplatform.flink.serializer.ProtobufConverters;
+import com.cpeplatform.flink.serializer.ProtobufSerializationSchema;
+import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka 边界上的逐条记录编解码开销: cpe-raw-data 的反序列化，以及状态和特征集的序列化，JSON 与 Protobuf 对比。
+ * 设备 ID 长度决定消息大小，设备数量决定工作集大小。
+ * 每条消息的字节数在 Setup 结束时打印，配合 GC profiler 的 gc.alloc.rate.norm 比较两种格式的 CPU、分配和带宽。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"8", "36", "128"})
+    private int deviceIdLength;
+
+    @Param({"1", "1000", "100000"})
+    private int deviceCardinality;
+
+    private byte[][] rawJson;
+    private byte[][] rawProtobuf;
+    private CpeStatusData[] statuses;
+    private CpeFeatures[] features;
+
+    private CpeRawDataDeserializer jsonDeserializer;
+    private CpeRawDataProtobufDeserializer protobufDeserializer;
+    private SerializationSchema<CpeStatusData> statusJson;
+    private SerializationSchema<CpeStatusData> statusProtobuf;
+    private SerializationSchema<CpeFeatures> featuresJson;
+    private SerializationSchema<CpeFeatures> featuresProtobuf;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(RecordFixtures.SEED);
+        String[] deviceIds = RecordFixtures.deviceIds(deviceCardinality, deviceIdLength);
+
+        jsonDeserializer = new CpeRawDataDeserializer();
+        protobufDeserializer = new CpeRawDataProtobufDeserializer();
+        statusJson = new JsonSerializationSchema<>();
+        statusProtobuf = new ProtobufSerializationSchema<>(ProtobufConverters::toProto);
+        featuresJson = new JsonSerializationSchema<>();
+        featuresProtobuf = new ProtobufSerializationSchema<>(ProtobufConverters::toProto);
+        SerializationSchema<CpeRawData> rawJsonSerializer = new JsonSerializationSchema<>();
+
+        rawJson = new byte[deviceCardinality][];
+        rawProtobuf = new byte[deviceCardinality][];
+        statuses = new CpeStatusData[deviceCardinality];
+        features = new CpeFeatures[deviceCardinality];
+        for (int d = 0; d < deviceCardinality; d++) {
+            CpeRawData raw = RecordFixtures.rawData(deviceIds[d], random);
+            rawJson[d] = rawJsonSerializer.serialize(raw);
+            rawProtobuf[d] = ProtobufConverters.toProto(raw).toByteArray();
+            statuses[d] = new CpeStatusData(raw.getDeviceId(), raw.getStatus(), raw.getTimestamp());
+            features[d] = RecordFixtures.features(deviceIds[d], random);
+        }
+
+        System.out.printf("%n平均消息大小 (字节): raw json=%.1f protobuf=%.1f, features json=%.1f protobuf=%.1f%n",
+                averageSize(rawJson), averageSize(rawProtobuf),
+                (double) featuresJson.serialize(features[0]).length,
+                (double) featuresProtobuf.serialize(features[0]).length);
+    }
+
+    private static double averageSize(byte[][] messages) {
+        long total = 0;
+        for (byte[] message : messages) {
+            total += message.length;
+        }
+        return (double) total / messages.length;
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = cursor + 1 == deviceCardinality ? 0 : cursor + 1;
+        return i;
+    }
+
+    @Benchmark
+    public CpeRawData deserializeRawJson() throws IOException {
+        return jsonDeserializer.deserialize(rawJson[next()]);
+    }
+
+    @Benchmark
+    public CpeRawData deserializeRawProtobuf() throws IOException {
+        return protobufDeserializer.deserialize(rawProtobuf[next()]);
+    }
+
+    @Benchmark
+    public byte[] serializeStatusJson() {
+        return statusJson.serialize(statuses[next()]);
+    }
+
+    @Benchmark
+    public byte[] serializeStatusProtobuf() {
+        return statusProtobuf.serialize(statuses[next()]);
+    }
+
+    @Benchmark
+    public byte[] serializeFeaturesJson() {
+        return featuresJson.serialize(features[next()]);
+    }
+
+    @Benchmark
+    public byte[] serializeFeaturesProtobuf() {
+        return featuresProtobuf.serialize(features[next()]);
+    }
+}
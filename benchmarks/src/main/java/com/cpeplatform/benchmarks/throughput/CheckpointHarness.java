@@ -0,0 +1,208 @@
+package com.cpeplatform.benchmarks.throughput;
+
+import com.cpeplatform.flink.CpeDataSplittingJob;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.RestOptions;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.minicluster.MiniCluster;
+import org.apache.flink.runtime.minicluster.MiniClusterConfiguration;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.JsonNode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.node.ArrayNode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 生产模式 (RocksDB + 增量检查点 + 状态 TTL) 下检查点耗时与状态大小的测试。
+ * 在 MiniCluster 上运行完整拓扑，datagen Source 为 N 个设备循环生成数据且不会结束；
+ * 等所有设备都被访问过 warmup-passes 轮 (每个设备都已有 Keyed State) 后，
+ * 从 REST 接口 {@code /jobs/:id/checkpoints} 读取随后完成的 checkpoints 个检查点的
+ * 端到端耗时、完整状态大小 (state_size) 和本次增量上传的大小 (checkpointed_size)，然后取消作业。
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.cpeplatform.benchmarks.throughput.CheckpointHarness \
+ *     --device-levels 100000,1000000 --parallelism 2 --checkpoint.interval-ms 10000 --output checkpoint-result.json
+ * </pre>
+ * 默认使用 --state.backend rocksdb；其余参数原样传给作业，例如 --state.backend hashmap 用于对比。
+ */
+public final class CheckpointHarness {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private CheckpointHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ParameterTool params = ParameterTool.fromArgs(args);
+        String output = params.get("output", "checkpoint-result.json");
+
+        ArrayNode results = MAPPER.createArrayNode();
+        for (String level : params.get("device-levels", "100000,1000000").split(",")) {
+            int devices = Integer.parseInt(level.trim());
+            ObjectNode result = runOnce(params, devices);
+            results.add(result);
+            System.out.println(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(result));
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(new File(output), results);
+        System.out.println("结果已写入 " + output);
+    }
+
+    private static ObjectNode runOnce(ParameterTool harnessParams, int devices) throws Exception {
+        int parallelism = harnessParams.getInt("parallelism", 2);
+        int warmupPasses = harnessParams.getInt("warmup-passes", 2);
+        int measured = harnessParams.getInt("checkpoints", 3);
+        long timeoutMs = harnessParams.getLong("timeout-s", 900) * 1000;
+        double rate = harnessParams.getDouble("rate", 0);
+
+        Path checkpointDir = Files.createTempDirectory("cpe-checkpoint-bench");
+        Map<String, String> jobParams = new LinkedHashMap<>();
+        jobParams.put("state.backend", "rocksdb");
+        jobParams.put("checkpoint.interval-ms", "10000");
+        jobParams.putAll(harnessParams.toMap());
+        jobParams.put("checkpoint.dir", checkpointDir.toUri().toString());
+        ParameterTool params = ParameterTool.fromMap(jobParams);
+
+        LatencyHistogram.resetAll();
+        SyntheticRawDataGenerator.GENERATED.reset();
+
+        Configuration conf = CpeDataSplittingJob.metricsConfiguration(params);
+        conf.set(RestOptions.BIND_PORT, "0");
+        conf.set(TaskManagerOptions.NETWORK_MEMORY_MIN, MemorySize.parse("256m"));
+        conf.set(TaskManagerOptions.NETWORK_MEMORY_MAX, MemorySize.parse("256m"));
+        // RocksDB 使用 Flink 托管内存
+        conf.set(TaskManagerOptions.MANAGED_MEMORY_SIZE, MemorySize.parse(harnessParams.get("managed-memory", "1g")));
+        MiniClusterConfiguration clusterConfig = new MiniClusterConfiguration.Builder()
+                .setConfiguration(conf)
+                .setNumTaskManagers(1)
+                .setNumSlotsPerTaskManager(parallelism * 2)
+                .build();
+
+        try (MiniCluster cluster = new MiniCluster(clusterConfig)) {
+            cluster.start();
+
+            StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+            env.setParallelism(parallelism);
+            CpeDataSplittingJob.configureStateBackend(env, params);
+            // 记录数取 Long.MAX_VALUE: Source 不会结束，测量完成后主动取消作业
+            CpeDataSplittingJob.buildPipeline(env, params, new InMemoryPipelineConnectors(devices, Long.MAX_VALUE, rate));
+            JobGraph jobGraph = env.getStreamGraph().getJobGraph();
+
+            JobID jobId = cluster.submitJob(jobGraph).get().getJobID();
+            CompletableFuture<?> jobResult = cluster.requestJobResult(jobId);
+            URI restAddress = cluster.getRestAddress().get();
+            HttpClient http = HttpClient.newHttpClient();
+
+            long warmupRecords = (long) devices * warmupPasses;
+            long start = System.nanoTime();
+            long warmedUpAt = -1;
+            ArrayNode checkpoints = MAPPER.createArrayNode();
+            while (checkpoints.size() < measured) {
+                if (jobResult.isDone()) {
+                    jobResult.get();
+                    throw new IllegalStateException("作业在测量完成前意外结束");
+                }
+                if (System.nanoTime() - start > TimeUnit.MILLISECONDS.toNanos(timeoutMs)) {
+                    throw new IllegalStateException("超时: " + timeoutMs / 1000 + " 秒内只完成了 "
+                            + checkpoints.size() + " 个预热后的检查点");
+                }
+                if (warmedUpAt < 0 && SyntheticRawDataGenerator.GENERATED.sum() >= warmupRecords) {
+                    warmedUpAt = System.currentTimeMillis();
+                    System.out.printf("%d 个设备已预热 (%.1f 秒)，开始记录检查点%n",
+                            devices, (System.nanoTime() - start) / 1e9);
+                }
+                if (warmedUpAt > 0) {
+                    collectCheckpoints(http, restAddress, jobId, warmedUpAt, measured, checkpoints);
+                }
+                TimeUnit.SECONDS.sleep(1);
+            }
+            long generated = SyntheticRawDataGenerator.GENERATED.sum();
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            cluster.cancelJob(jobId).get();
+
+            return report(params, parallelism, devices, generated, elapsedSeconds, checkpoints);
+        } finally {
+            deleteRecursively(checkpointDir);
+        }
+    }
+
+    /**
+     * 从检查点历史中挑出触发时间晚于预热完成时刻的已完成检查点 (按 id 去重、升序)。
+     */
+    private static void collectCheckpoints(HttpClient http, URI restAddress, JobID jobId, long warmedUpAt,
+                                           int measured, ArrayNode checkpoints) {
+        try {
+            HttpResponse<String> response = http.send(
+                    HttpRequest.newBuilder(restAddress.resolve("/jobs/" + jobId + "/checkpoints")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            JsonNode history = MAPPER.readTree(response.body()).path("history");
+            long lastId = checkpoints.isEmpty() ? -1 : checkpoints.get(checkpoints.size() - 1).path("id").asLong();
+            // history 按 id 倒序排列
+            for (int i = history.size() - 1; i >= 0 && checkpoints.size() < measured; i--) {
+                JsonNode checkpoint = history.get(i);
+                if (!"COMPLETED".equals(checkpoint.path("status").asText())
+                        || checkpoint.path("trigger_timestamp").asLong() < warmedUpAt
+                        || checkpoint.path("id").asLong() <= lastId) {
+                    continue;
+                }
+                ObjectNode node = checkpoints.addObject();
+                node.put("id", checkpoint.path("id").asLong());
+                node.put("endToEndDurationMs", checkpoint.path("end_to_end_duration").asLong());
+                node.put("stateSizeBytes", checkpoint.path("state_size").asLong());
+                node.put("checkpointedSizeBytes", checkpoint.path("checkpointed_size").asLong());
+                lastId = node.path("id").asLong();
+            }
+        } catch (Exception e) {
+            // 作业刚启动时接口可能不可用，跳过这一次采样
+        }
+    }
+
+    private static ObjectNode report(ParameterTool params, int parallelism, int devices, long generated,
+                                     double elapsedSeconds, ArrayNode checkpoints) {
+        ObjectNode result = MAPPER.createObjectNode();
+        result.put("devices", devices);
+        result.put("parallelism", parallelism);
+        result.put("stateBackend", params.get("state.backend"));
+        result.put("checkpointIntervalMs", params.getLong("checkpoint.interval-ms"));
+        result.put("recordsGenerated", generated);
+        result.put("elapsedSeconds", elapsedSeconds);
+        long maxDuration = 0;
+        long totalDuration = 0;
+        long maxStateSize = 0;
+        for (JsonNode checkpoint : checkpoints) {
+            maxDuration = Math.max(maxDuration, checkpoint.path("endToEndDurationMs").asLong());
+            totalDuration += checkpoint.path("endToEndDurationMs").asLong();
+            maxStateSize = Math.max(maxStateSize, checkpoint.path("stateSizeBytes").asLong());
+        }
+        result.put("avgCheckpointDurationMs", checkpoints.isEmpty() ? 0 : totalDuration / checkpoints.size());
+        result.put("maxCheckpointDurationMs", maxDuration);
+        result.put("maxStateSizeBytes", maxStateSize);
+        result.put("stateBytesPerDevice", devices == 0 ? 0 : maxStateSize / devices);
+        result.set("checkpoints", checkpoints);
+        return result;
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (Exception e) {
+            // 临时目录清理失败不影响结果
+        }
+    }
+}
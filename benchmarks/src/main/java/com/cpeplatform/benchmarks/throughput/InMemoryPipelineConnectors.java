@@ -0,0 +1,106 @@
+package com.cpeplatform.benchmarks.throughput;
+
+import com.cpeplatform.flink.connector.PipelineConnectors;
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.CpeStatusData;
+import com.cpeplatform.flink.model.DeadLetter;
+import com.cpeplatform.flink.model.PipelineControl;
+import com.cpeplatform.flink.model.PredictionResult;
+import com.cpeplatform.flink.model.RawDataRecord;
+import com.cpeplatform.flink.model.RttSummary;
+import com.cpeplatform.flink.model.TopLatencyRanking;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.connector.sink2.Sink;
+import org.apache.flink.api.connector.source.Source;
+import org.apache.flink.connector.datagen.source.DataGeneratorSource;
+
+/**
+ * 不依赖 Kafka 的输入输出: datagen Source 按目标速率生成合成数据，Sink 只统计延迟和条数。
+ * 控制流回放 {@link #withControlMessages} 设置的消息，默认为空。
+ */
+class InMemoryPipelineConnectors implements PipelineConnectors {
+
+    static final String STATUS_SINK = "status";
+    static final String FEATURES_SINK = "features";
+    static final String PREDICTION_SINK = "prediction";
+    static final String RTT_SUMMARY_SINK = "rtt-summary";
+    static final String TOP_LATENCY_SINK = "top-latency";
+    static final String DEAD_LETTER_SINK = "dead-letter";
+
+    private final int devices;
+    private final long records;
+    private final double recordsPerSecond;
+    private final double predictionBranchRate;
+    private String[] controlMessages = new String[0];
+
+    /**
+     * @param recordsPerSecond 所有并行实例合计的目标速率，&lt;= 0 表示不限速
+     */
+    InMemoryPipelineConnectors(int devices, long records, double recordsPerSecond) {
+        this(devices, records, recordsPerSecond, 0);
+    }
+
+    /**
+     * @param predictionBranchRate 特征 / 预测结果 Sink 合计的最大写入速率，&lt;= 0 表示不限速；
+     *                             低于输入速率时预测分支饱和，用于观察它对状态路径的影响
+     */
+    InMemoryPipelineConnectors(int devices, long records, double recordsPerSecond, double predictionBranchRate) {
+        this.devices = devices;
+        this.records = records;
+        this.recordsPerSecond = recordsPerSecond;
+        this.predictionBranchRate = predictionBranchRate;
+    }
+
+    /**
+     * @param messages 控制 Topic 格式的 JSON 消息，开启 control.enabled 后在作业启动时按顺序送达门控
+     */
+    InMemoryPipelineConnectors withControlMessages(String... messages) {
+        this.controlMessages = messages.clone();
+        return this;
+    }
+
+    @Override
+    public Source<RawDataRecord, ?, ?> rawDataSource(String branch) {
+        return new DataGeneratorSource<>(
+                new SyntheticRawDataGenerator(devices, recordsPerSecond),
+                records,
+                TypeInformation.of(RawDataRecord.class));
+    }
+
+    @Override
+    public Source<PipelineControl, ?, ?> controlSource() {
+        ScriptedControlGenerator generator = new ScriptedControlGenerator(controlMessages);
+        return new DataGeneratorSource<>(generator, generator.count(), TypeInformation.of(PipelineControl.class));
+    }
+
+    @Override
+    public Sink<CpeStatusData> statusSink() {
+        return new LatencyRecordingSink<>(STATUS_SINK, CpeStatusData::getTimestamp);
+    }
+
+    @Override
+    public Sink<CpeFeatures> featuresSink() {
+        return new LatencyRecordingSink<>(FEATURES_SINK, CpeFeatures::getEventTimestamp, predictionBranchRate);
+    }
+
+    @Override
+    public Sink<PredictionResult> predictionSink() {
+        // 预测结果不带事件时间，只统计吞吐量
+        return new LatencyRecordingSink<>(PREDICTION_SINK, null, predictionBranchRate);
+    }
+
+    @Override
+    public Sink<RttSummary> rttSummarySink() {
+        return new LatencyRecordingSink<>(RTT_SUMMARY_SINK, null);
+    }
+
+    @Override
+    public Sink<TopLatencyRanking> topLatencySink() {
+        return new LatencyRecordingSink<>(TOP_LATENCY_SINK, null);
+    }
+
+    @Override
+    public Sink<DeadLetter> deadLetterSink() {
+        return new LatencyRecordingSink<>(DEAD_LETTER_SINK, null);
+    }
+}
@@ -0,0 +1,196 @@
+package com.cpeplatform.benchmarks.throughput;
+
+import com.cpeplatform.flink.CpeDataSplittingJob;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.MetricOptions;
+import org.apache.flink.configuration.RestOptions;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.minicluster.MiniCluster;
+import org.apache.flink.runtime.minicluster.MiniClusterConfiguration;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.JsonNode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.node.ArrayNode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预测分支饱和时状态路径的延迟测试。
+ * Source 以固定速率 (--rate) 生成数据，特征 / 预测结果 Sink 被限速到 --prediction-rate (默认为输入速率的四分之一)，
+ * 模拟变慢的预测服务或 Kafka；对每种拓扑分别在不限速和限速两种负载下运行，输出状态 Sink 的延迟 p50/p99、
+ * 预测分支的实际吞吐量和每个算子的最大反压比例。拓扑 (--variants):
+ * <ul>
+ *     <li>shared：所有算子在同一个 slot sharing group 中，共用一个 Source (默认配置)</li>
+ *     <li>slot-groups：开启 pipeline.slot-sharing-groups，状态路径与特征路径各自的 slot sharing group，仍共用一个 Source</li>
+ *     <li>independent：在 slot-groups 的基础上开启 pipeline.independent-sources，两条路径各自读取原始数据</li>
+ * </ul>
+ * 限速时 Source 生成的时间戳是记录按目标速率本应到达的时刻，被反压而积压的时间会计入状态延迟。
+ * 作业运行 warmup-s 秒后清空直方图，再测量 duration-s 秒，然后取消作业。
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.cpeplatform.benchmarks.throughput.ThroughputHarness --mode isolation \
+ *     --devices 10000 --rate 20000 --prediction-rate 5000 --parallelism 2 --duration-s 30 --output isolation-result.json
+ * </pre>
+ * 其余参数原样传给作业，例如 --status.parallelism 1、--prediction.mode embedded --prediction.model-path ...。
+ */
+public final class IsolationHarness {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private IsolationHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ParameterTool params = ParameterTool.fromArgs(args);
+        double rate = params.getDouble("rate", 20_000);
+        if (rate <= 0) {
+            throw new IllegalArgumentException("--rate 必须大于 0: 不限速时状态路径自身也会饱和，延迟没有意义");
+        }
+        double predictionRate = params.getDouble("prediction-rate", rate / 4);
+        String output = params.get("output", "isolation-result.json");
+
+        ArrayNode results = MAPPER.createArrayNode();
+        for (String variant : params.get("variants", "shared,slot-groups,independent").split(",")) {
+            for (double branchRate : new double[]{0, predictionRate}) {
+                ObjectNode result = runOnce(params, variant.trim(), rate, branchRate);
+                results.add(result);
+                System.out.println(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(result));
+            }
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(new File(output), results);
+
+        System.out.printf("%n%-12s %-10s %14s %14s %20s%n",
+                "variant", "load", "status p50", "status p99", "prediction branch/s");
+        for (JsonNode result : results) {
+            System.out.printf("%-12s %-10s %12dms %12dms %20.0f%n",
+                    result.path("variant").asText(), result.path("load").asText(),
+                    result.path("status").path("latencyP50Ms").asLong(),
+                    result.path("status").path("latencyP99Ms").asLong(),
+                    result.path("predictionBranch").path("throughputPerSecond").asDouble());
+        }
+        System.out.println("结果已写入 " + output);
+    }
+
+    private static ObjectNode runOnce(ParameterTool harnessParams, String variant, double rate, double predictionRate)
+            throws Exception {
+        boolean slotSharingGroups;
+        boolean independentSources;
+        switch (variant) {
+            case "shared" -> {
+                slotSharingGroups = false;
+                independentSources = false;
+            }
+            case "slot-groups" -> {
+                slotSharingGroups = true;
+                independentSources = false;
+            }
+            case "independent" -> {
+                slotSharingGroups = true;
+                independentSources = true;
+            }
+            default -> throw new IllegalArgumentException("未知的拓扑: " + variant);
+        }
+        int parallelism = harnessParams.getInt("parallelism", 2);
+        int devices = harnessParams.getInt("devices", 10_000);
+        long warmupMs = harnessParams.getLong("warmup-s", 5) * 1000;
+        long durationMs = harnessParams.getLong("duration-s", 30) * 1000;
+
+        Map<String, String> jobParams = new LinkedHashMap<>(harnessParams.toMap());
+        jobParams.put("pipeline.slot-sharing-groups", String.valueOf(slotSharingGroups));
+        jobParams.put("pipeline.independent-sources", String.valueOf(independentSources));
+        ParameterTool params = ParameterTool.fromMap(jobParams);
+
+        LatencyHistogram.resetAll();
+
+        Configuration conf = CpeDataSplittingJob.metricsConfiguration(params);
+        conf.set(RestOptions.BIND_PORT, "0");
+        conf.set(MetricOptions.METRIC_FETCHER_UPDATE_INTERVAL, 1000L);
+        conf.set(TaskManagerOptions.NETWORK_MEMORY_MIN, MemorySize.parse("256m"));
+        conf.set(TaskManagerOptions.NETWORK_MEMORY_MAX, MemorySize.parse("256m"));
+        MiniClusterConfiguration clusterConfig = new MiniClusterConfiguration.Builder()
+                .setConfiguration(conf)
+                .setNumTaskManagers(1)
+                .setNumSlotsPerTaskManager(parallelism * 2)
+                .build();
+
+        try (MiniCluster cluster = new MiniCluster(clusterConfig)) {
+            cluster.start();
+
+            StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+            env.setParallelism(parallelism);
+            CpeDataSplittingJob.configureStateBackend(env, params);
+            // 记录数取 Long.MAX_VALUE: Source 不会结束，测量完成后主动取消作业
+            CpeDataSplittingJob.buildPipeline(env, params,
+                    new InMemoryPipelineConnectors(devices, Long.MAX_VALUE, rate, predictionRate));
+            JobGraph jobGraph = env.getStreamGraph().getJobGraph();
+
+            JobID jobId = cluster.submitJob(jobGraph).get().getJobID();
+            CompletableFuture<?> jobResult = cluster.requestJobResult(jobId);
+            URI restAddress = cluster.getRestAddress().get();
+            HttpClient http = HttpClient.newHttpClient();
+
+            waitWhileRunning(jobResult, warmupMs);
+            for (String sink : new String[]{InMemoryPipelineConnectors.STATUS_SINK,
+                    InMemoryPipelineConnectors.FEATURES_SINK, InMemoryPipelineConnectors.PREDICTION_SINK}) {
+                LatencyHistogram.get(sink).reset();
+            }
+
+            Map<String, Double> maxBackpressure = new LinkedHashMap<>();
+            Map<String, Double> maxBusy = new LinkedHashMap<>();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMs);
+            while (System.nanoTime() < deadline) {
+                ThroughputHarness.sampleBackpressure(http, restAddress, jobId, jobGraph, maxBackpressure, maxBusy);
+                waitWhileRunning(jobResult, 1000);
+            }
+            ObjectNode result = report(variant, parallelism, devices, rate, predictionRate, maxBackpressure, maxBusy);
+            cluster.cancelJob(jobId).get();
+            return result;
+        }
+    }
+
+    private static void waitWhileRunning(CompletableFuture<?> jobResult, long millis) throws Exception {
+        TimeUnit.MILLISECONDS.sleep(millis);
+        if (jobResult.isDone()) {
+            jobResult.get();
+            throw new IllegalStateException("作业在测量完成前意外结束");
+        }
+    }
+
+    private static ObjectNode report(String variant, int parallelism, int devices, double rate, double predictionRate,
+                                     Map<String, Double> maxBackpressure, Map<String, Double> maxBusy) {
+        ObjectNode result = MAPPER.createObjectNode();
+        result.put("variant", variant);
+        result.put("load", predictionRate > 0 ? "throttled" : "unloaded");
+        result.put("parallelism", parallelism);
+        result.put("devices", devices);
+        result.put("targetRate", rate);
+        result.put("predictionBranchRateLimit", predictionRate);
+        putHistogram(result.putObject("status"), LatencyHistogram.get(InMemoryPipelineConnectors.STATUS_SINK));
+        // prediction.mode=kafka 时预测分支的终点是特征 Sink，embedded / async 时是预测结果 Sink
+        LatencyHistogram prediction = LatencyHistogram.get(InMemoryPipelineConnectors.PREDICTION_SINK);
+        putHistogram(result.putObject("predictionBranch"), prediction.count() > 0
+                ? prediction : LatencyHistogram.get(InMemoryPipelineConnectors.FEATURES_SINK));
+        ObjectNode backpressure = result.putObject("maxBackpressureRatio");
+        maxBackpressure.forEach(backpressure::put);
+        ObjectNode busy = result.putObject("maxBusyRatio");
+        maxBusy.forEach(busy::put);
+        return result;
+    }
+
+    private static void putHistogram(ObjectNode node, LatencyHistogram histogram) {
+        node.put("records", histogram.count());
+        node.put("throughputPerSecond", histogram.throughputPerSecond());
+        node.put("latencyP50Ms", histogram.percentile(0.50));
+        node.put("latencyP99Ms", histogram.percentile(0.99));
+    }
+}
@@ -0,0 +1,89 @@
+package com.cpeplatform.benchmarks.throughput;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 毫秒精度的固定桶延迟直方图，同时记录首末到达时间用于计算持续吞吐量。
+ * MiniCluster 与测试程序在同一个 JVM 中，Sink 通过静态注册表按名称写入，测试程序直接读取。
+ */
+final class LatencyHistogram {
+
+    private static final int MAX_TRACKED_MS = 60_000;
+    private static final Map<String, LatencyHistogram> REGISTRY = new ConcurrentHashMap<>();
+
+    // 最后一个桶收集所有超过 MAX_TRACKED_MS 的延迟
+    private final AtomicLongArray buckets = new AtomicLongArray(MAX_TRACKED_MS + 2);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong firstArrivalNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastArrivalNanos = new AtomicLong(Long.MIN_VALUE);
+
+    static LatencyHistogram get(String name) {
+        return REGISTRY.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    static void resetAll() {
+        REGISTRY.clear();
+    }
+
+    /**
+     * 记录一条到达 Sink 的记录，latencyMs 为负数表示该记录没有事件时间，只计数。
+     */
+    void record(long latencyMs) {
+        long now = System.nanoTime();
+        count.incrementAndGet();
+        firstArrivalNanos.accumulateAndGet(now, Math::min);
+        lastArrivalNanos.accumulateAndGet(now, Math::max);
+        if (latencyMs >= 0) {
+            buckets.incrementAndGet((int) Math.min(latencyMs, MAX_TRACKED_MS + 1));
+        }
+    }
+
+    /**
+     * 清空已记录的数据，用于丢弃预热阶段的样本。与并发的 record 之间不加锁，个别记录可能被计入或丢弃。
+     */
+    void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        firstArrivalNanos.set(Long.MAX_VALUE);
+        lastArrivalNanos.set(Long.MIN_VALUE);
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    /**
+     * 首末两条记录之间的平均吞吐量 (条/秒)。
+     */
+    double throughputPerSecond() {
+        long elapsed = lastArrivalNanos.get() - firstArrivalNanos.get();
+        return elapsed <= 0 ? 0.0 : count.get() * 1_000_000_000.0 / elapsed;
+    }
+
+    /**
+     * 返回第 quantile 分位的延迟 (毫秒)，没有带事件时间的记录时返回 -1。
+     */
+    long percentile(double quantile) {
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            total += buckets.get(i);
+        }
+        if (total == 0) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return i;
+            }
+        }
+        return MAX_TRACKED_MS + 1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.cpeplatform.benchmarks.throughput;
+
+import org.apache.flink.api.connector.sink2.Sink;
+import org.apache.flink.api.connector.sink2.SinkWriter;
+import org.apache.flink.util.function.SerializableFunction;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 内存中的 Sink，不保存记录，只把每条记录的 Source 到 Sink 延迟写入同名的 {@link LatencyHistogram}。
+ * 可以限制写入速率，模拟变慢的下游 (Kafka 或预测服务)：写入线程休眠而不占用 CPU，上游只会感受到反压。
+ */
+class LatencyRecordingSink<T> implements Sink<T> {
+
+    private final String name;
+    // 取记录的事件时间 (毫秒)，为 null 时只统计条数
+    private final SerializableFunction<T, Long> eventTime;
+    // 所有并行实例合计的最大写入速率 (条/秒)，<= 0 表示不限速
+    private final double maxRecordsPerSecond;
+
+    LatencyRecordingSink(String name, SerializableFunction<T, Long> eventTime) {
+        this(name, eventTime, 0);
+    }
+
+    LatencyRecordingSink(String name, SerializableFunction<T, Long> eventTime, double maxRecordsPerSecond) {
+        this.name = name;
+        this.eventTime = eventTime;
+        this.maxRecordsPerSecond = maxRecordsPerSecond;
+    }
+
+    @Override
+    public SinkWriter<T> createWriter(InitContext context) {
+        LatencyHistogram histogram = LatencyHistogram.get(name);
+        long nanosPerRecord = maxRecordsPerSecond > 0
+                ? (long) (1_000_000_000L * context.getNumberOfParallelSubtasks() / maxRecordsPerSecond)
+                : 0;
+        return new SinkWriter<>() {
+            // 按目标速率排定的下一条记录的写入时刻
+            private long nextWriteNanos = System.nanoTime();
+
+            @Override
+            public void write(T element, Context context) {
+                if (nanosPerRecord > 0) {
+                    long now = System.nanoTime();
+                    // 空闲超过 1 秒后不补发积累的额度，避免恢复时突发
+                    nextWriteNanos = Math.max(nextWriteNanos, now - 1_000_000_000L) + nanosPerRecord;
+                    // 与 SyntheticRawDataGenerator 相同，超前 1ms 以上才休眠
+                    long ahead = nextWriteNanos - now;
+                    if (ahead > 1_000_000L) {
+                        LockSupport.parkNanos(ahead);
+                    }
+                }
+                histogram.record(eventTime == null ? -1 : System.currentTimeMillis() - eventTime.apply(element));
+            }
+
+            @Override
+            public void flush(boolean endOfInput) {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
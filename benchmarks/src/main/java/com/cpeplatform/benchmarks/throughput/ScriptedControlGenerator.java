@@ -0,0 +1,34 @@
+package com.cpeplatform.benchmarks.throughput;
+
+import com.cpeplatform.flink.deserializer.PipelineControlDeserializer;
+import com.cpeplatform.flink.model.PipelineControl;
+import org.apache.flink.connector.datagen.source.GeneratorFunction;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 按顺序回放预先写好的控制消息 (与控制 Topic 中的 JSON 格式相同)，与 Kafka 路径一样由
+ * {@link PipelineControlDeserializer} 解析，格式错误或为空的消息得到 null，由作业中控制流后的过滤去掉。
+ * datagen Source 至少生成一条记录，没有脚本时只回放一条空消息，控制流中实际没有任何数据。
+ */
+class ScriptedControlGenerator implements GeneratorFunction<Long, PipelineControl> {
+
+    private final String[] messages;
+    private final PipelineControlDeserializer deserializer = new PipelineControlDeserializer(60_000L);
+
+    ScriptedControlGenerator(String... messages) {
+        this.messages = messages.length > 0 ? messages.clone() : new String[]{""};
+    }
+
+    /**
+     * @return Source 需要生成的记录数
+     */
+    long count() {
+        return messages.length;
+    }
+
+    @Override
+    public PipelineControl map(Long index) throws Exception {
+        return deserializer.deserialize(messages[index.intValue()].getBytes(StandardCharsets.UTF_8));
+    }
+}
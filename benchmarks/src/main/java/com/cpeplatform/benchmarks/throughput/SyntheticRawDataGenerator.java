@@ -0,0 +1,89 @@
+package com.cpeplatform.benchmarks.throughput;
+
+import com.cpeplatform.flink.model.CpeRawData;
+import com.cpeplatform.flink.model.RawDataRecord;
+import org.apache.flink.api.connector.source.SourceReaderContext;
+import org.apache.flink.connector.datagen.source.GeneratorFunction;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 为 N 个设备轮流生成原始数据。时间戳取生成时刻的系统时间，Sink 端据此计算端到端延迟；
+ * 限速时取该记录按目标速率本应到达的时刻，Source 被反压而落后的时间也计入延迟 (相当于 Kafka 中积压的消息)。
+ * 每个设备每 {@link #STATUS_FLIP_PERIOD_MS} 毫秒切换一次在线状态 (按设备错开)，保证状态路径上也有持续的输出。
+ * <p>
+ * 限速在生成函数内部完成: datagen 自带的 RateLimiterStrategy 每条记录都要经过一次异步回调，
+ * 单个 reader 只能跑到每秒一万条左右，不适合测量吞吐量。
+ */
+class SyntheticRawDataGenerator implements GeneratorFunction<Long, RawDataRecord> {
+
+    static final long STATUS_FLIP_PERIOD_MS = 1000;
+
+    // 所有并行实例累计生成的记录数；MiniCluster 与测试程序在同一个 JVM 中，检查点测试据此判断状态是否已预热
+    static final LongAdder GENERATED = new LongAdder();
+
+    private final int devices;
+    private final double recordsPerSecond;
+    private final String[] deviceIds;
+
+    private transient long nanosPerRecord;
+    private transient long startNanos;
+    private transient long startMillis;
+    private transient long emitted;
+
+    /**
+     * @param recordsPerSecond 所有并行实例合计的目标速率，&lt;= 0 表示不限速
+     */
+    SyntheticRawDataGenerator(int devices, double recordsPerSecond) {
+        this.devices = devices;
+        this.recordsPerSecond = recordsPerSecond;
+        this.deviceIds = new String[devices];
+        for (int i = 0; i < devices; i++) {
+            deviceIds[i] = String.format("CPE-%06d", i);
+        }
+    }
+
+    @Override
+    public void open(SourceReaderContext readerContext) {
+        nanosPerRecord = recordsPerSecond > 0
+                ? (long) (1_000_000_000L * readerContext.currentParallelism() / recordsPerSecond)
+                : 0;
+        startNanos = System.nanoTime();
+        startMillis = System.currentTimeMillis();
+        emitted = 0;
+    }
+
+    @Override
+    public RawDataRecord map(Long index) {
+        long now = pace();
+        GENERATED.increment();
+        int device = (int) (index % devices);
+        String status = ((now + device * 7L) / STATUS_FLIP_PERIOD_MS) % 2 == 0 ? "ONLINE" : "OFFLINE";
+        // 由序号派生的伪随机 RTT，20~80ms，偶尔出现尖峰
+        long hash = index * 0x9E3779B97F4A7C15L;
+        int rtt = 20 + (int) ((hash >>> 40) % 60);
+        if ((hash >>> 58) == 0) {
+            rtt *= 5;
+        }
+        return RawDataRecord.of(new CpeRawData(deviceIds[device], status, rtt, now));
+    }
+
+    /**
+     * 超前于目标速率 1ms 以上时才休眠，避免每条记录都进出内核。
+     *
+     * @return 记录的时间戳: 不限速时为当前时间，限速时为按目标速率排定的到达时间
+     */
+    private long pace() {
+        if (nanosPerRecord == 0) {
+            return System.currentTimeMillis();
+        }
+        long offsetNanos = emitted++ * nanosPerRecord;
+        long ahead = startNanos + offsetNanos - System.nanoTime();
+        if (ahead > 1_000_000L) {
+            LockSupport.parkNanos(ahead);
+        }
+        // 最多超前 1ms 不休眠，排定时间不能晚于当前时间，否则延迟为负
+        return Math.min(startMillis + offsetNanos / 1_000_000L, System.currentTimeMillis());
+    }
+}
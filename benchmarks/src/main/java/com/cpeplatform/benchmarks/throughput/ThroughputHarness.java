@@ -0,0 +1,180 @@
+package com.cpeplatform.benchmarks.throughput;
+
+import com.cpeplatform.flink.CpeDataSplittingJob;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.MemorySize;
+import org.apache.flink.configuration.MetricOptions;
+import org.apache.flink.configuration.RestOptions;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.minicluster.MiniCluster;
+import org.apache.flink.runtime.minicluster.MiniClusterConfiguration;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.JsonNode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.node.ArrayNode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CpeDataSplittingJob 的端到端吞吐量测试。
+ * 在进程内的 MiniCluster 上运行与生产完全相同的拓扑 ({@link CpeDataSplittingJob#buildPipeline})，
+ * 只把 Kafka Source/Sink 换成 datagen Source 和内存 Sink。对每个并行度输出:
+ * 持续吞吐量、状态和特征路径的 Source 到 Sink 延迟 p50/p99、每个算子的最大反压比例和繁忙比例。
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.cpeplatform.benchmarks.throughput.ThroughputHarness \
+ *     --devices 10000 --rate 0 --records 5000000 --parallelism-levels 1,2,4,8 --output throughput-result.json
+ * </pre>
+ * 其余参数原样传给作业，例如 --gate.enabled true、--pipeline.independent-sources true。
+ * --mode checkpoint 改为运行 {@link CheckpointHarness}，测量检查点耗时与状态大小；
+ * --mode isolation 改为运行 {@link IsolationHarness}，测量预测分支饱和时状态路径的延迟。
+ */
+public final class ThroughputHarness {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ThroughputHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ParameterTool params = ParameterTool.fromArgs(args);
+        if ("checkpoint".equals(params.get("mode"))) {
+            CheckpointHarness.main(args);
+            return;
+        }
+        if ("isolation".equals(params.get("mode"))) {
+            IsolationHarness.main(args);
+            return;
+        }
+        int devices = params.getInt("devices", 10_000);
+        // 目标速率 (条/秒)，<= 0 表示不限速，测量吞吐量上限
+        double rate = params.getDouble("rate", 0);
+        long records = params.getLong("records", rate > 0 ? (long) (rate * params.getInt("duration-s", 30)) : 5_000_000L);
+        String output = params.get("output", "throughput-result.json");
+
+        ArrayNode results = MAPPER.createArrayNode();
+        for (String level : params.get("parallelism-levels", "1,2,4,8").split(",")) {
+            int parallelism = Integer.parseInt(level.trim());
+            ObjectNode result = runOnce(params, parallelism, devices, records, rate);
+            results.add(result);
+            System.out.println(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(result));
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(new File(output), results);
+        System.out.println("结果已写入 " + output);
+    }
+
+    private static ObjectNode runOnce(ParameterTool params, int parallelism, int devices, long records, double rate)
+            throws Exception {
+        LatencyHistogram.resetAll();
+
+        // --metrics.reporter prometheus 时可以在运行期间直接抓取作业的自定义指标
+        Configuration conf = CpeDataSplittingJob.metricsConfiguration(params);
+        conf.set(RestOptions.BIND_PORT, "0");
+        // 反压接口依赖 REST 端缓存的指标，默认 10 秒才刷新一次
+        conf.set(MetricOptions.METRIC_FETCHER_UPDATE_INTERVAL, 1000L);
+        conf.set(TaskManagerOptions.NETWORK_MEMORY_MIN, MemorySize.parse("256m"));
+        conf.set(TaskManagerOptions.NETWORK_MEMORY_MAX, MemorySize.parse("256m"));
+
+        // 开启 pipeline.slot-sharing-groups 时状态、特征两个 slot sharing group 各需要 parallelism 个 slot
+        MiniClusterConfiguration clusterConfig = new MiniClusterConfiguration.Builder()
+                .setConfiguration(conf)
+                .setNumTaskManagers(1)
+                .setNumSlotsPerTaskManager(parallelism * 2)
+                .build();
+
+        try (MiniCluster cluster = new MiniCluster(clusterConfig)) {
+            cluster.start();
+
+            StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+            env.setParallelism(parallelism);
+            CpeDataSplittingJob.configureStateBackend(env, params);
+            CpeDataSplittingJob.buildPipeline(env, params, new InMemoryPipelineConnectors(devices, records, rate));
+            JobGraph jobGraph = env.getStreamGraph().getJobGraph();
+
+            long start = System.nanoTime();
+            JobID jobId = cluster.submitJob(jobGraph).get().getJobID();
+            CompletableFuture<?> jobResult = cluster.requestJobResult(jobId);
+
+            URI restAddress = cluster.getRestAddress().get();
+            HttpClient http = HttpClient.newHttpClient();
+            Map<String, Double> maxBackpressure = new LinkedHashMap<>();
+            Map<String, Double> maxBusy = new LinkedHashMap<>();
+            while (!jobResult.isDone()) {
+                sampleBackpressure(http, restAddress, jobId, jobGraph, maxBackpressure, maxBusy);
+                TimeUnit.SECONDS.sleep(1);
+            }
+            jobResult.get();
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+            return report(parallelism, devices, records, rate, elapsedSeconds, maxBackpressure, maxBusy);
+        }
+    }
+
+    /**
+     * 读取每个算子所有并行实例中最大的反压比例和繁忙比例，记录整个运行过程中的最大值。
+     * 反压高说明下游处理不过来，繁忙比例接近 1 且没有反压的算子就是瓶颈所在。
+     */
+    static void sampleBackpressure(HttpClient http, URI restAddress, JobID jobId, JobGraph jobGraph,
+                                           Map<String, Double> maxBackpressure, Map<String, Double> maxBusy) {
+        for (JobVertex vertex : jobGraph.getVertices()) {
+            URI uri = restAddress.resolve("/jobs/" + jobId + "/vertices/" + vertex.getID() + "/backpressure");
+            try {
+                HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri).GET().build(),
+                        HttpResponse.BodyHandlers.ofString());
+                JsonNode subtasks = MAPPER.readTree(response.body()).path("subtasks");
+                double ratio = 0;
+                double busy = 0;
+                for (JsonNode subtask : subtasks) {
+                    ratio = Math.max(ratio, subtask.path("ratio").asDouble());
+                    busy = Math.max(busy, subtask.path("busyRatio").asDouble());
+                }
+                maxBackpressure.merge(vertex.getName(), ratio, Math::max);
+                maxBusy.merge(vertex.getName(), busy, Math::max);
+            } catch (Exception e) {
+                // 作业刚启动或已经结束时接口可能不可用，跳过这一次采样
+            }
+        }
+    }
+
+    private static ObjectNode report(int parallelism, int devices, long records, double rate, double elapsedSeconds,
+                                     Map<String, Double> maxBackpressure, Map<String, Double> maxBusy) {
+        ObjectNode result = MAPPER.createObjectNode();
+        result.put("parallelism", parallelism);
+        result.put("devices", devices);
+        result.put("records", records);
+        result.put("targetRate", rate);
+        result.put("elapsedSeconds", elapsedSeconds);
+        result.put("jobThroughputPerSecond", records / elapsedSeconds);
+        for (String sink : new String[]{InMemoryPipelineConnectors.STATUS_SINK,
+                InMemoryPipelineConnectors.FEATURES_SINK, InMemoryPipelineConnectors.PREDICTION_SINK,
+                InMemoryPipelineConnectors.RTT_SUMMARY_SINK, InMemoryPipelineConnectors.TOP_LATENCY_SINK,
+                InMemoryPipelineConnectors.DEAD_LETTER_SINK}) {
+            LatencyHistogram histogram = LatencyHistogram.get(sink);
+            if (histogram.count() == 0) {
+                continue;
+            }
+            ObjectNode node = result.putObject(sink);
+            node.put("records", histogram.count());
+            node.put("throughputPerSecond", histogram.throughputPerSecond());
+            node.put("latencyP50Ms", histogram.percentile(0.50));
+            node.put("latencyP99Ms", histogram.percentile(0.99));
+        }
+        ObjectNode backpressure = result.putObject("maxBackpressureRatio");
+        maxBackpressure.forEach(backpressure::put);
+        ObjectNode busy = result.putObject("maxBusyRatio");
+        maxBusy.forEach(busy::put);
+        return result;
+    }
+}
@@ -1,92 +1,448 @@
 package com.cpeplatform.flink;
 
-import com.cpeplatform.flink.deserializer.CpeRawDataDeserializer;
+import com.cpeplatform.flink.backfill.FeatureBackfill;
+import com.cpeplatform.flink.connector.KafkaPipelineConnectors;
+import com.cpeplatform.flink.connector.PipelineConnectors;
+import com.cpeplatform.flink.dictionary.DeviceIdEncoder;
+import com.cpeplatform.flink.metrics.PipelineMetrics;
 import com.cpeplatform.flink.model.*;
-import com.cpeplatform.flink.serializer.JsonSerializationSchema;
+import com.cpeplatform.flink.prediction.GrpcPredictionAsyncFunction;
+import com.cpeplatform.flink.prediction.MicroBatchSettings;
+import com.cpeplatform.flink.prediction.PacketLossScoringFunction;
+import com.cpeplatform.flink.processor.DeadLetterSplitter;
+import com.cpeplatform.flink.processor.DeviceStatusTracker;
+import com.cpeplatform.flink.processor.FeatureGate;
+import com.cpeplatform.flink.processor.GateSettings;
+import com.cpeplatform.flink.processor.GlobalTopKMerger;
+import com.cpeplatform.flink.processor.IncrementalFeatureProcessor;
+import com.cpeplatform.flink.processor.LatencyReorderBuffer;
+import com.cpeplatform.flink.processor.LocalTopKLatency;
+import com.cpeplatform.flink.processor.RttSketchAggregate;
+import com.cpeplatform.flink.processor.RttSummaryFunctions;
+import com.cpeplatform.flink.sketch.StatusRttSketches;
 import org.apache.flink.api.common.eventtime.WatermarkStrategy;
-import org.apache.flink.connector.kafka.sink.KafkaRecordSerializationSchema;
-import org.apache.flink.connector.kafka.sink.KafkaSink;
-import org.apache.flink.connector.kafka.source.KafkaSource;
-import org.apache.flink.connector.kafka.source.enumerator.initializer.OffsetsInitializer;
-import org.apache.flink.connector.kafka.source.reader.deserializer.KafkaRecordDeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.contrib.streaming.state.EmbeddedRocksDBStateBackend;
+import org.apache.flink.contrib.streaming.state.PredefinedOptions;
+import org.apache.flink.streaming.api.datastream.AsyncDataStream;
 import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.datastream.DataStreamUtils;
+import org.apache.flink.streaming.api.datastream.KeyedStream;
 import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
+import org.apache.flink.streaming.api.environment.CheckpointConfig;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
 import org.apache.flink.streaming.api.functions.ProcessFunction;
 import org.apache.flink.streaming.api.functions.windowing.ProcessWindowFunction;
+import org.apache.flink.streaming.api.graph.StreamGraphGenerator;
+import org.apache.flink.streaming.api.windowing.assigners.TumblingProcessingTimeWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
 import org.apache.flink.streaming.api.windowing.windows.GlobalWindow;
 import org.apache.flink.util.Collector;
 import org.apache.flink.util.OutputTag;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 public class CpeDataSplittingJob {
 
-    // --- 配置常量 ---
-    private static final String KAFKA_BOOTSTRAP_SERVERS = "localhost:9092,localhost:9093,localhost:9094";
-    private static final String INPUT_TOPIC = "cpe-raw-data";
-    // 输出 Topic 名称
-    private static final String OUTPUT_STATUS_TOPIC = "cpe-processed-status";
-    private static final String OUTPUT_FEATURES_TOPIC = "cpe-features-for-prediction";
-    private static final String CONSUMER_GROUP_ID = "cpe-flink-processor-group";
+    // 启动参数: 可以放在 --config 指定的 properties 文件中，命令行参数优先于文件中的同名参数
+    private static final String CONFIG_FILE = "config";
+    private static final String PARALLELISM = "parallelism";
+
+    // 运行模式: streaming (默认，实时消费 Kafka) / backfill (有界批处理，回填归档的原始数据文件)
+    private static final String MODE = "mode";
+
+    // 预测方式: kafka (默认，特征写入 Kafka 由 Spring 调用 gRPC 预测) / embedded (在作业内用 Java 直接执行 XGBoost 模型)
+    //          / async (在作业内通过异步 I/O 批量调用 gRPC 预测服务)
+    private static final String PREDICTION_MODE = "prediction.mode";
+    private static final String PREDICTION_MODEL_PATH = "prediction.model-path";
+    private static final String PREDICTION_THRESHOLD = "prediction.threshold";
+    private static final String PREDICTION_GRPC_ENDPOINTS = "prediction.grpc.endpoints";
+    private static final String PREDICTION_ASYNC_CAPACITY = "prediction.async.capacity";
+    private static final String PREDICTION_ASYNC_TIMEOUT_MS = "prediction.async.timeout-ms";
+    private static final String PREDICTION_BATCH_MIN_SIZE = "prediction.batch.min-size";
+    private static final String PREDICTION_BATCH_MAX_SIZE = "prediction.batch.max-size";
+    private static final String PREDICTION_BATCH_MIN_LINGER_MS = "prediction.batch.min-linger-ms";
+    private static final String PREDICTION_BATCH_MAX_LINGER_MS = "prediction.batch.max-linger-ms";
+    private static final String PREDICTION_BATCH_TARGET_LATENCY_MS = "prediction.batch.target-latency-ms";
+    private static final String PREDICTION_CALL_TIMEOUT_MS = "prediction.grpc.call-timeout-ms";
+
+    // 状态未变化时的刷新间隔 (<= 0 表示只发出状态变化)，以及每设备 Keyed State 的 TTL
+    private static final String STATUS_REFRESH_INTERVAL_MS = "status.refresh-interval-ms";
+    private static final String STATE_TTL_MS = "state.ttl-ms";
+
+    // 特征门控: 只有变化明显或过久未预测的特征集才送去预测
+    private static final String GATE_ENABLED = "gate.enabled";
+    private static final String GATE_MEAN_DELTA = "gate.mean-delta";
+    private static final String GATE_SLOPE_DELTA = "gate.slope-delta";
+    private static final String GATE_RANGE_DELTA = "gate.range-delta";
+    private static final String GATE_MAX_STALENESS_MS = "gate.max-staleness-ms";
+    // 窗口滑动步长与设备抽样比例的初始值，运行时可通过控制 Topic 调整
+    private static final String FEATURES_STRIDE = "features.stride";
+    private static final String FEATURES_SAMPLING_RATE = "features.sampling-rate";
+    // 开启后订阅控制 Topic，把调参消息广播给特征门控
+    private static final String CONTROL_ENABLED = "control.enabled";
+
+    // 状态路径与特征路径的并行度可以分别设置 (默认沿用 parallelism)
+    private static final String STATUS_PARALLELISM = "status.parallelism";
+    private static final String FEATURES_PARALLELISM = "features.parallelism";
+    // 开启后两条路径各自用独立的 Kafka Source (不同消费组) 读取原始数据，特征路径反压不会再拖慢状态路径
+    private static final String INDEPENDENT_SOURCES = "pipeline.independent-sources";
+    // 开启后状态路径与特征路径分别放在独立的 slot sharing group 中 (默认与 independent-sources 相同)。
+    // 所需 slot 数从 max(各算子并行度) 变为两个 group 之和 (见 cpe-job.example.properties)；
+    // 共用 Source 时 Source 和拆分算子放在状态路径的 group 中，且特征路径的反压仍会经由共用的 Source 拖慢状态路径
+    private static final String SLOT_SHARING_GROUPS = "pipeline.slot-sharing-groups";
+    private static final String STATUS_SLOT_GROUP = "status";
+    private static final String FEATURES_SLOT_GROUP = "features";
+
+    // 设备存活检测: 静默超过 timeout 的设备由作业合成 OFFLINE 状态，CPE 不必再为保持在线而持续上报
+    private static final String LIVENESS_ENABLED = "liveness.enabled";
+    private static final String LIVENESS_TIMEOUT_MS = "liveness.timeout-ms";
+    private static final String LIVENESS_TIMER_GRANULARITY_MS = "liveness.timer-granularity-ms";
+    // 处理时间兜底: 所有分区空闲、水位线不再推进时，按数据到达的处理时间判定离线 (默认 timeout + 空闲超时，<= 0 关闭)
+    private static final String LIVENESS_PROCESSING_TIMEOUT_MS = "liveness.processing-timeout-ms";
+    // 事件时间特征工程: 每设备的重排序缓冲区在水位线越过样本时间后按顺序放行，capacity 限制单设备缓冲的样本数
+    private static final String EVENT_TIME_ENABLED = "eventtime.enabled";
+    private static final String REORDER_CAPACITY = "eventtime.reorder-capacity";
+    // 设备 ID 字典快照路径 (每行一个设备 ID)，设置后特征路径的 shuffle 和 Keyed State 使用整数键
+    private static final String DICTIONARY_PATH = "dictionary.path";
+    // 事件时间水位线: 允许的乱序程度，以及分区多久没有数据后不再阻塞水位线推进
+    private static final String WATERMARK_MAX_OUT_OF_ORDERNESS_MS = "watermark.max-out-of-orderness-ms";
+    private static final String WATERMARK_IDLE_TIMEOUT_MS = "watermark.idle-timeout-ms";
+
+    // 全网 RTT 分位数汇总: 按分片在处理时间窗口内聚合草图，再全局合并，每个周期输出一条汇总
+    private static final String SUMMARY_ENABLED = "summary.enabled";
+    private static final String SUMMARY_INTERVAL_MS = "summary.interval-ms";
+    private static final String SUMMARY_SHARDS = "summary.shards";
+
+    // 延迟最差的 K 个设备: 每个并行实例本地维护 Top-K，再由单并行度算子定期全局合并
+    private static final String TOPK_ENABLED = "topk.enabled";
+    private static final String TOPK_K = "topk.k";
+    private static final String TOPK_INTERVAL_MS = "topk.interval-ms";
+    private static final String TOPK_SLOPE_WEIGHT = "topk.slope-weight";
+    private static final String TOPK_MAX_AGE_MS = "topk.max-age-ms";
+
+    // 指标 Reporter: none / prometheus / jmx，port 可以是端口范围 (同一台机器上多个 TaskManager 时依次占用)
+    // 只对本地执行 (IDE、MiniCluster、吞吐量测试) 生效；提交到集群时 Reporter 由 flink-conf.yaml 配置，指标名称相同
+    private static final String METRICS_REPORTER = "metrics.reporter";
+    private static final String METRICS_PORT = "metrics.port";
+
+    // 状态后端与检查点: hashmap (默认，状态在堆内存中) / rocksdb (生产模式，嵌入式 RocksDB + 增量检查点)
+    private static final String STATE_BACKEND = "state.backend";
+    private static final String CHECKPOINT_DIR = "checkpoint.dir";
+    private static final String CHECKPOINT_INTERVAL_MS = "checkpoint.interval-ms";
 
     public static void main(String[] args) throws Exception {
 
-        final StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        final ParameterTool params = loadParameters(args);
+        if ("backfill".equalsIgnoreCase(params.get(MODE))) {
+            FeatureBackfill.run(params);
+            return;
+        }
+
+        final StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment(metricsConfiguration(params));
+        env.getConfig().setGlobalJobParameters(params);
         // 线程数量
-        env.setParallelism(8);
-
-        KafkaSource<CpeRawData> source = KafkaSource.<CpeRawData>builder()
-                .setBootstrapServers(KAFKA_BOOTSTRAP_SERVERS)
-                .setTopics(INPUT_TOPIC)
-                .setGroupId(CONSUMER_GROUP_ID)
-                .setStartingOffsets(OffsetsInitializer.latest())
-                .setDeserializer(KafkaRecordDeserializationSchema.valueOnly(new CpeRawDataDeserializer()))
-                .build();
+        env.setParallelism(params.getInt(PARALLELISM, 8));
+        configureStateBackend(env, params);
 
-        DataStream<CpeRawData> rawStream = env.fromSource(source, WatermarkStrategy.noWatermarks(), "Kafka Raw Data Source")
-                .filter(java.util.Objects::nonNull);
-
-        final OutputTag<CpeLatencyData> latencyTag = new OutputTag<>("latency-output") {
-        };
-
-        SingleOutputStreamOperator<CpeStatusData> mainStream = rawStream
-                .process(new ProcessFunction<>() {
-                    @Override
-                    public void processElement(CpeRawData rawData, Context ctx, Collector<CpeStatusData> out) {
-                        // 发送状态数据
-                        CpeStatusData statusData = new CpeStatusData(rawData.getDeviceId(), rawData.getStatus(), rawData.getTimestamp());
-                        out.collect(statusData);
-                        // 发送延迟数据
-                        CpeLatencyData latencyData = new CpeLatencyData(rawData.getDeviceId(), rawData.getRtt(), rawData.getTimestamp());
-                        ctx.output(latencyTag, latencyData);
-                    }
-                });
-
-        // 主流现在包含了状态数据
-        DataStream<CpeLatencyData> latencyStream = mainStream.getSideOutput(latencyTag);
-
-        mainStream.sinkTo(createKafkaSink(OUTPUT_STATUS_TOPIC))
-                .name("Status Data Kafka Sink");
-
-        // 特征工程逻辑
-        DataStream<CpeFeatures> featuresStream = latencyStream
-                .keyBy(CpeLatencyData::getDeviceId)
-                .countWindow(5,1)
-                .process(new FeatureEngineeringProcessor());
-
-        // 将计算好的特征集写入新的 Kafka Topic
-        featuresStream.sinkTo(createKafkaSink(OUTPUT_FEATURES_TOPIC))
-                .name("Features Kafka Sink");
+        buildPipeline(env, params, new KafkaPipelineConnectors(params));
 
         env.execute("CPE 实时特征工程作业");
     }
 
+    /**
+     * 按 metrics.reporter 生成启用指标 Reporter 的配置。自定义指标的名称见 {@link PipelineMetrics}。
+     */
+    public static Configuration metricsConfiguration(ParameterTool params) {
+        Configuration conf = new Configuration();
+        String reporter = params.get(METRICS_REPORTER, "none");
+        if ("prometheus".equalsIgnoreCase(reporter)) {
+            conf.setString("metrics.reporter.prom.factory.class", "org.apache.flink.metrics.prometheus.PrometheusReporterFactory");
+            conf.setString("metrics.reporter.prom.port", params.get(METRICS_PORT, "9249-9259"));
+        } else if ("jmx".equalsIgnoreCase(reporter)) {
+            conf.setString("metrics.reporter.jmx.factory.class", "org.apache.flink.metrics.jmx.JMXReporterFactory");
+            conf.setString("metrics.reporter.jmx.port", params.get(METRICS_PORT, "8789-8799"));
+        } else if (!"none".equalsIgnoreCase(reporter)) {
+            throw new IllegalArgumentException("不支持的 metrics.reporter: " + reporter + " (可选 none / prometheus / jmx)");
+        }
+        return conf;
+    }
+
+    /**
+     * 在给定的执行环境上构建完整的作业拓扑。Source 和 Sink 由 connectors 提供，
+     * 生产环境使用 Kafka，吞吐量测试可以注入内存中的 Source 和 Sink。
+     */
+    public static void buildPipeline(StreamExecutionEnvironment env, ParameterTool params, PipelineConnectors connectors) {
+        long stateTtlMs = params.getLong(STATE_TTL_MS, 86_400_000L);
+        int statusParallelism = params.getInt(STATUS_PARALLELISM, env.getParallelism());
+        int featuresParallelism = params.getInt(FEATURES_PARALLELISM, env.getParallelism());
+        boolean independentSources = params.getBoolean(INDEPENDENT_SOURCES, false);
+        boolean slotSharingGroups = params.getBoolean(SLOT_SHARING_GROUPS, independentSources);
+        String statusGroup = slotSharingGroups ? STATUS_SLOT_GROUP : StreamGraphGenerator.DEFAULT_SLOT_SHARING_GROUP;
+        String featuresGroup = slotSharingGroups ? FEATURES_SLOT_GROUP : StreamGraphGenerator.DEFAULT_SLOT_SHARING_GROUP;
+        boolean livenessEnabled = params.getBoolean(LIVENESS_ENABLED, false);
+        boolean eventTimeEnabled = params.getBoolean(EVENT_TIME_ENABLED, false);
+        WatermarkStrategy<RawDataRecord> watermarks = livenessEnabled || eventTimeEnabled
+                ? rawDataWatermarks(params)
+                : WatermarkStrategy.noWatermarks();
+
+        DataStream<CpeStatusData> statusStream;
+        DataStream<CpeLatencyData> latencyStream;
+        // 特征路径看到的原始数据，全网 RTT 汇总也从这里取
+        DataStream<CpeRawData> featuresRawStream;
+        if (independentSources) {
+            // 两条路径各自消费原始数据，彼此之间没有任何数据交换
+            statusStream = env.fromSource(connectors.rawDataSource(PipelineConnectors.STATUS_BRANCH),
+                            watermarks, "Kafka Raw Data Source (Status)")
+                    .setParallelism(statusParallelism).slotSharingGroup(statusGroup)
+                    // 两个 Source 读到的死信相同，只由特征路径写入死信 Topic
+                    .process(new DeadLetterSplitter())
+                    .setParallelism(statusParallelism).slotSharingGroup(statusGroup)
+                    .map(CpeDataSplittingJob::toStatusData)
+                    .setParallelism(statusParallelism).slotSharingGroup(statusGroup);
+            SingleOutputStreamOperator<CpeRawData> featuresSplit = env.fromSource(
+                            connectors.rawDataSource(PipelineConnectors.FEATURES_BRANCH),
+                            watermarks, "Kafka Raw Data Source (Features)")
+                    .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup)
+                    .process(new DeadLetterSplitter())
+                    .name("Dead Letter Split")
+                    .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup);
+            featuresSplit.getSideOutput(DeadLetterSplitter.DEAD_LETTERS)
+                    .sinkTo(connectors.deadLetterSink())
+                    .name("Dead Letter Kafka Sink")
+                    .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup);
+            featuresRawStream = featuresSplit;
+            latencyStream = featuresRawStream
+                    .map(CpeDataSplittingJob::toLatencyData)
+                    .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup);
+        } else {
+            SingleOutputStreamOperator<CpeRawData> rawStream = env.fromSource(
+                            connectors.rawDataSource(PipelineConnectors.SHARED_BRANCH), watermarks, "Kafka Raw Data Source")
+                    .slotSharingGroup(statusGroup)
+                    .process(new DeadLetterSplitter())
+                    .name("Dead Letter Split")
+                    .slotSharingGroup(statusGroup);
+            // 无法解析的消息原样写入死信 Topic，与 Source 链在一起，不影响正常数据
+            rawStream.getSideOutput(DeadLetterSplitter.DEAD_LETTERS)
+                    .sinkTo(connectors.deadLetterSink())
+                    .name("Dead Letter Kafka Sink")
+                    .slotSharingGroup(statusGroup);
+
+            final OutputTag<CpeLatencyData> latencyTag = new OutputTag<>("latency-output") {
+            };
+
+            SingleOutputStreamOperator<CpeStatusData> mainStream = rawStream
+                    .process(new ProcessFunction<CpeRawData, CpeStatusData>() {
+                        @Override
+                        public void processElement(CpeRawData rawData, Context ctx, Collector<CpeStatusData> out) {
+                            // 发送状态数据
+                            out.collect(toStatusData(rawData));
+                            // 发送延迟数据
+                            ctx.output(latencyTag, toLatencyData(rawData));
+                        }
+                    })
+                    .slotSharingGroup(statusGroup);
+
+            // 主流现在包含了状态数据
+            statusStream = mainStream;
+            latencyStream = mainStream.getSideOutput(latencyTag);
+            featuresRawStream = rawStream;
+        }
+
+        if (params.getBoolean(SUMMARY_ENABLED, false)) {
+            buildRttSummary(featuresRawStream, params, featuresParallelism, featuresGroup, connectors);
+        }
+
+        // 只转发状态变化 (以及可选的定时刷新)，大幅减少 cpe-processed-status 的消息量和数据库写入
+        // 开启存活检测时，静默设备由事件时间定时器合成 OFFLINE，水位线停止推进时由处理时间定时器兜底
+        long livenessTimeoutMs = livenessEnabled ? params.getLong(LIVENESS_TIMEOUT_MS, 180_000L) : 0L;
+        statusStream
+                .keyBy(CpeStatusData::getDeviceId)
+                .process(new DeviceStatusTracker(
+                        params.getLong(STATUS_REFRESH_INTERVAL_MS, 300_000L),
+                        stateTtlMs,
+                        livenessTimeoutMs,
+                        params.getLong(LIVENESS_TIMER_GRANULARITY_MS, 10_000L),
+                        params.getLong(LIVENESS_PROCESSING_TIMEOUT_MS,
+                                livenessTimeoutMs + params.getLong(WATERMARK_IDLE_TIMEOUT_MS, 60_000L))))
+                .name("Status Change Filter")
+                .setParallelism(statusParallelism).slotSharingGroup(statusGroup)
+                .sinkTo(connectors.statusSink())
+                .name("Status Data Kafka Sink")
+                .setParallelism(statusParallelism).slotSharingGroup(statusGroup);
+
+        // 字典模式: 延迟数据在 keyBy 之前编码为整数键 (与上游算子链在一起)，特征工程输出时再解码
+        String dictionaryPath = params.get(DICTIONARY_PATH);
+        DataStream<CpeFeatures> featuresStream = dictionaryPath != null
+                ? buildFeatureEngineering(latencyStream
+                                .map(new DeviceIdEncoder(dictionaryPath))
+                                .name("Device ID Encoder")
+                                .setParallelism(latencyStream.getParallelism()),
+                        CpeLatencyData::getDeviceKey, Types.LONG, dictionaryPath, params, featuresParallelism, featuresGroup)
+                : buildFeatureEngineering(latencyStream,
+                        CpeLatencyData::getDeviceId, Types.STRING, null, params, featuresParallelism, featuresGroup);
+
+        // 排行看到的是门控之前的全部特征集
+        if (params.getBoolean(TOPK_ENABLED, false)) {
+            buildTopLatency(featuresStream, params, featuresParallelism, featuresGroup, connectors);
+        }
+
+        GateSettings gateSettings = gateSettings(params);
+        boolean controlEnabled = params.getBoolean(CONTROL_ENABLED, false);
+        if (gateSettings.isEnabled() || controlEnabled) {
+            // 控制流只有少量消息，单并行度读取后广播到门控的每个并行实例
+            DataStream<PipelineControl> controlStream = controlEnabled
+                    ? env.fromSource(connectors.controlSource(), WatermarkStrategy.noWatermarks(), "Kafka Pipeline Control Source")
+                            .setParallelism(1).slotSharingGroup(featuresGroup)
+                            .filter(java.util.Objects::nonNull)
+                            .setParallelism(1).slotSharingGroup(featuresGroup)
+                    : env.fromCollection(Collections.<PipelineControl>emptyList(), TypeInformation.of(PipelineControl.class))
+                            .slotSharingGroup(featuresGroup);
+            // 特征流已按设备分区，直接复用分区，不再额外 shuffle (门控并行度必须与特征工程一致)
+            // 字典模式下使用特征集上携带的 deviceKey，即上游分区时的键，不能由各 TaskManager 的字典重新计算
+            featuresStream = dictionaryPath != null
+                    ? gateFeatures(featuresStream, CpeFeatures::getDeviceKey, Types.LONG,
+                            controlStream, gateSettings, stateTtlMs, featuresParallelism, featuresGroup)
+                    : gateFeatures(featuresStream, CpeFeatures::getDeviceId, Types.STRING,
+                            controlStream, gateSettings, stateTtlMs, featuresParallelism, featuresGroup);
+        }
+
+        String predictionMode = params.get(PREDICTION_MODE, "kafka");
+        if ("embedded".equalsIgnoreCase(predictionMode)) {
+            // 在作业内直接打分，结果写入预测结果 Topic
+            featuresStream
+                    .map(new PacketLossScoringFunction(params.getRequired(PREDICTION_MODEL_PATH),
+                            params.getDouble(PREDICTION_THRESHOLD, 0.5)))
+                    .name("Embedded XGBoost Scoring")
+                    .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup)
+                    .sinkTo(connectors.predictionSink())
+                    .name("Prediction Result Kafka Sink")
+                    .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup);
+        } else if ("async".equalsIgnoreCase(predictionMode)) {
+            // 在作业内微批调用 gRPC 预测服务，容量有界，服务变慢时反压传递到 Kafka Source
+            AsyncDataStream.unorderedWait(
+                            featuresStream,
+                            new GrpcPredictionAsyncFunction(
+                                    Arrays.asList(params.get(PREDICTION_GRPC_ENDPOINTS, "localhost:9090,localhost:9091").split(",")),
+                                    microBatchSettings(params)),
+                            params.getLong(PREDICTION_ASYNC_TIMEOUT_MS, 5000), TimeUnit.MILLISECONDS,
+                            params.getInt(PREDICTION_ASYNC_CAPACITY, 1000))
+                    .name("Async gRPC Prediction")
+                    .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup)
+                    .sinkTo(connectors.predictionSink())
+                    .name("Prediction Result Kafka Sink")
+                    .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup);
+        } else {
+            // 将计算好的特征集写入新的 Kafka Topic
+            featuresStream.sinkTo(connectors.featuresSink())
+                    .name("Features Kafka Sink")
+                    .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup);
+        }
+    }
+
+    /**
+     * 全网 RTT 分位数汇总。第一级按分片 (设备哈希取模) 在处理时间窗口内聚合草图，第二级用 windowAll 合并所有分片。
+     * 每个分片只保存固定大小的草图，内存与设备数量无关；全局合并每个周期只处理 shards 条记录。
+     */
+    private static void buildRttSummary(DataStream<CpeRawData> rawStream, ParameterTool params, int featuresParallelism,
+                                        String featuresGroup, PipelineConnectors connectors) {
+        Time interval = Time.milliseconds(params.getLong(SUMMARY_INTERVAL_MS, 10_000L));
+        int shards = params.getInt(SUMMARY_SHARDS, featuresParallelism);
+        rawStream
+                .keyBy(rawData -> Math.floorMod(rawData.getDeviceId().hashCode(), shards), Types.INT)
+                .window(TumblingProcessingTimeWindows.of(interval))
+                .aggregate(new RttSketchAggregate(), new RttSummaryFunctions.TagShardWindow())
+                .name("RTT Sketch (Shard)")
+                .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup)
+                .windowAll(TumblingProcessingTimeWindows.of(interval))
+                .reduce(StatusRttSketches::merge, new RttSummaryFunctions.ToSummary())
+                .name("RTT Sketch (Global Merge)")
+                .slotSharingGroup(featuresGroup)
+                .sinkTo(connectors.rttSummarySink())
+                .name("RTT Summary Kafka Sink")
+                .setParallelism(1).slotSharingGroup(featuresGroup);
+    }
+
+    /**
+     * 按设备分区的特征工程: 可选的事件时间重排序缓冲区，加上增量特征计算。
+     * deviceKey 决定 keyBy 的键，字符串设备 ID 或字典编码后的整数键。
+     */
+    private static <K> DataStream<CpeFeatures> buildFeatureEngineering(DataStream<CpeLatencyData> latencyStream,
+                                                                       KeySelector<CpeLatencyData, K> deviceKey,
+                                                                       TypeInformation<K> keyType,
+                                                                       String dictionaryPath,
+                                                                       ParameterTool params,
+                                                                       int featuresParallelism,
+                                                                       String featuresGroup) {
+        long stateTtlMs = params.getLong(STATE_TTL_MS, 86_400_000L);
+        KeyedStream<CpeLatencyData, K> keyedLatencyStream = latencyStream.keyBy(deviceKey, keyType);
+        if (params.getBoolean(EVENT_TIME_ENABLED, false)) {
+            // 先按事件时间重排序，放行后的流仍按设备分区，特征工程直接复用分区
+            DataStream<CpeLatencyData> orderedStream = keyedLatencyStream
+                    .process(new LatencyReorderBuffer<K>(params.getInt(REORDER_CAPACITY, 16)))
+                    .name("Per-Device Reorder Buffer")
+                    .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup);
+            keyedLatencyStream = DataStreamUtils.reinterpretAsKeyedStream(orderedStream, deviceKey, keyType);
+        }
+
+        // 特征工程逻辑：每个设备在 Keyed State 中维护一个 RTT 环形缓冲区，增量计算特征
+        return keyedLatencyStream
+                .process(new IncrementalFeatureProcessor<K>(stateTtlMs, dictionaryPath))
+                .name("Incremental Feature Engineering")
+                .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup);
+    }
+
+    private static <K> DataStream<CpeFeatures> gateFeatures(DataStream<CpeFeatures> featuresStream,
+                                                            KeySelector<CpeFeatures, K> deviceKey,
+                                                            TypeInformation<K> keyType,
+                                                            DataStream<PipelineControl> controlStream,
+                                                            GateSettings gateSettings,
+                                                            long stateTtlMs,
+                                                            int featuresParallelism,
+                                                            String featuresGroup) {
+        return DataStreamUtils.reinterpretAsKeyedStream(featuresStream, deviceKey, keyType)
+                .connect(controlStream.broadcast(FeatureGate.SETTINGS_DESCRIPTOR))
+                .process(new FeatureGate<K>(gateSettings, stateTtlMs))
+                .name("Feature Gate")
+                .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup);
+    }
+
+    /**
+     * 延迟最差设备排行。特征流已按设备分区，本地 Top-K 直接与特征工程链在一起；
+     * 全局合并只接收每个并行实例每周期一份大小为 K 的快照。
+     */
+    private static void buildTopLatency(DataStream<CpeFeatures> featuresStream, ParameterTool params,
+                                        int featuresParallelism, String featuresGroup, PipelineConnectors connectors) {
+        int k = params.getInt(TOPK_K, 100);
+        long intervalMs = params.getLong(TOPK_INTERVAL_MS, 5_000L);
+        long maxAgeMs = params.getLong(TOPK_MAX_AGE_MS, 300_000L);
+        featuresStream
+                .process(new LocalTopKLatency(k, params.getDouble(TOPK_SLOPE_WEIGHT, 4.0), intervalMs, maxAgeMs))
+                .name("Top-K Latency (Local)")
+                .setParallelism(featuresParallelism).slotSharingGroup(featuresGroup)
+                .keyBy(snapshot -> 0, Types.INT)
+                .process(new GlobalTopKMerger(k, intervalMs, maxAgeMs))
+                .name("Top-K Latency (Global Merge)")
+                .setParallelism(1).slotSharingGroup(featuresGroup)
+                .sinkTo(connectors.topLatencySink())
+                .name("Top Latency Kafka Sink")
+                .setParallelism(1).slotSharingGroup(featuresGroup);
+    }
+
     /**
      * 核心处理器，负责从5个RTT数据点中计算出所有统计和趋势特征。
+     * 作业已改用 {@link IncrementalFeatureProcessor}，这里保留基于 countWindow 的原始实现作为对照基准。
      */
     public static class FeatureEngineeringProcessor extends ProcessWindowFunction<CpeLatencyData, CpeFeatures, String, GlobalWindow> {
         @Override
@@ -136,7 +492,7 @@ public class CpeDataSplittingJob {
         /**
          * 计算5个点的简单线性回归斜率
          */
-        private double calculateSlope(List<Integer> y) {
+        public static double calculateSlope(List<Integer> y) {
             int n = y.size();
             double[] x = IntStream.range(1, n + 1).mapToDouble(i -> i).toArray();
 
@@ -154,16 +510,86 @@ public class CpeDataSplittingJob {
         }
     }
 
-    private static <T> KafkaSink<T> createKafkaSink(String topic) {
-        KafkaRecordSerializationSchema<T> serializer = KafkaRecordSerializationSchema.<T>builder()
-                .setTopic(topic)
-                .setValueSerializationSchema(new JsonSerializationSchema<>())
+    /**
+     * 配置状态后端和检查点。
+     * rocksdb 模式下每设备状态保存在本地磁盘的 RocksDB 中，只受磁盘容量限制；
+     * 增量检查点只上传新生成的 SST 文件，检查点耗时与设备总数基本无关。
+     */
+    public static void configureStateBackend(StreamExecutionEnvironment env, ParameterTool params) {
+        boolean rocksDb = "rocksdb".equalsIgnoreCase(params.get(STATE_BACKEND, "hashmap"));
+        if (rocksDb) {
+            EmbeddedRocksDBStateBackend backend = new EmbeddedRocksDBStateBackend(true);
+            backend.setPredefinedOptions(PredefinedOptions.FLASH_SSD_OPTIMIZED);
+            env.setStateBackend(backend);
+        }
+
+        // 默认只有 rocksdb 模式开启检查点，保持原有本地运行方式不变
+        long checkpointInterval = params.getLong(CHECKPOINT_INTERVAL_MS, rocksDb ? 60_000L : 0L);
+        if (checkpointInterval > 0) {
+            env.enableCheckpointing(checkpointInterval);
+            CheckpointConfig checkpointConfig = env.getCheckpointConfig();
+            checkpointConfig.setCheckpointStorage(params.get(CHECKPOINT_DIR, "file:///tmp/cpe-flink-checkpoints"));
+            checkpointConfig.setMinPauseBetweenCheckpoints(checkpointInterval / 2);
+            // 作业取消后保留检查点，便于从最近的状态恢复
+            checkpointConfig.setExternalizedCheckpointCleanup(
+                    CheckpointConfig.ExternalizedCheckpointCleanup.RETAIN_ON_CANCELLATION);
+        }
+    }
+
+    /**
+     * 读取启动参数。--config 指定的 properties 文件 (本地路径) 提供基础配置，命令行参数覆盖文件中的同名参数。
+     */
+    private static ParameterTool loadParameters(String[] args) throws IOException {
+        ParameterTool fromArgs = ParameterTool.fromArgs(args);
+        if (!fromArgs.has(CONFIG_FILE)) {
+            return fromArgs;
+        }
+        return ParameterTool.fromPropertiesFile(fromArgs.get(CONFIG_FILE)).mergeWith(fromArgs);
+    }
+
+    /**
+     * 以设备上报的时间戳作为事件时间。没有数据的分区在 idle-timeout 后被标记为空闲，
+     * 否则一个空分区就会让全部存活检测和重排序定时器停止触发。
+     */
+    private static WatermarkStrategy<RawDataRecord> rawDataWatermarks(ParameterTool params) {
+        return WatermarkStrategy
+                .<RawDataRecord>forBoundedOutOfOrderness(Duration.ofMillis(params.getLong(WATERMARK_MAX_OUT_OF_ORDERNESS_MS, 5_000L)))
+                // 死信没有设备时间戳，沿用 Kafka 消息的时间戳
+                .withTimestampAssigner((record, recordTimestamp) ->
+                        record.getData() != null ? record.getData().getTimestamp() : recordTimestamp)
+                .withIdleness(Duration.ofMillis(params.getLong(WATERMARK_IDLE_TIMEOUT_MS, 60_000L)));
+    }
+
+    private static GateSettings gateSettings(ParameterTool params) {
+        return GateSettings.builder()
+                .enabled(params.getBoolean(GATE_ENABLED, false))
+                .meanDelta(params.getDouble(GATE_MEAN_DELTA, 5.0))
+                .slopeDelta(params.getDouble(GATE_SLOPE_DELTA, 2.0))
+                .rangeDelta(params.getDouble(GATE_RANGE_DELTA, 10.0))
+                .maxStalenessMs(params.getLong(GATE_MAX_STALENESS_MS, 60_000L))
+                .featureStride(Math.max(1, params.getInt(FEATURES_STRIDE, 1)))
+                .samplingRate(params.getDouble(FEATURES_SAMPLING_RATE, 1.0))
                 .build();
+    }
 
-        return KafkaSink.<T>builder()
-                .setBootstrapServers(KAFKA_BOOTSTRAP_SERVERS)
-                .setRecordSerializer(serializer)
+    private static MicroBatchSettings microBatchSettings(ParameterTool params) {
+        return MicroBatchSettings.builder()
+                .minBatchSize(params.getInt(PREDICTION_BATCH_MIN_SIZE, 8))
+                .maxBatchSize(params.getInt(PREDICTION_BATCH_MAX_SIZE, 256))
+                // linger 至少 1ms，否则自适应调整时无法再增长
+                .minLingerMs(Math.max(1, params.getLong(PREDICTION_BATCH_MIN_LINGER_MS, 2)))
+                .maxLingerMs(Math.max(1, params.getLong(PREDICTION_BATCH_MAX_LINGER_MS, 20)))
+                .targetLatencyMs(params.getLong(PREDICTION_BATCH_TARGET_LATENCY_MS, 50))
+                .callTimeoutMs(params.getLong(PREDICTION_CALL_TIMEOUT_MS, 2000))
                 .build();
     }
+
+    private static CpeStatusData toStatusData(CpeRawData rawData) {
+        return new CpeStatusData(rawData.getDeviceId(), rawData.getStatus(), rawData.getTimestamp());
+    }
+
+    private static CpeLatencyData toLatencyData(CpeRawData rawData) {
+        return new CpeLatencyData(rawData.getDeviceId(), rawData.getRtt(), rawData.getTimestamp());
+    }
 }
 
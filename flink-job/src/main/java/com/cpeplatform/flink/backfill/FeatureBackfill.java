@@ -0,0 +1,96 @@
+package com.cpeplatform.flink.backfill;
+
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.CpeLatencyData;
+import com.cpeplatform.flink.model.CpeRawData;
+import com.cpeplatform.flink.processor.IncrementalFeatureProcessor;
+import org.apache.flink.api.common.BatchShuffleMode;
+import org.apache.flink.api.common.RuntimeExecutionMode;
+import org.apache.flink.api.common.eventtime.WatermarkStrategy;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.ExecutionOptions;
+import org.apache.flink.configuration.NettyShuffleEnvironmentOptions;
+import org.apache.flink.connector.file.sink.FileSink;
+import org.apache.flink.connector.file.src.FileSource;
+import org.apache.flink.connector.file.src.reader.TextLineInputFormat;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.functions.sink.filesystem.OutputFileConfig;
+import org.apache.flink.streaming.api.functions.sink.filesystem.bucketassigners.BasePathBucketAssigner;
+
+import java.time.Duration;
+
+/**
+ * 历史数据的批量回填。
+ * <p>
+ * 用有界的 FileSource 读取归档的原始数据文件 (CSV / NDJSON，.gz 文件会自动解压)，
+ * 以 BATCH 运行模式执行与实时作业相同的特征工程，输出训练脚本可直接使用的特征 CSV 文件。
+ * BATCH 模式下 keyBy 的输入会先按 (deviceId, 时间戳) 排序，因此每个设备的样本按事件时间顺序进入特征计算。
+ * <p>
+ * 输出文件名默认为 {@code cpe_a_backfill-<uid>-<n>-mobile.csv}，与 prediction_server.py 的 load_file
+ * 读取的 {@code cpe_a*-mobile.csv} 一致，可以直接放进训练数据目录。归档数据中没有标签，
+ * 文件只包含 13 个模型输入列；训练脚本会跳过没有 label 列的文件，补上标签列后才会参与训练。
+ * <p>
+ * 损坏行的比例超过 {@value #MAX_ERROR_RATIO} (默认 0.01) 时作业失败，不产出输出文件。
+ */
+public final class FeatureBackfill {
+
+    public static final String INPUT_PATH = "backfill.input";
+    public static final String OUTPUT_PATH = "backfill.output";
+    public static final String PARALLELISM = "backfill.parallelism";
+    public static final String MAX_ERROR_RATIO = "backfill.max-error-ratio";
+    // 输出文件名的前缀 / 后缀，默认值与训练脚本读取的文件名规则一致
+    public static final String PART_PREFIX = "backfill.part-prefix";
+    public static final String PART_SUFFIX = "backfill.part-suffix";
+    static final String DEFAULT_PART_PREFIX = "cpe_a_backfill";
+    static final String DEFAULT_PART_SUFFIX = "-mobile.csv";
+
+    private FeatureBackfill() {
+    }
+
+    public static void run(ParameterTool params) throws Exception {
+        Configuration conf = new Configuration();
+        conf.set(ExecutionOptions.RUNTIME_MODE, RuntimeExecutionMode.BATCH);
+        // 所有数据交换都落盘并使用基于排序的 shuffle，避免大量小文件和随机 I/O
+        conf.set(ExecutionOptions.BATCH_SHUFFLE_MODE, BatchShuffleMode.ALL_EXCHANGES_BLOCKING);
+        conf.set(NettyShuffleEnvironmentOptions.NETWORK_SORT_SHUFFLE_MIN_PARALLELISM, 1);
+
+        final StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment(conf);
+        env.getConfig().setGlobalJobParameters(params);
+        // 默认用满所有 CPU 核
+        env.setParallelism(params.getInt(PARALLELISM, Runtime.getRuntime().availableProcessors()));
+
+        FileSource<String> source = FileSource
+                .forRecordStreamFormat(new TextLineInputFormat(), new Path(params.getRequired(INPUT_PATH)))
+                .build();
+
+        FileSink<CpeFeatures> sink = FileSink
+                .forBulkFormat(new Path(params.getRequired(OUTPUT_PATH)), new FeatureCsvWriterFactory())
+                // 所有文件直接写在输出目录下，不按写入时间分桶
+                .withBucketAssigner(new BasePathBucketAssigner<>())
+                .withOutputFileConfig(OutputFileConfig.builder()
+                        .withPartPrefix(params.get(PART_PREFIX, DEFAULT_PART_PREFIX))
+                        .withPartSuffix(params.get(PART_SUFFIX, DEFAULT_PART_SUFFIX))
+                        .build())
+                .build();
+
+        env.fromSource(source, WatermarkStrategy.noWatermarks(), "Archived Raw Data Files")
+                .flatMap(new RawDataLineParser(params.getDouble(MAX_ERROR_RATIO, 0.01)))
+                .name("Parse Raw Data Lines")
+                // 事件时间戳用于 BATCH 模式下按设备内的时间顺序排序
+                .assignTimestampsAndWatermarks(WatermarkStrategy
+                        .<CpeRawData>forBoundedOutOfOrderness(Duration.ZERO)
+                        .withTimestampAssigner((rawData, ts) -> rawData.getTimestamp()))
+                .map(rawData -> new CpeLatencyData(rawData.getDeviceId(), rawData.getRtt(), rawData.getTimestamp()))
+                .name("To Latency Data")
+                .keyBy(CpeLatencyData::getDeviceId)
+                // 批处理中状态天然有界，不需要 TTL
+                .process(new IncrementalFeatureProcessor<String>(0))
+                .name("Incremental Feature Engineering")
+                .sinkTo(sink)
+                .name("Feature CSV File Sink");
+
+        env.execute("CPE 特征历史回填作业");
+    }
+}
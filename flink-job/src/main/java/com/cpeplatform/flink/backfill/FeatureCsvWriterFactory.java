@@ -0,0 +1,65 @@
+package com.cpeplatform.flink.backfill;
+
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.prediction.FeatureVector;
+import org.apache.flink.api.common.serialization.BulkWriter;
+import org.apache.flink.core.fs.FSDataOutputStream;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 把特征集写成训练脚本可直接读取的 CSV 文件。
+ * 每个输出文件第一行是表头，列顺序与 prediction_server.py 中模型的输入列顺序一致。
+ */
+public class FeatureCsvWriterFactory implements BulkWriter.Factory<CpeFeatures> {
+
+    private static final byte[] HEADER =
+            (String.join(",", FeatureVector.DEFAULT_FEATURE_ORDER) + "\n").getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public BulkWriter<CpeFeatures> create(FSDataOutputStream out) throws IOException {
+        out.write(HEADER);
+        return new FeatureCsvWriter(out);
+    }
+
+    private static final class FeatureCsvWriter implements BulkWriter<CpeFeatures> {
+
+        private final FSDataOutputStream out;
+        private final StringBuilder line = new StringBuilder(128);
+
+        private FeatureCsvWriter(FSDataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void addElement(CpeFeatures features) throws IOException {
+            line.setLength(0);
+            int columns = FeatureVector.DEFAULT_FEATURE_ORDER.size();
+            for (int i = 0; i < columns; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                double value = FeatureVector.valueOf(features, i);
+                // 原始 RTT 列保持整数格式
+                if (i >= FeatureVector.FIRST_RAW_DELAY_INDEX) {
+                    line.append((long) value);
+                } else {
+                    line.append(value);
+                }
+            }
+            line.append('\n');
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.cpeplatform.flink.backfill;
+
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.CpeRawData;
+import org.apache.flink.api.common.functions.RichFlatMapFunction;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.JsonParser;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.util.Collector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 解析归档原始数据文件中的一行。
+ * 支持两种格式，按行自动识别：
+ * <ul>
+ *     <li>NDJSON：每行一个与 cpe-raw-data 主题相同的 JSON 对象</li>
+ *     <li>CSV：deviceId,status,rtt,timestamp (表头行会被跳过)</li>
+ * </ul>
+ * 损坏的行跳过并计入 backfill.malformed (解析成功的计入 backfill.records)，前几条打印截断后的样本。
+ * 输入结束时若本并行实例的损坏行比例超过 maxErrorRatio 则抛出异常使作业失败：
+ * BATCH 模式下解析阶段在特征计算和写文件之前结束，失败时不会产出不完整的训练数据。
+ */
+public class RawDataLineParser extends RichFlatMapFunction<String, CpeRawData> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RawDataLineParser.class);
+    // 异常消息中不附带输入内容，日志里只出现截断后的预览
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(JsonParser.Feature.INCLUDE_SOURCE_IN_LOCATION, false);
+    // 每个并行实例最多打印的损坏行样本数，以及样本的最大长度
+    private static final int MAX_LOGGED_SAMPLES = 5;
+    private static final int PREVIEW_CHARS = 256;
+
+    private final double maxErrorRatio;
+
+    private transient Counter records;
+    private transient Counter malformed;
+    private transient long parsedLines;
+    private transient long malformedLines;
+
+    /**
+     * @param maxErrorRatio 允许的损坏行比例 [0, 1]，按每个并行实例读到的非空、非表头行计算
+     */
+    public RawDataLineParser(double maxErrorRatio) {
+        this.maxErrorRatio = maxErrorRatio;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        MetricGroup group = getRuntimeContext().getMetricGroup().addGroup(PipelineMetrics.BACKFILL);
+        records = group.counter(PipelineMetrics.RECORDS);
+        malformed = group.counter(PipelineMetrics.MALFORMED);
+        parsedLines = 0;
+        malformedLines = 0;
+    }
+
+    @Override
+    public void flatMap(String line, Collector<CpeRawData> out) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty()) {
+            return;
+        }
+        CpeRawData data;
+        try {
+            data = parse(trimmed);
+        } catch (Exception e) {
+            reportMalformed(trimmed, e.getClass().getSimpleName() + ": " + e.getMessage());
+            return;
+        }
+        if (data == null) {
+            return;
+        }
+        if (data.getDeviceId() == null || data.getDeviceId().isEmpty()) {
+            reportMalformed(trimmed, "缺少 deviceId");
+            return;
+        }
+        parsedLines++;
+        records.inc();
+        out.collect(data);
+    }
+
+    @Override
+    public void close() {
+        long total = parsedLines + malformedLines;
+        if (total == 0) {
+            return;
+        }
+        double ratio = (double) malformedLines / total;
+        LOG.info("原始数据解析完成 (子任务 {}): 成功 {} 行, 损坏 {} 行 ({})",
+                getRuntimeContext().getIndexOfThisSubtask(), parsedLines, malformedLines, String.format("%.4f", ratio));
+        if (ratio > maxErrorRatio) {
+            throw new IllegalStateException(String.format(
+                    "损坏行比例 %.4f 超过上限 %.4f (损坏 %d / 共 %d 行)，回填作业终止",
+                    ratio, maxErrorRatio, malformedLines, total));
+        }
+    }
+
+    /**
+     * @return 解析出的记录；表头行返回 null
+     */
+    private static CpeRawData parse(String line) throws Exception {
+        if (line.charAt(0) == '{') {
+            return objectMapper.readValue(line, CpeRawData.class);
+        }
+        String[] columns = line.split(",");
+        if (columns.length < 4) {
+            throw new IllegalArgumentException("CSV 列数不足: " + columns.length);
+        }
+        if ("rtt".equalsIgnoreCase(columns[2].trim())) {
+            return null;
+        }
+        return new CpeRawData(columns[0].trim(), columns[1].trim(),
+                Integer.parseInt(columns[2].trim()), Long.parseLong(columns[3].trim()));
+    }
+
+    private void reportMalformed(String line, String error) {
+        malformedLines++;
+        malformed.inc();
+        if (malformedLines <= MAX_LOGGED_SAMPLES) {
+            LOG.warn("跳过无法解析的行 (子任务 {} 的第 {} 条): 原因: {}, 内容预览: {}",
+                    getRuntimeContext().getIndexOfThisSubtask(), malformedLines, error,
+                    line.length() > PREVIEW_CHARS ? line.substring(0, PREVIEW_CHARS) : line);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.cpeplatform.flink.connector;
+
+import com.cpeplatform.flink.deserializer.CpeRawDataDeserializer;
+import com.cpeplatform.flink.deserializer.CpeRawDataProtobufDeserializer;
+import com.cpeplatform.flink.deserializer.PipelineControlDeserializer;
+import com.cpeplatform.flink.deserializer.RawDataRecordDeserializer;
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.CpeRawData;
+import com.cpeplatform.flink.model.CpeStatusData;
+import com.cpeplatform.flink.model.DeadLetter;
+import com.cpeplatform.flink.model.PipelineControl;
+import com.cpeplatform.flink.model.PredictionResult;
+import com.cpeplatform.flink.model.RawDataRecord;
+import com.cpeplatform.flink.model.RttSummary;
+import com.cpeplatform.flink.model.TopLatencyRanking;
+import com.cpeplatform.flink.serializer.DeadLetterSerializationSchema;
+import com.cpeplatform.flink.serializer.JsonSerializationSchema;
+import com.cpeplatform.flink.serializer.ProtobufConverters;
+import com.cpeplatform.flink.serializer.ProtobufSerializationSchema;
+import com.cpeplatform.flink.serializer.WireFormat;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.apache.flink.api.connector.sink2.Sink;
+import org.apache.flink.api.connector.source.Source;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.apache.flink.connector.kafka.sink.KafkaRecordSerializationSchema;
+import org.apache.flink.connector.kafka.sink.KafkaSink;
+import org.apache.flink.connector.kafka.source.KafkaSource;
+import org.apache.flink.connector.kafka.source.enumerator.initializer.OffsetsInitializer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Properties;
+
+/**
+ * 基于 Kafka 的输入输出: Topic、消费组、每个 Topic 的消息格式以及每个 Sink 的 Producer 批量参数都来自作业参数。
+ */
+public class KafkaPipelineConnectors implements PipelineConnectors {
+
+    // --- 配置默认值 ---
+    private static final String KAFKA_BOOTSTRAP_SERVERS = "localhost:9092,localhost:9093,localhost:9094";
+    private static final String INPUT_TOPIC = "cpe-raw-data";
+    // 输出 Topic 名称
+    private static final String OUTPUT_STATUS_TOPIC = "cpe-processed-status";
+    private static final String OUTPUT_FEATURES_TOPIC = "cpe-features-for-prediction";
+    private static final String OUTPUT_PREDICTION_TOPIC = "cpe-prediction-result";
+    private static final String OUTPUT_RTT_SUMMARY_TOPIC = "cpe-rtt-summary";
+    private static final String OUTPUT_TOP_LATENCY_TOPIC = "cpe-top-latency";
+    // 无法解析的原始消息
+    private static final String DEAD_LETTER_TOPIC = "cpe-raw-data-dlq";
+    // 运行时调参的控制 Topic
+    private static final String CONTROL_TOPIC = "cpe-pipeline-control";
+    private static final String CONSUMER_GROUP_ID = "cpe-flink-processor-group";
+
+    private static final String KAFKA_BOOTSTRAP_SERVERS_KEY = "kafka.bootstrap-servers";
+    private static final String KAFKA_GROUP_ID = "kafka.group-id";
+    private static final String TOPIC_RAW_DATA = "kafka.topic.raw-data";
+    private static final String TOPIC_PROCESSED_STATUS = "kafka.topic.processed-status";
+    private static final String TOPIC_FEATURES_FOR_PREDICTION = "kafka.topic.features-for-prediction";
+    private static final String TOPIC_PREDICTION_RESULT = "kafka.topic.prediction-result";
+    private static final String TOPIC_CONTROL = "kafka.topic.control";
+    private static final String TOPIC_RTT_SUMMARY = "kafka.topic.rtt-summary";
+    private static final String TOPIC_TOP_LATENCY = "kafka.topic.top-latency";
+    private static final String TOPIC_DEAD_LETTER = "kafka.topic.dead-letter";
+    // 死信日志样本的最小间隔，每个并行实例独立计算
+    private static final String DEAD_LETTER_LOG_INTERVAL_MS = "dead-letter.log-interval-ms";
+    // 格式错误的控制消息日志样本的最小间隔
+    private static final String CONTROL_LOG_INTERVAL_MS = "control.log-interval-ms";
+
+    // 每个主题的消息格式 (json / protobuf)，通过作业参数逐个主题切换，例如 --format.processed-status protobuf
+    private static final String FORMAT_RAW_DATA = "format.raw-data";
+    private static final String FORMAT_PROCESSED_STATUS = "format.processed-status";
+    private static final String FORMAT_FEATURES_FOR_PREDICTION = "format.features-for-prediction";
+
+    // 每个 Sink 的 Kafka Producer 批量参数，例如 --kafka.sink.features.linger-ms 50
+    private static final String SINK_PREFIX = "kafka.sink.";
+    // Sink 名称，同时用作 Producer 参数前缀和事务 ID 前缀的后缀
+    private static final String STATUS_SINK = "status";
+    private static final String FEATURES_SINK = "features";
+    private static final String PREDICTION_SINK = "prediction";
+    private static final String SUMMARY_SINK = "summary";
+    private static final String TOP_LATENCY_SINK = "top-latency";
+    private static final String DEAD_LETTER_SINK = "dead-letter";
+
+    private final ParameterTool params;
+    private final String bootstrapServers;
+    private final String groupId;
+
+    public KafkaPipelineConnectors(ParameterTool params) {
+        this.params = params;
+        this.bootstrapServers = params.get(KAFKA_BOOTSTRAP_SERVERS_KEY, KAFKA_BOOTSTRAP_SERVERS);
+        this.groupId = params.get(KAFKA_GROUP_ID, CONSUMER_GROUP_ID);
+    }
+
+    @Override
+    public Source<RawDataRecord, ?, ?> rawDataSource(String branch) {
+        // 特征路径沿用原来的消费组，独立出来的状态路径使用单独的消费组
+        String branchGroupId = STATUS_BRANCH.equals(branch) ? groupId + "-status" : groupId;
+        WireFormat format = WireFormat.of(params.get(FORMAT_RAW_DATA));
+        return KafkaSource.<RawDataRecord>builder()
+                .setBootstrapServers(bootstrapServers)
+                .setTopics(params.get(TOPIC_RAW_DATA, INPUT_TOPIC))
+                .setGroupId(branchGroupId)
+                .setStartingOffsets(OffsetsInitializer.latest())
+                .setDeserializer(new RawDataRecordDeserializer(rawDataDeserializer(format), format != WireFormat.PROTOBUF,
+                        params.getLong(DEAD_LETTER_LOG_INTERVAL_MS, 10_000L)))
+                .build();
+    }
+
+    /**
+     * 控制 Topic 的 Source。首次启动从最早的消息开始读取，依次应用后得到最新的参数；
+     * 从检查点恢复时广播状态和消费位点一起恢复，不会重复应用。
+     */
+    @Override
+    public Source<PipelineControl, ?, ?> controlSource() {
+        return KafkaSource.<PipelineControl>builder()
+                .setBootstrapServers(bootstrapServers)
+                .setTopics(params.get(TOPIC_CONTROL, CONTROL_TOPIC))
+                .setGroupId(groupId + "-control")
+                .setStartingOffsets(OffsetsInitializer.earliest())
+                .setValueOnlyDeserializer(new PipelineControlDeserializer(params.getLong(CONTROL_LOG_INTERVAL_MS, 10_000L)))
+                .build();
+    }
+
+    @Override
+    public Sink<CpeStatusData> statusSink() {
+        SerializationSchema<CpeStatusData> serializer = WireFormat.of(params.get(FORMAT_PROCESSED_STATUS)) == WireFormat.PROTOBUF
+                ? new ProtobufSerializationSchema<>(ProtobufConverters::toProto)
+                : new JsonSerializationSchema<>();
+        return createKafkaSink(STATUS_SINK, params.get(TOPIC_PROCESSED_STATUS, OUTPUT_STATUS_TOPIC), serializer,
+                producerProperties(STATUS_SINK, "0", null));
+    }
+
+    @Override
+    public Sink<CpeFeatures> featuresSink() {
+        SerializationSchema<CpeFeatures> serializer = WireFormat.of(params.get(FORMAT_FEATURES_FOR_PREDICTION)) == WireFormat.PROTOBUF
+                ? new ProtobufSerializationSchema<>(ProtobufConverters::toProto)
+                : new JsonSerializationSchema<>();
+        return createKafkaSink(FEATURES_SINK, params.get(TOPIC_FEATURES_FOR_PREDICTION, OUTPUT_FEATURES_TOPIC),
+                serializer, featuresProducerProperties(FEATURES_SINK));
+    }
+
+    /**
+     * 预测结果以 PredictionResultDto 兼容的 JSON 写入预测结果 Topic。
+     */
+    @Override
+    public Sink<PredictionResult> predictionSink() {
+        return createKafkaSink(PREDICTION_SINK, params.get(TOPIC_PREDICTION_RESULT, OUTPUT_PREDICTION_TOPIC),
+                new JsonSerializationSchema<>(), featuresProducerProperties(PREDICTION_SINK));
+    }
+
+    /**
+     * 全网 RTT 汇总以 JSON 写入汇总 Topic，每个统计周期只有一条消息。
+     */
+    @Override
+    public Sink<RttSummary> rttSummarySink() {
+        return createKafkaSink(SUMMARY_SINK, params.get(TOPIC_RTT_SUMMARY, OUTPUT_RTT_SUMMARY_TOPIC),
+                new JsonSerializationSchema<>(), producerProperties(SUMMARY_SINK, null, null));
+    }
+
+    /**
+     * 延迟最差设备排行以 JSON 写入排行 Topic，每个周期一条消息。
+     */
+    @Override
+    public Sink<TopLatencyRanking> topLatencySink() {
+        return createKafkaSink(TOP_LATENCY_SINK, params.get(TOPIC_TOP_LATENCY, OUTPUT_TOP_LATENCY_TOPIC),
+                new JsonSerializationSchema<>(), producerProperties(TOP_LATENCY_SINK, null, null));
+    }
+
+    /**
+     * 死信原样写入死信 Topic，来源分区、偏移量和失败原因在消息头中。
+     */
+    @Override
+    public Sink<DeadLetter> deadLetterSink() {
+        return KafkaSink.<DeadLetter>builder()
+                .setBootstrapServers(bootstrapServers)
+                .setKafkaProducerConfig(producerProperties(DEAD_LETTER_SINK, null, null))
+                .setTransactionalIdPrefix(transactionalIdPrefix(DEAD_LETTER_SINK))
+                .setRecordSerializer(new DeadLetterSerializationSchema(params.get(TOPIC_DEAD_LETTER, DEAD_LETTER_TOPIC)))
+                .build();
+    }
+
+    // 特征路径吞吐量大，默认让 Producer 多攒一会儿再发送，换取更大的批次
+    private Properties featuresProducerProperties(String sinkName) {
+        return producerProperties(sinkName, "20", "262144");
+    }
+
+    /**
+     * 每个 Sink 使用自己的事务 ID 前缀 (kafka.sink.&lt;name&gt;.transactional-id-prefix，默认 &lt;消费组&gt;-&lt;name&gt;)。
+     * 多个 Sink 共用同一个前缀时，切换到 EXACTLY_ONCE 后彼此的事务 ID 会冲突，恢复时还会互相中止对方的事务。
+     */
+    private String transactionalIdPrefix(String sinkName) {
+        return params.get(SINK_PREFIX + sinkName + ".transactional-id-prefix", groupId + "-" + sinkName);
+    }
+
+    /**
+     * 读取某个 Sink 的 Producer 批量参数 (kafka.sink.&lt;name&gt;.linger-ms / batch-size / compression-type)。
+     * 默认值为 null 的参数不设置，沿用 Kafka 客户端自己的默认值。
+     */
+    private Properties producerProperties(String sinkName, String defaultLingerMs, String defaultBatchSize) {
+        String prefix = SINK_PREFIX + sinkName + ".";
+        Properties properties = new Properties();
+        putIfPresent(properties, ProducerConfig.LINGER_MS_CONFIG, params.get(prefix + "linger-ms", defaultLingerMs));
+        putIfPresent(properties, ProducerConfig.BATCH_SIZE_CONFIG, params.get(prefix + "batch-size", defaultBatchSize));
+        putIfPresent(properties, ProducerConfig.COMPRESSION_TYPE_CONFIG, params.get(prefix + "compression-type"));
+        return properties;
+    }
+
+    private static void putIfPresent(Properties properties, String key, String value) {
+        if (value != null) {
+            properties.setProperty(key, value);
+        }
+    }
+
+    private static DeserializationSchema<CpeRawData> rawDataDeserializer(WireFormat format) {
+        return format == WireFormat.PROTOBUF ? new CpeRawDataProtobufDeserializer() : new CpeRawDataDeserializer();
+    }
+
+    private <T> KafkaSink<T> createKafkaSink(String sinkName, String topic, SerializationSchema<T> valueSerializer,
+                                             Properties producerProperties) {
+        KafkaRecordSerializationSchema<T> serializer = KafkaRecordSerializationSchema.<T>builder()
+                .setTopic(topic)
+                .setValueSerializationSchema(valueSerializer)
+                .build();
+
+        return KafkaSink.<T>builder()
+                .setBootstrapServers(bootstrapServers)
+                .setKafkaProducerConfig(producerProperties)
+                .setTransactionalIdPrefix(transactionalIdPrefix(sinkName))
+                .setRecordSerializer(serializer)
+                .build();
+    }
+}
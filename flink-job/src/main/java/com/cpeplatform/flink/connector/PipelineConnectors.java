@@ -0,0 +1,44 @@
+package com.cpeplatform.flink.connector;
+
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.DeadLetter;
+import com.cpeplatform.flink.model.CpeStatusData;
+import com.cpeplatform.flink.model.PipelineControl;
+import com.cpeplatform.flink.model.PredictionResult;
+import com.cpeplatform.flink.model.RawDataRecord;
+import com.cpeplatform.flink.model.RttSummary;
+import com.cpeplatform.flink.model.TopLatencyRanking;
+import org.apache.flink.api.connector.sink2.Sink;
+import org.apache.flink.api.connector.source.Source;
+
+/**
+ * 作业拓扑的输入输出。生产环境使用 {@link KafkaPipelineConnectors}，
+ * 吞吐量测试等场景可以替换成内存中的 Source 和 Sink，拓扑本身保持不变。
+ */
+public interface PipelineConnectors {
+
+    /**
+     * 原始数据 Source。branch 为 {@link #SHARED_BRANCH} 时两条路径共用这个 Source，
+     * 开启独立 Source 时分别以 {@link #STATUS_BRANCH} 和 {@link #FEATURES_BRANCH} 各调用一次。
+     * 无法解析的消息以死信的形式输出，而不是直接丢弃。
+     */
+    Source<RawDataRecord, ?, ?> rawDataSource(String branch);
+
+    Source<PipelineControl, ?, ?> controlSource();
+
+    Sink<CpeStatusData> statusSink();
+
+    Sink<CpeFeatures> featuresSink();
+
+    Sink<PredictionResult> predictionSink();
+
+    Sink<RttSummary> rttSummarySink();
+
+    Sink<TopLatencyRanking> topLatencySink();
+
+    Sink<DeadLetter> deadLetterSink();
+
+    String SHARED_BRANCH = "shared";
+    String STATUS_BRANCH = "status";
+    String FEATURES_BRANCH = "features";
+}
@@ -0,0 +1,35 @@
+package com.cpeplatform.flink.deserializer;
+
+import com.cpeplatform.flink.model.CpeRawData;
+import com.cpeplatform.flink.serializer.ProtobufConverters;
+import com.cpeplatform.proto.CpeRawDataProto;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+
+import java.io.IOException;
+
+/**
+ * 二进制格式的 Kafka 消息反序列化器。
+ * 将 cpe-raw-data 主题中的 Protobuf 消息 (CpeRawDataProto) 转换成 CpeRawData 对象。
+ * 解析失败时抛出异常，由 {@link RawDataRecordDeserializer} 转入死信。
+ */
+public class CpeRawDataProtobufDeserializer implements DeserializationSchema<CpeRawData> {
+
+    @Override
+    public CpeRawData deserialize(byte[] message) throws IOException {
+        if (message == null || message.length == 0) {
+            return null;
+        }
+        return ProtobufConverters.fromProto(CpeRawDataProto.parseFrom(message));
+    }
+
+    @Override
+    public boolean isEndOfStream(CpeRawData nextElement) {
+        return false;
+    }
+
+    @Override
+    public TypeInformation<CpeRawData> getProducedType() {
+        return TypeInformation.of(CpeRawData.class);
+    }
+}
@@ -0,0 +1,97 @@
+package com.cpeplatform.flink.deserializer;
+
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.PipelineControl;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.JsonParser;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.DeserializationFeature;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 控制 Topic 的反序列化器，把 JSON 调参消息转换成 PipelineControl。
+ * 未知字段直接忽略，这样新增参数时旧版本作业仍能读取其余字段。
+ * 格式错误的消息被忽略并计入 control.malformed 指标，日志每个间隔最多打印一条截断后的样本和期间被省略的条数，
+ * 不会把任意长度的消息原样写进日志。
+ */
+public class PipelineControlDeserializer implements DeserializationSchema<PipelineControl> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PipelineControlDeserializer.class);
+    // 异常消息中的出错位置不附带输入内容，日志里只出现截断后的预览
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(JsonParser.Feature.INCLUDE_SOURCE_IN_LOCATION, false);
+    // 日志中消息内容的最大预览长度
+    static final int PREVIEW_BYTES = 256;
+
+    private final long logIntervalMs;
+
+    private transient Counter malformed;
+    private transient long lastLoggedAt = Long.MIN_VALUE;
+    private transient long suppressed;
+
+    public PipelineControlDeserializer(long logIntervalMs) {
+        this.logIntervalMs = logIntervalMs;
+    }
+
+    @Override
+    public void open(InitializationContext context) {
+        MetricGroup group = context.getMetricGroup().addGroup(PipelineMetrics.CONTROL);
+        malformed = PipelineMetrics.counterWithRate(group, PipelineMetrics.MALFORMED);
+        lastLoggedAt = Long.MIN_VALUE;
+    }
+
+    @Override
+    public PipelineControl deserialize(byte[] message) throws IOException {
+        if (message == null || message.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(message, PipelineControl.class);
+        } catch (Exception e) {
+            // 未经 open() 直接使用 (例如单元测试) 时不统计
+            if (malformed != null) {
+                malformed.inc();
+            }
+            logSample(message, e);
+            return null;
+        }
+    }
+
+    private void logSample(byte[] message, Exception e) {
+        long now = System.currentTimeMillis();
+        if (lastLoggedAt != Long.MIN_VALUE && now - lastLoggedAt < logIntervalMs) {
+            suppressed++;
+            return;
+        }
+        String preview = new String(message, 0, Math.min(message.length, PREVIEW_BYTES), StandardCharsets.UTF_8);
+        LOG.warn("控制消息格式错误，已忽略: 长度 {} 字节, 原因: {}: {}, 内容预览: {} (上次日志以来另有 {} 条未打印)",
+                message.length, e.getClass().getSimpleName(), e.getMessage(), preview, suppressed);
+        lastLoggedAt = now;
+        suppressed = 0;
+    }
+
+    /**
+     * @return 上次打印样本以来未打印的格式错误消息数
+     */
+    long suppressedSamples() {
+        return suppressed;
+    }
+
+    @Override
+    public boolean isEndOfStream(PipelineControl nextElement) {
+        return false;
+    }
+
+    @Override
+    public TypeInformation<PipelineControl> getProducedType() {
+        return TypeInformation.of(PipelineControl.class);
+    }
+}
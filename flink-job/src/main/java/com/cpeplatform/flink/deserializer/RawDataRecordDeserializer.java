@@ -0,0 +1,103 @@
+package com.cpeplatform.flink.deserializer;
+
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.CpeRawData;
+import com.cpeplatform.flink.model.DeadLetter;
+import com.cpeplatform.flink.model.RawDataRecord;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.connector.kafka.source.reader.deserializer.KafkaRecordDeserializationSchema;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.util.Collector;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * cpe-raw-data 的 Kafka 反序列化器，包装 JSON 或 Protobuf 的值反序列化器。
+ * 解析失败或缺少设备 ID 的消息不再逐条打印整段内容，而是连同 Topic、分区、偏移量一起作为死信输出，
+ * 计入 ingest.malformed 指标 (解析成功的计入 ingest.records)，日志每个间隔最多打印一条样本和期间被省略的条数。
+ * 格式错误的消息集中爆发时，任务线程不会被日志 I/O 拖住，正常消息照常处理。
+ */
+public class RawDataRecordDeserializer implements KafkaRecordDeserializationSchema<RawDataRecord> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RawDataRecordDeserializer.class);
+    // 日志中 JSON 消息内容的最大预览长度
+    private static final int PREVIEW_BYTES = 256;
+
+    private final DeserializationSchema<CpeRawData> valueDeserializer;
+    // 消息是否为文本 (JSON)，二进制格式只记录长度
+    private final boolean textPayload;
+    private final long logIntervalMs;
+
+    private transient Counter records;
+    private transient Counter malformed;
+    private transient long lastLoggedAt;
+    private transient long suppressed;
+
+    public RawDataRecordDeserializer(DeserializationSchema<CpeRawData> valueDeserializer, boolean textPayload,
+                                     long logIntervalMs) {
+        this.valueDeserializer = valueDeserializer;
+        this.textPayload = textPayload;
+        this.logIntervalMs = logIntervalMs;
+    }
+
+    @Override
+    public void open(DeserializationSchema.InitializationContext context) throws Exception {
+        valueDeserializer.open(context);
+        MetricGroup group = context.getMetricGroup().addGroup(PipelineMetrics.INGEST);
+        records = PipelineMetrics.counterWithRate(group, PipelineMetrics.RECORDS);
+        malformed = PipelineMetrics.counterWithRate(group, PipelineMetrics.MALFORMED);
+        lastLoggedAt = Long.MIN_VALUE;
+    }
+
+    @Override
+    public void deserialize(ConsumerRecord<byte[], byte[]> record, Collector<RawDataRecord> out) {
+        byte[] value = record.value();
+        if (value == null || value.length == 0) {
+            return;
+        }
+
+        String error;
+        try {
+            CpeRawData data = valueDeserializer.deserialize(value);
+            if (data != null && data.getDeviceId() != null) {
+                records.inc();
+                out.collect(RawDataRecord.of(data));
+                return;
+            }
+            error = "缺少 deviceId";
+        } catch (Exception e) {
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+
+        malformed.inc();
+        logSample(record, error);
+        out.collect(RawDataRecord.deadLetter(new DeadLetter(record.topic(), record.partition(), record.offset(),
+                record.timestamp(), record.key(), value, error)));
+    }
+
+    private void logSample(ConsumerRecord<byte[], byte[]> record, String error) {
+        long now = System.currentTimeMillis();
+        if (lastLoggedAt != Long.MIN_VALUE && now - lastLoggedAt < logIntervalMs) {
+            suppressed++;
+            return;
+        }
+        byte[] value = record.value();
+        String preview = textPayload
+                ? new String(value, 0, Math.min(value.length, PREVIEW_BYTES), StandardCharsets.UTF_8)
+                : "<binary>";
+        LOG.warn("无法解析的原始消息已转入死信: {}-{}@{}, 长度 {} 字节, 原因: {}, 内容预览: {} (上次日志以来另有 {} 条未打印)",
+                record.topic(), record.partition(), record.offset(), value.length, error, preview, suppressed);
+        lastLoggedAt = now;
+        suppressed = 0;
+    }
+
+    @Override
+    public TypeInformation<RawDataRecord> getProducedType() {
+        return TypeInformation.of(RawDataRecord.class);
+    }
+}
@@ -0,0 +1,113 @@
+package com.cpeplatform.flink.dictionary;
+
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.Path;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 设备 ID 字典: 字符串设备 ID 与紧凑整数编码之间的双向映射。
+ * <p>
+ * 字典快照是一个文本文件，每行一个设备 ID，行号 (从 0 开始，跳过空行和 # 注释) 即编码。
+ * 文件只允许追加，已有设备的编码永远不变，作业可以随时用新快照重启而不影响已有的 Keyed State。
+ * 快照从 Flink 支持的任意文件系统 (本地、HDFS、S3...) 加载，同一个 TaskManager 内的所有算子共享一份。
+ * <p>
+ * 不在字典中的设备 (新上线、快照尚未更新) 使用设备 ID 的 64 位哈希并置最高位作为键，
+ * 与字典编码 (非负) 不会冲突；这类记录同时保留字符串设备 ID，解码不依赖字典。
+ */
+public final class DeviceDictionary {
+
+    private static final Map<String, DeviceDictionary> SHARED = new ConcurrentHashMap<>();
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Map<String, Integer> codes;
+    private final String[] deviceIds;
+
+    private DeviceDictionary(String[] deviceIds) {
+        this.deviceIds = deviceIds;
+        this.codes = new HashMap<>(deviceIds.length * 4 / 3 + 1);
+        for (int i = 0; i < deviceIds.length; i++) {
+            codes.put(deviceIds[i], i);
+        }
+    }
+
+    /**
+     * 返回本进程内共享的字典实例，首次调用时加载快照。
+     */
+    public static DeviceDictionary shared(String path) {
+        return SHARED.computeIfAbsent(path, p -> {
+            try {
+                return load(p);
+            } catch (IOException e) {
+                throw new UncheckedIOException("加载设备字典失败: " + p, e);
+            }
+        });
+    }
+
+    /**
+     * 由内存中的设备 ID 列表构建字典，数组下标即编码。
+     */
+    public static DeviceDictionary of(String... deviceIds) {
+        return new DeviceDictionary(deviceIds.clone());
+    }
+
+    public static DeviceDictionary load(String snapshotPath) throws IOException {
+        Path path = new Path(snapshotPath);
+        FileSystem fs = path.getFileSystem();
+        List<String> ids = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(path), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    ids.add(line);
+                }
+            }
+        }
+        return new DeviceDictionary(ids.toArray(new String[0]));
+    }
+
+    /**
+     * @return 设备的键: 字典中的设备为非负编码，其余设备为置了最高位的哈希 (负数)
+     */
+    public long keyOf(String deviceId) {
+        Integer code = codes.get(deviceId);
+        return code != null ? code : fallbackKey(deviceId);
+    }
+
+    /**
+     * @return 编码对应的设备 ID；键不是字典编码时返回 null
+     */
+    public String decode(long key) {
+        return key >= 0 && key < deviceIds.length ? deviceIds[(int) key] : null;
+    }
+
+    public static boolean isEncoded(long key) {
+        return key >= 0;
+    }
+
+    public int size() {
+        return deviceIds.length;
+    }
+
+    // FNV-1a 64 位哈希，最高位置 1 后与字典编码的取值范围分开
+    private static long fallbackKey(String deviceId) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < deviceId.length(); i++) {
+            hash ^= deviceId.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash | Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,45 @@
+package com.cpeplatform.flink.dictionary;
+
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.CpeLatencyData;
+import org.apache.flink.api.common.functions.RichMapFunction;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+
+/**
+ * 在 keyBy 之前把延迟数据的设备 ID 编码为整数键。
+ * 字典中的设备只保留 deviceKey，字符串 deviceId 置空，之后的 shuffle 和 Keyed State 都只处理 long；
+ * 字典之外的设备保留字符串，计入 dictionary.misses 指标，提示需要更新字典快照。
+ */
+public class DeviceIdEncoder extends RichMapFunction<CpeLatencyData, CpeLatencyData> {
+
+    private final String dictionaryPath;
+
+    private transient DeviceDictionary dictionary;
+    private transient Counter misses;
+
+    public DeviceIdEncoder(String dictionaryPath) {
+        this.dictionaryPath = dictionaryPath;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        dictionary = DeviceDictionary.shared(dictionaryPath);
+        MetricGroup group = getRuntimeContext().getMetricGroup().addGroup(PipelineMetrics.DICTIONARY);
+        misses = group.counter("misses");
+        group.gauge("size", dictionary::size);
+    }
+
+    @Override
+    public CpeLatencyData map(CpeLatencyData value) {
+        long key = dictionary.keyOf(value.getDeviceId());
+        value.setDeviceKey(key);
+        if (DeviceDictionary.isEncoded(key)) {
+            value.setDeviceId(null);
+        } else {
+            misses.inc();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,94 @@
+package com.cpeplatform.flink.metrics;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.Meter;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
+
+/**
+ * 作业自定义指标的分组和名称。这里的名称是对外契约，监控面板和告警规则直接引用，只能新增不能改名。
+ * <p>
+ * 完整的指标名由 Flink 的算子作用域加上 分组.名称 组成，例如
+ * {@code <host>.taskmanager.<tm>.<job>.Feature_Gate.<subtask>.gate.suppressed}；
+ * Prometheus Reporter 下为 {@code flink_taskmanager_job_task_operator_gate_suppressed}，
+ * 作用域中的算子名 (operator_name 标签) 来自作业里各算子的 name()，同样保持不变。
+ * 以 Rate 结尾的是每秒速率 (60 秒滑动平均)，Nanos / Bytes / Ms 结尾的是直方图，其余为计数器或 Gauge。
+ *
+ * <table>
+ *   <tr><th>分组</th><th>指标</th><th>所在算子</th><th>含义</th></tr>
+ *   <tr><td>ingest</td><td>records / recordsRate</td><td>原始数据 Source</td><td>解析成功的原始消息</td></tr>
+ *   <tr><td>ingest</td><td>malformed / malformedRate</td><td>原始数据 Source</td><td>无法解析、已转入死信的消息</td></tr>
+ *   <tr><td>status</td><td>value.&lt;状态&gt;.records</td><td>Status Change Filter</td><td>按上报状态值统计的输入记录数，状态值为 ONLINE / DEGRADED / OFFLINE / NONE (未携带) / OTHER (其余)</td></tr>
+ *   <tr><td>status</td><td>emitted / emittedRate</td><td>Status Change Filter</td><td>实际发往下游的状态变化 (含刷新)</td></tr>
+ *   <tr><td>status</td><td>syntheticOffline</td><td>Status Change Filter</td><td>存活检测合成的 OFFLINE</td></tr>
+ *   <tr><td>reorder</td><td>lateDropped / duplicatesDropped / forcedReleases / bufferedSamples / bufferedBytes</td><td>Per-Device Reorder Buffer</td><td>事件时间重排序</td></tr>
+ *   <tr><td>dictionary</td><td>misses / size</td><td>Device ID Encoder</td><td>设备 ID 字典</td></tr>
+ *   <tr><td>features</td><td>emitted / emittedRate</td><td>Incremental Feature Engineering</td><td>输出的特征集 (每个滑动窗口一条)</td></tr>
+ *   <tr><td>features</td><td>computeNanos</td><td>Incremental Feature Engineering</td><td>单条特征计算耗时，按 1/{@value #COMPUTE_TIME_SAMPLE_INTERVAL} 抽样</td></tr>
+ *   <tr><td>control</td><td>malformed / malformedRate</td><td>控制 Topic Source</td><td>格式错误、已忽略的控制消息</td></tr>
+ *   <tr><td>gate</td><td>forwarded / suppressed (+Rate) / controlUpdates / suppressionRatio</td><td>Feature Gate</td><td>门控转发与抑制</td></tr>
+ *   <tr><td>summary</td><td>shardWindowsEmitted / summariesEmitted (+Rate)</td><td>RTT 汇总窗口</td><td>窗口触发输出</td></tr>
+ *   <tr><td>topk</td><td>snapshotsEmitted / rankingsEmitted (+Rate)</td><td>Top-K Latency</td><td>本地快照与全局排行输出</td></tr>
+ *   <tr><td>prediction</td><td>callLatencyMs / failedCalls / timeouts / inFlightCalls / inFlightRecords / batchSize / lingerMs</td><td>Async gRPC Prediction</td><td>作业内批量预测</td></tr>
+ *   <tr><td>backfill</td><td>records / malformed</td><td>Parse Raw Data Lines (回填作业)</td><td>解析成功 / 跳过的归档行</td></tr>
+ *   <tr><td>serializer</td><td>serializedBytes / bytesTotal</td><td>各 Kafka Sink</td><td>每条输出消息的序列化大小</td></tr>
+ * </table>
+ */
+public final class PipelineMetrics {
+
+    public static final String INGEST = "ingest";
+    public static final String STATUS = "status";
+    public static final String STATUS_VALUE = "value";
+    public static final String REORDER = "reorder";
+    public static final String DICTIONARY = "dictionary";
+    public static final String FEATURES = "features";
+    public static final String CONTROL = "control";
+    public static final String GATE = "gate";
+    public static final String SUMMARY = "summary";
+    public static final String TOPK = "topk";
+    public static final String PREDICTION = "prediction";
+    public static final String SERIALIZER = "serializer";
+    public static final String BACKFILL = "backfill";
+
+    public static final String RECORDS = "records";
+    public static final String MALFORMED = "malformed";
+    public static final String EMITTED = "emitted";
+    public static final String SYNTHETIC_OFFLINE = "syntheticOffline";
+    public static final String COMPUTE_NANOS = "computeNanos";
+    public static final String FORWARDED = "forwarded";
+    public static final String SUPPRESSED = "suppressed";
+    public static final String SHARD_WINDOWS_EMITTED = "shardWindowsEmitted";
+    public static final String SUMMARIES_EMITTED = "summariesEmitted";
+    public static final String SNAPSHOTS_EMITTED = "snapshotsEmitted";
+    public static final String RANKINGS_EMITTED = "rankingsEmitted";
+    public static final String SERIALIZED_BYTES = "serializedBytes";
+    public static final String BYTES_TOTAL = "bytesTotal";
+
+    // 计时本身也有开销，特征计算耗时每 N 条记录测一次
+    public static final int COMPUTE_TIME_SAMPLE_INTERVAL = 64;
+    // 直方图保留最近的样本数，分位数在 Reporter 拉取时计算
+    private static final int HISTOGRAM_WINDOW = 1024;
+    private static final String RATE_SUFFIX = "Rate";
+
+    private PipelineMetrics() {
+    }
+
+    /**
+     * 注册一个计数器，并以 name + "Rate" 注册对应的每秒速率。
+     */
+    public static Counter counterWithRate(MetricGroup group, String name) {
+        Counter counter = group.counter(name);
+        group.meter(name + RATE_SUFFIX, new MeterView(counter));
+        return counter;
+    }
+
+    public static Meter rate(MetricGroup group, String name, Counter counter) {
+        return group.meter(name + RATE_SUFFIX, new MeterView(counter));
+    }
+
+    public static Histogram histogram(MetricGroup group, String name) {
+        return group.histogram(name, new DescriptiveStatisticsHistogram(HISTOGRAM_WINDOW));
+    }
+}
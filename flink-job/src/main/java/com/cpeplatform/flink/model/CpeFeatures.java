@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * 代表从5个RTT值中提取出的完整特征集。
@@ -16,6 +17,8 @@ import lombok.NoArgsConstructor;
 public class CpeFeatures {
     private String deviceId;
     private long aggregationTimestamp;
+    // 窗口中最新一个 RTT 样本的事件时间，用于计算端到端延迟
+    private long eventTimestamp;
 
     // 原始 RTT 值
     private int delay_1;
@@ -35,4 +38,9 @@ public class CpeFeatures {
 
     // 趋势特征
     private double slope_delay;
+
+    // 字典模式下上游分区所用的整数设备键 (由 DeviceIdEncoder 计算，原样带到下游)，下游按设备分区时直接复用；
+    // 非字典模式恒为 0。只在作业内部使用，不写入 Kafka
+    @JsonIgnore
+    private long deviceKey;
 }
@@ -14,4 +14,10 @@ public class CpeLatencyData {
     private String deviceId;
     private int rtt;
     private long timestamp;
+    // 字典模式下的整数设备键 (见 DeviceDictionary)，此时字典中的设备 deviceId 为 null；非字典模式恒为 0
+    private long deviceKey;
+
+    public CpeLatencyData(String deviceId, int rtt, long timestamp) {
+        this(deviceId, rtt, timestamp, 0L);
+    }
 }
@@ -0,0 +1,24 @@
+package com.cpeplatform.flink.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 无法解析的原始消息，连同它在 Kafka 中的位置一起写入死信 Topic，便于离线排查和重放。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetter {
+    private String sourceTopic;
+    private int partition;
+    private long offset;
+    // 原消息在 Kafka 中的时间戳
+    private long timestamp;
+    // 原消息的 key 和 value，原样保留
+    private byte[] key;
+    private byte[] payload;
+    // 解析失败的原因 (异常类型和消息)
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.cpeplatform.flink.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 延迟排行中的一个设备: 最近一个特征集的均值和斜率，以及由二者计算出的排序分数。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyRankEntry {
+    private String deviceId;
+    private double meanDelay;
+    private double slopeDelay;
+    // 分数越高越差
+    private double score;
+    // 最近一次更新的处理时间
+    private long updatedAt;
+}
@@ -0,0 +1,29 @@
+package com.cpeplatform.flink.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 控制 Topic 中的一条运行时调参消息，例如:
+ * {"gateEnabled": true, "meanDelta": 8.0, "featureStride": 2, "samplingRate": 0.5}
+ * 所有字段都可以省略，省略的字段保持当前值不变。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PipelineControl {
+    // 特征门控
+    private Boolean gateEnabled;
+    private Double meanDelta;
+    private Double slopeDelta;
+    private Double rangeDelta;
+    private Long maxStalenessMs;
+
+    // 每个设备每 featureStride 个滑动窗口才送出一个特征集 (窗口滑动步长)
+    private Integer featureStride;
+    // 参与预测的设备比例 (0, 1]，按 deviceId 哈希稳定抽样
+    private Double samplingRate;
+}
@@ -0,0 +1,18 @@
+package com.cpeplatform.flink.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 预测结果的数据模型，将被发送到 cpe-prediction-result 主题。
+ * 字段与 spring-boot-app 中的 PredictionResultDto 保持一致。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PredictionResult {
+    private String deviceId;
+    private long predictionTimestamp;
+    private boolean hasPacketLoss;
+}
@@ -0,0 +1,25 @@
+package com.cpeplatform.flink.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 原始数据 Source 的输出: 解析成功时 data 不为空，解析失败时 deadLetter 不为空。
+ * 作业在 Source 之后把两者拆开，死信走旁路输出，不影响正常数据的处理。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RawDataRecord {
+    private CpeRawData data;
+    private DeadLetter deadLetter;
+
+    public static RawDataRecord of(CpeRawData data) {
+        return new RawDataRecord(data, null);
+    }
+
+    public static RawDataRecord deadLetter(DeadLetter deadLetter) {
+        return new RawDataRecord(null, deadLetter);
+    }
+}
@@ -0,0 +1,34 @@
+package com.cpeplatform.flink.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一个统计周期内全网 RTT 分位数的汇总，写入 cpe-rtt-summary 主题。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RttSummary {
+    private long windowStart;
+    private long windowEnd;
+    private RttQuantiles fleet;
+    // 按设备状态 (ONLINE / OFFLINE ...) 分别统计
+    private RttQuantiles[] byStatus;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RttQuantiles {
+        // 设备状态，全网汇总为 ALL
+        private String status;
+        private long count;
+        private double p50;
+        private double p90;
+        private double p99;
+        private int max;
+    }
+}
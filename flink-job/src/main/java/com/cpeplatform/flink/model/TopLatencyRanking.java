@@ -0,0 +1,16 @@
+package com.cpeplatform.flink.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 全网延迟最差的 K 个设备，按分数从高到低排列，定期写入 cpe-top-latency 主题。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopLatencyRanking {
+    private long generatedAt;
+    private LatencyRankEntry[] devices;
+}
@@ -0,0 +1,53 @@
+package com.cpeplatform.flink.prediction;
+
+import com.cpeplatform.flink.model.CpeFeatures;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 模型输入特征的定义。
+ * 默认顺序与 prediction_server.py 中 column_order 完全一致，模型的 split_indices 就是按这个顺序编号的。
+ */
+public final class FeatureVector {
+
+    public static final List<String> DEFAULT_FEATURE_ORDER = Arrays.asList(
+            "mean_delay", "min_delay", "mid_delay", "max_delay", "slope_delay",
+            "mean_of_last_three", "diff_between_last_two", "range",
+            "delay_1", "delay_2", "delay_3", "delay_4", "delay_5");
+
+    // delay_1 ~ delay_5 (原始整数 RTT) 在默认顺序中的起始下标
+    public static final int FIRST_RAW_DELAY_INDEX = 8;
+
+    private FeatureVector() {
+    }
+
+    /**
+     * @return 特征名在默认顺序中的下标，未知特征返回 -1
+     */
+    public static int indexOf(String featureName) {
+        return DEFAULT_FEATURE_ORDER.indexOf(featureName);
+    }
+
+    /**
+     * 按默认顺序取出第 index 个特征的值。
+     */
+    public static double valueOf(CpeFeatures features, int index) {
+        switch (index) {
+            case 0: return features.getMean_delay();
+            case 1: return features.getMin_delay();
+            case 2: return features.getMid_delay();
+            case 3: return features.getMax_delay();
+            case 4: return features.getSlope_delay();
+            case 5: return features.getMean_of_last_three();
+            case 6: return features.getDiff_between_last_two();
+            case 7: return features.getRange();
+            case 8: return features.getDelay_1();
+            case 9: return features.getDelay_2();
+            case 10: return features.getDelay_3();
+            case 11: return features.getDelay_4();
+            case 12: return features.getDelay_5();
+            default: throw new IllegalArgumentException("未知的特征下标: " + index);
+        }
+    }
+}
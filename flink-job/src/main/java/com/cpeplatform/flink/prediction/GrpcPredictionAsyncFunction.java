@@ -0,0 +1,266 @@
+package com.cpeplatform.flink.prediction;
+
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.PredictionResult;
+import com.cpeplatform.grpc.PacketLossBatchRequest;
+import com.cpeplatform.grpc.PacketLossBatchResponse;
+import com.cpeplatform.grpc.PacketLossFeaturesRequest;
+import com.cpeplatform.grpc.PredictionServiceGrpc;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
+import org.apache.flink.streaming.api.functions.async.ResultFuture;
+import org.apache.flink.streaming.api.functions.async.RichAsyncFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 通过 Flink 异步 I/O 调用外部 Python 预测服务的算子。
+ * <p>
+ * 每个并行实例把收到的特征集攒成微批，满批或等待超过 linger 时间后发起一次 PredictPacketLossBatch 调用，
+ * 多个 gRPC 服务端之间轮询。配合 AsyncDataStream 的容量上限，未完成的请求数是有界的，
+ * 预测服务变慢时反压会一直传递到 Kafka Source，而不是堆积在无界队列中。
+ */
+public class GrpcPredictionAsyncFunction extends RichAsyncFunction<CpeFeatures, PredictionResult> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GrpcPredictionAsyncFunction.class);
+    private static final int LATENCY_HISTOGRAM_WINDOW = 500;
+
+    private final List<String> endpoints;
+    private final MicroBatchSettings settings;
+
+    private transient List<ManagedChannel> channels;
+    private transient List<PredictionServiceGrpc.PredictionServiceFutureStub> stubs;
+    private transient ScheduledExecutorService lingerScheduler;
+    private transient AtomicInteger requestCounter;
+
+    // 以下批处理状态由 lock 保护：asyncInvoke 在任务线程调用，linger 定时器和 gRPC 回调在其它线程
+    private transient Object lock;
+    private transient List<PendingPrediction> pending;
+    private transient ScheduledFuture<?> lingerTimer;
+    private transient int batchSize;
+    private transient long lingerMs;
+
+    private transient AtomicInteger inFlightCalls;
+    private transient AtomicInteger inFlightRecords;
+    private transient Histogram callLatency;
+    private transient Counter failedCalls;
+    private transient Counter timeouts;
+
+    public GrpcPredictionAsyncFunction(List<String> endpoints, MicroBatchSettings settings) {
+        this.endpoints = new ArrayList<>(endpoints);
+        this.settings = settings;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        channels = new ArrayList<>();
+        stubs = new ArrayList<>();
+        for (String endpoint : endpoints) {
+            ManagedChannel channel = createChannel(endpoint);
+            channels.add(channel);
+            stubs.add(PredictionServiceGrpc.newFutureStub(channel));
+        }
+        lingerScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "prediction-linger-" + getRuntimeContext().getIndexOfThisSubtask());
+            t.setDaemon(true);
+            return t;
+        });
+        requestCounter = new AtomicInteger();
+
+        lock = new Object();
+        pending = new ArrayList<>();
+        batchSize = settings.getMinBatchSize();
+        lingerMs = settings.getMaxLingerMs();
+
+        inFlightCalls = new AtomicInteger();
+        inFlightRecords = new AtomicInteger();
+        MetricGroup group = getRuntimeContext().getMetricGroup().addGroup(PipelineMetrics.PREDICTION);
+        callLatency = group.histogram("callLatencyMs", new DescriptiveStatisticsHistogram(LATENCY_HISTOGRAM_WINDOW));
+        failedCalls = group.counter("failedCalls");
+        timeouts = group.counter("timeouts");
+        group.gauge("inFlightCalls", inFlightCalls::get);
+        group.gauge("inFlightRecords", inFlightRecords::get);
+        group.gauge("batchSize", () -> batchSize);
+        group.gauge("lingerMs", () -> lingerMs);
+
+        LOG.info("gRPC 批量预测客户端已就绪, 服务端: {}", endpoints);
+    }
+
+    @Override
+    public void asyncInvoke(CpeFeatures features, ResultFuture<PredictionResult> resultFuture) {
+        List<PendingPrediction> batch = null;
+        synchronized (lock) {
+            pending.add(new PendingPrediction(features, resultFuture));
+            if (pending.size() >= batchSize) {
+                batch = drainPending();
+            } else if (lingerTimer == null) {
+                lingerTimer = lingerScheduler.schedule(this::flushOnLinger, lingerMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) {
+            send(batch, true);
+        }
+    }
+
+    @Override
+    public void timeout(CpeFeatures features, ResultFuture<PredictionResult> resultFuture) {
+        // 超时的记录直接丢弃，不让单次预测失败导致整个作业重启
+        timeouts.inc();
+        resultFuture.complete(Collections.emptyList());
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (lingerScheduler != null) {
+            lingerScheduler.shutdownNow();
+        }
+        if (channels != null) {
+            for (ManagedChannel channel : channels) {
+                channel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * 为一个服务端地址创建 channel，测试中替换为进程内 channel。
+     */
+    ManagedChannel createChannel(String endpoint) {
+        return ManagedChannelBuilder.forTarget(endpoint).usePlaintext().build();
+    }
+
+    private void flushOnLinger() {
+        List<PendingPrediction> batch;
+        synchronized (lock) {
+            lingerTimer = null;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = drainPending();
+        }
+        send(batch, false);
+    }
+
+    private List<PendingPrediction> drainPending() {
+        if (lingerTimer != null) {
+            lingerTimer.cancel(false);
+            lingerTimer = null;
+        }
+        List<PendingPrediction> batch = pending;
+        pending = new ArrayList<>(batchSize);
+        return batch;
+    }
+
+    private void send(List<PendingPrediction> batch, boolean sizeTriggered) {
+        PacketLossBatchRequest.Builder request = PacketLossBatchRequest.newBuilder();
+        for (PendingPrediction p : batch) {
+            request.addRequests(toRequest(p.features));
+        }
+
+        // 手动实现轮询负载均衡
+        PredictionServiceGrpc.PredictionServiceFutureStub stub =
+                stubs.get(Math.floorMod(requestCounter.getAndIncrement(), stubs.size()));
+
+        inFlightCalls.incrementAndGet();
+        inFlightRecords.addAndGet(batch.size());
+        long start = System.nanoTime();
+        ListenableFuture<PacketLossBatchResponse> future = stub
+                .withDeadlineAfter(settings.getCallTimeoutMs(), TimeUnit.MILLISECONDS)
+                .predictPacketLossBatch(request.build());
+
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(PacketLossBatchResponse response) {
+                long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                finishCall(batch.size(), latencyMs, sizeTriggered, false);
+                long now = System.currentTimeMillis();
+                for (int i = 0; i < batch.size(); i++) {
+                    PendingPrediction p = batch.get(i);
+                    if (i < response.getHasPacketLossCount()) {
+                        p.resultFuture.complete(Collections.singletonList(
+                                new PredictionResult(p.features.getDeviceId(), now, response.getHasPacketLoss(i))));
+                    } else {
+                        p.resultFuture.complete(Collections.emptyList());
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                finishCall(batch.size(), latencyMs, false, true);
+                failedCalls.inc();
+                LOG.warn("gRPC 批量预测调用失败 ({} 条记录): {}", batch.size(), t.getMessage());
+                for (PendingPrediction p : batch) {
+                    p.resultFuture.complete(Collections.emptyList());
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private void finishCall(int records, long latencyMs, boolean sizeTriggered, boolean failed) {
+        inFlightCalls.decrementAndGet();
+        inFlightRecords.addAndGet(-records);
+        callLatency.update(latencyMs);
+        adapt(records, latencyMs, sizeTriggered, failed);
+    }
+
+    /**
+     * 加性增、乘性减地调整批大小和等待时间：
+     * 调用失败 (包括 deadline 超时) 或延迟超过目标时批大小减半；满批且延迟正常时逐步增大批大小；
+     * 因等待超时才发出且批很小，说明流量低，缩短等待时间以降低延迟。
+     */
+    private void adapt(int records, long latencyMs, boolean sizeTriggered, boolean failed) {
+        synchronized (lock) {
+            if (failed || latencyMs > settings.getTargetLatencyMs()) {
+                batchSize = Math.max(settings.getMinBatchSize(), batchSize / 2);
+            } else if (sizeTriggered) {
+                batchSize = Math.min(settings.getMaxBatchSize(), batchSize + settings.getMinBatchSize());
+            }
+            if (sizeTriggered) {
+                lingerMs = Math.min(settings.getMaxLingerMs(), lingerMs * 2);
+            } else if (records < batchSize / 2) {
+                lingerMs = Math.max(settings.getMinLingerMs(), lingerMs / 2);
+            }
+        }
+    }
+
+    private static PacketLossFeaturesRequest toRequest(CpeFeatures features) {
+        return PacketLossFeaturesRequest.newBuilder()
+                .setDelay1(features.getDelay_1()).setDelay2(features.getDelay_2()).setDelay3(features.getDelay_3())
+                .setDelay4(features.getDelay_4()).setDelay5(features.getDelay_5())
+                .setMeanDelay(features.getMean_delay()).setMinDelay(features.getMin_delay())
+                .setMidDelay(features.getMid_delay()).setMaxDelay(features.getMax_delay())
+                .setRange(features.getRange()).setMeanOfLastThree(features.getMean_of_last_three())
+                .setDiffBetweenLastTwo(features.getDiff_between_last_two()).setSlopeDelay(features.getSlope_delay())
+                .build();
+    }
+
+    private static final class PendingPrediction {
+        private final CpeFeatures features;
+        private final ResultFuture<PredictionResult> resultFuture;
+
+        private PendingPrediction(CpeFeatures features, ResultFuture<PredictionResult> resultFuture) {
+            this.features = features;
+            this.resultFuture = resultFuture;
+        }
+    }
+}
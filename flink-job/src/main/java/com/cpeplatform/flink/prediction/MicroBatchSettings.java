@@ -0,0 +1,23 @@
+package com.cpeplatform.flink.prediction;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * gRPC 批量预测的微批参数。
+ * 批大小和等待时间 (linger) 会在 [min, max] 区间内根据调用延迟自适应调整。
+ */
+@Data
+@Builder
+public class MicroBatchSettings implements Serializable {
+    private int minBatchSize;
+    private int maxBatchSize;
+    private long minLingerMs;
+    private long maxLingerMs;
+    // 单次调用的目标延迟，超过后批大小减半
+    private long targetLatencyMs;
+    // 单次 gRPC 调用的 deadline
+    private long callTimeoutMs;
+}
@@ -0,0 +1,49 @@
+package com.cpeplatform.flink.prediction;
+
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.PredictionResult;
+import org.apache.flink.api.common.functions.RichMapFunction;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.core.fs.FileSystem;
+import org.apache.flink.core.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+
+/**
+ * 在 Flink 作业内部直接完成丢包预测的算子。
+ * 模型在 open() 时从 Flink 支持的任意文件系统 (本地、HDFS、S3...) 加载，
+ * 每个特征集在本地推理后直接产出 PredictionResult，省去 Kafka -> Spring -> gRPC -> Kafka 的往返。
+ */
+public class PacketLossScoringFunction extends RichMapFunction<CpeFeatures, PredictionResult> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PacketLossScoringFunction.class);
+
+    private final String modelPath;
+    // 概率大于该阈值即判定为可能丢包，与 XGBClassifier.predict 的默认行为 (0.5) 一致
+    private final double threshold;
+
+    private transient XgbTreeModel model;
+
+    public PacketLossScoringFunction(String modelPath, double threshold) {
+        this.modelPath = modelPath;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        Path path = new Path(modelPath);
+        FileSystem fs = path.getFileSystem();
+        try (InputStream in = fs.open(path)) {
+            model = XgbTreeModel.load(in);
+        }
+        LOG.info("已加载 XGBoost 模型 {}: {} 棵树, {} 个节点", modelPath, model.getTreeCount(), model.getNodeCount());
+    }
+
+    @Override
+    public PredictionResult map(CpeFeatures features) {
+        boolean hasPacketLoss = model.predict(features) > threshold;
+        return new PredictionResult(features.getDeviceId(), System.currentTimeMillis(), hasPacketLoss);
+    }
+}
@@ -0,0 +1,190 @@
+package com.cpeplatform.flink.prediction;
+
+import com.cpeplatform.flink.model.CpeFeatures;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.JsonNode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * XGBoost 模型的纯 Java 推理实现。
+ * <p>
+ * 从 XGBoost 的 JSON 模型文件 (Booster.save_model("xxx.json")) 加载所有的树，
+ * 并把它们拼接成一组扁平数组：每个节点在数组中占一个下标，子节点下标在加载时已换算成全局下标。
+ * 推理时只做数组访问和 float 比较，不创建任何对象。
+ * <p>
+ * 比较规则与 XGBoost 一致：特征值先转换为 float32，{@code x < split} 走左子树，缺失值 (NaN) 走 default_left 指定的方向。
+ * <p>
+ * 只支持 {@link #SUPPORTED_OBJECTIVES} 中的目标函数，其它目标函数的连接函数不同，直接拒绝加载以免得到错误的分数。
+ */
+public class XgbTreeModel {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static final List<String> SUPPORTED_OBJECTIVES =
+            Arrays.asList("binary:logistic", "binary:logitraw", "reg:squarederror");
+
+    // 每棵树根节点在扁平数组中的下标
+    private final int[] treeRoots;
+    // 左/右子节点的全局下标，叶子节点为 -1
+    private final int[] leftChildren;
+    private final int[] rightChildren;
+    // 分裂特征的下标 (按模型自己的特征顺序)
+    private final int[] splitIndices;
+    // 非叶子节点为分裂阈值，叶子节点为叶子权重
+    private final float[] splitConditions;
+    private final boolean[] defaultLeft;
+    // 模型特征下标 -> FeatureVector 默认顺序中的下标
+    private final int[] featureMapping;
+    private final float baseMargin;
+    private final boolean logistic;
+
+    private XgbTreeModel(int[] treeRoots, int[] leftChildren, int[] rightChildren, int[] splitIndices,
+                         float[] splitConditions, boolean[] defaultLeft, int[] featureMapping,
+                         float baseMargin, boolean logistic) {
+        this.treeRoots = treeRoots;
+        this.leftChildren = leftChildren;
+        this.rightChildren = rightChildren;
+        this.splitIndices = splitIndices;
+        this.splitConditions = splitConditions;
+        this.defaultLeft = defaultLeft;
+        this.featureMapping = featureMapping;
+        this.baseMargin = baseMargin;
+        this.logistic = logistic;
+    }
+
+    /**
+     * 从 XGBoost JSON 模型文件加载模型。
+     */
+    public static XgbTreeModel load(InputStream jsonModel) throws IOException {
+        JsonNode learner = objectMapper.readTree(jsonModel).path("learner");
+        if (learner.isMissingNode()) {
+            throw new IOException("不是有效的 XGBoost JSON 模型文件: 缺少 learner 节点");
+        }
+
+        String objective = learner.path("objective").path("name").asText("binary:logistic");
+        if (!SUPPORTED_OBJECTIVES.contains(objective)) {
+            throw new IOException("不支持的模型目标函数: " + objective + "，只支持 " + SUPPORTED_OBJECTIVES);
+        }
+        boolean binary = objective.startsWith("binary:");
+        // 只有 binary:logistic 需要对 margin 做 sigmoid，binary:logitraw 和 reg:squarederror 直接输出 margin
+        boolean logistic = objective.equals("binary:logistic");
+
+        float baseScore = parseBaseScore(learner.path("learner_model_param").path("base_score").asText("0.5"));
+        // 两种 binary 目标函数的 base_score 都是概率，需要先转换成 margin；reg:squarederror 的 base_score 就是 margin
+        float baseMargin = binary ? (float) Math.log(baseScore / (1.0 - baseScore)) : baseScore;
+
+        JsonNode trees = learner.path("gradient_booster").path("model").path("trees");
+        if (!trees.isArray() || trees.isEmpty()) {
+            throw new IOException("模型中没有任何树，只支持 gbtree 类型的模型");
+        }
+
+        int totalNodes = 0;
+        for (JsonNode tree : trees) {
+            totalNodes += tree.path("left_children").size();
+        }
+
+        int[] treeRoots = new int[trees.size()];
+        int[] left = new int[totalNodes];
+        int[] right = new int[totalNodes];
+        int[] splitIndices = new int[totalNodes];
+        float[] splitConditions = new float[totalNodes];
+        boolean[] defaultLeft = new boolean[totalNodes];
+        int maxSplitIndex = -1;
+
+        int offset = 0;
+        for (int t = 0; t < trees.size(); t++) {
+            JsonNode tree = trees.get(t);
+            JsonNode splitTypes = tree.path("split_type");
+            int nodes = tree.path("left_children").size();
+            treeRoots[t] = offset;
+            for (int i = 0; i < nodes; i++) {
+                int n = offset + i;
+                int l = tree.path("left_children").get(i).asInt();
+                int r = tree.path("right_children").get(i).asInt();
+                left[n] = l < 0 ? -1 : offset + l;
+                right[n] = r < 0 ? -1 : offset + r;
+                splitIndices[n] = tree.path("split_indices").get(i).asInt();
+                splitConditions[n] = (float) tree.path("split_conditions").get(i).asDouble();
+                // 旧版本的模型文件里 default_left 是布尔值，新版本是 0/1
+                JsonNode dl = tree.path("default_left").get(i);
+                defaultLeft[n] = dl.isBoolean() ? dl.asBoolean() : dl.asInt() != 0;
+                if (l >= 0) {
+                    if (splitTypes.size() > i && splitTypes.get(i).asInt() != 0) {
+                        throw new IOException("不支持类别型分裂 (树 " + t + ", 节点 " + i + ")");
+                    }
+                    maxSplitIndex = Math.max(maxSplitIndex, splitIndices[n]);
+                }
+            }
+            offset += nodes;
+        }
+
+        int[] featureMapping = buildFeatureMapping(learner.path("feature_names"), maxSplitIndex);
+        return new XgbTreeModel(treeRoots, left, right, splitIndices, splitConditions, defaultLeft,
+                featureMapping, baseMargin, logistic);
+    }
+
+    /**
+     * 计算一个特征集的预测分数。binary:logistic 模型返回丢包概率，
+     * binary:logitraw 模型返回 logit，reg:squarederror 模型返回回归值。
+     */
+    public double predict(CpeFeatures features) {
+        float margin = baseMargin;
+        for (int root : treeRoots) {
+            int node = root;
+            while (leftChildren[node] != -1) {
+                float x = (float) FeatureVector.valueOf(features, featureMapping[splitIndices[node]]);
+                if (Float.isNaN(x)) {
+                    node = defaultLeft[node] ? leftChildren[node] : rightChildren[node];
+                } else {
+                    node = x < splitConditions[node] ? leftChildren[node] : rightChildren[node];
+                }
+            }
+            margin += splitConditions[node];
+        }
+        return logistic ? 1.0f / (1.0f + (float) Math.exp(-margin)) : margin;
+    }
+
+    public int getTreeCount() {
+        return treeRoots.length;
+    }
+
+    public int getNodeCount() {
+        return leftChildren.length;
+    }
+
+    // XGBoost 2.1 起 base_score 可能以 "[5E-1]" 这样的数组形式保存
+    private static float parseBaseScore(String text) {
+        String value = text.trim();
+        if (value.startsWith("[")) {
+            value = value.substring(1, value.length() - 1).split(",")[0].trim();
+        }
+        return Float.parseFloat(value);
+    }
+
+    private static int[] buildFeatureMapping(JsonNode featureNames, int maxSplitIndex) throws IOException {
+        if (!featureNames.isArray() || featureNames.isEmpty()) {
+            // 模型文件没有记录特征名时，认为与 prediction_server.py 的列顺序一致
+            if (maxSplitIndex >= FeatureVector.DEFAULT_FEATURE_ORDER.size()) {
+                throw new IOException("模型使用的特征数量超出了已知特征: " + (maxSplitIndex + 1));
+            }
+            int[] identity = new int[FeatureVector.DEFAULT_FEATURE_ORDER.size()];
+            for (int i = 0; i < identity.length; i++) {
+                identity[i] = i;
+            }
+            return identity;
+        }
+        int[] mapping = new int[featureNames.size()];
+        for (int i = 0; i < mapping.length; i++) {
+            String name = featureNames.get(i).asText();
+            mapping[i] = FeatureVector.indexOf(name);
+            if (mapping[i] < 0) {
+                throw new IOException("模型中包含未知的特征: " + name);
+            }
+        }
+        return mapping;
+    }
+}
@@ -0,0 +1,26 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.model.CpeRawData;
+import com.cpeplatform.flink.model.DeadLetter;
+import com.cpeplatform.flink.model.RawDataRecord;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.OutputTag;
+
+/**
+ * 紧跟原始数据 Source 的拆分算子: 解析成功的数据进入主流，死信进入 {@link #DEAD_LETTERS} 旁路输出。
+ */
+public class DeadLetterSplitter extends ProcessFunction<RawDataRecord, CpeRawData> {
+
+    public static final OutputTag<DeadLetter> DEAD_LETTERS = new OutputTag<>("dead-letters") {
+    };
+
+    @Override
+    public void processElement(RawDataRecord record, Context ctx, Collector<CpeRawData> out) {
+        if (record.getData() != null) {
+            out.collect(record.getData());
+        } else if (record.getDeadLetter() != null) {
+            ctx.output(DEAD_LETTERS, record.getDeadLetter());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.cpeplatform.flink.processor;
+
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.state.StateTtlConfig;
+import org.apache.flink.api.common.time.Time;
+
+/**
+ * 每设备 Keyed State 的统一 TTL 配置。
+ * 设备长时间没有数据后其状态会自动过期，设备下线或更换后状态不会无限增长。
+ */
+public final class DeviceStateTtl {
+
+    private DeviceStateTtl() {
+    }
+
+    /**
+     * @param ttlMillis 状态的存活时间，读写都会刷新
+     */
+    public static StateTtlConfig of(long ttlMillis) {
+        return StateTtlConfig.newBuilder(Time.milliseconds(ttlMillis))
+                .setUpdateType(StateTtlConfig.UpdateType.OnReadAndWrite)
+                .setStateVisibility(StateTtlConfig.StateVisibility.NeverReturnExpired)
+                .build();
+    }
+
+    /**
+     * 为状态描述符开启 TTL，ttlMillis <= 0 时不开启 (例如批量回填作业中状态本身就是有界的)。
+     */
+    public static void apply(StateDescriptor<?, ?> descriptor, long ttlMillis) {
+        if (ttlMillis > 0) {
+            descriptor.enableTimeToLive(of(ttlMillis));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.cpeplatform.flink.processor;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 每个设备最近一次发出的状态，作为 Keyed State 保存。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceStatusState {
+    private String status;
+    // 最近一次向下游发出状态的处理时间
+    private long lastEmittedAt;
+    // 最近一次收到该设备数据的事件时间 (存活检测使用)
+    private long lastSeenAt;
+    // 当前已注册的存活检测定时器时间，0 表示没有定时器
+    private long timerAt;
+    // 最近一次收到该设备数据的处理时间，以及处理时间兜底定时器的时间 (0 表示没有)
+    private long lastArrivalAt;
+    private long processingTimerAt;
+}
@@ -0,0 +1,223 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.CpeStatusData;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.streaming.api.TimeDomain;
+import org.apache.flink.streaming.api.TimerService;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.util.Collector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 设备状态去重处理器。
+ * 记住每个设备最近一次发出的状态，只有状态发生变化时才向下游发出；
+ * 可选地在状态未变化时按固定间隔发出一次刷新 (心跳)，保证下游的 last_updated 不会长期不变。
+ * <p>
+ * 开启存活检测后，每个设备持有一个事件时间定时器：超过 livenessTimeoutMs 没有任何数据的设备
+ * 会收到一条合成的 OFFLINE 状态，下一条数据到达时恢复为数据中的状态 (未携带状态时视为 ONLINE)。
+ * 定时器时间向上取整到 timerGranularityMs，并且每个设备最多只有一个定时器：
+ * 收到数据时只更新 lastSeenAt，定时器触发时发现设备仍然活跃再按新的截止时间重新注册，
+ * 因此高频上报的设备不会产生大量的定时器注册和删除。
+ * <p>
+ * 事件时间定时器依赖水位线推进；所有分区都空闲时 (例如全网设备同时断连) 水位线停止推进，定时器不会触发。
+ * 为此每个设备另有一个处理时间兜底定时器 (processingTimeoutMs > 0 时)：超过 processingTimeoutMs 没有收到该设备的数据，
+ * 即使水位线没有推进也判定为离线。兜底超时应大于 livenessTimeoutMs 加上正常情况下水位线落后于数据到达的时间，
+ * 否则消费积压时会提前判定离线。两个定时器先触发的一个生效，合成 OFFLINE 的时间戳都是事件时间截止时间。
+ */
+public class DeviceStatusTracker extends KeyedProcessFunction<String, CpeStatusData, CpeStatusData> {
+
+    public static final String STATUS_ONLINE = "ONLINE";
+    public static final String STATUS_OFFLINE = "OFFLINE";
+    public static final String STATUS_DEGRADED = "DEGRADED";
+
+    // 按状态值统计输入记录的指标标签。状态值来自设备上报，只有已知的几种单独计数，其余归入 OTHER，避免指标基数失控
+    private static final String METRIC_NONE = "NONE";
+    private static final String METRIC_OTHER = "OTHER";
+    private static final Set<String> KNOWN_STATUSES = Set.of(STATUS_ONLINE, STATUS_DEGRADED, STATUS_OFFLINE);
+
+    // 状态未变化时的刷新间隔，<= 0 表示只发出状态变化
+    private final long refreshIntervalMs;
+    private final long stateTtlMs;
+    // 设备静默多久后判定为离线，<= 0 表示关闭存活检测
+    private final long livenessTimeoutMs;
+    private final long timerGranularityMs;
+    // 处理时间兜底: 多久没有收到设备数据后判定为离线，<= 0 表示只依赖事件时间
+    private final long processingTimeoutMs;
+
+    private transient ValueState<DeviceStatusState> lastStatusState;
+    // 已知状态值加上 NONE、OTHER，每个标签一个计数器
+    private transient Map<String, Counter> recordsByStatus;
+    private transient Counter emitted;
+    private transient Counter syntheticOffline;
+
+    public DeviceStatusTracker(long refreshIntervalMs, long stateTtlMs) {
+        this(refreshIntervalMs, stateTtlMs, 0L, 0L);
+    }
+
+    public DeviceStatusTracker(long refreshIntervalMs, long stateTtlMs, long livenessTimeoutMs, long timerGranularityMs) {
+        this(refreshIntervalMs, stateTtlMs, livenessTimeoutMs, timerGranularityMs, 0L);
+    }
+
+    public DeviceStatusTracker(long refreshIntervalMs, long stateTtlMs, long livenessTimeoutMs, long timerGranularityMs,
+                               long processingTimeoutMs) {
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.stateTtlMs = stateTtlMs;
+        this.livenessTimeoutMs = livenessTimeoutMs;
+        this.timerGranularityMs = Math.max(1L, timerGranularityMs);
+        this.processingTimeoutMs = processingTimeoutMs;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        ValueStateDescriptor<DeviceStatusState> descriptor =
+                new ValueStateDescriptor<>("last-emitted-status", DeviceStatusState.class);
+        DeviceStateTtl.apply(descriptor, stateTtlMs);
+        lastStatusState = getRuntimeContext().getState(descriptor);
+
+        MetricGroup statusMetrics = getRuntimeContext().getMetricGroup().addGroup(PipelineMetrics.STATUS);
+        recordsByStatus = new HashMap<>();
+        List<String> values = new ArrayList<>(KNOWN_STATUSES);
+        values.add(METRIC_NONE);
+        values.add(METRIC_OTHER);
+        for (String value : values) {
+            recordsByStatus.put(value, statusMetrics.addGroup(PipelineMetrics.STATUS_VALUE, value).counter(PipelineMetrics.RECORDS));
+        }
+        emitted = PipelineMetrics.counterWithRate(statusMetrics, PipelineMetrics.EMITTED);
+        syntheticOffline = statusMetrics.counter(PipelineMetrics.SYNTHETIC_OFFLINE);
+    }
+
+    @Override
+    public void processElement(CpeStatusData statusData, Context ctx, Collector<CpeStatusData> out) throws Exception {
+        long now = ctx.timerService().currentProcessingTime();
+        DeviceStatusState last = lastStatusState.value();
+        countRecord(statusData.getStatus());
+        if (livenessTimeoutMs <= 0) {
+            emitIfChanged(statusData, last, now, out);
+            return;
+        }
+
+        if (statusData.getStatus() == null) {
+            statusData.setStatus(STATUS_ONLINE);
+        }
+        // 离线判定之前产生的迟到数据不能让设备重新上线
+        if (last != null && STATUS_OFFLINE.equals(last.getStatus()) && statusData.getTimestamp() <= last.getLastSeenAt()) {
+            return;
+        }
+        DeviceStatusState state = last != null ? last : new DeviceStatusState();
+        state.setLastSeenAt(Math.max(state.getLastSeenAt(), statusData.getTimestamp()));
+        if (state.getTimerAt() == 0) {
+            state.setTimerAt(registerLivenessTimer(ctx.timerService(), state.getLastSeenAt()));
+        }
+        state.setLastArrivalAt(now);
+        if (processingTimeoutMs > 0 && state.getProcessingTimerAt() == 0) {
+            state.setProcessingTimerAt(registerProcessingTimer(ctx.timerService(), now));
+        }
+
+        boolean changed = last == null || !Objects.equals(state.getStatus(), statusData.getStatus());
+        boolean refreshDue = last != null && refreshIntervalMs > 0 && now - state.getLastEmittedAt() >= refreshIntervalMs;
+        if (changed || refreshDue) {
+            state.setStatus(statusData.getStatus());
+            state.setLastEmittedAt(now);
+            emitted.inc();
+            out.collect(statusData);
+        }
+        lastStatusState.update(state);
+    }
+
+    @Override
+    public void onTimer(long timestamp, OnTimerContext ctx, Collector<CpeStatusData> out) throws Exception {
+        DeviceStatusState state = lastStatusState.value();
+        if (state == null) {
+            // 状态已经过期 (设备长期静默)
+            return;
+        }
+
+        if (ctx.timeDomain() == TimeDomain.PROCESSING_TIME) {
+            // 定时器来自已被替换的旧注册
+            if (state.getProcessingTimerAt() != timestamp) {
+                return;
+            }
+            if (state.getLastArrivalAt() + processingTimeoutMs > timestamp) {
+                // 定时器注册之后又收到过数据，按最新的到达时间顺延
+                state.setProcessingTimerAt(registerProcessingTimer(ctx.timerService(), state.getLastArrivalAt()));
+            } else {
+                markOffline(state, ctx, out);
+            }
+        } else {
+            if (state.getTimerAt() != timestamp) {
+                return;
+            }
+            if (state.getLastSeenAt() + livenessTimeoutMs > timestamp) {
+                // 定时器注册之后设备又上报过数据，按最新的截止时间顺延
+                state.setTimerAt(registerLivenessTimer(ctx.timerService(), state.getLastSeenAt()));
+            } else {
+                markOffline(state, ctx, out);
+            }
+        }
+        lastStatusState.update(state);
+    }
+
+    // 两个定时器都作废，下一条数据到达时重新注册
+    private void markOffline(DeviceStatusState state, OnTimerContext ctx, Collector<CpeStatusData> out) {
+        state.setTimerAt(0L);
+        state.setProcessingTimerAt(0L);
+        if (!STATUS_OFFLINE.equals(state.getStatus())) {
+            state.setStatus(STATUS_OFFLINE);
+            state.setLastEmittedAt(ctx.timerService().currentProcessingTime());
+            emitted.inc();
+            syntheticOffline.inc();
+            out.collect(new CpeStatusData(ctx.getCurrentKey(), STATUS_OFFLINE, state.getLastSeenAt() + livenessTimeoutMs));
+        }
+    }
+
+    private void emitIfChanged(CpeStatusData statusData, DeviceStatusState last, long now, Collector<CpeStatusData> out)
+            throws Exception {
+        boolean changed = last == null || !Objects.equals(last.getStatus(), statusData.getStatus());
+        boolean refreshDue = last != null && refreshIntervalMs > 0 && now - last.getLastEmittedAt() >= refreshIntervalMs;
+        if (!changed && !refreshDue) {
+            return;
+        }
+
+        lastStatusState.update(new DeviceStatusState(statusData.getStatus(), now, 0L, 0L, 0L, 0L));
+        emitted.inc();
+        out.collect(statusData);
+    }
+
+    private void countRecord(String status) {
+        recordsByStatus.get(metricStatusValue(status)).inc();
+    }
+
+    // 指标标签: status.value.<状态>.records，未携带状态的记录计入 NONE，未知的状态值计入 OTHER
+    static String metricStatusValue(String status) {
+        if (status == null) {
+            return METRIC_NONE;
+        }
+        return KNOWN_STATUSES.contains(status) ? status : METRIC_OTHER;
+    }
+
+    // 截止时间向上取整到定时器粒度，同一粒度内的设备共享触发时刻
+    private long registerLivenessTimer(TimerService timerService, long lastSeenAt) {
+        long deadline = lastSeenAt + livenessTimeoutMs;
+        long fireAt = (Math.floorDiv(deadline, timerGranularityMs) + 1) * timerGranularityMs;
+        timerService.registerEventTimeTimer(fireAt);
+        return fireAt;
+    }
+
+    private long registerProcessingTimer(TimerService timerService, long lastArrivalAt) {
+        long deadline = lastArrivalAt + processingTimeoutMs;
+        long fireAt = (Math.floorDiv(deadline, timerGranularityMs) + 1) * timerGranularityMs;
+        timerService.registerProcessingTimeTimer(fireAt);
+        return fireAt;
+    }
+}
@@ -0,0 +1,119 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.PipelineControl;
+import org.apache.flink.api.common.state.BroadcastState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ReadOnlyBroadcastState;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.streaming.api.functions.co.KeyedBroadcastProcessFunction;
+import org.apache.flink.util.Collector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 预测前的统计门控。
+ * RTT 序列平稳时，相邻的特征集几乎相同，重复预测没有意义。
+ * 只有当均值、斜率或极差相对上次送去预测的特征集变化超过阈值，或者距上次送出已超过最大间隔时，才把特征集转发给下游。
+ * <p>
+ * 门控参数、窗口滑动步长和设备抽样比例保存在广播状态中，控制 Topic 的消息会广播到所有并行实例，
+ * 运行中即可生效，不需要重启作业，也不会丢失每个设备的窗口状态。广播状态随检查点保存，恢复后沿用最近的参数。
+ */
+public class FeatureGate<K> extends KeyedBroadcastProcessFunction<K, CpeFeatures, PipelineControl, CpeFeatures> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FeatureGate.class);
+
+    public static final MapStateDescriptor<String, GateSettings> SETTINGS_DESCRIPTOR = new MapStateDescriptor<>(
+            "gate-settings", Types.STRING, TypeInformation.of(GateSettings.class));
+    private static final String CURRENT = "current";
+
+    private final GateSettings initialSettings;
+    private final long stateTtlMs;
+
+    private transient ValueState<GateState> gateState;
+    private transient Counter forwarded;
+    private transient Counter suppressed;
+    private transient Counter controlUpdates;
+
+    public FeatureGate(GateSettings initialSettings, long stateTtlMs) {
+        this.initialSettings = initialSettings;
+        this.stateTtlMs = stateTtlMs;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        ValueStateDescriptor<GateState> descriptor = new ValueStateDescriptor<>("gate-state", GateState.class);
+        DeviceStateTtl.apply(descriptor, stateTtlMs);
+        gateState = getRuntimeContext().getState(descriptor);
+
+        MetricGroup group = getRuntimeContext().getMetricGroup().addGroup(PipelineMetrics.GATE);
+        forwarded = PipelineMetrics.counterWithRate(group, PipelineMetrics.FORWARDED);
+        suppressed = PipelineMetrics.counterWithRate(group, PipelineMetrics.SUPPRESSED);
+        controlUpdates = group.counter("controlUpdates");
+        group.gauge("suppressionRatio", () -> {
+            long total = forwarded.getCount() + suppressed.getCount();
+            return total == 0 ? 0.0 : (double) suppressed.getCount() / total;
+        });
+    }
+
+    @Override
+    public void processElement(CpeFeatures features, ReadOnlyContext ctx, Collector<CpeFeatures> out) throws Exception {
+        GateSettings settings = currentSettings(ctx.getBroadcastState(SETTINGS_DESCRIPTOR));
+        if (!settings.samples(features.getDeviceId())) {
+            suppressed.inc();
+            return;
+        }
+
+        long now = ctx.timerService().currentProcessingTime();
+        GateState state = gateState.value();
+        if (state == null) {
+            state = new GateState();
+        }
+
+        long seen = state.getSamplesSeen();
+        state.setSamplesSeen(seen + 1);
+        boolean onStride = seen % settings.getFeatureStride() == 0;
+        if (!onStride || (settings.isEnabled() && state.isScored() && !isInteresting(features, state, settings, now))) {
+            gateState.update(state);
+            suppressed.inc();
+            return;
+        }
+
+        state.setScored(true);
+        state.setMean(features.getMean_delay());
+        state.setSlope(features.getSlope_delay());
+        state.setRange(features.getRange());
+        state.setForwardedAt(now);
+        gateState.update(state);
+        forwarded.inc();
+        out.collect(features);
+    }
+
+    @Override
+    public void processBroadcastElement(PipelineControl control, Context ctx, Collector<CpeFeatures> out) throws Exception {
+        BroadcastState<String, GateSettings> broadcastState = ctx.getBroadcastState(SETTINGS_DESCRIPTOR);
+        GateSettings updated = currentSettings(broadcastState).merge(control);
+        broadcastState.put(CURRENT, updated);
+        controlUpdates.inc();
+        LOG.info("门控参数已更新: {}", updated);
+    }
+
+    private GateSettings currentSettings(ReadOnlyBroadcastState<String, GateSettings> broadcastState) throws Exception {
+        GateSettings settings = broadcastState.get(CURRENT);
+        return settings != null ? settings : initialSettings;
+    }
+
+    private boolean isInteresting(CpeFeatures features, GateState last, GateSettings settings, long now) {
+        return Math.abs(features.getMean_delay() - last.getMean()) >= settings.getMeanDelta()
+                || Math.abs(features.getSlope_delay() - last.getSlope()) >= settings.getSlopeDelta()
+                || Math.abs(features.getRange() - last.getRange()) >= settings.getRangeDelta()
+                || now - last.getForwardedAt() >= settings.getMaxStalenessMs();
+    }
+}
@@ -0,0 +1,57 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.model.PipelineControl;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 特征门控当前生效的参数。初始值来自作业参数，运行时可以被控制 Topic 中的消息覆盖。
+ * 任一统计量相对上次送去预测的特征集变化超过阈值，或距上次送出超过最大间隔，才会再次送去预测。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class GateSettings implements Serializable {
+    // 关闭时不比较阈值，但步长和抽样仍然生效
+    private boolean enabled;
+    private double meanDelta;
+    private double slopeDelta;
+    private double rangeDelta;
+    private long maxStalenessMs;
+    private int featureStride;
+    private double samplingRate;
+
+    /**
+     * 把一条控制消息合并到当前参数上，返回新的参数对象。非法的步长和抽样比例会被忽略。
+     */
+    public GateSettings merge(PipelineControl control) {
+        GateSettingsBuilder builder = toBuilder();
+        if (control.getGateEnabled() != null) builder.enabled(control.getGateEnabled());
+        if (control.getMeanDelta() != null) builder.meanDelta(control.getMeanDelta());
+        if (control.getSlopeDelta() != null) builder.slopeDelta(control.getSlopeDelta());
+        if (control.getRangeDelta() != null) builder.rangeDelta(control.getRangeDelta());
+        if (control.getMaxStalenessMs() != null) builder.maxStalenessMs(control.getMaxStalenessMs());
+        if (control.getFeatureStride() != null && control.getFeatureStride() >= 1) {
+            builder.featureStride(control.getFeatureStride());
+        }
+        if (control.getSamplingRate() != null && control.getSamplingRate() > 0 && control.getSamplingRate() <= 1) {
+            builder.samplingRate(control.getSamplingRate());
+        }
+        return builder.build();
+    }
+
+    /**
+     * 设备是否在抽样范围内。按 deviceId 哈希抽样，同一设备的取舍在参数不变时保持稳定。
+     */
+    public boolean samples(String deviceId) {
+        if (samplingRate >= 1.0) {
+            return true;
+        }
+        return (deviceId.hashCode() & Integer.MAX_VALUE) % 10_000 < samplingRate * 10_000;
+    }
+}
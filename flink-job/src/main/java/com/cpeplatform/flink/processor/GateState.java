@@ -0,0 +1,22 @@
+package com.cpeplatform.flink.processor;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 每个设备的门控状态: 已看到的特征集数量 (用于步长)，以及最近一次送去预测的特征摘要，作为 Keyed State 保存。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GateState {
+    private long samplesSeen;
+    // 是否已经送出过特征集，false 时下面的摘要字段无意义
+    private boolean scored;
+    private double mean;
+    private double slope;
+    private double range;
+    // 最近一次送出的处理时间
+    private long forwardedAt;
+}
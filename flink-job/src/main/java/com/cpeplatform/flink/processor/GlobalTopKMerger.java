@@ -0,0 +1,81 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.LatencyRankEntry;
+import com.cpeplatform.flink.model.TopLatencyRanking;
+import org.apache.flink.api.common.state.MapState;
+import org.apache.flink.api.common.state.MapStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.util.Collector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Top-K 的全局合并 (第二级)，以并行度 1 运行。
+ * 保存每个并行实例最近一次的本地快照，按固定节奏把所有快照合并成全网排行。
+ * 每个设备只属于一个并行实例，因此合并时不需要去重，代价是 O(K * 并行度 * log)。
+ */
+public class GlobalTopKMerger extends KeyedProcessFunction<Integer, TopKSnapshot, TopLatencyRanking> {
+
+    private final int k;
+    private final long intervalMs;
+    // 长时间没有新特征集的设备不再出现在排行中
+    private final long maxAgeMs;
+
+    private transient MapState<Integer, TopKSnapshot> snapshots;
+    private transient ValueState<Long> nextFire;
+    private transient Counter rankingsEmitted;
+
+    public GlobalTopKMerger(int k, long intervalMs, long maxAgeMs) {
+        this.k = k;
+        this.intervalMs = intervalMs;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        snapshots = getRuntimeContext().getMapState(
+                new MapStateDescriptor<>("top-k-snapshots", Types.INT, Types.POJO(TopKSnapshot.class)));
+        nextFire = getRuntimeContext().getState(new ValueStateDescriptor<>("top-k-next-fire", Types.LONG));
+        rankingsEmitted = PipelineMetrics.counterWithRate(
+                getRuntimeContext().getMetricGroup().addGroup(PipelineMetrics.TOPK), PipelineMetrics.RANKINGS_EMITTED);
+    }
+
+    @Override
+    public void processElement(TopKSnapshot snapshot, Context ctx, Collector<TopLatencyRanking> out) throws Exception {
+        snapshots.put(snapshot.getSubtask(), snapshot);
+        if (nextFire.value() == null) {
+            scheduleNext(ctx, ctx.timerService().currentProcessingTime());
+        }
+    }
+
+    @Override
+    public void onTimer(long timestamp, OnTimerContext ctx, Collector<TopLatencyRanking> out) throws Exception {
+        List<LatencyRankEntry> merged = new ArrayList<>();
+        for (TopKSnapshot snapshot : snapshots.values()) {
+            for (LatencyRankEntry entry : snapshot.getEntries()) {
+                if (timestamp - entry.getUpdatedAt() <= maxAgeMs) {
+                    merged.add(entry);
+                }
+            }
+        }
+        merged.sort(LocalTopKLatency.BY_SCORE.reversed());
+        List<LatencyRankEntry> top = merged.subList(0, Math.min(k, merged.size()));
+        rankingsEmitted.inc();
+        out.collect(new TopLatencyRanking(timestamp, top.toArray(new LatencyRankEntry[0])));
+        scheduleNext(ctx, timestamp);
+    }
+
+    // 对齐到 interval 的整数倍，输出节奏固定
+    private void scheduleNext(Context ctx, long now) throws Exception {
+        long fireAt = now - now % intervalMs + intervalMs;
+        ctx.timerService().registerProcessingTimeTimer(fireAt);
+        nextFire.update(fireAt);
+    }
+}
@@ -0,0 +1,139 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.dictionary.DeviceDictionary;
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.CpeLatencyData;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.util.Collector;
+
+import static com.cpeplatform.flink.processor.RttRingBuffer.WINDOW_SIZE;
+
+/**
+ * 增量式特征工程处理器，替代 countWindow(5,1) + FeatureEngineeringProcessor。
+ * 每个设备只在 Keyed State 中保存一个 {@link RttRingBuffer}，
+ * 每来一条 RTT 数据就以 O(1) 的代价更新缓冲区并输出与原处理器完全一致的特征集。
+ * <p>
+ * 字典模式下输入按整数设备键分区，输出特征集时在这里把设备键解码回字符串设备 ID。
+ *
+ * @param <K> 设备键的类型: 字符串设备 ID，或字典模式下的整数键
+ */
+public class IncrementalFeatureProcessor<K> extends KeyedProcessFunction<K, CpeLatencyData, CpeFeatures> {
+
+    // 斜率公式中的常量：x 取 1..5
+    private static final double SUM_X = WINDOW_SIZE * (WINDOW_SIZE + 1) / 2.0;
+    private static final double SUM_X2 = WINDOW_SIZE * (WINDOW_SIZE + 1) * (2 * WINDOW_SIZE + 1) / 6.0;
+    private static final double SLOPE_DENOMINATOR = WINDOW_SIZE * SUM_X2 - SUM_X * SUM_X;
+
+    private final long stateTtlMs;
+    // 设备字典快照路径，null 表示输入记录自带字符串设备 ID
+    private final String dictionaryPath;
+
+    private transient DeviceDictionary dictionary;
+    private transient ValueState<RttRingBuffer> bufferState;
+    // 计算中位数用的临时数组，每个并行实例复用一份
+    private transient int[] scratch;
+    private transient Counter emitted;
+    private transient Histogram computeNanos;
+
+    public IncrementalFeatureProcessor(long stateTtlMs) {
+        this(stateTtlMs, null);
+    }
+
+    public IncrementalFeatureProcessor(long stateTtlMs, String dictionaryPath) {
+        this.stateTtlMs = stateTtlMs;
+        this.dictionaryPath = dictionaryPath;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        ValueStateDescriptor<RttRingBuffer> descriptor = new ValueStateDescriptor<>("rtt-ring-buffer", RttRingBuffer.class);
+        DeviceStateTtl.apply(descriptor, stateTtlMs);
+        bufferState = getRuntimeContext().getState(descriptor);
+        scratch = new int[WINDOW_SIZE];
+        MetricGroup group = getRuntimeContext().getMetricGroup().addGroup(PipelineMetrics.FEATURES);
+        emitted = PipelineMetrics.counterWithRate(group, PipelineMetrics.EMITTED);
+        computeNanos = PipelineMetrics.histogram(group, PipelineMetrics.COMPUTE_NANOS);
+        if (dictionaryPath != null) {
+            dictionary = DeviceDictionary.shared(dictionaryPath);
+        }
+    }
+
+    @Override
+    public void processElement(CpeLatencyData value, Context ctx, Collector<CpeFeatures> out) throws Exception {
+        RttRingBuffer buffer = bufferState.value();
+        if (buffer == null) {
+            buffer = new RttRingBuffer();
+        }
+        buffer.add(value.getRtt());
+        bufferState.update(buffer);
+
+        // 与 countWindow(5,1) 的行为保持一致：凑满5个点之前不输出
+        if (!buffer.full()) {
+            return;
+        }
+
+        String deviceId = value.getDeviceId() != null ? value.getDeviceId() : dictionary.decode(value.getDeviceKey());
+        // 抽样计时，避免每条记录两次 nanoTime
+        boolean timed = emitted.getCount() % PipelineMetrics.COMPUTE_TIME_SAMPLE_INTERVAL == 0;
+        long start = timed ? System.nanoTime() : 0L;
+        CpeFeatures features = computeFeatures(deviceId, buffer, scratch);
+        if (timed) {
+            computeNanos.update(System.nanoTime() - start);
+        }
+        features.setEventTimestamp(value.getTimestamp());
+        features.setDeviceKey(value.getDeviceKey());
+        emitted.inc();
+        out.collect(features);
+    }
+
+    /**
+     * 由已满的环形缓冲区计算特征集。scratch 是长度为 WINDOW_SIZE 的临时数组，调用方复用以避免每条记录分配。
+     */
+    public static CpeFeatures computeFeatures(String deviceId, RttRingBuffer buffer, int[] scratch) {
+        int d1 = buffer.get(0), d2 = buffer.get(1), d3 = buffer.get(2), d4 = buffer.get(3), d5 = buffer.get(4);
+
+        int min = d1, max = d1;
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            int v = buffer.get(i);
+            scratch[i] = v;
+            if (v < min) min = v;
+            if (v > max) max = v;
+        }
+        // 5个元素的插入排序，代价是常数
+        for (int i = 1; i < WINDOW_SIZE; i++) {
+            int v = scratch[i];
+            int j = i - 1;
+            while (j >= 0 && scratch[j] > v) {
+                scratch[j + 1] = scratch[j];
+                j--;
+            }
+            scratch[j + 1] = v;
+        }
+
+        double mean = (double) buffer.getSum() / WINDOW_SIZE;
+        // 先转换成 long 再求和，避免三个大 RTT 相加时 int 溢出
+        double meanLastThree = ((long) d3 + d4 + d5) / 3.0;
+        double slope = (WINDOW_SIZE * (double) buffer.getWeightedSum() - SUM_X * (double) buffer.getSum()) / SLOPE_DENOMINATOR;
+
+        return CpeFeatures.builder()
+                .deviceId(deviceId)
+                .aggregationTimestamp(System.currentTimeMillis())
+                .delay_1(d1).delay_2(d2).delay_3(d3).delay_4(d4).delay_5(d5)
+                .mean_delay(mean)
+                .min_delay(min)
+                .mid_delay(scratch[WINDOW_SIZE / 2])
+                .max_delay(max)
+                .range((double) max - min)
+                .mean_of_last_three(meanLastThree)
+                .diff_between_last_two(d5 - d4)
+                .slope_delay(slope)
+                .build();
+    }
+}
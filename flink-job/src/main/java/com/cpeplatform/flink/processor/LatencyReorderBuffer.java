@@ -0,0 +1,163 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.CpeLatencyData;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.streaming.api.checkpoint.CheckpointedFunction;
+import org.apache.flink.streaming.api.functions.KeyedProcessFunction;
+import org.apache.flink.util.Collector;
+
+import java.util.Collections;
+
+/**
+ * 每设备的事件时间重排序缓冲区，位于特征工程之前。
+ * 跨分区或重试导致的乱序样本先按事件时间插入缓冲区，水位线越过样本时间后才按顺序放行，
+ * 下游的斜率、差分等特征因此总是按真实的采样顺序计算。
+ * <p>
+ * 每个设备只注册一个定时器 (缓冲区中最早样本的时间)，触发时放行全部不晚于水位线的样本。
+ * 缓冲区已满时提前放行最早的样本 (或直接放行更早的新样本)，单设备内存有上界；
+ * 早于水位线或早于已放行样本的迟到数据直接丢弃并计数。
+ * <p>
+ * 定时器放行后缓冲区为空时直接清除该设备的状态：此时已放行的样本都不晚于水位线，迟到判断只需水位线。
+ * 状态因此只在有样本等待放行时存在，不需要 TTL，也不会有样本随 TTL 过期而丢失。
+ * bufferedSamples / bufferedBytes 指标按放入和放行增减，计数随检查点保存在算子状态中；
+ * 改变并行度恢复后单个并行实例的值可能偏高或为负，但所有并行实例之和仍然准确。
+ *
+ * @param <K> 设备键的类型: 字符串设备 ID，或字典模式下的整数键
+ */
+public class LatencyReorderBuffer<K> extends KeyedProcessFunction<K, CpeLatencyData, CpeLatencyData>
+        implements CheckpointedFunction {
+
+    private final int capacity;
+
+    private transient ValueState<ReorderBufferState> bufferState;
+    private transient Counter lateDropped;
+    private transient Counter duplicatesDropped;
+    private transient Counter forcedReleases;
+    // 本并行实例当前缓冲的样本数，快照时写入 bufferedSamplesState
+    private transient long bufferedSamples;
+    private transient ListState<Long> bufferedSamplesState;
+
+    public LatencyReorderBuffer(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void initializeState(FunctionInitializationContext context) throws Exception {
+        bufferedSamplesState = context.getOperatorStateStore()
+                .getListState(new ListStateDescriptor<>("reorder-buffered-samples", Types.LONG));
+        bufferedSamples = 0;
+        // 改变并行度时各并行实例的计数被重新分配，求和保证总数不变
+        for (Long count : bufferedSamplesState.get()) {
+            bufferedSamples += count;
+        }
+    }
+
+    @Override
+    public void snapshotState(FunctionSnapshotContext context) throws Exception {
+        bufferedSamplesState.update(Collections.singletonList(bufferedSamples));
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        ValueStateDescriptor<ReorderBufferState> descriptor =
+                new ValueStateDescriptor<>("reorder-buffer", ReorderBufferState.class);
+        bufferState = getRuntimeContext().getState(descriptor);
+
+        MetricGroup group = getRuntimeContext().getMetricGroup().addGroup(PipelineMetrics.REORDER);
+        lateDropped = group.counter("lateDropped");
+        duplicatesDropped = group.counter("duplicatesDropped");
+        forcedReleases = group.counter("forcedReleases");
+        group.gauge("bufferedSamples", () -> bufferedSamples);
+        // 按每个缓冲样本 12 字节 (long + int) 估算的占用，不含状态后端自身的开销
+        group.gauge("bufferedBytes", () -> bufferedSamples * (Long.BYTES + Integer.BYTES));
+    }
+
+    @Override
+    public void processElement(CpeLatencyData value, Context ctx, Collector<CpeLatencyData> out) throws Exception {
+        ReorderBufferState buffer = bufferState.value();
+        if (buffer == null) {
+            buffer = new ReorderBufferState(capacity);
+            buffer.setDeviceId(value.getDeviceId());
+            buffer.setDeviceKey(value.getDeviceKey());
+        }
+
+        long timestamp = value.getTimestamp();
+        if (timestamp <= ctx.timerService().currentWatermark() || timestamp <= buffer.getLastReleasedAt()) {
+            lateDropped.inc();
+            return;
+        }
+        if (buffer.isFull()) {
+            forcedReleases.inc();
+            if (timestamp < buffer.earliest()) {
+                // 比缓冲区中所有样本都早，直接放行即可保持顺序
+                buffer.setLastReleasedAt(timestamp);
+                bufferState.update(buffer);
+                out.collect(value);
+                return;
+            }
+            release(buffer, 1, out);
+        }
+        if (!buffer.insert(timestamp, value.getRtt())) {
+            duplicatesDropped.inc();
+            return;
+        }
+        bufferedSamples++;
+
+        // 只在最早样本变化时补注册定时器，过期的旧定时器触发时什么也放行不了
+        if (buffer.earliest() < buffer.getTimerAt() || buffer.getTimerAt() == Long.MIN_VALUE) {
+            buffer.setTimerAt(buffer.earliest());
+            ctx.timerService().registerEventTimeTimer(buffer.earliest());
+        }
+        bufferState.update(buffer);
+    }
+
+    @Override
+    public void onTimer(long timestamp, OnTimerContext ctx, Collector<CpeLatencyData> out) throws Exception {
+        ReorderBufferState buffer = bufferState.value();
+        if (buffer == null || buffer.getTimerAt() != timestamp) {
+            return;
+        }
+
+        long watermark = ctx.timerService().currentWatermark();
+        int ready = 0;
+        while (ready < buffer.getSize() && buffer.getTimestamps()[ready] <= watermark) {
+            ready++;
+        }
+        if (ready > 0) {
+            release(buffer, ready, out);
+        }
+
+        if (buffer.getSize() > 0) {
+            buffer.setTimerAt(buffer.earliest());
+            ctx.timerService().registerEventTimeTimer(buffer.earliest());
+            bufferState.update(buffer);
+        } else {
+            bufferState.clear();
+        }
+    }
+
+    // 测试使用
+    long bufferedSamples() {
+        return bufferedSamples;
+    }
+
+    private void release(ReorderBufferState buffer, int count, Collector<CpeLatencyData> out) {
+        long[] timestamps = buffer.getTimestamps();
+        int[] rtts = buffer.getRtts();
+        for (int i = 0; i < count; i++) {
+            out.collect(new CpeLatencyData(buffer.getDeviceId(), rtts[i], timestamps[i], buffer.getDeviceKey()));
+        }
+        buffer.removeFirst(count);
+        bufferedSamples -= count;
+    }
+}
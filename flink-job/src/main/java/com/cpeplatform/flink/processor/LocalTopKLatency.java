@@ -0,0 +1,108 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.LatencyRankEntry;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.util.Collector;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 每个并行实例本地维护的 Top-K 最差延迟设备 (第一级)。
+ * 分数 = mean_delay + slopeWeight * slope_delay，即当前均值加上按趋势外推的增长。
+ * HashMap 按设备定位已在榜上的条目，TreeSet 按分数排序，每条特征集的代价是 O(log K)，与设备总数无关。
+ * 每隔 interval 把本地榜单快照发给全局合并算子，发出前先移除超过 maxAge 未更新的条目：
+ * 静默或离线的设备不会一直占着名额，把仍在上报的设备挡在榜外 (全局合并同样按 maxAge 过滤，否则排行会越来越短)。
+ * 本地榜单不进检查点，故障恢复后几个周期内即可重新建立。
+ */
+public class LocalTopKLatency extends ProcessFunction<CpeFeatures, TopKSnapshot> {
+
+    // 分数相同时按设备ID排序，保证 TreeSet 中不会有两个条目被视为相等
+    static final Comparator<LatencyRankEntry> BY_SCORE = Comparator
+            .comparingDouble(LatencyRankEntry::getScore)
+            .thenComparing(LatencyRankEntry::getDeviceId);
+
+    private final int k;
+    private final double slopeWeight;
+    private final long intervalMs;
+    private final long maxAgeMs;
+
+    private transient Map<String, LatencyRankEntry> byDevice;
+    private transient TreeSet<LatencyRankEntry> ranking;
+    private transient long lastEmittedAt;
+    private transient Counter snapshotsEmitted;
+
+    public LocalTopKLatency(int k, double slopeWeight, long intervalMs, long maxAgeMs) {
+        this.k = k;
+        this.slopeWeight = slopeWeight;
+        this.intervalMs = intervalMs;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        byDevice = new HashMap<>();
+        ranking = new TreeSet<>(BY_SCORE);
+        lastEmittedAt = -1;
+        snapshotsEmitted = PipelineMetrics.counterWithRate(
+                getRuntimeContext().getMetricGroup().addGroup(PipelineMetrics.TOPK), PipelineMetrics.SNAPSHOTS_EMITTED);
+    }
+
+    @Override
+    public void processElement(CpeFeatures features, Context ctx, Collector<TopKSnapshot> out) {
+        long now = ctx.timerService().currentProcessingTime();
+        if (lastEmittedAt < 0) {
+            lastEmittedAt = now;
+        }
+        boolean emit = now - lastEmittedAt >= intervalMs;
+        if (emit) {
+            // 先淘汰过期条目，当前这条特征集就有机会进入空出来的名额
+            evictStale(now);
+        }
+        double score = features.getMean_delay() + slopeWeight * features.getSlope_delay();
+        LatencyRankEntry entry = new LatencyRankEntry(
+                features.getDeviceId(), features.getMean_delay(), features.getSlope_delay(), score, now);
+
+        LatencyRankEntry previous = byDevice.remove(features.getDeviceId());
+        if (previous != null) {
+            // 已在榜上: 用最新的分数替换旧条目
+            ranking.remove(previous);
+            insert(entry);
+        } else if (ranking.size() < k) {
+            insert(entry);
+        } else if (BY_SCORE.compare(entry, ranking.first()) > 0) {
+            byDevice.remove(ranking.pollFirst().getDeviceId());
+            insert(entry);
+        }
+
+        if (emit) {
+            lastEmittedAt = now;
+            snapshotsEmitted.inc();
+            out.collect(new TopKSnapshot(getRuntimeContext().getIndexOfThisSubtask(), now,
+                    ranking.descendingSet().toArray(new LatencyRankEntry[0])));
+        }
+    }
+
+    private void evictStale(long now) {
+        Iterator<LatencyRankEntry> it = ranking.iterator();
+        while (it.hasNext()) {
+            LatencyRankEntry entry = it.next();
+            if (now - entry.getUpdatedAt() > maxAgeMs) {
+                it.remove();
+                byDevice.remove(entry.getDeviceId());
+            }
+        }
+    }
+
+    private void insert(LatencyRankEntry entry) {
+        ranking.add(entry);
+        byDevice.put(entry.getDeviceId(), entry);
+    }
+}
@@ -0,0 +1,70 @@
+package com.cpeplatform.flink.processor;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 每个设备的乱序缓冲区，作为 Keyed State 保存。
+ * 样本按事件时间升序存放在两个定长数组中，容量在创建时确定，单个设备占用的内存因此有上界；
+ * 使用数组而不是集合，保证 Flink 走 POJO 序列化而不是 Kryo。
+ */
+@Data
+@NoArgsConstructor
+public class ReorderBufferState {
+
+    // 放行时用于重建记录的设备标识，与输入记录一致 (字典模式下 deviceId 可能为 null)
+    private String deviceId;
+    private long deviceKey;
+    // 按事件时间升序排列的样本，只有前 size 个有效
+    private long[] timestamps;
+    private int[] rtts;
+    private int size;
+    // 最近一次放行的事件时间，不晚于它的样本视为迟到
+    private long lastReleasedAt = Long.MIN_VALUE;
+    // 当前已注册的事件时间定时器，Long.MIN_VALUE 表示没有
+    private long timerAt = Long.MIN_VALUE;
+
+    public ReorderBufferState(int capacity) {
+        this.timestamps = new long[capacity];
+        this.rtts = new int[capacity];
+    }
+
+    public boolean isFull() {
+        return size == timestamps.length;
+    }
+
+    public long earliest() {
+        return timestamps[0];
+    }
+
+    /**
+     * 按事件时间插入一个样本。与已缓冲样本时间戳相同的视为重复 (例如生产端重试)，不插入。
+     *
+     * @return 是否插入
+     */
+    public boolean insert(long timestamp, int rtt) {
+        int pos = size;
+        while (pos > 0 && timestamps[pos - 1] > timestamp) {
+            pos--;
+        }
+        if (pos > 0 && timestamps[pos - 1] == timestamp) {
+            return false;
+        }
+        System.arraycopy(timestamps, pos, timestamps, pos + 1, size - pos);
+        System.arraycopy(rtts, pos, rtts, pos + 1, size - pos);
+        timestamps[pos] = timestamp;
+        rtts[pos] = rtt;
+        size++;
+        return true;
+    }
+
+    /**
+     * 移除最早的 count 个样本，并记录最后一个被放行样本的时间戳。
+     */
+    public void removeFirst(int count) {
+        lastReleasedAt = timestamps[count - 1];
+        System.arraycopy(timestamps, count, timestamps, 0, size - count);
+        System.arraycopy(rtts, count, rtts, 0, size - count);
+        size -= count;
+    }
+}
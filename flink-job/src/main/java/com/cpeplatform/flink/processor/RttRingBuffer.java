@@ -0,0 +1,59 @@
+package com.cpeplatform.flink.processor;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 每个设备的 RTT 环形缓冲区，作为 Keyed State 保存。
+ * 只保存最近 5 个原始 RTT 值，并增量维护求和与加权求和，
+ * 使均值和斜率可以在 O(1) 时间内得到，且全程不产生装箱对象。
+ */
+@Data
+@NoArgsConstructor
+public class RttRingBuffer {
+
+    public static final int WINDOW_SIZE = 5;
+
+    // 原始 RTT 值，按写入顺序循环存放
+    private int[] values = new int[WINDOW_SIZE];
+    // 最旧元素所在的下标
+    private int head;
+    // 当前已缓存的元素个数 (最多 WINDOW_SIZE)
+    private int count;
+    // 窗口内 RTT 之和
+    private long sum;
+    // 窗口内 Σ(i * rtt_i)，i 从 1 开始 (最旧的元素 i = 1)，用于计算斜率
+    private long weightedSum;
+
+    /**
+     * 写入一个新的 RTT 值，窗口已满时覆盖最旧的值。
+     */
+    public void add(int rtt) {
+        if (count < WINDOW_SIZE) {
+            values[(head + count) % WINDOW_SIZE] = rtt;
+            count++;
+            sum += rtt;
+            weightedSum += (long) count * rtt;
+            return;
+        }
+        // 窗口滑动：所有元素的位置前移一位，新值占据第 WINDOW_SIZE 位
+        // W' = (W - oldest) - (S - oldest) + WINDOW_SIZE * rtt = W - S + WINDOW_SIZE * rtt
+        int oldest = values[head];
+        weightedSum = weightedSum - sum + (long) WINDOW_SIZE * rtt;
+        sum = sum - oldest + rtt;
+        values[head] = rtt;
+        head = (head + 1) % WINDOW_SIZE;
+    }
+
+    /**
+     * @param i 从 0 开始的位置，0 表示最旧的元素
+     * @return 窗口中第 i 个 RTT 值
+     */
+    public int get(int i) {
+        return values[(head + i) % WINDOW_SIZE];
+    }
+
+    public boolean full() {
+        return count == WINDOW_SIZE;
+    }
+}
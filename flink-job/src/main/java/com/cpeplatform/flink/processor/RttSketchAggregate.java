@@ -0,0 +1,32 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.model.CpeRawData;
+import com.cpeplatform.flink.sketch.StatusRttSketches;
+import org.apache.flink.api.common.functions.AggregateFunction;
+
+/**
+ * 分片级别的 RTT 草图聚合，每条原始数据只做一次对数分桶计数。
+ */
+public class RttSketchAggregate implements AggregateFunction<CpeRawData, StatusRttSketches, StatusRttSketches> {
+
+    @Override
+    public StatusRttSketches createAccumulator() {
+        return new StatusRttSketches();
+    }
+
+    @Override
+    public StatusRttSketches add(CpeRawData value, StatusRttSketches accumulator) {
+        accumulator.add(value.getStatus(), value.getRtt());
+        return accumulator;
+    }
+
+    @Override
+    public StatusRttSketches getResult(StatusRttSketches accumulator) {
+        return accumulator;
+    }
+
+    @Override
+    public StatusRttSketches merge(StatusRttSketches a, StatusRttSketches b) {
+        return a.merge(b);
+    }
+}
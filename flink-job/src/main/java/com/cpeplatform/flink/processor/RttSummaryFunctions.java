@@ -0,0 +1,82 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.RttSummary;
+import com.cpeplatform.flink.sketch.RttSketch;
+import com.cpeplatform.flink.sketch.StatusRttSketches;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.windowing.ProcessAllWindowFunction;
+import org.apache.flink.streaming.api.functions.windowing.ProcessWindowFunction;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.util.Collector;
+
+/**
+ * 全网 RTT 汇总的两级窗口函数: 分片窗口给局部草图标上统计周期，全局窗口把合并后的草图转换成分位数汇总。
+ */
+public final class RttSummaryFunctions {
+
+    private RttSummaryFunctions() {
+    }
+
+    /**
+     * 分片窗口: 记录本周期的起止时间，全局合并后作为汇总的统计周期。
+     */
+    public static class TagShardWindow extends ProcessWindowFunction<StatusRttSketches, StatusRttSketches, Integer, TimeWindow> {
+
+        private transient Counter emitted;
+
+        @Override
+        public void open(Configuration parameters) {
+            emitted = PipelineMetrics.counterWithRate(
+                    getRuntimeContext().getMetricGroup().addGroup(PipelineMetrics.SUMMARY), PipelineMetrics.SHARD_WINDOWS_EMITTED);
+        }
+
+        @Override
+        public void process(Integer shard, Context context, Iterable<StatusRttSketches> elements,
+                            Collector<StatusRttSketches> out) {
+            for (StatusRttSketches sketches : elements) {
+                sketches.setWindowStart(context.window().getStart());
+                sketches.setWindowEnd(context.window().getEnd());
+                emitted.inc();
+                out.collect(sketches);
+            }
+        }
+    }
+
+    /**
+     * 全局窗口: 各分片的草图已经在 reduce 中合并，这里只负责计算分位数。
+     */
+    public static class ToSummary extends ProcessAllWindowFunction<StatusRttSketches, RttSummary, TimeWindow> {
+
+        private transient Counter emitted;
+
+        @Override
+        public void open(Configuration parameters) {
+            emitted = PipelineMetrics.counterWithRate(
+                    getRuntimeContext().getMetricGroup().addGroup(PipelineMetrics.SUMMARY), PipelineMetrics.SUMMARIES_EMITTED);
+        }
+
+        @Override
+        public void process(Context context, Iterable<StatusRttSketches> elements, Collector<RttSummary> out) {
+            for (StatusRttSketches sketches : elements) {
+                RttSummary.RttQuantiles[] byStatus = new RttSummary.RttQuantiles[sketches.getStatuses().length];
+                for (int i = 0; i < byStatus.length; i++) {
+                    byStatus[i] = quantiles(sketches.getStatuses()[i], sketches.getStatusSketches()[i]);
+                }
+                emitted.inc();
+                out.collect(RttSummary.builder()
+                        .windowStart(sketches.getWindowStart())
+                        .windowEnd(sketches.getWindowEnd())
+                        .fleet(quantiles("ALL", sketches.getFleet()))
+                        .byStatus(byStatus)
+                        .build());
+            }
+        }
+
+        private static RttSummary.RttQuantiles quantiles(String status, RttSketch sketch) {
+            return new RttSummary.RttQuantiles(status, sketch.getCount(),
+                    sketch.quantile(0.50), sketch.quantile(0.90), sketch.quantile(0.99), sketch.getMax());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.model.LatencyRankEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 某个并行实例本地 Top-K 的快照，发给全局合并算子。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopKSnapshot {
+    private int subtask;
+    private long emittedAt;
+    private LatencyRankEntry[] entries;
+}
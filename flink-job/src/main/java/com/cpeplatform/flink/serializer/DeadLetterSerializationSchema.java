@@ -0,0 +1,42 @@
+package com.cpeplatform.flink.serializer;
+
+import com.cpeplatform.flink.model.DeadLetter;
+import org.apache.flink.connector.kafka.sink.KafkaRecordSerializationSchema;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 死信的 Kafka 序列化: key 和 value 保持原消息的字节不变，来源位置和失败原因放在消息头中，
+ * 修复解析问题后可以直接把 value 重新写回原始数据 Topic。
+ */
+public class DeadLetterSerializationSchema implements KafkaRecordSerializationSchema<DeadLetter> {
+
+    public static final String HEADER_SOURCE_TOPIC = "dlq.source-topic";
+    public static final String HEADER_PARTITION = "dlq.partition";
+    public static final String HEADER_OFFSET = "dlq.offset";
+    public static final String HEADER_ERROR = "dlq.error";
+
+    private final String topic;
+
+    public DeadLetterSerializationSchema(String topic) {
+        this.topic = topic;
+    }
+
+    @Override
+    public ProducerRecord<byte[], byte[]> serialize(DeadLetter deadLetter, KafkaSinkContext context, Long timestamp) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(HEADER_SOURCE_TOPIC, utf8(deadLetter.getSourceTopic()));
+        headers.add(HEADER_PARTITION, utf8(String.valueOf(deadLetter.getPartition())));
+        headers.add(HEADER_OFFSET, utf8(String.valueOf(deadLetter.getOffset())));
+        headers.add(HEADER_ERROR, utf8(deadLetter.getError()));
+        // 保留原消息的时间戳，死信 Topic 按原始时间保留和查询
+        return new ProducerRecord<>(topic, null, deadLetter.getTimestamp() >= 0 ? deadLetter.getTimestamp() : null,
+                deadLetter.getKey(), deadLetter.getPayload(), headers);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,6 +1,10 @@
 package com.cpeplatform.flink.serializer;
 
+import com.cpeplatform.flink.metrics.PipelineMetrics;
 import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.core.JsonProcessingException;
 import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -8,6 +12,7 @@ import org.slf4j.LoggerFactory;
 
 /**
  * 一个通用的JSON序列化器，可以将任何Java对象 (POJO) 序列化为JSON格式的字节数组。
+ * 在 Kafka Sink 中使用时，每条消息的大小记入 serializer.serializedBytes 和 serializer.bytesTotal。
  * @param <T> 要序列化的对象类型
  */
 public class JsonSerializationSchema<T> implements SerializationSchema<T> {
@@ -16,11 +21,27 @@ public class JsonSerializationSchema<T> implements SerializationSchema<T> {
     // ObjectMapper是线程安全的，可以作为静态成员变量重用，以提高性能。
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
+    private transient Histogram serializedBytes;
+    private transient Counter bytesTotal;
+
+    @Override
+    public void open(InitializationContext context) {
+        MetricGroup group = context.getMetricGroup().addGroup(PipelineMetrics.SERIALIZER);
+        serializedBytes = PipelineMetrics.histogram(group, PipelineMetrics.SERIALIZED_BYTES);
+        bytesTotal = group.counter(PipelineMetrics.BYTES_TOTAL);
+    }
+
     @Override
     public byte[] serialize(T element) {
         try {
             // 使用Jackson将Java对象转换为JSON格式的字节数组
-            return objectMapper.writeValueAsBytes(element);
+            byte[] bytes = objectMapper.writeValueAsBytes(element);
+            // 未经 open() 直接使用 (例如基准测试) 时不统计
+            if (serializedBytes != null) {
+                serializedBytes.update(bytes.length);
+                bytesTotal.inc(bytes.length);
+            }
+            return bytes;
         } catch (JsonProcessingException e) {
             // 如果序列化失败，记录错误日志
             LOG.error("序列化对象失败: {}", element, e);
@@ -0,0 +1,57 @@
+package com.cpeplatform.flink.serializer;
+
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.CpeRawData;
+import com.cpeplatform.flink.model.CpeStatusData;
+import com.cpeplatform.proto.CpeFeaturesProto;
+import com.cpeplatform.proto.CpeRawDataProto;
+import com.cpeplatform.proto.CpeStatusDataProto;
+
+/**
+ * Flink 数据模型与 Protobuf 消息之间的相互转换。
+ */
+public final class ProtobufConverters {
+
+    private ProtobufConverters() {
+    }
+
+    public static CpeRawData fromProto(CpeRawDataProto proto) {
+        return new CpeRawData(proto.getDeviceId(), proto.getStatus(), proto.getRtt(), proto.getTimestamp());
+    }
+
+    public static CpeRawDataProto toProto(CpeRawData rawData) {
+        return CpeRawDataProto.newBuilder()
+                .setDeviceId(nullToEmpty(rawData.getDeviceId()))
+                .setStatus(nullToEmpty(rawData.getStatus()))
+                .setRtt(rawData.getRtt())
+                .setTimestamp(rawData.getTimestamp())
+                .build();
+    }
+
+    public static CpeStatusDataProto toProto(CpeStatusData statusData) {
+        return CpeStatusDataProto.newBuilder()
+                .setDeviceId(nullToEmpty(statusData.getDeviceId()))
+                .setStatus(nullToEmpty(statusData.getStatus()))
+                .setTimestamp(statusData.getTimestamp())
+                .build();
+    }
+
+    public static CpeFeaturesProto toProto(CpeFeatures features) {
+        return CpeFeaturesProto.newBuilder()
+                .setDeviceId(nullToEmpty(features.getDeviceId()))
+                .setAggregationTimestamp(features.getAggregationTimestamp())
+                .setEventTimestamp(features.getEventTimestamp())
+                .setDelay1(features.getDelay_1()).setDelay2(features.getDelay_2()).setDelay3(features.getDelay_3())
+                .setDelay4(features.getDelay_4()).setDelay5(features.getDelay_5())
+                .setMeanDelay(features.getMean_delay()).setMinDelay(features.getMin_delay())
+                .setMidDelay(features.getMid_delay()).setMaxDelay(features.getMax_delay())
+                .setRange(features.getRange()).setMeanOfLastThree(features.getMean_of_last_three())
+                .setDiffBetweenLastTwo(features.getDiff_between_last_two()).setSlopeDelay(features.getSlope_delay())
+                .build();
+    }
+
+    // Protobuf 的 string 字段不接受 null
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
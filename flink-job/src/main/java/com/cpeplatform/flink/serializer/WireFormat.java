@@ -0,0 +1,19 @@
+package com.cpeplatform.flink.serializer;
+
+/**
+ * Kafka 消息的线上格式。每个主题可以单独选择，便于逐个主题迁移到二进制格式。
+ */
+public enum WireFormat {
+    JSON,
+    PROTOBUF;
+
+    /**
+     * 解析作业参数中的格式名称 (不区分大小写)，为空时使用 JSON。
+     */
+    public static WireFormat of(String name) {
+        if (name == null || name.isBlank()) {
+            return JSON;
+        }
+        return WireFormat.valueOf(name.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,78 @@
+package com.cpeplatform.flink.sketch;
+
+import lombok.Data;
+
+/**
+ * DDSketch 风格的 RTT 分位数草图。
+ * 正数按对数分桶，桶宽由相对误差 {@link #RELATIVE_ACCURACY} 决定，任意分位数的相对误差不超过 1%。
+ * 桶数组是固定长度的，内存与样本数、设备数无关；同一精度的两个草图逐桶相加即可合并，因此可以先按分片局部聚合再全局合并。
+ */
+@Data
+public class RttSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+    // 超过 10 分钟的 RTT 全部落到最后一个桶，最大值仍然精确记录
+    private static final int MAX_TRACKED_RTT_MS = 600_000;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int BUCKET_COUNT = index(MAX_TRACKED_RTT_MS) + 1;
+
+    private long[] counts = new long[BUCKET_COUNT];
+    // RTT 为 0 的样本无法取对数，单独计数
+    private long zeroCount;
+    private long count;
+    private int max;
+
+    public void add(int rttMs) {
+        if (rttMs < 0) {
+            return;
+        }
+        if (rttMs == 0) {
+            zeroCount++;
+        } else {
+            counts[Math.min(index(rttMs), BUCKET_COUNT - 1)]++;
+        }
+        count++;
+        max = Math.max(max, rttMs);
+    }
+
+    /**
+     * 把另一个草图合并进来。
+     */
+    public RttSketch merge(RttSketch other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    /**
+     * 第 quantile (0~1) 分位的 RTT 估计值，没有样本时返回 0。
+     */
+    public double quantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(quantile * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                // 桶的代表值取使相对误差最小的中点，并且不超过真实最大值
+                return Math.min(2 * Math.pow(GAMMA, i) / (GAMMA + 1), max);
+            }
+        }
+        return max;
+    }
+
+    private static int index(int rttMs) {
+        return (int) Math.ceil(Math.log(rttMs) / LOG_GAMMA);
+    }
+}
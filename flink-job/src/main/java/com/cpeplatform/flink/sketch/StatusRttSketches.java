@@ -0,0 +1,52 @@
+package com.cpeplatform.flink.sketch;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+
+/**
+ * 一个统计周期内的 RTT 草图: 全网一份，另按设备状态各一份。状态只有少数几种，内存仍然是常数。
+ * 按状态的草图用两个平行数组保存而不是 Map，这样 Flink 能用 POJO 序列化器而不必退回到 Kryo。
+ */
+@Data
+@NoArgsConstructor
+public class StatusRttSketches {
+
+    private static final String UNKNOWN_STATUS = "UNKNOWN";
+
+    private RttSketch fleet = new RttSketch();
+    private String[] statuses = new String[0];
+    private RttSketch[] statusSketches = new RttSketch[0];
+    // 统计周期 (处理时间)，由分片窗口填入
+    private long windowStart;
+    private long windowEnd;
+
+    public void add(String status, int rttMs) {
+        fleet.add(rttMs);
+        sketchFor(status == null ? UNKNOWN_STATUS : status).add(rttMs);
+    }
+
+    public StatusRttSketches merge(StatusRttSketches other) {
+        fleet.merge(other.fleet);
+        for (int i = 0; i < other.statuses.length; i++) {
+            sketchFor(other.statuses[i]).merge(other.statusSketches[i]);
+        }
+        windowStart = windowStart == 0 ? other.windowStart : Math.min(windowStart, other.windowStart);
+        windowEnd = Math.max(windowEnd, other.windowEnd);
+        return this;
+    }
+
+    private RttSketch sketchFor(String status) {
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i].equals(status)) {
+                return statusSketches[i];
+            }
+        }
+        statuses = Arrays.copyOf(statuses, statuses.length + 1);
+        statusSketches = Arrays.copyOf(statusSketches, statusSketches.length + 1);
+        statuses[statuses.length - 1] = status;
+        statusSketches[statusSketches.length - 1] = new RttSketch();
+        return statusSketches[statusSketches.length - 1];
+    }
+}
@@ -0,0 +1,100 @@
+package com.cpeplatform.flink.backfill;
+
+import com.cpeplatform.flink.prediction.FeatureVector;
+import org.apache.flink.api.java.utils.ParameterTool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 在本地执行环境中运行完整的回填作业：输出文件名符合训练脚本 (prediction_server.py 的 load_file) 读取的
+ * {@code cpe_a*-mobile.csv} 规则，损坏行过多时作业失败且不产出文件。
+ */
+class FeatureBackfillTest {
+
+    private static final int DEVICES = 10;
+    private static final int SAMPLES_PER_DEVICE = 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesFeatureFilesTheTrainerPicksUp() throws Exception {
+        Path input = writeInput(0);
+        Path output = dir.resolve("out");
+
+        FeatureBackfill.run(params(input, output));
+
+        List<Path> files = outputFiles(output);
+        assertFalse(files.isEmpty());
+        long rows = 0;
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            // 与 load_file 中的 filename.startswith('cpe_a') and filename.endswith('-mobile.csv') 相同
+            assertTrue(name.startsWith("cpe_a") && name.endsWith("-mobile.csv"), name);
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertEquals(String.join(",", FeatureVector.DEFAULT_FEATURE_ORDER), lines.get(0));
+            rows += lines.size() - 1;
+        }
+        // 每个设备凑满 5 个样本后每个样本输出一个特征集
+        assertEquals(DEVICES * (SAMPLES_PER_DEVICE - 4), rows);
+    }
+
+    @Test
+    void failsWithoutOutputWhenTooManyLinesAreMalformed() throws Exception {
+        Path input = writeInput(DEVICES * SAMPLES_PER_DEVICE);
+        Path output = dir.resolve("out");
+
+        assertThrows(Exception.class, () -> FeatureBackfill.run(params(input, output)));
+
+        assertTrue(outputFiles(output).isEmpty());
+    }
+
+    private Path writeInput(int malformedLines) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("deviceId,status,rtt,timestamp");
+        for (int device = 0; device < DEVICES; device++) {
+            for (int i = 0; i < SAMPLES_PER_DEVICE; i++) {
+                lines.add(String.format("CPE-%03d,ONLINE,%d,%d", device, 20 + device + i, 1_000L * i));
+            }
+        }
+        for (int i = 0; i < malformedLines; i++) {
+            lines.add("corrupted line " + i);
+        }
+        Path input = dir.resolve("in");
+        Files.createDirectories(input);
+        return Files.write(input.resolve("raw.csv"), lines, StandardCharsets.UTF_8);
+    }
+
+    private static ParameterTool params(Path input, Path output) {
+        return ParameterTool.fromArgs(new String[]{
+                "--" + FeatureBackfill.INPUT_PATH, input.toUri().toString(),
+                "--" + FeatureBackfill.OUTPUT_PATH, output.toUri().toString(),
+                "--" + FeatureBackfill.PARALLELISM, "1"});
+    }
+
+    private static List<Path> outputFiles(Path output) throws IOException {
+        if (!Files.isDirectory(output)) {
+            return List.of();
+        }
+        // 以 . 开头的是未提交的临时文件
+        try (Stream<Path> files = Files.walk(output)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().startsWith("."))
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.cpeplatform.flink.backfill;
+
+import com.cpeplatform.flink.model.CpeRawData;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.util.MockStreamingRuntimeContext;
+import org.apache.flink.util.Collector;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * {@link RawDataLineParser} 的两种行格式，以及输入结束时按损坏行比例决定是否终止作业。
+ */
+class RawDataLineParserTest {
+
+    private final List<CpeRawData> parsed = new ArrayList<>();
+
+    @Test
+    void parsesCsvAndNdjsonAndSkipsHeaderAndBlankLines() throws Exception {
+        RawDataLineParser parser = open(0.0);
+
+        feed(parser, "deviceId,status,rtt,timestamp",
+                " CPE-1 , ONLINE , 42 , 1000 ",
+                "",
+                "{\"deviceId\":\"CPE-2\",\"status\":\"DEGRADED\",\"rtt\":99,\"timestamp\":2000}");
+
+        assertEquals(List.of(new CpeRawData("CPE-1", "ONLINE", 42, 1000L),
+                new CpeRawData("CPE-2", "DEGRADED", 99, 2000L)), parsed);
+        // 表头与空行不算损坏，比例上限为 0 时也不终止
+        assertDoesNotThrow(parser::close);
+    }
+
+    @Test
+    void failsWhenMalformedRatioExceedsTheLimit() throws Exception {
+        RawDataLineParser parser = open(0.2);
+
+        feed(parser, "CPE-1,ONLINE,1,1", "CPE-1,ONLINE,2,2", "CPE-1,ONLINE,3,3",
+                "CPE-1,ONLINE,x,4", "{\"deviceId\":", "only,two");
+
+        assertEquals(3, parsed.size());
+        assertThrows(IllegalStateException.class, parser::close);
+    }
+
+    @Test
+    void toleratesMalformedLinesUpToTheLimit() throws Exception {
+        RawDataLineParser parser = open(0.25);
+
+        feed(parser, "CPE-1,ONLINE,1,1", "CPE-1,ONLINE,2,2", "CPE-1,ONLINE,3,3",
+                "{\"status\":\"ONLINE\",\"rtt\":4,\"timestamp\":4}");
+
+        assertEquals(3, parsed.size());
+        assertDoesNotThrow(parser::close);
+    }
+
+    private static RawDataLineParser open(double maxErrorRatio) {
+        RawDataLineParser parser = new RawDataLineParser(maxErrorRatio);
+        parser.setRuntimeContext(new MockStreamingRuntimeContext(false, 1, 0));
+        parser.open(new Configuration());
+        return parser;
+    }
+
+    private void feed(RawDataLineParser parser, String... lines) {
+        Collector<CpeRawData> out = new Collector<>() {
+            @Override
+            public void collect(CpeRawData record) {
+                parsed.add(record);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        for (String line : lines) {
+            parser.flatMap(line, out);
+        }
+    }
+}
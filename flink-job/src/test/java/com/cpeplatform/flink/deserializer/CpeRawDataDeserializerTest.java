@@ -0,0 +1,39 @@
+package com.cpeplatform.flink.deserializer;
+
+import com.cpeplatform.flink.model.CpeRawData;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * {@link CpeRawDataDeserializer}: 正常解析，以及解析失败时异常消息不包含消息内容 (该消息会进入死信错误头和日志)。
+ */
+class CpeRawDataDeserializerTest {
+
+    private final CpeRawDataDeserializer deserializer = new CpeRawDataDeserializer();
+
+    @Test
+    void parsesValidMessage() throws Exception {
+        CpeRawData data = deserializer.deserialize(
+                "{\"deviceId\":\"CPE-A\",\"status\":\"ONLINE\",\"rtt\":12,\"timestamp\":1000}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(new CpeRawData("CPE-A", "ONLINE", 12, 1000L), data);
+        assertNull(deserializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    void parseErrorDoesNotEchoMessageContent() {
+        String secret = "SECRET-" + "x".repeat(1_000);
+        byte[] message = ("{\"deviceId\":\"" + secret + "\",\"rtt\":oops}").getBytes(StandardCharsets.UTF_8);
+
+        IOException error = assertThrows(IOException.class, () -> deserializer.deserialize(message));
+
+        assertFalse(error.getMessage().contains("SECRET"), error.getMessage());
+    }
+}
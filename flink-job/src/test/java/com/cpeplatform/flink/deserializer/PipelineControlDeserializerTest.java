@@ -0,0 +1,111 @@
+package com.cpeplatform.flink.deserializer;
+
+import com.cpeplatform.flink.metrics.PipelineMetrics;
+import com.cpeplatform.flink.model.PipelineControl;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.util.SimpleUserCodeClassLoader;
+import org.apache.flink.util.UserCodeClassLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link PipelineControlDeserializer} 忽略格式错误的控制消息：计入 control.malformed，日志按间隔抽样。
+ */
+class PipelineControlDeserializerTest {
+
+    private final Map<String, Counter> counters = new HashMap<>();
+    private PipelineControlDeserializer deserializer;
+
+    @BeforeEach
+    void setUp() {
+        // 间隔足够长，第一条之后的错误消息都只计数不打印
+        deserializer = new PipelineControlDeserializer(3_600_000L);
+        deserializer.open(new DeserializationSchema.InitializationContext() {
+            @Override
+            public MetricGroup getMetricGroup() {
+                return new RecordingMetricGroup();
+            }
+
+            @Override
+            public UserCodeClassLoader getUserCodeClassLoader() {
+                return SimpleUserCodeClassLoader.create(getClass().getClassLoader());
+            }
+        });
+    }
+
+    @Test
+    void validMessageIgnoresUnknownFields() throws Exception {
+        PipelineControl control = deserializer.deserialize(
+                "{\"gateEnabled\": true, \"meanDelta\": 8.0, \"newField\": 1}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(Boolean.TRUE, control.getGateEnabled());
+        assertEquals(8.0, control.getMeanDelta());
+        assertEquals(0, malformed());
+    }
+
+    @Test
+    void malformedMessagesAreCountedAndOnlySampledInTheLog() throws Exception {
+        byte[] huge = new byte[1 << 20];
+        Arrays.fill(huge, (byte) 'x');
+
+        assertNull(deserializer.deserialize("{\"gateEnabled\": ".getBytes(StandardCharsets.UTF_8)));
+        assertNull(deserializer.deserialize(huge));
+        assertNull(deserializer.deserialize("[1, 2]".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3, malformed());
+        assertEquals(2, deserializer.suppressedSamples());
+        assertTrue(counters.containsKey(PipelineMetrics.CONTROL + "." + PipelineMetrics.MALFORMED));
+    }
+
+    @Test
+    void emptyMessageIsNotAnError() throws Exception {
+        assertNull(deserializer.deserialize(new byte[0]));
+        assertNull(deserializer.deserialize(null));
+
+        assertEquals(0, malformed());
+    }
+
+    private long malformed() {
+        Counter counter = counters.get(PipelineMetrics.CONTROL + "." + PipelineMetrics.MALFORMED);
+        return counter == null ? 0 : counter.getCount();
+    }
+
+    /**
+     * 按 分组.名称 记录注册的计数器。
+     */
+    private class RecordingMetricGroup extends UnregisteredMetricsGroup {
+
+        private final String prefix;
+
+        RecordingMetricGroup() {
+            this("");
+        }
+
+        private RecordingMetricGroup(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public MetricGroup addGroup(String name) {
+            return new RecordingMetricGroup(prefix + name + ".");
+        }
+
+        @Override
+        public Counter counter(String name) {
+            return counters.computeIfAbsent(prefix + name, n -> new SimpleCounter());
+        }
+    }
+}
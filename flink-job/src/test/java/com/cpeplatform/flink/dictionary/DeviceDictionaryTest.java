@@ -0,0 +1,71 @@
+package com.cpeplatform.flink.dictionary;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link DeviceDictionary} 的编码、解码，以及字典编码与字典外设备哈希键的取值范围互不重叠。
+ */
+class DeviceDictionaryTest {
+
+    @Test
+    void snapshotLineNumbersAreCodesAndDecodeBack(@TempDir Path dir) throws Exception {
+        Path snapshot = Files.write(dir.resolve("devices.txt"),
+                List.of("# 设备字典", "CPE-A", "", "  CPE-B  ", "# 注释", "CPE-C"), StandardCharsets.UTF_8);
+
+        DeviceDictionary dictionary = DeviceDictionary.load(snapshot.toUri().toString());
+
+        assertEquals(3, dictionary.size());
+        assertEquals(0L, dictionary.keyOf("CPE-A"));
+        assertEquals(1L, dictionary.keyOf("CPE-B"));
+        assertEquals(2L, dictionary.keyOf("CPE-C"));
+        for (String deviceId : new String[]{"CPE-A", "CPE-B", "CPE-C"}) {
+            assertEquals(deviceId, dictionary.decode(dictionary.keyOf(deviceId)));
+        }
+    }
+
+    @Test
+    void appendingToTheSnapshotKeepsExistingCodes() {
+        DeviceDictionary before = DeviceDictionary.of("CPE-A", "CPE-B");
+        DeviceDictionary after = DeviceDictionary.of("CPE-A", "CPE-B", "CPE-C");
+
+        assertEquals(before.keyOf("CPE-A"), after.keyOf("CPE-A"));
+        assertEquals(before.keyOf("CPE-B"), after.keyOf("CPE-B"));
+        // 新设备在旧快照中走哈希键，在新快照中得到编码: 两份快照给出的键不同
+        assertNotEquals(before.keyOf("CPE-C"), after.keyOf("CPE-C"));
+    }
+
+    @Test
+    void devicesOutsideTheDictionaryGetNegativeHashKeysThatDoNotDecode() {
+        DeviceDictionary dictionary = DeviceDictionary.of("CPE-A", "CPE-B");
+
+        Set<Long> keys = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            long key = dictionary.keyOf("CPE-UNKNOWN-" + i);
+            assertFalse(DeviceDictionary.isEncoded(key));
+            assertTrue(key < 0);
+            assertNull(dictionary.decode(key));
+            keys.add(key);
+        }
+        // 哈希键稳定且在这个规模下没有碰撞
+        assertEquals(10_000, keys.size());
+        assertEquals(dictionary.keyOf("CPE-UNKNOWN-1"), DeviceDictionary.of().keyOf("CPE-UNKNOWN-1"));
+
+        assertTrue(DeviceDictionary.isEncoded(dictionary.keyOf("CPE-A")));
+        assertNull(dictionary.decode(2L));
+        assertNull(dictionary.decode(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,259 @@
+package com.cpeplatform.flink.prediction;
+
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.PredictionResult;
+import com.cpeplatform.grpc.PacketLossBatchRequest;
+import com.cpeplatform.grpc.PacketLossBatchResponse;
+import com.cpeplatform.grpc.PacketLossFeaturesRequest;
+import com.cpeplatform.grpc.PredictionServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.api.functions.async.ResultFuture;
+import org.apache.flink.streaming.util.MockStreamingRuntimeContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link GrpcPredictionAsyncFunction} 对进程内 gRPC 服务端的微批、AIMD 批大小调整和超时处理。
+ */
+class GrpcPredictionAsyncFunctionTest {
+
+    private static final long RESULT_TIMEOUT_S = 5;
+
+    private final FakePredictionService service = new FakePredictionService();
+    private String serverName;
+    private Server server;
+    private GrpcPredictionAsyncFunction function;
+    private int nextDevice;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName).addService(service).build().start();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        if (function != null) {
+            function.close();
+        }
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void sendsFullBatchesAndGrowsBatchSizeAdditively() throws Exception {
+        open(settings(4, 16, 60_000, 2_000));
+
+        for (int expected : new int[]{4, 8, 12, 16, 16}) {
+            List<CompletableFuture<Collection<PredictionResult>>> results = invoke(expected);
+            assertEquals(expected, service.nextBatchSize());
+            assertPredictions(results);
+        }
+    }
+
+    @Test
+    void flushesPartialBatchAfterLinger() throws Exception {
+        open(settings(4, 16, 50, 2_000));
+
+        List<CompletableFuture<Collection<PredictionResult>>> results = invoke(2);
+
+        assertEquals(2, service.nextBatchSize());
+        assertPredictions(results);
+    }
+
+    @Test
+    void halvesBatchSizeWhenCallsAreSlowerThanTarget() throws Exception {
+        open(settings(4, 16, 60_000, 2_000));
+        growTo16();
+
+        service.delayMs = 150;
+        assertPredictions(invoke(16));
+        assertEquals(16, service.nextBatchSize());
+
+        // 慢调用之后批大小减半为 8，再慢一次减半为 4，不低于下限
+        assertPredictions(invoke(8));
+        assertEquals(8, service.nextBatchSize());
+        assertPredictions(invoke(4));
+        assertEquals(4, service.nextBatchSize());
+        assertPredictions(invoke(4));
+        assertEquals(4, service.nextBatchSize());
+    }
+
+    @Test
+    void halvesBatchSizeOnFailedCallsAndDropsTheirRecords() throws Exception {
+        open(settings(4, 16, 60_000, 2_000));
+        assertPredictions(invoke(4));
+        assertPredictions(invoke(8));
+        assertEquals(4, service.nextBatchSize());
+        assertEquals(8, service.nextBatchSize());
+
+        // 服务端立即返回错误，延迟低于目标值，批大小也要减半 (12 -> 6)
+        service.failWith = Status.UNAVAILABLE;
+        List<CompletableFuture<Collection<PredictionResult>>> failed = invoke(12);
+        assertEquals(12, service.nextBatchSize());
+        for (CompletableFuture<Collection<PredictionResult>> result : failed) {
+            assertTrue(result.get(RESULT_TIMEOUT_S, TimeUnit.SECONDS).isEmpty());
+        }
+
+        service.failWith = null;
+        assertPredictions(invoke(6));
+        assertEquals(6, service.nextBatchSize());
+    }
+
+    @Test
+    void deadlineExceededCompletesRecordsEmptyWithoutWaitingForServer() throws Exception {
+        open(settings(4, 16, 60_000, 100));
+        assertPredictions(invoke(4));
+        assertEquals(4, service.nextBatchSize());
+
+        service.delayMs = 2_000;
+        long start = System.nanoTime();
+        List<CompletableFuture<Collection<PredictionResult>>> timedOut = invoke(8);
+        for (CompletableFuture<Collection<PredictionResult>> result : timedOut) {
+            assertTrue(result.get(RESULT_TIMEOUT_S, TimeUnit.SECONDS).isEmpty());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_500,
+                "记录应在 deadline 到期后完成，而不是等服务端返回");
+        assertEquals(8, service.nextBatchSize());
+
+        service.delayMs = 0;
+        assertPredictions(invoke(4));
+        assertEquals(4, service.nextBatchSize());
+    }
+
+    @Test
+    void asyncOperatorTimeoutCompletesRecordEmpty() throws Exception {
+        open(settings(4, 16, 60_000, 2_000));
+        TestResultFuture result = new TestResultFuture();
+
+        function.timeout(features(0), result);
+
+        assertTrue(result.future.get(RESULT_TIMEOUT_S, TimeUnit.SECONDS).isEmpty());
+    }
+
+    private void growTo16() throws Exception {
+        for (int size : new int[]{4, 8, 12}) {
+            assertPredictions(invoke(size));
+            assertEquals(size, service.nextBatchSize());
+        }
+    }
+
+    private void open(MicroBatchSettings settings) throws Exception {
+        function = new GrpcPredictionAsyncFunction(Collections.singletonList(serverName), settings) {
+            @Override
+            ManagedChannel createChannel(String endpoint) {
+                return InProcessChannelBuilder.forName(endpoint).directExecutor().build();
+            }
+        };
+        function.setRuntimeContext(new MockStreamingRuntimeContext(false, 1, 0));
+        function.open(new Configuration());
+    }
+
+    private static MicroBatchSettings settings(int minBatch, int maxBatch, long maxLingerMs, long callTimeoutMs) {
+        return MicroBatchSettings.builder()
+                .minBatchSize(minBatch)
+                .maxBatchSize(maxBatch)
+                .minLingerMs(1)
+                .maxLingerMs(maxLingerMs)
+                .targetLatencyMs(50)
+                .callTimeoutMs(callTimeoutMs)
+                .build();
+    }
+
+    private List<CompletableFuture<Collection<PredictionResult>>> invoke(int records) {
+        List<CompletableFuture<Collection<PredictionResult>>> results = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            TestResultFuture result = new TestResultFuture();
+            function.asyncInvoke(features(nextDevice++), result);
+            results.add(result.future);
+        }
+        return results;
+    }
+
+    private static CpeFeatures features(int device) {
+        return CpeFeatures.builder().deviceId("CPE-" + device).delay_1(device).build();
+    }
+
+    /**
+     * 服务端按 delay_1 的奇偶返回结果，每条记录都要拿回自己的那一个。
+     */
+    private static void assertPredictions(List<CompletableFuture<Collection<PredictionResult>>> results) throws Exception {
+        for (CompletableFuture<Collection<PredictionResult>> future : results) {
+            Collection<PredictionResult> result = future.get(RESULT_TIMEOUT_S, TimeUnit.SECONDS);
+            assertEquals(1, result.size());
+            PredictionResult prediction = result.iterator().next();
+            int device = Integer.parseInt(prediction.getDeviceId().substring("CPE-".length()));
+            assertEquals(device % 2 == 0, prediction.isHasPacketLoss(), prediction.getDeviceId());
+        }
+    }
+
+    private static final class TestResultFuture implements ResultFuture<PredictionResult> {
+
+        private final CompletableFuture<Collection<PredictionResult>> future = new CompletableFuture<>();
+
+        @Override
+        public void complete(Collection<PredictionResult> result) {
+            future.complete(result);
+        }
+
+        @Override
+        public void completeExceptionally(Throwable error) {
+            future.completeExceptionally(error);
+        }
+    }
+
+    private static final class FakePredictionService extends PredictionServiceGrpc.PredictionServiceImplBase {
+
+        private final BlockingQueue<Integer> batchSizes = new LinkedBlockingQueue<>();
+        private volatile long delayMs;
+        private volatile Status failWith;
+
+        @Override
+        public void predictPacketLossBatch(PacketLossBatchRequest request,
+                                           StreamObserver<PacketLossBatchResponse> responseObserver) {
+            batchSizes.add(request.getRequestsCount());
+            if (failWith != null) {
+                responseObserver.onError(failWith.asRuntimeException());
+                return;
+            }
+            if (delayMs > 0) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            PacketLossBatchResponse.Builder response = PacketLossBatchResponse.newBuilder();
+            for (PacketLossFeaturesRequest features : request.getRequestsList()) {
+                response.addHasPacketLoss(features.getDelay1() % 2 == 0);
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        }
+
+        int nextBatchSize() throws InterruptedException {
+            Integer size = batchSizes.poll(RESULT_TIMEOUT_S, TimeUnit.SECONDS);
+            assertNotNull(size, "服务端没有收到批量请求");
+            return size;
+        }
+    }
+}
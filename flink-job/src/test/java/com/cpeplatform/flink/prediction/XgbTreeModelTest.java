@@ -0,0 +1,126 @@
+package com.cpeplatform.flink.prediction;
+
+import com.cpeplatform.flink.model.CpeFeatures;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link XgbTreeModel} 与 Python 端预测结果的一致性，以及各目标函数的连接函数。
+ * <p>
+ * 对照数据在 src/test/resources/xgb 下，文件格式与 Python-server/export_model.py 的输出相同
+ * (模型 JSON + 样本特征及 Python 端分数的 CSV)，用生产模型重新导出后直接覆盖即可。
+ * 当前的模型是 Python-server/controller_model_xgb.pkl 中已训练的 booster (300 棵树，xgboost 3.0.2)；
+ * 分数由独立的 float32 参考实现按 XGBoost 的语义计算，而不是 xgboost 本身。
+ */
+class XgbTreeModelTest {
+
+    private static final String MODEL_RESOURCE = "/xgb/controller_model_xgb.json";
+    private static final String SCORES_RESOURCE = "/xgb/controller_model_xgb_scores.csv";
+
+    @Test
+    void scoresMatchPythonExportedFixture() throws IOException {
+        XgbTreeModel model;
+        try (InputStream in = resource(MODEL_RESOURCE)) {
+            model = XgbTreeModel.load(in);
+        }
+
+        int rows = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource(SCORES_RESOURCE), StandardCharsets.UTF_8))) {
+            String[] header = reader.readLine().split(",");
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                CpeFeatures features = new CpeFeatures();
+                double expected = Double.NaN;
+                for (int i = 0; i < header.length; i++) {
+                    if (header[i].equals("score")) {
+                        expected = Double.parseDouble(values[i]);
+                    } else {
+                        setFeature(features, header[i], Double.parseDouble(values[i]));
+                    }
+                }
+                // XGBoost 以 float32 计算，允许 float 精度的误差
+                assertEquals(expected, model.predict(features), 1e-6, "第 " + (rows + 1) + " 行");
+                rows++;
+            }
+        }
+        assertTrue(rows > 0, "对照样本为空");
+    }
+
+    @Test
+    void logitrawReturnsMarginWithLogitBaseScore() throws IOException {
+        // 一棵只有根叶子的树: margin = logit(base_score) + 0.25
+        XgbTreeModel model = XgbTreeModel.load(singleLeafModel("binary:logitraw", "2.5E-1", 0.25f));
+        float expected = (float) Math.log(0.25 / 0.75) + 0.25f;
+        assertEquals(expected, model.predict(new CpeFeatures()), 1e-6);
+    }
+
+    @Test
+    void logisticAppliesSigmoid() throws IOException {
+        XgbTreeModel model = XgbTreeModel.load(singleLeafModel("binary:logistic", "[2.5E-1]", 0.25f));
+        float margin = (float) Math.log(0.25 / 0.75) + 0.25f;
+        assertEquals(1.0 / (1.0 + Math.exp(-margin)), model.predict(new CpeFeatures()), 1e-6);
+    }
+
+    @Test
+    void squaredErrorUsesIdentityLink() throws IOException {
+        XgbTreeModel model = XgbTreeModel.load(singleLeafModel("reg:squarederror", "1.5E0", 0.25f));
+        assertEquals(1.75, model.predict(new CpeFeatures()), 1e-6);
+    }
+
+    @Test
+    void rejectsObjectivesWithOtherLinkFunctions() {
+        for (String objective : new String[]{"reg:logistic", "reg:pseudohubererror", "reg:absoluteerror",
+                "count:poisson", "reg:gamma", "reg:tweedie", "multi:softprob", "rank:pairwise"}) {
+            IOException e = assertThrows(IOException.class,
+                    () -> XgbTreeModel.load(singleLeafModel(objective, "5E-1", 0.1f)), objective);
+            assertTrue(e.getMessage().contains(objective));
+        }
+    }
+
+    private static InputStream resource(String name) {
+        InputStream in = XgbTreeModelTest.class.getResourceAsStream(name);
+        assertNotNull(in, "缺少测试资源 " + name);
+        return in;
+    }
+
+    private static InputStream singleLeafModel(String objective, String baseScore, float leaf) {
+        String json = "{\"learner\":{"
+                + "\"learner_model_param\":{\"base_score\":\"" + baseScore + "\"},"
+                + "\"objective\":{\"name\":\"" + objective + "\"},"
+                + "\"gradient_booster\":{\"model\":{\"trees\":[{"
+                + "\"left_children\":[-1],\"right_children\":[-1],\"split_indices\":[0],"
+                + "\"split_conditions\":[" + leaf + "],\"default_left\":[0],\"split_type\":[0]}]}}}}";
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void setFeature(CpeFeatures features, String name, double value) {
+        switch (name) {
+            case "mean_delay": features.setMean_delay(value); break;
+            case "min_delay": features.setMin_delay(value); break;
+            case "mid_delay": features.setMid_delay(value); break;
+            case "max_delay": features.setMax_delay(value); break;
+            case "slope_delay": features.setSlope_delay(value); break;
+            case "mean_of_last_three": features.setMean_of_last_three(value); break;
+            case "diff_between_last_two": features.setDiff_between_last_two(value); break;
+            case "range": features.setRange(value); break;
+            case "delay_1": features.setDelay_1((int) value); break;
+            case "delay_2": features.setDelay_2((int) value); break;
+            case "delay_3": features.setDelay_3((int) value); break;
+            case "delay_4": features.setDelay_4((int) value); break;
+            case "delay_5": features.setDelay_5((int) value); break;
+            default: throw new IllegalArgumentException("对照数据中有未知的特征列: " + name);
+        }
+    }
+}
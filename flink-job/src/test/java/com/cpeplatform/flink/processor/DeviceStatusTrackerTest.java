@@ -0,0 +1,143 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.model.CpeStatusData;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link DeviceStatusTracker}: 状态变化与定时刷新，事件时间存活检测 (OFFLINE、恢复、迟到数据)，处理时间兜底，
+ * 以及按状态值计数时的指标标签。
+ * 水位线与处理时间由 harness 控制。
+ */
+class DeviceStatusTrackerTest {
+
+    private static final long TTL_MS = 86_400_000L;
+    private static final long LIVENESS_TIMEOUT_MS = 10_000L;
+    private static final long GRANULARITY_MS = 1_000L;
+    private static final long PROCESSING_TIMEOUT_MS = 30_000L;
+
+    @Test
+    void emitsOnlyStatusTransitions() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeStatusData, CpeStatusData> harness =
+                     harness(new DeviceStatusTracker(0L, TTL_MS))) {
+            harness.open();
+            harness.processElement(status("CPE-A", "ONLINE", 1), 1);
+            harness.processElement(status("CPE-A", "ONLINE", 2), 2);
+            harness.processElement(status("CPE-A", "DEGRADED", 3), 3);
+            harness.processElement(status("CPE-B", "DEGRADED", 4), 4);
+            harness.processElement(status("CPE-A", "DEGRADED", 5), 5);
+
+            assertEquals(List.of("CPE-A:ONLINE@1", "CPE-A:DEGRADED@3", "CPE-B:DEGRADED@4"), describe(harness));
+        }
+    }
+
+    @Test
+    void refreshesUnchangedStatusAfterInterval() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeStatusData, CpeStatusData> harness =
+                     harness(new DeviceStatusTracker(1_000L, TTL_MS))) {
+            harness.open();
+            harness.setProcessingTime(0L);
+            harness.processElement(status("CPE-A", "ONLINE", 1), 1);
+            harness.setProcessingTime(999L);
+            harness.processElement(status("CPE-A", "ONLINE", 2), 2);
+            harness.setProcessingTime(1_000L);
+            harness.processElement(status("CPE-A", "ONLINE", 3), 3);
+
+            assertEquals(List.of("CPE-A:ONLINE@1", "CPE-A:ONLINE@3"), describe(harness));
+        }
+    }
+
+    @Test
+    void synthesizesOfflineWhenWatermarkPassesDeadlineAndRecovers() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeStatusData, CpeStatusData> harness = livenessHarness(0L)) {
+            harness.open();
+            harness.processElement(status("CPE-A", null, 1_000), 1_000);
+            // 截止时间 11000 之前又有数据，定时器触发时按新的截止时间 16000 顺延
+            harness.processElement(status("CPE-A", "ONLINE", 6_000), 6_000);
+            harness.processWatermark(12_000);
+            assertEquals(List.of("CPE-A:ONLINE@1000"), describe(harness));
+
+            harness.processWatermark(17_000);
+            // 水位线继续推进不会重复发出 OFFLINE
+            harness.processWatermark(40_000);
+            harness.processElement(status("CPE-A", "DEGRADED", 41_000), 41_000);
+
+            assertEquals(List.of("CPE-A:ONLINE@1000", "CPE-A:OFFLINE@16000", "CPE-A:DEGRADED@41000"), describe(harness));
+        }
+    }
+
+    @Test
+    void lateDataDoesNotBringOfflineDeviceBack() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeStatusData, CpeStatusData> harness = livenessHarness(0L)) {
+            harness.open();
+            harness.processElement(status("CPE-A", "ONLINE", 1_000), 1_000);
+            harness.processWatermark(12_000);
+            // 离线判定之前产生的数据迟到
+            harness.processElement(status("CPE-A", "ONLINE", 900), 900);
+            harness.processElement(status("CPE-A", "ONLINE", 1_000), 1_000);
+
+            assertEquals(List.of("CPE-A:ONLINE@1000", "CPE-A:OFFLINE@11000"), describe(harness));
+        }
+    }
+
+    @Test
+    void fallsBackToProcessingTimeWhenWatermarkStalls() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeStatusData, CpeStatusData> harness =
+                     livenessHarness(PROCESSING_TIMEOUT_MS)) {
+            harness.open();
+            harness.setProcessingTime(0L);
+            harness.processElement(status("CPE-A", "ONLINE", 1_000), 1_000);
+            harness.processElement(status("CPE-B", "ONLINE", 1_000), 1_000);
+            harness.setProcessingTime(20_000L);
+            harness.processElement(status("CPE-B", "ONLINE", 2_000), 2_000);
+
+            // 水位线没有推进；CPE-A 超过兜底时间没有数据，CPE-B 的定时器顺延
+            harness.setProcessingTime(31_000L);
+            assertEquals(List.of("CPE-A:ONLINE@1000", "CPE-B:ONLINE@1000", "CPE-A:OFFLINE@11000"), describe(harness));
+
+            harness.setProcessingTime(51_000L);
+            // 水位线随后恢复推进，已离线的设备不会再次发出 OFFLINE
+            harness.processWatermark(60_000);
+            assertEquals(List.of("CPE-A:ONLINE@1000", "CPE-B:ONLINE@1000", "CPE-A:OFFLINE@11000", "CPE-B:OFFLINE@12000"),
+                    describe(harness));
+        }
+    }
+
+    @Test
+    void bucketsUnknownStatusValuesForMetrics() {
+        assertEquals("ONLINE", DeviceStatusTracker.metricStatusValue("ONLINE"));
+        assertEquals("DEGRADED", DeviceStatusTracker.metricStatusValue("DEGRADED"));
+        assertEquals("OFFLINE", DeviceStatusTracker.metricStatusValue("OFFLINE"));
+        assertEquals("NONE", DeviceStatusTracker.metricStatusValue(null));
+        assertEquals("OTHER", DeviceStatusTracker.metricStatusValue("online"));
+        assertEquals("OTHER", DeviceStatusTracker.metricStatusValue("NONE"));
+        assertEquals("OTHER", DeviceStatusTracker.metricStatusValue("x".repeat(10_000)));
+    }
+
+    private static KeyedOneInputStreamOperatorTestHarness<String, CpeStatusData, CpeStatusData> livenessHarness(
+            long processingTimeoutMs) throws Exception {
+        return harness(new DeviceStatusTracker(0L, TTL_MS, LIVENESS_TIMEOUT_MS, GRANULARITY_MS, processingTimeoutMs));
+    }
+
+    private static KeyedOneInputStreamOperatorTestHarness<String, CpeStatusData, CpeStatusData> harness(
+            DeviceStatusTracker tracker) throws Exception {
+        return new KeyedOneInputStreamOperatorTestHarness<>(
+                new KeyedProcessOperator<>(tracker), CpeStatusData::getDeviceId, Types.STRING);
+    }
+
+    private static CpeStatusData status(String deviceId, String status, long timestamp) {
+        return new CpeStatusData(deviceId, status, timestamp);
+    }
+
+    private static List<String> describe(KeyedOneInputStreamOperatorTestHarness<String, CpeStatusData, CpeStatusData> harness) {
+        return harness.extractOutputValues().stream()
+                .map(data -> data.getDeviceId() + ":" + data.getStatus() + "@" + data.getTimestamp())
+                .toList();
+    }
+}
@@ -0,0 +1,174 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.CpeDataSplittingJob.FeatureEngineeringProcessor;
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.CpeLatencyData;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.operators.SimpleOperatorFactory;
+import org.apache.flink.streaming.api.transformations.OneInputTransformation;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link IncrementalFeatureProcessor} 与原来的 countWindow(5,1) + {@link FeatureEngineeringProcessor} 的一致性。
+ * 两边喂入同一个多设备交错的序列，每个设备都远超 5 条，覆盖环形缓冲区的回绕和窗口的 CountEvictor 淘汰。
+ */
+class IncrementalFeatureProcessorTest {
+
+    private static final long NO_TTL = 0L;
+
+    @Test
+    void emitsSameFeaturesAsCountWindowProcessor() throws Exception {
+        List<CpeLatencyData> input = randomSequence(20, 2_000, 42L);
+
+        List<CpeFeatures> expected = runWindowProcessor(input);
+        List<CpeFeatures> actual = runIncrementalProcessor(input, input.size());
+
+        // 每个设备前 4 条不输出
+        assertEquals(input.size() - 20 * 4, expected.size());
+        assertFeaturesEqual(expected, actual);
+    }
+
+    @Test
+    void restoredBufferContinuesWhereTheSnapshotLeftOff() throws Exception {
+        List<CpeLatencyData> input = randomSequence(7, 500, 7L);
+
+        List<CpeFeatures> expected = runWindowProcessor(input);
+        // 在一个设备的缓冲区刚好半满时做快照并从快照恢复
+        List<CpeFeatures> actual = runIncrementalProcessor(input, 17);
+
+        assertFeaturesEqual(expected, actual);
+    }
+
+    @Test
+    void extremeValuesDoNotOverflowRunningSums() throws Exception {
+        List<CpeLatencyData> input = new ArrayList<>();
+        int[] rtts = {Integer.MAX_VALUE, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, 1, Integer.MAX_VALUE, 0, 0, 0,
+                Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+        for (int i = 0; i < rtts.length; i++) {
+            input.add(new CpeLatencyData("CPE-MAX", rtts[i], 1_000L + i));
+        }
+
+        assertFeaturesEqual(runWindowProcessor(input), runIncrementalProcessor(input, input.size()));
+    }
+
+    @Test
+    void expiredStateStartsANewWindow() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeLatencyData, CpeFeatures> harness =
+                     incrementalHarness(60_000L)) {
+            harness.open();
+            harness.setStateTtlProcessingTime(0L);
+            for (int i = 0; i < 5; i++) {
+                harness.processElement(new StreamRecord<>(new CpeLatencyData("CPE-1", 10 + i, i)));
+            }
+            assertEquals(1, harness.extractOutputValues().size());
+
+            // 超过 TTL 后缓冲区被清空，需要重新凑满 5 个点才输出
+            harness.setStateTtlProcessingTime(60_001L);
+            for (int i = 0; i < 4; i++) {
+                harness.processElement(new StreamRecord<>(new CpeLatencyData("CPE-1", 20 + i, 10 + i)));
+            }
+            assertEquals(1, harness.extractOutputValues().size());
+            harness.processElement(new StreamRecord<>(new CpeLatencyData("CPE-1", 24, 14)));
+            List<CpeFeatures> output = harness.extractOutputValues();
+            assertEquals(2, output.size());
+            assertEquals(20, output.get(1).getDelay_1());
+            assertEquals(24, output.get(1).getDelay_5());
+        }
+    }
+
+    private static List<CpeLatencyData> randomSequence(int devices, int records, long seed) {
+        Random random = new Random(seed);
+        List<CpeLatencyData> input = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            String deviceId = String.format("CPE-%03d", random.nextInt(devices));
+            // 大部分是正常 RTT，偶尔出现尖峰
+            int rtt = random.nextInt(20) == 0 ? 1_000 + random.nextInt(100_000) : random.nextInt(300);
+            input.add(new CpeLatencyData(deviceId, rtt, 1_700_000_000_000L + i));
+        }
+        return input;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<CpeFeatures> runWindowProcessor(List<CpeLatencyData> input) throws Exception {
+        // 从 DataStream API 取出 countWindow(5,1) 生成的 EvictingWindowOperator，与改造前作业中的算子完全相同
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        DataStream<CpeFeatures> windowed = env.fromElements(input.get(0))
+                .keyBy(CpeLatencyData::getDeviceId)
+                .countWindow(5, 1)
+                .process(new FeatureEngineeringProcessor());
+        OneInputTransformation<CpeLatencyData, CpeFeatures> transformation =
+                (OneInputTransformation<CpeLatencyData, CpeFeatures>) windowed.getTransformation();
+        OneInputStreamOperator<CpeLatencyData, CpeFeatures> operator = (OneInputStreamOperator<CpeLatencyData, CpeFeatures>)
+                ((SimpleOperatorFactory<CpeFeatures>) transformation.getOperatorFactory()).getOperator();
+
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeLatencyData, CpeFeatures> harness =
+                     new KeyedOneInputStreamOperatorTestHarness<>(operator, CpeLatencyData::getDeviceId, Types.STRING)) {
+            harness.open();
+            for (CpeLatencyData record : input) {
+                harness.processElement(new StreamRecord<>(record, record.getTimestamp()));
+            }
+            return harness.extractOutputValues();
+        }
+    }
+
+    /**
+     * 前 snapshotAt 条记录处理完后做快照，在新的 harness 中恢复后继续处理剩余记录。
+     */
+    private static List<CpeFeatures> runIncrementalProcessor(List<CpeLatencyData> input, int snapshotAt) throws Exception {
+        List<CpeFeatures> output = new ArrayList<>();
+        OperatorSubtaskState snapshot;
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeLatencyData, CpeFeatures> harness = incrementalHarness(NO_TTL)) {
+            harness.open();
+            for (CpeLatencyData record : input.subList(0, snapshotAt)) {
+                harness.processElement(new StreamRecord<>(record, record.getTimestamp()));
+            }
+            snapshot = harness.snapshot(1L, 1L);
+            output.addAll(harness.extractOutputValues());
+        }
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeLatencyData, CpeFeatures> harness = incrementalHarness(NO_TTL)) {
+            harness.initializeState(snapshot);
+            harness.open();
+            for (CpeLatencyData record : input.subList(snapshotAt, input.size())) {
+                harness.processElement(new StreamRecord<>(record, record.getTimestamp()));
+            }
+            output.addAll(harness.extractOutputValues());
+        }
+        return output;
+    }
+
+    private static KeyedOneInputStreamOperatorTestHarness<String, CpeLatencyData, CpeFeatures> incrementalHarness(
+            long stateTtlMs) throws Exception {
+        return new KeyedOneInputStreamOperatorTestHarness<>(
+                new KeyedProcessOperator<>(new IncrementalFeatureProcessor<String>(stateTtlMs)),
+                CpeLatencyData::getDeviceId, Types.STRING);
+    }
+
+    private static void assertFeaturesEqual(List<CpeFeatures> expected, List<CpeFeatures> actual) {
+        assertEquals(expected.size(), actual.size(), "输出条数");
+        assertTrue(expected.size() > 0);
+        for (int i = 0; i < expected.size(); i++) {
+            CpeFeatures e = expected.get(i);
+            CpeFeatures a = actual.get(i);
+            // 窗口处理器不设置事件时间；增量处理器带上窗口中最新一条记录的时间。聚合时间是各自的系统时间
+            assertTrue(a.getEventTimestamp() > 0, "第 " + i + " 条缺少事件时间");
+            a.setEventTimestamp(0L);
+            a.setAggregationTimestamp(0L);
+            e.setAggregationTimestamp(0L);
+            assertEquals(e, a, "第 " + i + " 条特征集");
+        }
+    }
+}
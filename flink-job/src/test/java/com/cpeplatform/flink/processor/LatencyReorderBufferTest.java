@@ -0,0 +1,124 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.model.CpeLatencyData;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.runtime.checkpoint.OperatorSubtaskState;
+import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link LatencyReorderBuffer}: 按事件时间排序、水位线放行、迟到与重复样本丢弃、缓冲区满时的提前放行，
+ * 以及缓冲样本数在检查点恢复后保持准确。
+ */
+class LatencyReorderBufferTest {
+
+    @Test
+    void releasesSamplesInEventTimeOrderOnceTheWatermarkPasses() throws Exception {
+        LatencyReorderBuffer<String> buffer = new LatencyReorderBuffer<>(16);
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeLatencyData, CpeLatencyData> harness = harness(buffer)) {
+            harness.open();
+            harness.processElement(sample("CPE-A", 30, 300), 300);
+            harness.processElement(sample("CPE-A", 10, 100), 100);
+            harness.processElement(sample("CPE-A", 20, 200), 200);
+            harness.processElement(sample("CPE-B", 15, 150), 150);
+            assertEquals(List.of(), describe(harness));
+            assertEquals(4, buffer.bufferedSamples());
+
+            // 只保证单个设备内有序: CPE-A 的定时器 (100) 一次放行所有不晚于水位线的样本
+            harness.processWatermark(200);
+            assertEquals(List.of("CPE-A:100", "CPE-A:200", "CPE-B:150"), describe(harness));
+            assertEquals(1, buffer.bufferedSamples());
+
+            harness.processWatermark(300);
+            assertEquals(List.of("CPE-A:100", "CPE-A:200", "CPE-B:150", "CPE-A:300"), describe(harness));
+            assertEquals(0, buffer.bufferedSamples());
+            // 缓冲区放空后不保留任何设备状态
+            assertEquals(0, harness.numKeyedStateEntries());
+        }
+    }
+
+    @Test
+    void dropsLateAndDuplicateSamples() throws Exception {
+        LatencyReorderBuffer<String> buffer = new LatencyReorderBuffer<>(16);
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeLatencyData, CpeLatencyData> harness = harness(buffer)) {
+            harness.open();
+            harness.processElement(sample("CPE-A", 10, 100), 100);
+            harness.processElement(sample("CPE-A", 11, 100), 100);
+            harness.processWatermark(150);
+            // 不晚于水位线
+            harness.processElement(sample("CPE-A", 12, 150), 150);
+            harness.processElement(sample("CPE-A", 20, 200), 200);
+            harness.processWatermark(250);
+
+            assertEquals(List.of("CPE-A:100", "CPE-A:200"), describe(harness));
+            assertEquals(10, harness.extractOutputValues().get(0).getRtt());
+            assertEquals(0, buffer.bufferedSamples());
+        }
+    }
+
+    @Test
+    void forcesReleaseOfTheEarliestSampleWhenFull() throws Exception {
+        LatencyReorderBuffer<String> buffer = new LatencyReorderBuffer<>(2);
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeLatencyData, CpeLatencyData> harness = harness(buffer)) {
+            harness.open();
+            harness.processElement(sample("CPE-A", 20, 200), 200);
+            harness.processElement(sample("CPE-A", 30, 300), 300);
+            // 缓冲区已满: 比所有缓冲样本都早的新样本直接放行
+            harness.processElement(sample("CPE-A", 10, 100), 100);
+            // 否则先放行最早的样本再插入
+            harness.processElement(sample("CPE-A", 40, 400), 400);
+            assertEquals(List.of("CPE-A:100", "CPE-A:200"), describe(harness));
+            assertEquals(2, buffer.bufferedSamples());
+
+            // 早于已放行样本的数据迟到，即使水位线还没有越过它
+            harness.processElement(sample("CPE-A", 15, 150), 150);
+            harness.processWatermark(400);
+            assertEquals(List.of("CPE-A:100", "CPE-A:200", "CPE-A:300", "CPE-A:400"), describe(harness));
+            assertEquals(0, buffer.bufferedSamples());
+        }
+    }
+
+    @Test
+    void bufferedSampleCountSurvivesRestore() throws Exception {
+        OperatorSubtaskState snapshot;
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeLatencyData, CpeLatencyData> harness =
+                     harness(new LatencyReorderBuffer<>(16))) {
+            harness.open();
+            harness.processElement(sample("CPE-A", 10, 100), 100);
+            harness.processElement(sample("CPE-B", 20, 200), 200);
+            snapshot = harness.snapshot(1L, 0L);
+        }
+
+        LatencyReorderBuffer<String> restored = new LatencyReorderBuffer<>(16);
+        try (KeyedOneInputStreamOperatorTestHarness<String, CpeLatencyData, CpeLatencyData> harness = harness(restored)) {
+            harness.initializeState(snapshot);
+            harness.open();
+            assertEquals(2, restored.bufferedSamples());
+
+            harness.processWatermark(200);
+            assertEquals(List.of("CPE-A:100", "CPE-B:200"), describe(harness));
+            assertEquals(0, restored.bufferedSamples());
+        }
+    }
+
+    private static KeyedOneInputStreamOperatorTestHarness<String, CpeLatencyData, CpeLatencyData> harness(
+            LatencyReorderBuffer<String> buffer) throws Exception {
+        return new KeyedOneInputStreamOperatorTestHarness<>(
+                new KeyedProcessOperator<>(buffer), CpeLatencyData::getDeviceId, Types.STRING);
+    }
+
+    private static CpeLatencyData sample(String deviceId, int rtt, long timestamp) {
+        return new CpeLatencyData(deviceId, rtt, timestamp);
+    }
+
+    private static List<String> describe(KeyedOneInputStreamOperatorTestHarness<String, CpeLatencyData, CpeLatencyData> harness) {
+        return harness.extractOutputValues().stream()
+                .map(data -> data.getDeviceId() + ":" + data.getTimestamp())
+                .toList();
+    }
+}
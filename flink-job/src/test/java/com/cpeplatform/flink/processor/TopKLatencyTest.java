@@ -0,0 +1,119 @@
+package com.cpeplatform.flink.processor;
+
+import com.cpeplatform.flink.model.CpeFeatures;
+import com.cpeplatform.flink.model.LatencyRankEntry;
+import com.cpeplatform.flink.model.TopLatencyRanking;
+import org.apache.flink.api.common.typeinfo.Types;
+import org.apache.flink.streaming.api.operators.KeyedProcessOperator;
+import org.apache.flink.streaming.api.operators.ProcessOperator;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 两级 Top-K 排行: {@link LocalTopKLatency} 的替换、按分数淘汰与过期淘汰，以及 {@link GlobalTopKMerger} 的合并与过期过滤。
+ * 处理时间由 harness 控制。
+ */
+class TopKLatencyTest {
+
+    private static final long INTERVAL_MS = 5_000L;
+    private static final long MAX_AGE_MS = 60_000L;
+
+    @Test
+    void localRankingReplacesExistingDeviceAndEvictsLowestScore() throws Exception {
+        try (OneInputStreamOperatorTestHarness<CpeFeatures, TopKSnapshot> harness = localHarness(2)) {
+            harness.open();
+            harness.setProcessingTime(0L);
+            harness.processElement(features("CPE-A", 100), 0L);
+            harness.processElement(features("CPE-B", 50), 0L);
+            // 已在榜上的设备用最新分数替换，即使分数变低
+            harness.processElement(features("CPE-A", 30), 0L);
+            // 榜单已满，比最低分高才能挤掉最低分的设备
+            harness.processElement(features("CPE-C", 10), 0L);
+            harness.processElement(features("CPE-D", 40), 0L);
+
+            harness.setProcessingTime(INTERVAL_MS);
+            harness.processElement(features("CPE-E", 1), INTERVAL_MS);
+
+            List<TopKSnapshot> snapshots = harness.extractOutputValues();
+            assertEquals(1, snapshots.size());
+            assertEquals(List.of("CPE-B", "CPE-D"), deviceIds(snapshots.get(0).getEntries()));
+        }
+    }
+
+    @Test
+    void localRankingEvictsSilentDevicesWhenEmitting() throws Exception {
+        try (OneInputStreamOperatorTestHarness<CpeFeatures, TopKSnapshot> harness = localHarness(2)) {
+            harness.open();
+            harness.setProcessingTime(0L);
+            // CPE-A 分数最高，随后静默
+            harness.processElement(features("CPE-A", 1_000), 0L);
+            harness.processElement(features("CPE-B", 50), 0L);
+
+            harness.setProcessingTime(MAX_AGE_MS / 2);
+            harness.processElement(features("CPE-B", 60), MAX_AGE_MS / 2);
+
+            // CPE-A 已过期、CPE-B 未过期: 新设备进入 CPE-A 空出的名额
+            long now = MAX_AGE_MS + 1;
+            harness.setProcessingTime(now);
+            harness.processElement(features("CPE-C", 5), now);
+
+            List<TopKSnapshot> snapshots = harness.extractOutputValues();
+            TopKSnapshot last = snapshots.get(snapshots.size() - 1);
+            assertEquals(now, last.getEmittedAt());
+            assertEquals(List.of("CPE-B", "CPE-C"), deviceIds(last.getEntries()));
+        }
+    }
+
+    @Test
+    void globalMergeKeepsTheLatestSnapshotPerSubtaskAndDropsStaleEntries() throws Exception {
+        try (KeyedOneInputStreamOperatorTestHarness<Integer, TopKSnapshot, TopLatencyRanking> harness =
+                     new KeyedOneInputStreamOperatorTestHarness<>(
+                             new KeyedProcessOperator<>(new GlobalTopKMerger(3, INTERVAL_MS, MAX_AGE_MS)),
+                             snapshot -> 0, Types.INT)) {
+            harness.open();
+            long now = 2 * MAX_AGE_MS;
+            harness.setProcessingTime(now - 1);
+            harness.processElement(new StreamRecord<>(new TopKSnapshot(0, now - 1, new LatencyRankEntry[]{
+                    entry("CPE-OLD", 900, now - 1)})));
+            // 同一个并行实例的新快照替换旧快照
+            harness.processElement(new StreamRecord<>(new TopKSnapshot(0, now - 1, new LatencyRankEntry[]{
+                    entry("CPE-A", 100, now - 1), entry("CPE-B", 20, now - 1)})));
+            harness.processElement(new StreamRecord<>(new TopKSnapshot(1, now - 1, new LatencyRankEntry[]{
+                    entry("CPE-STALE", 500, now - MAX_AGE_MS - 1), entry("CPE-C", 70, now - 1),
+                    entry("CPE-D", 10, now - 1)})));
+
+            // 定时器对齐到 interval 的整数倍
+            harness.setProcessingTime(now);
+
+            List<TopLatencyRanking> rankings = harness.extractOutputValues();
+            assertEquals(1, rankings.size());
+            assertEquals(now, rankings.get(0).getGeneratedAt());
+            assertEquals(List.of("CPE-A", "CPE-C", "CPE-B"), deviceIds(rankings.get(0).getDevices()));
+        }
+    }
+
+    private static OneInputStreamOperatorTestHarness<CpeFeatures, TopKSnapshot> localHarness(int k) throws Exception {
+        // 斜率权重为 0: 分数就是 mean_delay
+        return new OneInputStreamOperatorTestHarness<>(
+                new ProcessOperator<>(new LocalTopKLatency(k, 0.0, INTERVAL_MS, MAX_AGE_MS)));
+    }
+
+    private static CpeFeatures features(String deviceId, double meanDelay) {
+        return CpeFeatures.builder().deviceId(deviceId).mean_delay(meanDelay).build();
+    }
+
+    private static LatencyRankEntry entry(String deviceId, double score, long updatedAt) {
+        return new LatencyRankEntry(deviceId, score, 0.0, score, updatedAt);
+    }
+
+    private static List<String> deviceIds(LatencyRankEntry[] entries) {
+        return Arrays.stream(entries).map(LatencyRankEntry::getDeviceId).toList();
+    }
+}
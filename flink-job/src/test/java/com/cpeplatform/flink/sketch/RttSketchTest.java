@@ -0,0 +1,93 @@
+package com.cpeplatform.flink.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link RttSketch}: 分位数与精确值的相对误差、RTT 为 0 与超出上限的样本，以及合并与直接输入两路样本等价。
+ */
+class RttSketchTest {
+
+    private static final double[] QUANTILES = {0.0, 0.25, 0.5, 0.9, 0.95, 0.99, 0.999, 1.0};
+
+    @Test
+    void quantilesStayWithinRelativeAccuracyOfExactValues() {
+        Random random = new Random(42);
+        int[] rtts = new int[100_000];
+        RttSketch sketch = new RttSketch();
+        for (int i = 0; i < rtts.length; i++) {
+            // 对数正态分布，中位数约 40ms，长尾到数秒
+            rtts[i] = Math.max(1, (int) Math.round(Math.exp(3.7 + 1.2 * random.nextGaussian())));
+            sketch.add(rtts[i]);
+        }
+        Arrays.sort(rtts);
+
+        for (double quantile : QUANTILES) {
+            int exact = rtts[(int) Math.floor(quantile * (rtts.length - 1))];
+            double estimate = sketch.quantile(quantile);
+            assertTrue(Math.abs(estimate - exact) <= RttSketch.RELATIVE_ACCURACY * exact + 1e-9,
+                    "p" + quantile + ": exact " + exact + ", estimate " + estimate);
+        }
+        assertEquals(rtts.length, sketch.getCount());
+        assertEquals(rtts[rtts.length - 1], sketch.getMax());
+    }
+
+    @Test
+    void zeroRttsAreCountedSeparatelyAndNegativesIgnored() {
+        RttSketch sketch = new RttSketch();
+        for (int i = 0; i < 3; i++) {
+            sketch.add(0);
+        }
+        sketch.add(-5);
+        sketch.add(100);
+
+        assertEquals(4, sketch.getCount());
+        assertEquals(3, sketch.getZeroCount());
+        assertEquals(0.0, sketch.quantile(0.5));
+        assertEquals(100.0, sketch.quantile(1.0), RttSketch.RELATIVE_ACCURACY * 100);
+        assertEquals(0.0, new RttSketch().quantile(0.5));
+    }
+
+    @Test
+    void rttsAboveTheTrackedRangeFallIntoTheLastBucket() {
+        RttSketch sketch = new RttSketch();
+        sketch.add(10);
+        sketch.add(900_000);
+        sketch.add(2_000_000);
+
+        // 超出上限的样本只能估计为约 10 分钟，最大值仍然精确
+        assertEquals(600_000.0, sketch.quantile(0.5), RttSketch.RELATIVE_ACCURACY * 600_000);
+        assertEquals(600_000.0, sketch.quantile(1.0), RttSketch.RELATIVE_ACCURACY * 600_000);
+        assertEquals(2_000_000, sketch.getMax());
+        assertEquals(10.0, sketch.quantile(0.0), RttSketch.RELATIVE_ACCURACY * 10);
+    }
+
+    @Test
+    void mergeEqualsASketchFedBothStreams() {
+        Random random = new Random(7);
+        RttSketch a = new RttSketch();
+        RttSketch b = new RttSketch();
+        RttSketch both = new RttSketch();
+        for (int i = 0; i < 10_000; i++) {
+            // a 偏低、b 偏高，两路都有 0 和超出上限的样本
+            int low = i % 500 == 0 ? 0 : random.nextInt(200);
+            int high = i % 1000 == 0 ? 700_000 : 100 + random.nextInt(5_000);
+            a.add(low);
+            b.add(high);
+            both.add(low);
+            both.add(high);
+        }
+
+        RttSketch merged = a.merge(b);
+
+        assertEquals(both, merged);
+        for (double quantile : QUANTILES) {
+            assertEquals(both.quantile(quantile), merged.quantile(quantile));
+        }
+    }
+}
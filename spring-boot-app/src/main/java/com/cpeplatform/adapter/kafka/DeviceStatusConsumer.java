@@ -1,32 +1,75 @@
 package com.cpeplatform.adapter.kafka;
 
 import com.cpeplatform.dto.CpeStatusDataDto;
+import com.cpeplatform.service.CpeStatusCacheService;
 import com.cpeplatform.service.DeviceStatusService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.log.LogAccessor;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- * 负责消费设备状态消息，并将其委托给 DeviceStatusService 进行处理。
+ * 负责以批量模式消费设备状态消息，并将其委托给 DeviceStatusService 进行处理，
+ * 数据库事务提交后再刷新 Redis 中的状态缓存。
+ * <p>
+ * 无法反序列化的消息由 ErrorHandlingDeserializer 转成值为 null 的记录 (见 KafkaConsumerConfig)。
+ * 遇到这样的记录时，先写入它之前的记录，再抛出 {@link BatchListenerFailedException} 指明其下标：
+ * 错误处理器提交此前的偏移量、把该记录发往死信主题，并从下一条开始重新投递本批剩余的记录。
  */
 @Service
 public class DeviceStatusConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(DeviceStatusConsumer.class);
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(DeviceStatusConsumer.class);
 
     private final DeviceStatusService deviceStatusService;
+    private final CpeStatusCacheService statusCacheService;
 
-    public DeviceStatusConsumer(DeviceStatusService deviceStatusService) {
+    public DeviceStatusConsumer(DeviceStatusService deviceStatusService, CpeStatusCacheService statusCacheService) {
         this.deviceStatusService = deviceStatusService;
+        this.statusCacheService = statusCacheService;
     }
 
     @KafkaListener(topics = "${app.kafka.topic.processed-status}",
             groupId = "${spring.kafka.consumer.group-id}-status-persister",
-            containerFactory = "statusKafkaListenerContainerFactory") // 使用专属的Factory
-    public void consumeDeviceStatus(CpeStatusDataDto statusDto) {
-        logger.debug("接收到设备状态消息: {}", statusDto);
-        // 将业务逻辑完全委托给Service层处理
-        deviceStatusService.updateDeviceStatus(statusDto);
+            containerFactory = "statusKafkaListenerContainerFactory") // 使用专属的批量Factory
+    public void consumeDeviceStatuses(List<ConsumerRecord<String, CpeStatusDataDto>> records) {
+        logger.debug("接收到一批设备状态消息，共 {} 条", records.size());
+        List<CpeStatusDataDto> statuses = new ArrayList<>(records.size());
+        DeserializationException failure = null;
+        int failedIndex = -1;
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, CpeStatusDataDto> record = records.get(i);
+            if (record.value() == null) {
+                failure = SerializationUtils.getExceptionFromHeader(record,
+                        SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+                if (failure != null) {
+                    failedIndex = i;
+                    break;
+                }
+                // 没有异常头的 null 是 tombstone，没有可写入的内容
+                continue;
+            }
+            statuses.add(record.value());
+        }
+
+        // 将业务逻辑完全委托给Service层处理; 方法正常返回后容器才会提交本批偏移量
+        List<CpeStatusDataDto> persisted = deviceStatusService.updateDeviceStatuses(statuses);
+        statusCacheService.updateStatuses(persisted);
+
+        if (failure != null) {
+            ConsumerRecord<String, CpeStatusDataDto> failed = records.get(failedIndex);
+            logger.warn("⚠️ 设备状态消息无法反序列化，转发到死信主题: {}-{}@{}",
+                    failed.topic(), failed.partition(), failed.offset());
+            throw new BatchListenerFailedException("设备状态消息无法反序列化", failure, failedIndex);
+        }
     }
 }
@@ -0,0 +1,39 @@
+package com.cpeplatform.adapter.kafka;
+
+import com.cpeplatform.dto.PredictionResultDto;
+import com.cpeplatform.service.CpeCacheService;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Service;
+
+/**
+ * 职责：消费预测结果，维护 Redis 中每个设备的最新丢包事件缓存。
+ * 检测到丢包时写入，恢复正常时清除；实际写入由批量写入器合并后发送。
+ */
+@Service
+public class PacketLossCacheConsumer {
+
+    private final CpeCacheService cpeCacheService;
+
+    public PacketLossCacheConsumer(CpeCacheService cpeCacheService) {
+        this.cpeCacheService = cpeCacheService;
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.topic.prediction-result}",
+            // 使用一个专门用于缓存维护的、独立的消费者组ID
+            groupId = "${spring.kafka.consumer.group-id}-cache",
+            containerFactory = "predictionResultKafkaListenerContainerFactory"
+    )
+    public void consumeAndCache(@Payload(required = false) PredictionResultDto resultDto) {
+        // 空消息 (tombstone) 没有可缓存的内容
+        if (resultDto == null) {
+            return;
+        }
+        if (resultDto.isHasPacketLoss()) {
+            cpeCacheService.updateLatestPacketLossEvent(resultDto);
+        } else {
+            cpeCacheService.clearPacketLossEvent(resultDto.getDeviceId());
+        }
+    }
+}
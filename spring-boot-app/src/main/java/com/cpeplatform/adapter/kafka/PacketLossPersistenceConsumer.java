@@ -7,8 +7,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
- * 职责：消费预测结果，并将其委托给持久化服务写入数据库。
+ * 职责：以批量模式消费预测结果，并将其委托给持久化服务写入数据库。
+ * 监听器会等待本批全部丢包事件提交后才返回，容器随后才提交偏移量；写入失败时异常交给容器的错误处理器重新投递整批。
+ * 写入队列已满时 persistEvent 阻塞监听线程，容器在此期间不会 poll，消费随之暂停，写入器腾出空间后自动继续。
  */
 @Service
 public class PacketLossPersistenceConsumer {
@@ -25,19 +31,22 @@ public class PacketLossPersistenceConsumer {
             topics = "${app.kafka.topic.prediction-result}",
             // 【核心】: 使用一个专门用于持久化的、独立的消费者组ID
             groupId = "${spring.kafka.consumer.group-id}-persister",
-            containerFactory = "predictionResultKafkaListenerContainerFactory"
+            containerFactory = "predictionResultBatchKafkaListenerContainerFactory"
     )
-    public void consumeAndPersist(PredictionResultDto resultDto) {
-
-        if (resultDto.isHasPacketLoss()) {
-
-            logger.info("📬 [持久化消费者] 检测到丢包事件，交由持久化服务处理... 设备ID: {}", resultDto.getDeviceId());
-
-            persistenceService.persistEvent(resultDto);
-
-        } else {
-            logger.debug("[持久化消费者] 接收到正常事件，无需持久化。设备ID: {}", resultDto.getDeviceId());
+    public void consumeAndPersist(List<PredictionResultDto> results) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (PredictionResultDto resultDto : results) {
+            if (resultDto == null || !resultDto.isHasPacketLoss()) {
+                continue;
+            }
+            logger.debug("📬 [持久化消费者] 检测到丢包事件，交由持久化服务处理... 设备ID: {}", resultDto.getDeviceId());
+            pending.add(persistenceService.persistEvent(resultDto));
+        }
+        if (pending.isEmpty()) {
+            return;
         }
+        // 等待本批事件全部提交；任一组写入失败时 join() 抛出异常，本批偏移量不会被提交
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+        logger.info("✅ [持久化消费者] 本批 {} 条丢包事件已持久化。", pending.size());
     }
 }
-
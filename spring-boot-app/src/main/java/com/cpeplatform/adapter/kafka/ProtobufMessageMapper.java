@@ -0,0 +1,36 @@
+package com.cpeplatform.adapter.kafka;
+
+import com.cpeplatform.dto.CpeFeatures;
+import com.cpeplatform.dto.CpeStatusDataDto;
+import com.cpeplatform.proto.CpeFeaturesProto;
+import com.cpeplatform.proto.CpeStatusDataProto;
+
+/**
+ * 将 Flink 作业写出的 Protobuf 消息转换为本模块的 DTO。
+ */
+public final class ProtobufMessageMapper {
+
+    private ProtobufMessageMapper() {
+    }
+
+    public static CpeStatusDataDto toDto(CpeStatusDataProto proto) {
+        return new CpeStatusDataDto(proto.getDeviceId(), proto.getStatus(), proto.getTimestamp());
+    }
+
+    public static CpeFeatures toDto(CpeFeaturesProto proto) {
+        return CpeFeatures.builder()
+                .deviceId(proto.getDeviceId())
+                .aggregationTimestamp(proto.getAggregationTimestamp())
+                .delay_1(proto.getDelay1()).delay_2(proto.getDelay2()).delay_3(proto.getDelay3())
+                .delay_4(proto.getDelay4()).delay_5(proto.getDelay5())
+                .mean_delay(proto.getMeanDelay())
+                .min_delay(proto.getMinDelay())
+                .mid_delay(proto.getMidDelay())
+                .max_delay(proto.getMaxDelay())
+                .range(proto.getRange())
+                .mean_of_last_three(proto.getMeanOfLastThree())
+                .diff_between_last_two(proto.getDiffBetweenLastTwo())
+                .slope_delay(proto.getSlopeDelay())
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.cpeplatform.adapter.kafka;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.function.Function;
+
+/**
+ * 通用的 Protobuf 消息反序列化器。
+ * 先用生成的 Parser 解析二进制消息，再通过映射函数转换成业务 DTO。
+ *
+ * @param <P> Protobuf 消息类型
+ * @param <T> 目标 DTO 类型
+ */
+public class ProtobufValueDeserializer<P extends MessageLite, T> implements Deserializer<T> {
+
+    private final Parser<P> parser;
+    private final Function<P, T> mapper;
+
+    public ProtobufValueDeserializer(Parser<P> parser, Function<P, T> mapper) {
+        this.parser = parser;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return mapper.apply(parser.parseFrom(data));
+        } catch (InvalidProtocolBufferException e) {
+            throw new SerializationException("无法解析 Topic [" + topic + "] 中的 Protobuf 消息", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.cpeplatform.adapter.kafka;
+
+import com.cpeplatform.dto.RttSummaryDto;
+import com.cpeplatform.service.FleetLatencyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * 消费全网 RTT 汇总，并交给 FleetLatencyService 保存在内存中。
+ */
+@Service
+public class RttSummaryConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RttSummaryConsumer.class);
+
+    private final FleetLatencyService fleetLatencyService;
+
+    public RttSummaryConsumer(FleetLatencyService fleetLatencyService) {
+        this.fleetLatencyService = fleetLatencyService;
+    }
+
+    /**
+     * 每个应用实例都需要收到全部汇总，因此使用带随机后缀的独立消费者组，并且只从最新位置开始读取。
+     */
+    @KafkaListener(
+            topics = "${app.kafka.topic.rtt-summary}",
+            groupId = "${spring.kafka.consumer.group-id}-rtt-summary-${random.uuid}",
+            containerFactory = "rttSummaryKafkaListenerContainerFactory",
+            properties = "auto.offset.reset=latest"
+    )
+    public void consumeSummary(RttSummaryDto summary) {
+        logger.debug("接收到全网 RTT 汇总: {}", summary);
+        fleetLatencyService.update(summary);
+    }
+}
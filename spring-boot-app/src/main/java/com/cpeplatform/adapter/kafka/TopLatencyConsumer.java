@@ -0,0 +1,37 @@
+package com.cpeplatform.adapter.kafka;
+
+import com.cpeplatform.dto.TopLatencyRankingDto;
+import com.cpeplatform.service.FleetLatencyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * 消费延迟最差设备排行，并交给 FleetLatencyService 保存在内存中。
+ */
+@Service
+public class TopLatencyConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopLatencyConsumer.class);
+
+    private final FleetLatencyService fleetLatencyService;
+
+    public TopLatencyConsumer(FleetLatencyService fleetLatencyService) {
+        this.fleetLatencyService = fleetLatencyService;
+    }
+
+    /**
+     * 与 RTT 汇总相同，每个应用实例使用独立的消费者组，只从最新位置开始读取。
+     */
+    @KafkaListener(
+            topics = "${app.kafka.topic.top-latency}",
+            groupId = "${spring.kafka.consumer.group-id}-top-latency-${random.uuid}",
+            containerFactory = "topLatencyKafkaListenerContainerFactory",
+            properties = "auto.offset.reset=latest"
+    )
+    public void consumeRanking(TopLatencyRankingDto ranking) {
+        logger.debug("接收到延迟排行, 设备数: {}", ranking.getDevices() == null ? 0 : ranking.getDevices().size());
+        fleetLatencyService.updateRanking(ranking);
+    }
+}
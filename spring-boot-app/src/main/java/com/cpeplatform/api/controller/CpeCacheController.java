@@ -1,12 +1,20 @@
 package com.cpeplatform.api.controller;
 
+import com.cpeplatform.dto.PredictionResultDto;
+import com.cpeplatform.persistence.entity.DeviceStatus;
 import com.cpeplatform.service.CpeCacheService;
+import com.cpeplatform.service.CpeStatusCacheService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 提供用于管理CPE设备缓存的RESTful API端点。
  */
@@ -15,9 +23,41 @@ import org.springframework.web.bind.annotation.RestController;
 public class CpeCacheController {
 
     private final CpeCacheService cpeCacheService;
+    private final CpeStatusCacheService statusCacheService;
 
-    public CpeCacheController(CpeCacheService cpeCacheService) {
+    public CpeCacheController(CpeCacheService cpeCacheService, CpeStatusCacheService statusCacheService) {
         this.cpeCacheService = cpeCacheService;
+        this.statusCacheService = statusCacheService;
+    }
+
+    /**
+     * 查询指定设备的最新丢包事件缓存。
+     *
+     * @return 设备没有丢包记录时返回 404 Not Found
+     */
+    @GetMapping("/packetloss/{deviceId}") // 端点URL示例: GET http://localhost:8080/api/cpe/cache/packetloss/cpe-device-001
+    public ResponseEntity<PredictionResultDto> getPacketLossCache(@PathVariable String deviceId) {
+        PredictionResultDto event = cpeCacheService.getLatestPacketLossEvent(deviceId);
+        return event == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(event);
+    }
+
+    /**
+     * 批量查询设备状态缓存。
+     *
+     * @param deviceIds 逗号分隔的设备ID列表
+     * @return deviceId -> 状态，缓存中不存在的设备不出现在结果中
+     */
+    @GetMapping("/statuses") // 端点URL示例: GET http://localhost:8080/api/cpe/cache/statuses?deviceIds=cpe-device-001,cpe-device-002
+    public ResponseEntity<Map<String, DeviceStatus>> getStatusCache(@RequestParam List<String> deviceIds) {
+        return ResponseEntity.ok(statusCacheService.getStatuses(deviceIds));
+    }
+
+    /**
+     * 按状态统计全网设备数 (遍历全部分桶)。
+     */
+    @GetMapping("/statuses/summary") // 端点URL: GET http://localhost:8080/api/cpe/cache/statuses/summary
+    public ResponseEntity<Map<String, Long>> getStatusSummary() {
+        return ResponseEntity.ok(statusCacheService.countByStatus());
     }
 
     /**
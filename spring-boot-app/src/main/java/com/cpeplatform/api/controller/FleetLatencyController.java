@@ -0,0 +1,60 @@
+package com.cpeplatform.api.controller;
+
+import com.cpeplatform.dto.RttSummaryDto;
+import com.cpeplatform.dto.TopLatencyRankingDto;
+import com.cpeplatform.service.FleetLatencyService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 提供全网 RTT 分位数汇总和延迟最差设备排行的查询接口。
+ */
+@RestController
+@RequestMapping("/api/cpe")
+public class FleetLatencyController {
+
+    private final FleetLatencyService fleetLatencyService;
+
+    public FleetLatencyController(FleetLatencyService fleetLatencyService) {
+        this.fleetLatencyService = fleetLatencyService;
+    }
+
+    /**
+     * 返回最近一个统计周期的全网 p50/p90/p99/max 以及按设备状态的分组统计。
+     *
+     * @return 尚未收到任何汇总时返回 204 No Content
+     */
+    @GetMapping("/latency-summary") // 端点URL: GET http://localhost:8080/api/cpe/latency-summary
+    public ResponseEntity<RttSummaryDto> getLatencySummary() {
+        return fleetLatencyService.getLatest()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    /**
+     * 返回 Flink 作业最近一次输出的延迟最差设备排行，结果已经排好序，直接读取内存无需查询数据库。
+     *
+     * @param limit 只返回前 limit 个设备，不传则返回完整排行
+     * @return 尚未收到任何排行时返回 204 No Content
+     */
+    @GetMapping("/top-latency") // 端点URL: GET http://localhost:8080/api/cpe/top-latency?limit=20
+    public ResponseEntity<TopLatencyRankingDto> getTopLatency(@RequestParam(required = false) Integer limit) {
+        return fleetLatencyService.getRanking()
+                .map(ranking -> truncate(ranking, limit))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    private static TopLatencyRankingDto truncate(TopLatencyRankingDto ranking, Integer limit) {
+        List<TopLatencyRankingDto.Entry> devices = ranking.getDevices();
+        if (limit == null || devices == null || limit < 0 || devices.size() <= limit) {
+            return ranking;
+        }
+        return new TopLatencyRankingDto(ranking.getGeneratedAt(), List.copyOf(devices.subList(0, limit)));
+    }
+}
@@ -0,0 +1,81 @@
+package com.cpeplatform.api.controller;
+
+import com.cpeplatform.dto.PacketLossPageDto;
+import com.cpeplatform.service.PacketLossHistoryService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * 提供丢包历史的查询接口：按设备或全网、按时间范围，使用游标 (keyset) 分页，以及流式导出。
+ * 时间参数均为毫秒时间戳，from 含、to 不含。
+ */
+@RestController
+@RequestMapping("/api/cpe")
+public class PacketLossHistoryController {
+
+    private final PacketLossHistoryService historyService;
+
+    public PacketLossHistoryController(PacketLossHistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    /**
+     * 查询单个设备的丢包历史，按时间倒序分页。
+     *
+     * @param cursor 上一页返回的 nextCursor，不传则返回最新一页
+     * @return 游标不合法时返回 400 Bad Request
+     */
+    @GetMapping("/{deviceId}/packet-loss") // 端点URL: GET http://localhost:8080/api/cpe/cpe-device-001/packet-loss?limit=100
+    public ResponseEntity<PacketLossPageDto> getDevicePacketLoss(@PathVariable String deviceId,
+                                                                 @RequestParam(required = false) Long from,
+                                                                 @RequestParam(required = false) Long to,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limit) {
+        return page(deviceId, from, to, cursor, limit);
+    }
+
+    /**
+     * 查询全网的丢包历史，按时间倒序分页。
+     */
+    @GetMapping("/packet-loss") // 端点URL: GET http://localhost:8080/api/cpe/packet-loss?from=...&to=...
+    public ResponseEntity<PacketLossPageDto> getFleetPacketLoss(@RequestParam(required = false) Long from,
+                                                                @RequestParam(required = false) Long to,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer limit) {
+        return page(null, from, to, cursor, limit);
+    }
+
+    /**
+     * 以 JSON 数组流式导出时间范围内的丢包历史 (按时间正序)，适用于大批量导出。
+     * from 与 to 必填，跨度与行数有上限 (app.api.packet-loss.max-export-span-ms / max-export-rows)。
+     *
+     * @param deviceId 只导出该设备，不传则导出全网
+     * @return 时间范围缺失或超过上限时返回 400 Bad Request
+     */
+    @GetMapping("/packet-loss/export") // 端点URL: GET http://localhost:8080/api/cpe/packet-loss/export?from=...&to=...
+    public ResponseEntity<StreamingResponseBody> exportPacketLoss(@RequestParam(required = false) String deviceId,
+                                                                  @RequestParam(required = false) Long from,
+                                                                  @RequestParam(required = false) Long to) {
+        try {
+            historyService.checkExportRange(from, to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> historyService.export(deviceId, from, to, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private ResponseEntity<PacketLossPageDto> page(String deviceId, Long from, Long to, String cursor, Integer limit) {
+        try {
+            return ResponseEntity.ok(historyService.findPage(deviceId, from, to, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -15,7 +15,7 @@ public class ExecutorConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(ExecutorConfig.class);
     public static final String GRPC_CALLBACK_EXECUTOR = "grpcCallbackExecutor";
-    public static final String DB_WRITER_EXECUTOR = "dbWriterExecutor"; // 定义新线程池的名称
+    public static final String REDIS_SCAN_EXECUTOR = "redisScanExecutor";
 
     /**
      * 创建一个专门用于处理 gRPC 回调的线程池。
@@ -65,14 +65,15 @@ public class ExecutorConfig {
             }
         };
     }
+
     /**
-     * 创建一个专门用于异步执行数据库写入任务的线程池。
+     * 创建一个专门用于按桶并行遍历 Redis 分桶 Hash 的线程池。
+     * 线程数即同时进行的 HSCAN 数量，不宜过大以免挤占 Redis 连接。
      * @return ExecutorService 实例
      */
-    @Bean(name = DB_WRITER_EXECUTOR)
-    public ExecutorService dbWriterExecutor() {
-        logger.info("正在创建数据库写入专用线程池...");
-        // 这里的配置可以根据数据库写入的负载进行调整
-        return Executors.newFixedThreadPool(5);
+    @Bean(name = REDIS_SCAN_EXECUTOR)
+    public ExecutorService redisScanExecutor() {
+        logger.info("正在创建 Redis 分桶遍历专用线程池...");
+        return Executors.newFixedThreadPool(4);
     }
 }
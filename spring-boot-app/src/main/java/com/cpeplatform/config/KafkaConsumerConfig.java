@@ -1,16 +1,36 @@
 package com.cpeplatform.config;
 
+import com.cpeplatform.adapter.kafka.ProtobufMessageMapper;
+import com.cpeplatform.adapter.kafka.ProtobufValueDeserializer;
 import com.cpeplatform.dto.CpeFeatures;
 import com.cpeplatform.dto.CpeStatusDataDto;
 import com.cpeplatform.dto.PredictionResultDto;
+import com.cpeplatform.dto.RttSummaryDto;
+import com.cpeplatform.dto.TopLatencyRankingDto;
+import com.cpeplatform.proto.CpeFeaturesProto;
+import com.cpeplatform.proto.CpeStatusDataProto;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 import java.util.Map;
 
@@ -21,8 +41,28 @@ import java.util.Map;
 @Configuration
 public class KafkaConsumerConfig {
 
+    private static final String FORMAT_PROTOBUF = "protobuf";
+
     private final KafkaProperties properties;
 
+    // 每个主题的消息格式 (json / protobuf)，需与 Flink 作业的 --format.* 参数保持一致
+    @Value("${app.kafka.format.features-for-prediction:json}")
+    private String featuresFormat;
+
+    @Value("${app.kafka.format.processed-status:json}")
+    private String statusFormat;
+
+    // 设备状态持久化为批量监听，单次 poll 的最大记录数即一次多行 UPSERT 的上限
+    @Value("${app.kafka.status-batch.max-poll-records:500}")
+    private int statusMaxPollRecords;
+
+    // 无法反序列化的设备状态消息 (原始字节) 转发到的死信主题
+    @Value("${app.kafka.topic.processed-status-dlt:cpe-processed-status.DLT}")
+    private String statusDeadLetterTopic;
+
+    // 死信主题专用的生产者 (值为原始字节)，不注册为 Bean，以免取代 Spring Boot 自动配置的 KafkaTemplate
+    private DefaultKafkaProducerFactory<String, byte[]> deadLetterProducerFactory;
+
     public KafkaConsumerConfig(KafkaProperties properties) {
         this.properties = properties;
     }
@@ -31,7 +71,9 @@ public class KafkaConsumerConfig {
     @Bean
     public ConsumerFactory<String, CpeFeatures> featuresConsumerFactory() {
         Map<String, Object> props = properties.buildConsumerProperties();
-        JsonDeserializer<CpeFeatures> deserializer = new JsonDeserializer<>(CpeFeatures.class);
+        Deserializer<CpeFeatures> deserializer = FORMAT_PROTOBUF.equalsIgnoreCase(featuresFormat)
+                ? new ProtobufValueDeserializer<>(CpeFeaturesProto.parser(), ProtobufMessageMapper::toDto)
+                : new JsonDeserializer<>(CpeFeatures.class);
         return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
     }
 
@@ -57,20 +99,95 @@ public class KafkaConsumerConfig {
         return factory;
     }
 
+    /**
+     * 丢包事件持久化专用的批量 Factory。监听器等待本批事件落库后才返回 (AckMode.BATCH 随后提交偏移量)；
+     * 失败时按指数退避无限重试整批，宁可阻塞分区也不跳过记录。重放可能产生少量重复行 (at-least-once)。
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, PredictionResultDto> predictionResultBatchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, PredictionResultDto> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(predictionResultConsumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        ExponentialBackOff backOff = new ExponentialBackOff(1_000L, 2.0);
+        backOff.setMaxInterval(30_000L);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        return factory;
+    }
+
+    // --- RttSummaryDto (全网 RTT 汇总) 消费者的配置 ---
+    @Bean
+    public ConsumerFactory<String, RttSummaryDto> rttSummaryConsumerFactory() {
+        Map<String, Object> props = properties.buildConsumerProperties();
+        JsonDeserializer<RttSummaryDto> deserializer = new JsonDeserializer<>(RttSummaryDto.class);
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, RttSummaryDto> rttSummaryKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, RttSummaryDto> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(rttSummaryConsumerFactory());
+        return factory;
+    }
+
+    // --- TopLatencyRankingDto (延迟最差设备排行) 消费者的配置 ---
+    @Bean
+    public ConsumerFactory<String, TopLatencyRankingDto> topLatencyConsumerFactory() {
+        Map<String, Object> props = properties.buildConsumerProperties();
+        JsonDeserializer<TopLatencyRankingDto> deserializer = new JsonDeserializer<>(TopLatencyRankingDto.class);
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, TopLatencyRankingDto> topLatencyKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, TopLatencyRankingDto> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(topLatencyConsumerFactory());
+        return factory;
+    }
+
     // 为 CpeStatusDataDto 创建专属的消费者工厂和 ListenerContainerFactory
     @Bean
     public ConsumerFactory<String, CpeStatusDataDto> statusConsumerFactory() {
         Map<String, Object> props = properties.buildConsumerProperties();
-        // 配置JsonDeserializer以处理本模块的 CpeStatusDataDto 类
-        JsonDeserializer<CpeStatusDataDto> deserializer = new JsonDeserializer<>(CpeStatusDataDto.class);
-        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, statusMaxPollRecords);
+        // 配置JsonDeserializer (或Protobuf反序列化器) 以处理本模块的 CpeStatusDataDto 类
+        Deserializer<CpeStatusDataDto> deserializer = FORMAT_PROTOBUF.equalsIgnoreCase(statusFormat)
+                ? new ProtobufValueDeserializer<>(CpeStatusDataProto.parser(), ProtobufMessageMapper::toDto)
+                : new JsonDeserializer<>(CpeStatusDataDto.class);
+        // 解析失败时不在 poll 中抛出 (否则整个分区卡住)，而是交给监听器一条值为 null、带异常头的记录，
+        // 由 DeviceStatusConsumer 标记为失败记录后经错误处理器转发到死信主题
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(deserializer));
     }
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, CpeStatusDataDto> statusKafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, CpeStatusDataDto> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(statusConsumerFactory());
+        // 批量监听: 每次 poll 的全部记录一次性交给监听器，监听器返回 (即数据库事务提交) 后才提交偏移量
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        // 反序列化失败 (不可重试) 的记录立即发往死信主题；其余失败 (如数据库不可用) 按指数退避无限重试整批，
+        // 与丢包事件持久化一致，宁可阻塞分区也不跳过记录
+        ExponentialBackOff backOff = new ExponentialBackOff(1_000L, 2.0);
+        backOff.setMaxInterval(30_000L);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(statusDeadLetterRecoverer(), backOff));
         return factory;
     }
+
+    private DeadLetterPublishingRecoverer statusDeadLetterRecoverer() {
+        deadLetterProducerFactory = new DefaultKafkaProducerFactory<>(properties.buildProducerProperties(),
+                new StringSerializer(), new ByteArraySerializer());
+        // 分区号为 -1：由生产者选择分区，死信主题的分区数不必与源主题相同
+        return new DeadLetterPublishingRecoverer(new KafkaTemplate<>(deadLetterProducerFactory),
+                (record, exception) -> new TopicPartition(statusDeadLetterTopic, -1));
+    }
+
+    @PreDestroy
+    void closeDeadLetterProducer() {
+        if (deadLetterProducerFactory != null) {
+            deadLetterProducerFactory.destroy();
+        }
+    }
 }
 
@@ -0,0 +1,30 @@
+package com.cpeplatform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 丢包历史查询返回的单条事件。
+ * 直接由查询结果列映射而来，不经过 JPA 实体。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PacketLossEventDto {
+
+    /**
+     * 事件主键
+     */
+    private long id;
+
+    /**
+     * 设备唯一ID
+     */
+    private String deviceId;
+
+    /**
+     * 丢包事件的时间戳 (毫秒)
+     */
+    private long eventTimestamp;
+}
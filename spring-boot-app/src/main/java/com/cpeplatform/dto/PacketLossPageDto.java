@@ -0,0 +1,26 @@
+package com.cpeplatform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 丢包历史的一页结果 (按 eventTimestamp、id 倒序)。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PacketLossPageDto {
+
+    /**
+     * 本页事件
+     */
+    private List<PacketLossEventDto> events;
+
+    /**
+     * 下一页的游标，作为 cursor 参数原样传回；没有更多数据时为 null
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,34 @@
+package com.cpeplatform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Flink 作业每个统计周期输出的全网 RTT 分位数汇总 (cpe-rtt-summary 主题)。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RttSummaryDto {
+    private long windowStart;
+    private long windowEnd;
+    private RttQuantiles fleet;
+    // 按设备状态分别统计
+    private List<RttQuantiles> byStatus;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RttQuantiles {
+        // 设备状态，全网汇总为 ALL
+        private String status;
+        private long count;
+        private double p50;
+        private double p90;
+        private double p99;
+        private int max;
+    }
+}
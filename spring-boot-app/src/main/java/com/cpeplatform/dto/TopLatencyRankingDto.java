@@ -0,0 +1,30 @@
+package com.cpeplatform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Flink 作业定期输出的延迟最差设备排行 (cpe-top-latency 主题)，按得分从高到低排列。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopLatencyRankingDto {
+    private long generatedAt;
+    private List<Entry> devices;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String deviceId;
+        private double meanDelay;
+        private double slopeDelay;
+        // 排序得分: 平均延迟加上按权重放大的延迟趋势
+        private double score;
+        private long updatedAt;
+    }
+}
@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 /**
  * JPA实体类，映射到数据库中的 'packet_loss_events' 表。
  * 用于记录每一次检测到的丢包事件。
+ * 表结构由 Flyway 管理：按 event_timestamp 以天为单位 RANGE 分区，数据库主键为 (id, event_timestamp)。
  */
 @Data
 @Builder
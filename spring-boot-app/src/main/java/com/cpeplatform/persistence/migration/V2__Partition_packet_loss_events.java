@@ -0,0 +1,105 @@
+package com.cpeplatform.persistence.migration;
+
+import com.cpeplatform.persistence.repository.PacketLossPartitions;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * V2: 将 packet_loss_events 重建为按天 RANGE 分区的表，并增加 (device_id, event_timestamp) 复合索引。
+ * <p>
+ * 分区边界依赖执行迁移的日期，因此使用 Java 迁移：今天之前的数据 (若旧表存在) 整体放入
+ * {@link PacketLossPartitions#HISTORY_PARTITION}，从今天起预建若干日分区，其余落入兜底分区。
+ * MySQL 要求分区键包含在每个唯一键中，所以主键改为 (id, event_timestamp)。
+ * <p>
+ * MySQL 的 DDL 会隐式提交，迁移中途失败时无法回滚，因此每一步都先检查当前状态，
+ * 失败后 (flyway repair 之后) 重新执行会从中断处继续：
+ * <ol>
+ *     <li>原表未分区 → 改名为 {@value #LEGACY_TABLE}；</li>
+ *     <li>分区表不存在 → 创建；</li>
+ *     <li>{@value #LEGACY_TABLE} 存在 → 按原 id 复制尚未复制的行，然后删除旧表。</li>
+ * </ol>
+ */
+public class V2__Partition_packet_loss_events extends BaseJavaMigration {
+
+    // 迁移时预建的日分区数量 (含今天)，之后由定时维护任务滚动追加
+    private static final int PRECREATED_DAYS = 7;
+
+    private static final String LEGACY_TABLE = "packet_loss_events_legacy";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        boolean hasLegacy = tableExists(connection, LEGACY_TABLE);
+        boolean hasTable = tableExists(connection, PacketLossPartitions.TABLE);
+
+        try (Statement statement = connection.createStatement()) {
+            if (hasTable && !isPartitioned(connection, PacketLossPartitions.TABLE)) {
+                if (hasLegacy) {
+                    throw new IllegalStateException("未分区的 " + PacketLossPartitions.TABLE + " 与 " + LEGACY_TABLE
+                            + " 同时存在，无法判断哪一个是原表，请人工处理后再执行迁移");
+                }
+                statement.execute("RENAME TABLE " + PacketLossPartitions.TABLE + " TO " + LEGACY_TABLE);
+                hasLegacy = true;
+                hasTable = false;
+            }
+            if (!hasTable) {
+                statement.execute(createTableSql(today));
+            }
+            if (hasLegacy) {
+                // 保留原 id：已复制过的行按主键跳过，重复执行不会产生重复数据；AUTO_INCREMENT 会自动越过最大 id
+                statement.execute("INSERT INTO " + PacketLossPartitions.TABLE
+                        + " (id, device_id, event_timestamp, has_packet_loss) "
+                        + "SELECT l.id, l.device_id, l.event_timestamp, l.has_packet_loss FROM " + LEGACY_TABLE + " l "
+                        + "WHERE NOT EXISTS (SELECT 1 FROM " + PacketLossPartitions.TABLE + " t "
+                        + "WHERE t.id = l.id AND t.event_timestamp = l.event_timestamp)");
+                statement.execute("DROP TABLE " + LEGACY_TABLE);
+            }
+        }
+    }
+
+    private static String createTableSql(LocalDate today) {
+        StringBuilder sql = new StringBuilder()
+                .append("CREATE TABLE ").append(PacketLossPartitions.TABLE).append(" (")
+                .append("id BIGINT NOT NULL AUTO_INCREMENT, ")
+                .append("device_id VARCHAR(255) NOT NULL, ")
+                .append("event_timestamp BIGINT NOT NULL, ")
+                .append("has_packet_loss BIT(1) NOT NULL, ")
+                .append("PRIMARY KEY (id, event_timestamp), ")
+                .append("KEY idx_packet_loss_events_device_ts (device_id, event_timestamp)")
+                .append(") ENGINE = InnoDB ")
+                .append("PARTITION BY RANGE (event_timestamp) (")
+                .append("PARTITION ").append(PacketLossPartitions.HISTORY_PARTITION)
+                .append(" VALUES LESS THAN (").append(PacketLossPartitions.startOfDayMillis(today)).append("), ");
+        for (int i = 0; i < PRECREATED_DAYS; i++) {
+            sql.append(PacketLossPartitions.dailyDefinition(today.plusDays(i))).append(", ");
+        }
+        return sql.append(PacketLossPartitions.maxDefinition()).append(")").toString();
+    }
+
+    private static boolean isPartitioned(Connection connection, String table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT COUNT(*) FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL")) {
+            statement.setString(1, table);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getLong(1) > 0;
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData()
+                .getTables(connection.getCatalog(), null, table, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+}
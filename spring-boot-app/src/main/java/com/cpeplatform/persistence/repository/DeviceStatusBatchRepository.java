@@ -0,0 +1,47 @@
+package com.cpeplatform.persistence.repository;
+
+import com.cpeplatform.dto.CpeStatusDataDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 基于 JdbcTemplate 的设备状态批量写入仓库。
+ * <p>
+ * 将一批状态拼成多行 {@code INSERT ... VALUES (...),(...) ON DUPLICATE KEY UPDATE}，
+ * 相比逐条 {@link DeviceStatusRepository#upsertStatus} 省去了每行一次的网络往返和事务提交。
+ * 事务边界由调用方 (Service 层) 控制。
+ */
+@Repository
+public class DeviceStatusBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MultiRowInsert<CpeStatusDataDto> upsert;
+
+    public DeviceStatusBatchRepository(JdbcTemplate jdbcTemplate,
+                                       @Value("${app.persistence.status.rows-per-statement:500}") int rowsPerStatement) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsert = new MultiRowInsert<>(
+                "INSERT INTO device_statuses (device_id, status, last_updated) VALUES ",
+                3,
+                " ON DUPLICATE KEY UPDATE status = VALUES(status), last_updated = VALUES(last_updated)",
+                rowsPerStatement,
+                (status, args, offset) -> {
+                    args[offset] = status.getDeviceId();
+                    args[offset + 1] = status.getStatus();
+                    args[offset + 2] = status.getTimestamp();
+                });
+    }
+
+    /**
+     * 批量 UPSERT 设备状态。调用方需保证同一批次内 deviceId 不重复。
+     *
+     * @param statuses 待写入的状态 (每个设备一条)
+     * @return 写入的行数 (即 statuses 的大小)
+     */
+    public int upsertStatuses(List<CpeStatusDataDto> statuses) {
+        return upsert.execute(jdbcTemplate, statuses);
+    }
+}
@@ -0,0 +1,99 @@
+package com.cpeplatform.persistence.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 多行 INSERT 语句的构造与执行工具。
+ * <p>
+ * 把一批行拼成 {@code INSERT ... VALUES (?, ..),(?, ..) [suffix]}，每条语句最多 {@code rowsPerStatement} 行；
+ * 行数恰好为 {@code rowsPerStatement} 的整块共用同一条 SQL 走 JDBC batch，剩余的尾块单独执行。
+ * 事务边界由调用方控制。
+ *
+ * @param <T> 行对象类型
+ */
+final class MultiRowInsert<T> {
+
+    /**
+     * 将一行的各列依次写入参数数组。
+     */
+    @FunctionalInterface
+    interface RowBinder<T> {
+        void bind(T row, Object[] args, int offset);
+    }
+
+    private final String head;
+    private final String rowPlaceholder;
+    private final String suffix;
+    private final int columns;
+    private final int rowsPerStatement;
+    private final RowBinder<T> binder;
+
+    // 整块语句的 SQL 只需构造一次
+    private final String fullChunkSql;
+
+    /**
+     * @param head             例如 {@code INSERT INTO t (a, b) VALUES }
+     * @param columns          每行的列数
+     * @param suffix           附加在 VALUES 之后的子句 (如 ON DUPLICATE KEY UPDATE)，可为空串
+     * @param rowsPerStatement 单条语句的最大行数，避免语句超过 max_allowed_packet
+     * @param binder           行到参数的绑定方式
+     */
+    MultiRowInsert(String head, int columns, String suffix, int rowsPerStatement, RowBinder<T> binder) {
+        this.head = head;
+        this.rowPlaceholder = "(" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+        this.suffix = suffix;
+        this.columns = columns;
+        this.rowsPerStatement = Math.max(1, rowsPerStatement);
+        this.binder = binder;
+        this.fullChunkSql = buildSql(this.rowsPerStatement);
+    }
+
+    /**
+     * 执行多行写入。
+     *
+     * @return 提交给数据库的行数 (即 rows 的大小)
+     */
+    int execute(JdbcTemplate jdbcTemplate, List<T> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        int fullChunks = rows.size() / rowsPerStatement;
+        if (fullChunks > 0) {
+            List<Object[]> batchArgs = new ArrayList<>(fullChunks);
+            for (int chunk = 0; chunk < fullChunks; chunk++) {
+                batchArgs.add(toArgs(rows, chunk * rowsPerStatement, rowsPerStatement));
+            }
+            jdbcTemplate.batchUpdate(fullChunkSql, batchArgs);
+        }
+        int remainderFrom = fullChunks * rowsPerStatement;
+        int remainder = rows.size() - remainderFrom;
+        if (remainder > 0) {
+            jdbcTemplate.update(buildSql(remainder), toArgs(rows, remainderFrom, remainder));
+        }
+        return rows.size();
+    }
+
+    private String buildSql(int rows) {
+        StringBuilder sql = new StringBuilder(head.length() + rows * (rowPlaceholder.length() + 1) + suffix.length());
+        sql.append(head);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(rowPlaceholder);
+        }
+        return sql.append(suffix).toString();
+    }
+
+    private Object[] toArgs(List<T> rows, int from, int count) {
+        Object[] args = new Object[count * columns];
+        for (int i = 0; i < count; i++) {
+            binder.bind(rows.get(from + i), args, i * columns);
+        }
+        return args;
+    }
+}
@@ -0,0 +1,48 @@
+package com.cpeplatform.persistence.repository;
+
+import com.cpeplatform.persistence.entity.PacketLossEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 基于 JdbcTemplate 的丢包事件批量写入仓库。
+ * <p>
+ * {@link PacketLossEvent} 使用 IDENTITY 主键，Hibernate 无法对其做 JDBC 批量插入，
+ * 因此这里绕过 JPA，直接以多行 INSERT 写入。事务边界由调用方控制。
+ * <p>
+ * (device_id, event_timestamp) 是唯一键 (V4)：重新投递的事件命中已有行时什么也不做，写入是幂等的。
+ * 这里不用 INSERT IGNORE，它会把其他错误 (例如没有匹配的分区) 也降级为警告。
+ */
+@Repository
+public class PacketLossEventBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MultiRowInsert<PacketLossEvent> insert;
+
+    public PacketLossEventBatchRepository(JdbcTemplate jdbcTemplate,
+                                          @Value("${app.persistence.packet-loss.rows-per-statement:500}") int rowsPerStatement) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insert = new MultiRowInsert<>(
+                "INSERT INTO packet_loss_events (device_id, event_timestamp, has_packet_loss) VALUES ",
+                3,
+                " ON DUPLICATE KEY UPDATE id = id",
+                rowsPerStatement,
+                (event, args, offset) -> {
+                    args[offset] = event.getDeviceId();
+                    args[offset + 1] = event.getEventTimestamp();
+                    args[offset + 2] = event.isHasPacketLoss();
+                });
+    }
+
+    /**
+     * 批量插入丢包事件 (不回填自增主键)，已存在的 (设备, 时间戳) 跳过。
+     *
+     * @return 提交的行数 (含被跳过的重复行)
+     */
+    public int insertAll(List<PacketLossEvent> events) {
+        return insert.execute(jdbcTemplate, events);
+    }
+}
@@ -0,0 +1,91 @@
+package com.cpeplatform.persistence.repository;
+
+import com.cpeplatform.dto.PacketLossEventDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 丢包历史的只读查询，只选取需要的列并直接映射为 {@link PacketLossEventDto}，不加载 JPA 实体。
+ * <p>
+ * 分页使用 keyset (seek) 方式：以上一页最后一行的 (event_timestamp, id) 作为起点继续查找，
+ * 借助 (device_id, event_timestamp) 与 (event_timestamp, id) 索引，每页的耗时与翻页深度无关。
+ */
+@Repository
+public class PacketLossHistoryRepository {
+
+    private static final String SELECT_COLUMNS = "SELECT id, device_id, event_timestamp FROM " + PacketLossPartitions.TABLE;
+
+    private static final RowMapper<PacketLossEventDto> ROW_MAPPER = (rs, rowNum) -> new PacketLossEventDto(
+            rs.getLong("id"), rs.getString("device_id"), rs.getLong("event_timestamp"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // 导出专用: MySQL Connector/J 在 fetchSize 为 Integer.MIN_VALUE 时逐行流式读取，不会把整个结果集载入内存
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public PacketLossHistoryRepository(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /**
+     * 查询一页事件，按 (event_timestamp, id) 倒序。
+     *
+     * @param deviceId     设备ID，为 null 时查询全网
+     * @param from         时间下界 (含)
+     * @param to           时间上界 (不含)
+     * @param afterTs      游标: 上一页最后一行的 event_timestamp，为 null 时从最新开始
+     * @param afterId      游标: 上一页最后一行的 id
+     * @param limit        本页最多返回的行数
+     */
+    public List<PacketLossEventDto> findPage(String deviceId, long from, long to,
+                                             Long afterTs, Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS).append(" WHERE event_timestamp >= ? AND event_timestamp < ?");
+        List<Object> args = new ArrayList<>(7);
+        args.add(from);
+        args.add(to);
+        if (deviceId != null) {
+            sql.append(" AND device_id = ?");
+            args.add(deviceId);
+        }
+        if (afterTs != null) {
+            // 展开写法而非行值比较 (ts, id) < (?, ?)，以便优化器对两列都使用索引范围扫描
+            sql.append(" AND (event_timestamp < ? OR (event_timestamp = ? AND id < ?))");
+            args.add(afterTs);
+            args.add(afterTs);
+            args.add(afterId);
+        }
+        sql.append(" ORDER BY event_timestamp DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * 以流式方式按 (event_timestamp, id) 正序遍历时间范围内的事件，每读到一行就交给 sink 处理。
+     *
+     * @param deviceId 设备ID，为 null 时导出全网
+     * @param maxRows  最多读取的行数
+     */
+    public void streamRange(String deviceId, long from, long to, int maxRows, Consumer<PacketLossEventDto> sink) {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS).append(" WHERE event_timestamp >= ? AND event_timestamp < ?");
+        List<Object> args = new ArrayList<>(4);
+        args.add(from);
+        args.add(to);
+        if (deviceId != null) {
+            sql.append(" AND device_id = ?");
+            args.add(deviceId);
+        }
+        sql.append(" ORDER BY event_timestamp, id LIMIT ?");
+        args.add(maxRows);
+        RowCallbackHandler handler = rs -> sink.accept(ROW_MAPPER.mapRow(rs, 0));
+        streamingJdbcTemplate.query(sql.toString(), handler, args.toArray());
+    }
+}
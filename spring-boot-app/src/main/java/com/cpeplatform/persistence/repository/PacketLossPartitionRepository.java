@@ -0,0 +1,83 @@
+package com.cpeplatform.persistence.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 基于 JdbcTemplate 的 packet_loss_events 分区维护操作 (查询分区、追加日分区、汇总、删除分区)。
+ * 分区 DDL 在 MySQL 中会隐式提交，调用方不应把它们放进事务。
+ */
+@Repository
+public class PacketLossPartitionRepository {
+
+    /**
+     * 一个分区及其上界 (LESS THAN 的值，MAXVALUE 分区为 null)。
+     */
+    public record PartitionInfo(String name, Long upperBound) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PacketLossPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return 按分区顺序排列的分区列表；表未分区时为空
+     */
+    public List<PartitionInfo> listPartitions() {
+        return jdbcTemplate.query(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL "
+                        + "ORDER BY PARTITION_ORDINAL_POSITION",
+                (rs, rowNum) -> {
+                    String description = rs.getString("PARTITION_DESCRIPTION");
+                    Long upperBound = "MAXVALUE".equalsIgnoreCase(description) ? null : Long.valueOf(description);
+                    return new PartitionInfo(rs.getString("PARTITION_NAME"), upperBound);
+                },
+                PacketLossPartitions.TABLE);
+    }
+
+    /**
+     * 从兜底分区中拆出新的日分区。
+     */
+    public void addDailyPartitions(List<LocalDate> days) {
+        jdbcTemplate.execute(PacketLossPartitions.reorganizeMaxInto(days));
+    }
+
+    /**
+     * 将一个分区内的事件按设备、按天 (UTC) 汇总，累加到 packet_loss_daily_counts，并在 packet_loss_rolled_partitions 中记录该分区。
+     * 删除分区后更早的迟到事件会落入剩余最早的分区，同一 (设备, 天) 可能分散在多个分区中，所以是累加而不是覆盖。
+     * 调用方需把本方法放进事务：已记录的分区直接跳过，汇总与记录同时提交，重复执行不会重复计数；
+     * 并发执行时后提交的一方在写入记录时违反主键，整体回滚。
+     *
+     * @return 受影响的行数；分区已汇总过时为 0
+     */
+    public int rollUpPartition(PartitionInfo partition) {
+        Long rolled = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM packet_loss_rolled_partitions WHERE partition_name = ? AND upper_bound = ?",
+                Long.class, partition.name(), partition.upperBound());
+        if (rolled != null && rolled > 0) {
+            return 0;
+        }
+        int affected = jdbcTemplate.update(
+                "INSERT INTO packet_loss_daily_counts (device_id, event_day, event_count) "
+                        + "SELECT device_id, DATE('1970-01-01') + INTERVAL (event_timestamp DIV 86400000) DAY, COUNT(*) "
+                        + "FROM " + PacketLossPartitions.TABLE + " PARTITION (" + partition.name() + ") "
+                        + "GROUP BY device_id, event_timestamp DIV 86400000 "
+                        + "ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count)");
+        jdbcTemplate.update("INSERT INTO packet_loss_rolled_partitions (partition_name, upper_bound) VALUES (?, ?)",
+                partition.name(), partition.upperBound());
+        return affected;
+    }
+
+    /**
+     * 删除一个分区。与 DELETE 不同，这是元数据操作，耗时与分区内的行数无关。
+     */
+    public void dropPartition(String partition) {
+        jdbcTemplate.execute("ALTER TABLE " + PacketLossPartitions.TABLE + " DROP PARTITION " + partition);
+    }
+}
@@ -0,0 +1,62 @@
+package com.cpeplatform.persistence.repository;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * packet_loss_events 表按天 (UTC) 做 RANGE 分区的命名与边界约定。
+ * <p>
+ * 分区键为 event_timestamp (毫秒)，每天一个分区 {@code pYYYYMMDD}，上界为次日 0 点；
+ * {@value #HISTORY_PARTITION} 存放分区化之前的历史数据，{@value #MAX_PARTITION} 兜底 (MAXVALUE)，
+ * 新分区通过 REORGANIZE {@value #MAX_PARTITION} 追加。由 Flyway 迁移和定时维护任务共用。
+ */
+public final class PacketLossPartitions {
+
+    public static final String TABLE = "packet_loss_events";
+    public static final String HISTORY_PARTITION = "p_history";
+    public static final String MAX_PARTITION = "pmax";
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private PacketLossPartitions() {
+    }
+
+    public static String nameOf(LocalDate day) {
+        return day.format(NAME_FORMAT);
+    }
+
+    /**
+     * @return 该天 0 点 (UTC) 的毫秒时间戳
+     */
+    public static long startOfDayMillis(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    /**
+     * @return 单个日分区的定义子句
+     */
+    public static String dailyDefinition(LocalDate day) {
+        return "PARTITION " + nameOf(day) + " VALUES LESS THAN (" + startOfDayMillis(day.plusDays(1)) + ")";
+    }
+
+    /**
+     * @return 兜底分区的定义子句
+     */
+    public static String maxDefinition() {
+        return "PARTITION " + MAX_PARTITION + " VALUES LESS THAN MAXVALUE";
+    }
+
+    /**
+     * 生成把 {@value #MAX_PARTITION} 拆出若干日分区的 DDL。days 必须按日期升序且都晚于已有的最后一个日分区。
+     */
+    public static String reorganizeMaxInto(List<LocalDate> days) {
+        String definitions = days.stream()
+                .map(PacketLossPartitions::dailyDefinition)
+                .collect(Collectors.joining(", "));
+        return "ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + MAX_PARTITION
+                + " INTO (" + definitions + ", " + maxDefinition() + ")";
+    }
+}
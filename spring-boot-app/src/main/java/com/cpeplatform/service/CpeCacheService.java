@@ -1,26 +1,48 @@
 package com.cpeplatform.service;
 
+import com.cpeplatform.config.ExecutorConfig;
 import com.cpeplatform.dto.PredictionResultDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.Executor;
+
 /**
  * 专门负责管理CPE设备在Redis中的缓存数据。
+ * 数据按设备分散在 {@code cpe:latest_packetloss_events:{bucket}} 分桶 Hash 中 (见 {@link ShardedRedisHash})，
+ * 写入经由 {@link RedisHashBatchWriter} 合并后以 pipeline 批量发送。
  */
 @Service
 public class CpeCacheService {
 
     private static final Logger logger = LoggerFactory.getLogger(CpeCacheService.class);
 
-    // 定义用于存储所有设备最新丢包事件的Redis Hash的Key
+    // 用于存储所有设备最新丢包事件的分桶 Hash 的 key 前缀；也是旧版单 key 格式使用的 key
     public static final String LATEST_PACKETLOSS_KEY = "cpe:latest_packetloss_events";
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisHashBatchWriter writer;
+    private final ShardedRedisHash latestPacketLoss;
 
-    public CpeCacheService(RedisTemplate<String, Object> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    public CpeCacheService(RedisHashBatchWriter writer,
+                           RedisTemplate<String, Object> redisTemplate,
+                           @Qualifier(ExecutorConfig.REDIS_SCAN_EXECUTOR) Executor scanExecutor,
+                           @Value("${app.redis.sharding.buckets:64}") int buckets) {
+        this.writer = writer;
+        this.latestPacketLoss = new ShardedRedisHash(redisTemplate, LATEST_PACKETLOSS_KEY, buckets, scanExecutor);
+    }
+
+    /**
+     * 把旧版单 key 格式的数据迁移到分桶格式 (旧 key 不存在时什么都不做)。
+     * 由 {@link RedisCacheMigration} 在 Kafka 监听容器启动之前调用。
+     *
+     * @return 迁移的字段数
+     */
+    public long migrateLegacyKey() {
+        return latestPacketLoss.migrateFrom(LATEST_PACKETLOSS_KEY);
     }
 
     /**
@@ -32,20 +54,26 @@ public class CpeCacheService {
         if (resultDto == null || resultDto.getDeviceId() == null) {
             return;
         }
-        try {
-            // 使用 HSET 命令：在名为 LATEST_PACKETLOSS_KEY 的 Hash 中，
-            // 设置一个字段（key为deviceId），其值为resultDto对象（会被自动序列化为JSON）。
-            // 如果字段已存在，则会覆盖更新。
-            redisTemplate.opsForHash().put(LATEST_PACKETLOSS_KEY, resultDto.getDeviceId(), resultDto);
-            logger.info("✅ 已更新Redis中设备 [{}] 的最新丢包事件缓存。", resultDto.getDeviceId());
-        } catch (Exception e) {
-            logger.error("❌ 更新Redis设备 [{}] 缓存时出错。", resultDto.getDeviceId(), e);
+        // HSET：在设备所在的分桶 Hash 中，设置一个字段（key为deviceId），
+        // 其值为resultDto对象（会被自动序列化为JSON）。如果字段已存在，则会覆盖更新。
+        writer.put(latestPacketLoss.keyFor(resultDto.getDeviceId()), resultDto.getDeviceId(), resultDto);
+        logger.debug(" -> 已提交设备 [{}] 的最新丢包事件缓存更新。", resultDto.getDeviceId());
+    }
+
+    /**
+     * 读取指定设备的最新丢包事件缓存。
+     *
+     * @return 设备没有丢包记录时返回 null
+     */
+    public PredictionResultDto getLatestPacketLossEvent(String deviceId) {
+        if (deviceId == null) {
+            return null;
         }
+        return (PredictionResultDto) latestPacketLoss.get(deviceId);
     }
 
     /**
-     * 当一个设备的丢包状态恢复正常时，可以从缓存中移除它的丢包记录。
-     * (这是一个可选的辅助方法)
+     * 当一个设备的丢包状态恢复正常时，从缓存中移除它的丢包记录。
      *
      * @param deviceId 设备ID
      */
@@ -53,12 +81,8 @@ public class CpeCacheService {
         if (deviceId == null) {
             return;
         }
-        try {
-            // 使用 HDEL 命令：从 Hash 中删除指定的字段。
-            redisTemplate.opsForHash().delete(LATEST_PACKETLOSS_KEY, deviceId);
-            logger.info("✅ 已清除Redis中设备 [{}] 的丢包事件缓存。", deviceId);
-        } catch (Exception e) {
-            logger.error("❌ 清除Redis设备 [{}] 缓存时出错。", deviceId, e);
-        }
+        // HDEL：从 Hash 中删除指定的字段，会覆盖同一窗口内尚未写出的更新。
+        writer.delete(latestPacketLoss.keyFor(deviceId), deviceId);
+        logger.debug(" -> 已提交设备 [{}] 的丢包事件缓存清除。", deviceId);
     }
 }
@@ -1,26 +1,53 @@
 package com.cpeplatform.service;
 
+import com.cpeplatform.config.ExecutorConfig;
+import com.cpeplatform.dto.CpeStatusDataDto;
 import com.cpeplatform.persistence.entity.DeviceStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
 /**
  * 专门负责管理CPE设备状态在Redis中的缓存。
+ * 数据按设备分散在 {@code device:statuses:{bucket}} 分桶 Hash 中 (见 {@link ShardedRedisHash})，写入经由 {@link RedisHashBatchWriter} 合并后以 pipeline 批量发送。
  */
 @Service
 public class CpeStatusCacheService {
 
     private static final Logger logger = LoggerFactory.getLogger(CpeStatusCacheService.class);
 
-    // 定义用于存储所有设备最新状态的Redis Hash的Key
+    // 用于存储所有设备最新状态的分桶 Hash 的 key 前缀；也是旧版单 key 格式使用的 key
     public static final String DEVICE_STATUSES_KEY = "device:statuses";
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisHashBatchWriter writer;
+    private final ShardedRedisHash statuses;
+
+    public CpeStatusCacheService(RedisHashBatchWriter writer,
+                                 RedisTemplate<String, Object> redisTemplate,
+                                 @Qualifier(ExecutorConfig.REDIS_SCAN_EXECUTOR) Executor scanExecutor,
+                                 @Value("${app.redis.sharding.buckets:64}") int buckets) {
+        this.writer = writer;
+        this.statuses = new ShardedRedisHash(redisTemplate, DEVICE_STATUSES_KEY, buckets, scanExecutor);
+    }
 
-    public CpeStatusCacheService(RedisTemplate<String, Object> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    /**
+     * 把旧版单 key 格式的数据迁移到分桶格式 (旧 key 不存在时什么都不做)。
+     * 由 {@link RedisCacheMigration} 在 Kafka 监听容器启动之前调用。
+     *
+     * @return 迁移的字段数
+     */
+    public long migrateLegacyKey() {
+        return statuses.migrateFrom(DEVICE_STATUSES_KEY);
     }
 
     /**
@@ -32,14 +59,48 @@ public class CpeStatusCacheService {
         if (deviceStatus == null || deviceStatus.getDeviceId() == null) {
             return;
         }
-        try {
-            // 使用 HSET 命令更新 Hash 中的一个字段
-            redisTemplate.opsForHash().put(DEVICE_STATUSES_KEY, deviceStatus.getDeviceId(), deviceStatus);
-            logger.debug(" -> Redis缓存已更新: 设备 [{}], 状态 [{}]", deviceStatus.getDeviceId(), deviceStatus.getStatus());
-        } catch (Exception e) {
-            logger.error("❌ 更新Redis设备 [{}] 缓存时出错。", deviceStatus.getDeviceId(), e);
-            // 抛出运行时异常，以便上层 @Transactional 能够捕获并触发回滚
-            throw new RuntimeException("更新Redis缓存失败", e);
+        // HSET 更新 Hash 中的一个字段
+        writer.put(statuses.keyFor(deviceStatus.getDeviceId()), deviceStatus.getDeviceId(), deviceStatus);
+        logger.debug(" -> 已提交Redis缓存更新: 设备 [{}], 状态 [{}]", deviceStatus.getDeviceId(), deviceStatus.getStatus());
+    }
+
+    /**
+     * 用一批已持久化的状态更新缓存。
+     *
+     * @param statuses 每个设备一条的最新状态
+     */
+    public void updateStatuses(List<CpeStatusDataDto> statuses) {
+        for (CpeStatusDataDto status : statuses) {
+            updateStatus(DeviceStatus.builder()
+                    .deviceId(status.getDeviceId())
+                    .status(status.getStatus())
+                    .lastUpdated(status.getTimestamp())
+                    .build());
         }
     }
+
+    /**
+     * 批量读取设备状态，每个分桶一条 HMGET，在一次 pipeline 中完成。
+     *
+     * @return deviceId -> 状态，缓存中不存在的设备不出现在结果中
+     */
+    public Map<String, DeviceStatus> getStatuses(Collection<String> deviceIds) {
+        Map<String, DeviceStatus> result = new HashMap<>();
+        statuses.multiGet(deviceIds).forEach((deviceId, value) -> result.put(deviceId, (DeviceStatus) value));
+        return result;
+    }
+
+    /**
+     * 遍历全网设备的状态缓存并按状态计数。各分桶以 HSCAN 并行遍历，不会阻塞 Redis。
+     *
+     * @return 状态 -> 设备数
+     */
+    public Map<String, Long> countByStatus() {
+        Map<String, Long> counts = new ConcurrentHashMap<>();
+        statuses.scan((deviceId, value) -> {
+            String status = ((DeviceStatus) value).getStatus();
+            counts.merge(status == null ? "UNKNOWN" : status, 1L, Long::sum);
+        });
+        return counts;
+    }
 }
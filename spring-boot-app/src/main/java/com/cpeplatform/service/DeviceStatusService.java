@@ -1,10 +1,16 @@
 package com.cpeplatform.service;
 
 import com.cpeplatform.dto.CpeStatusDataDto;
-import com.cpeplatform.persistence.repository.DeviceStatusRepository;
+import com.cpeplatform.persistence.repository.DeviceStatusBatchRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 负责处理设备状态的业务逻辑
@@ -14,26 +20,41 @@ public class DeviceStatusService {
 
     private static final Logger logger = LoggerFactory.getLogger(DeviceStatusService.class);
 
-    private final DeviceStatusRepository repository;
+    private final DeviceStatusBatchRepository batchRepository;
 
-    public DeviceStatusService(DeviceStatusRepository repository) {
-        this.repository = repository;
+    public DeviceStatusService(DeviceStatusBatchRepository batchRepository) {
+        this.batchRepository = batchRepository;
     }
 
     /**
-     * @param statusDto 从Kafka接收到的状态数据
+     * 将一次 poll 拉取到的状态批量写入数据库。
+     * 同一设备在批次内只保留最新 (时间戳最大，相同时取后到达) 的一条，再以多行 UPSERT 写入。
+     * 失败时异常向上抛出，由 Kafka 容器的错误处理器重试整批，偏移量只在事务提交后才会提交。
+     *
+     * @param statuses 从Kafka接收到的一批状态数据
+     * @return 去重后实际写入的状态 (每个设备一条)
      */
-    public void updateDeviceStatus(CpeStatusDataDto statusDto) {
-        try {
-            logger.debug("准备对设备 [{}] 执行UPSERT操作，新状态: {}", statusDto.getDeviceId(), statusDto.getStatus());
-            repository.upsertStatus(
-                    statusDto.getDeviceId(),
-                    statusDto.getStatus(),
-                    statusDto.getTimestamp()
-            );
-            logger.info("✅ 设备 [{}] 状态UPSERT操作成功。", statusDto.getDeviceId());
-        } catch (Exception e) {
-            logger.error("❌ 对设备 [{}] 执行UPSERT时发生错误", statusDto.getDeviceId(), e);
+    @Transactional
+    public List<CpeStatusDataDto> updateDeviceStatuses(List<CpeStatusDataDto> statuses) {
+        List<CpeStatusDataDto> latest = latestPerDevice(statuses);
+        if (latest.isEmpty()) {
+            return latest;
+        }
+        int rows = batchRepository.upsertStatuses(latest);
+        logger.debug("✅ 设备状态批量UPSERT成功: 收到 {} 条，去重后写入 {} 行。", statuses.size(), rows);
+        return latest;
+    }
+
+    private static List<CpeStatusDataDto> latestPerDevice(List<CpeStatusDataDto> statuses) {
+        Map<String, CpeStatusDataDto> latest = new LinkedHashMap<>(statuses.size() * 2);
+        for (CpeStatusDataDto status : statuses) {
+            // 缺少 deviceId 的记录无法写入，直接跳过 (反序列化失败的记录已由 DeviceStatusConsumer 转发到死信主题，不会传到这里)
+            if (status == null || status.getDeviceId() == null) {
+                continue;
+            }
+            latest.merge(status.getDeviceId(), status,
+                    (previous, current) -> current.getTimestamp() >= previous.getTimestamp() ? current : previous);
         }
+        return new ArrayList<>(latest.values());
     }
 }
@@ -0,0 +1,39 @@
+package com.cpeplatform.service;
+
+import com.cpeplatform.dto.RttSummaryDto;
+import com.cpeplatform.dto.TopLatencyRankingDto;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 在内存中保存最近一次的全网 RTT 汇总和延迟最差设备排行，供 REST 接口直接读取。
+ */
+@Service
+public class FleetLatencyService {
+
+    private final AtomicReference<RttSummaryDto> latest = new AtomicReference<>();
+    private final AtomicReference<TopLatencyRankingDto> ranking = new AtomicReference<>();
+
+    /**
+     * 更新最新汇总。消息乱序或重复消费时，只保留统计周期最新的那一条。
+     */
+    public void update(RttSummaryDto summary) {
+        latest.accumulateAndGet(summary,
+                (current, candidate) -> current == null || candidate.getWindowEnd() >= current.getWindowEnd() ? candidate : current);
+    }
+
+    public Optional<RttSummaryDto> getLatest() {
+        return Optional.ofNullable(latest.get());
+    }
+
+    public void updateRanking(TopLatencyRankingDto candidate) {
+        ranking.accumulateAndGet(candidate,
+                (current, next) -> current == null || next.getGeneratedAt() >= current.getGeneratedAt() ? next : current);
+    }
+
+    public Optional<TopLatencyRankingDto> getRanking() {
+        return Optional.ofNullable(ranking.get());
+    }
+}
@@ -0,0 +1,238 @@
+package com.cpeplatform.service;
+
+import com.cpeplatform.persistence.entity.PacketLossEvent;
+import com.cpeplatform.persistence.repository.PacketLossEventBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 丢包事件的组提交 (group commit) 写入器。
+ * <p>
+ * 调用方把事件放入有界内存队列，得到一个在该事件所在的组提交后完成的 future；单个后台线程按
+ * "攒够 maxBatchSize 条或最早一条等待满 maxLingerMs" 取出一组，以多行 INSERT 写入并只提交一次事务。
+ * 写入失败时按指数退避重试整组，最多 maxAttempts 次，仍失败则以异常完成组内全部 future，
+ * 由调用方 (Kafka 监听器) 把错误交给容器的错误处理器重新投递——事件不会被静默丢弃。
+ * 队列满时 {@link #submit} 会阻塞调用方：监听线程停在 submit 上就不会再 poll，这就是对 Kafka 消费的背压。
+ * <p>
+ * 监听器在返回 (提交偏移量) 前等待本批事件全部提交，因此队列深度不超过 max.poll.records × 监听并发数；
+ * 一个组只会包含已经拉取、尚未确认的记录，并发的多个监听容器的事件可以合并进同一组。
+ * <p>
+ * 指标 (Micrometer，前缀 {@value #METRIC_PREFIX})：
+ * <ul>
+ *     <li>queue.depth —— 当前排队的事件数 (gauge)</li>
+ *     <li>flush —— 一组事件从 INSERT 到事务提交的耗时 (timer)</li>
+ *     <li>commit.latency —— 组内最早事件从入队到提交的延迟 (timer)</li>
+ *     <li>batch.size —— 每组的事件数 (summary)</li>
+ *     <li>events.written / events.failed —— 写入成功 / 重试耗尽后交还调用方的事件数</li>
+ *     <li>flush.retries —— 组提交失败后的重试次数</li>
+ * </ul>
+ */
+@Service
+public class PacketLossEventWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PacketLossEventWriter.class);
+
+    public static final String METRIC_PREFIX = "cpe.packetloss.writer";
+
+    // 空闲时轮询队列的间隔，用于及时响应停止信号
+    private static final long IDLE_POLL_MS = 100;
+
+    // 重试间隔的上限
+    private static final long MAX_RETRY_BACKOFF_MS = 5_000;
+
+    private record PendingEvent(PacketLossEvent event, long enqueuedAtNanos, CompletableFuture<Void> committed) {
+    }
+
+    private final PacketLossEventBatchRepository repository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<PendingEvent> queue;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+
+    private final Timer flushTimer;
+    private final Timer commitLatency;
+    private final DistributionSummary batchSize;
+    private final Counter eventsWritten;
+    private final Counter eventsFailed;
+    private final Counter flushRetries;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public PacketLossEventWriter(PacketLossEventBatchRepository repository,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.persistence.packet-loss.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${app.persistence.packet-loss.max-batch-size:500}") int maxBatchSize,
+                                 @Value("${app.persistence.packet-loss.max-linger-ms:50}") long maxLingerMs,
+                                 @Value("${app.persistence.packet-loss.max-attempts:3}") int maxAttempts,
+                                 @Value("${app.persistence.packet-loss.retry-backoff-ms:200}") long retryBackoffMs) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxLingerMs));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = Math.max(0, retryBackoffMs);
+
+        Gauge.builder(METRIC_PREFIX + ".queue.depth", queue, BlockingQueue::size)
+                .description("排队等待写入的丢包事件数")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder(METRIC_PREFIX + ".flush")
+                .description("一组丢包事件从 INSERT 到事务提交的耗时")
+                .register(meterRegistry);
+        this.commitLatency = Timer.builder(METRIC_PREFIX + ".commit.latency")
+                .description("组内最早事件从入队到提交的延迟")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder(METRIC_PREFIX + ".batch.size")
+                .description("每次组提交的事件数")
+                .register(meterRegistry);
+        this.eventsWritten = Counter.builder(METRIC_PREFIX + ".events.written").register(meterRegistry);
+        this.eventsFailed = Counter.builder(METRIC_PREFIX + ".events.failed").register(meterRegistry);
+        this.flushRetries = Counter.builder(METRIC_PREFIX + ".flush.retries").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writerThread = new Thread(this::runLoop, "packet-loss-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("丢包事件组提交写入器已启动 (queueCapacity={}, maxBatchSize={}, maxLingerMs={})",
+                queue.remainingCapacity(), maxBatchSize, TimeUnit.NANOSECONDS.toMillis(maxLingerNanos));
+    }
+
+    /**
+     * 停止写入器。Kafka 监听容器会先于本 Bean 停止，此时队列中剩余的事件会被全部写完。
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        List<PendingEvent> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        if (!leftover.isEmpty()) {
+            // 这些事件的偏移量尚未提交 (监听器仍在等待它们的 future)，重启后会被重新消费
+            logger.warn("丢包事件写入器停止时仍有 {} 条事件未写入", leftover.size());
+            IllegalStateException stopped = new IllegalStateException("丢包事件写入器已停止");
+            leftover.forEach(pending -> pending.committed().completeExceptionally(stopped));
+        }
+    }
+
+    /**
+     * 将事件放入写入队列。队列已满时阻塞，直到后台线程腾出空间。
+     *
+     * @return 事件所在的组提交成功后正常完成；重试耗尽后以异常完成
+     */
+    public CompletableFuture<Void> submit(PacketLossEvent event) {
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        try {
+            queue.put(new PendingEvent(event, System.nanoTime(), committed));
+            return committed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待丢包事件写入队列时被中断", e);
+        }
+    }
+
+    private void runLoop() {
+        List<PendingEvent> group = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEvent first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                // 以最早一条的入队时间为准计算截止时间：积压时直接取走已排队的事件，不再额外等待
+                long deadline = first.enqueuedAtNanos() + maxLingerNanos;
+                while (group.size() < maxBatchSize) {
+                    queue.drainTo(group, maxBatchSize - group.size());
+                    long waitNanos = deadline - System.nanoTime();
+                    if (group.size() >= maxBatchSize || waitNanos <= 0) {
+                        break;
+                    }
+                    PendingEvent next = queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                flush(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(group);
+                break;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingEvent> group) {
+        if (group.isEmpty()) {
+            return;
+        }
+        List<PacketLossEvent> events = new ArrayList<>(group.size());
+        for (PendingEvent pending : group) {
+            events.add(pending.event());
+        }
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> repository.insertAll(events));
+                long committedAt = System.nanoTime();
+                flushTimer.record(committedAt - start, TimeUnit.NANOSECONDS);
+                commitLatency.record(committedAt - group.get(0).enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+                batchSize.record(events.size());
+                eventsWritten.increment(events.size());
+                group.forEach(pending -> pending.committed().complete(null));
+                logger.debug("✅ 组提交写入 {} 条丢包事件", events.size());
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts || !sleep(backoffMs)) {
+                    eventsFailed.increment(events.size());
+                    logger.error("❌ 组提交写入 {} 条丢包事件失败 (已尝试 {} 次)，交由消费者重新投递", events.size(), attempt, e);
+                    group.forEach(pending -> pending.committed().completeExceptionally(e));
+                    return;
+                }
+                flushRetries.increment();
+                logger.warn("⚠️ 组提交写入 {} 条丢包事件失败 (第 {} 次)，{} ms 后重试: {}",
+                        events.size(), attempt, backoffMs, e.toString());
+                backoffMs = Math.min(Math.max(1, backoffMs * 2), MAX_RETRY_BACKOFF_MS);
+            }
+        }
+    }
+
+    // 退避等待；被中断时返回 false，放弃剩余的重试
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
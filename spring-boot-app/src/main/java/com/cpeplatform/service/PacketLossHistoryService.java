@@ -0,0 +1,157 @@
+package com.cpeplatform.service;
+
+import com.cpeplatform.dto.PacketLossEventDto;
+import com.cpeplatform.dto.PacketLossPageDto;
+import com.cpeplatform.persistence.repository.PacketLossHistoryRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * 丢包历史查询：keyset 分页与流式导出。
+ * <p>
+ * 游标格式为 {@code <eventTimestamp>:<id>}，即上一页最后一行的排序键，对客户端来说是不透明的字符串。
+ * 导出必须给出有界的时间范围，跨度与行数都有上限，避免一次请求长时间占用连接扫描整张表。
+ */
+@Service
+public class PacketLossHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PacketLossHistoryService.class);
+
+    private final PacketLossHistoryRepository repository;
+    private final ObjectMapper objectMapper;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final long maxExportSpanMs;
+    private final int maxExportRows;
+
+    public PacketLossHistoryService(PacketLossHistoryRepository repository,
+                                    ObjectMapper objectMapper,
+                                    @Value("${app.api.packet-loss.default-page-size:100}") int defaultPageSize,
+                                    @Value("${app.api.packet-loss.max-page-size:1000}") int maxPageSize,
+                                    @Value("${app.api.packet-loss.max-export-span-ms:86400000}") long maxExportSpanMs,
+                                    @Value("${app.api.packet-loss.max-export-rows:1000000}") int maxExportRows) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = Math.max(1, maxPageSize);
+        this.defaultPageSize = Math.min(Math.max(1, defaultPageSize), this.maxPageSize);
+        this.maxExportSpanMs = Math.max(1, maxExportSpanMs);
+        this.maxExportRows = Math.max(1, maxExportRows);
+    }
+
+    /**
+     * 查询一页丢包历史 (按时间倒序)。
+     *
+     * @param deviceId 设备ID，为 null 时查询全网
+     * @param from     时间下界 (含，毫秒)，为 null 表示不限
+     * @param to       时间上界 (不含，毫秒)，为 null 表示不限
+     * @param cursor   上一页返回的 nextCursor，为 null 时返回第一页
+     * @param limit    每页行数，为 null 时使用默认值，超过上限时截断
+     * @throws IllegalArgumentException 游标格式不合法
+     */
+    public PacketLossPageDto findPage(String deviceId, Long from, Long to, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.min(Math.max(1, limit), maxPageSize);
+        Long afterTs = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            long[] key = decodeCursor(cursor);
+            afterTs = key[0];
+            afterId = key[1];
+        }
+        List<PacketLossEventDto> events = repository.findPage(deviceId, lowerBound(from), upperBound(to),
+                afterTs, afterId, pageSize);
+        // 本页取满时才可能还有下一页
+        String nextCursor = events.size() < pageSize ? null : encodeCursor(events.get(events.size() - 1));
+        return new PacketLossPageDto(events, nextCursor);
+    }
+
+    /**
+     * 校验导出的时间范围：from 与 to 都必须给出，且 0 < to - from <= 最大跨度。
+     * 导出在响应开始写出之后才执行，调用方需先调用本方法，以便范围不合法时仍能返回 400。
+     *
+     * @throws IllegalArgumentException 范围缺失、为空或超过最大跨度
+     */
+    public void checkExportRange(Long from, Long to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("导出必须同时指定 from 与 to");
+        }
+        if (to <= from) {
+            throw new IllegalArgumentException("导出范围为空: from=" + from + ", to=" + to);
+        }
+        // to - from 可能溢出，按 from 推算上界比较
+        if (from > Long.MAX_VALUE - maxExportSpanMs || to > from + maxExportSpanMs) {
+            throw new IllegalArgumentException("导出范围超过 " + maxExportSpanMs + " 毫秒: from=" + from + ", to=" + to);
+        }
+    }
+
+    /**
+     * 将时间范围内的丢包历史以 JSON 数组的形式流式写出 (按时间正序)，内存占用与结果行数无关。
+     * 最多写出 max-export-rows 行，超出时截断；客户端可从最后一行的时间戳起 (按 id 去重) 继续导出。
+     *
+     * @param deviceId 设备ID，为 null 时导出全网
+     * @throws IllegalArgumentException 时间范围不合法 (见 {@link #checkExportRange})
+     */
+    public void export(String deviceId, Long from, Long to, OutputStream out) throws IOException {
+        checkExportRange(from, to);
+        long rows;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            long[] counter = new long[1];
+            try {
+                repository.streamRange(deviceId, from, to, maxExportRows, event -> {
+                    try {
+                        generator.writeObject(event);
+                        counter[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // 多半是客户端中途断开
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+            rows = counter[0];
+        }
+        if (rows >= maxExportRows) {
+            logger.warn("⚠️ 丢包历史导出达到行数上限 {}，结果已截断: deviceId={}, from={}, to={}",
+                    maxExportRows, deviceId, from, to);
+        }
+        logger.info("📤 丢包历史导出完成: deviceId={}, from={}, to={}, 共 {} 行", deviceId, from, to, rows);
+    }
+
+    private static long lowerBound(Long from) {
+        return from == null ? Long.MIN_VALUE : from;
+    }
+
+    private static long upperBound(Long to) {
+        return to == null ? Long.MAX_VALUE : to;
+    }
+
+    private static String encodeCursor(PacketLossEventDto last) {
+        return last.getEventTimestamp() + ":" + last.getId();
+    }
+
+    private static long[] decodeCursor(String cursor) {
+        int separator = cursor.indexOf(':');
+        if (separator <= 0 || separator == cursor.length() - 1) {
+            throw new IllegalArgumentException("游标格式不合法: " + cursor);
+        }
+        try {
+            return new long[]{
+                    Long.parseLong(cursor.substring(0, separator)),
+                    Long.parseLong(cursor.substring(separator + 1))
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("游标格式不合法: " + cursor, e);
+        }
+    }
+}
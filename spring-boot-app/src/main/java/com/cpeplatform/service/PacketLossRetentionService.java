@@ -0,0 +1,105 @@
+package com.cpeplatform.service;
+
+import com.cpeplatform.persistence.repository.PacketLossPartitionRepository;
+import com.cpeplatform.persistence.repository.PacketLossPartitionRepository.PartitionInfo;
+import com.cpeplatform.persistence.repository.PacketLossPartitions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * packet_loss_events 分区的定时维护：
+ * <ol>
+ *     <li>预建未来若干天的日分区，避免新事件落入兜底分区；</li>
+ *     <li>上界早于保留期的分区先按设备、按天累加到 packet_loss_daily_counts，再整体删除。
+ *     汇总在事务中进行，并记录已汇总的分区 (见 {@link PacketLossPartitionRepository#rollUpPartition})。</li>
+ * </ol>
+ * 应用启动完成时执行一次，之后按 cron (UTC) 每天执行。
+ */
+@Service
+public class PacketLossRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PacketLossRetentionService.class);
+
+    private final PacketLossPartitionRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final int precreateDays;
+
+    public PacketLossRetentionService(PacketLossPartitionRepository repository,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${app.persistence.packet-loss.retention-days:30}") int retentionDays,
+                                      @Value("${app.persistence.packet-loss.precreate-days:7}") int precreateDays) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.retentionDays = Math.max(1, retentionDays);
+        this.precreateDays = Math.max(1, precreateDays);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${app.persistence.packet-loss.maintenance-cron:0 5 0 * * *}", zone = "UTC")
+    public void maintainPartitions() {
+        try {
+            List<PartitionInfo> partitions = repository.listPartitions();
+            if (partitions.isEmpty()) {
+                logger.warn("表 {} 未分区，跳过分区维护。", PacketLossPartitions.TABLE);
+                return;
+            }
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            createUpcomingPartitions(partitions, today);
+            dropExpiredPartitions(partitions, today);
+        } catch (Exception e) {
+            logger.error("❌ 丢包事件分区维护失败", e);
+        }
+    }
+
+    private void createUpcomingPartitions(List<PartitionInfo> partitions, LocalDate today) {
+        // 最后一个有界分区的上界即已覆盖到的日期 (不含)
+        long coveredUntil = Long.MIN_VALUE;
+        for (PartitionInfo partition : partitions) {
+            if (partition.upperBound() != null) {
+                coveredUntil = Math.max(coveredUntil, partition.upperBound());
+            }
+        }
+        List<LocalDate> missing = new ArrayList<>();
+        for (int i = 0; i < precreateDays; i++) {
+            LocalDate day = today.plusDays(i);
+            if (PacketLossPartitions.startOfDayMillis(day) >= coveredUntil) {
+                missing.add(day);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        repository.addDailyPartitions(missing);
+        logger.info("✅ 已为 {} 追加 {} 个日分区 ({} ~ {})", PacketLossPartitions.TABLE, missing.size(),
+                missing.get(0), missing.get(missing.size() - 1));
+    }
+
+    private void dropExpiredPartitions(List<PartitionInfo> partitions, LocalDate today) {
+        long cutoff = PacketLossPartitions.startOfDayMillis(today.minusDays(retentionDays));
+        for (PartitionInfo partition : partitions) {
+            if (partition.upperBound() == null || partition.upperBound() > cutoff) {
+                continue;
+            }
+            // 先汇总再删除；已汇总的分区会被跳过，删除前失败时下次维护只需重新删除
+            Integer rolledUp = transactionTemplate.execute(status -> repository.rollUpPartition(partition));
+            repository.dropPartition(partition.name());
+            logger.info("🗑️ 已删除过期分区 {} (汇总写入 {} 行)", partition.name(), rolledUp);
+        }
+    }
+}
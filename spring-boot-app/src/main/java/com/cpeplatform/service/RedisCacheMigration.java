@@ -0,0 +1,61 @@
+package com.cpeplatform.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * 在 Kafka 监听容器启动之前，把旧版单 key 格式的 Redis 缓存迁移到分桶格式。
+ * <p>
+ * 迁移用 HSETNX 写入分桶，如果监听器已经在消费，迁移期间被 HDEL 清除的设备会被旧值重新写回。
+ * 因此迁移放在比监听容器更早的生命周期阶段同步执行，完成之后才开始消费；
+ * 迁移失败时应用启动失败，旧 key 保留，下次启动重新迁移。
+ */
+@Component
+public class RedisCacheMigration implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCacheMigration.class);
+
+    // 早于所有 Kafka 监听容器 (KafkaListenerEndpointRegistry 默认使用 DEFAULT_PHASE)
+    public static final int PHASE = AbstractMessageListenerContainer.DEFAULT_PHASE - 100;
+
+    private final CpeCacheService cacheService;
+    private final CpeStatusCacheService statusCacheService;
+    private volatile boolean running;
+
+    public RedisCacheMigration(CpeCacheService cacheService, CpeStatusCacheService statusCacheService) {
+        this.cacheService = cacheService;
+        this.statusCacheService = statusCacheService;
+    }
+
+    @Override
+    public void start() {
+        try {
+            long packetLoss = cacheService.migrateLegacyKey();
+            long statuses = statusCacheService.migrateLegacyKey();
+            if (packetLoss + statuses > 0) {
+                logger.info("✅ Redis 缓存分桶迁移完成: 丢包事件 {} 条, 设备状态 {} 条", packetLoss, statuses);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("迁移 Redis 缓存到分桶格式失败，旧 key 已保留，下次启动将重试", e);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,266 @@
+package com.cpeplatform.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Redis Hash 的合并批量写入器。
+ * <p>
+ * 调用方的 {@link #put} / {@link #delete} 只写入内存中的待写表并立即返回；同一 (key, field) 在一个窗口内
+ * 只保留最后一次更新。写入线程每隔 flushIntervalMs (或待写字段数达到 maxPendingFields 时立即) 把待写表整体换出，
+ * 在一次 pipeline 中对每个 key 发送一条多字段 HSET (以及需要时的一条 HDEL)。
+ * 待写字段数受设备总数约束，Redis 变慢时只会合并更多更新而不会无限增长。
+ * <p>
+ * 写入失败时整批放回待写表 (同一字段已有更新的值优先)，至少间隔 retryBackoffMs 后随下一个窗口重试；
+ * 同一字段连续失败 maxAttempts 次后才丢弃并计入 failed。关闭时的最后一次写入不再重试。
+ * <p>
+ * 指标 (Micrometer，前缀 {@value #METRIC_PREFIX})：pending (待写字段数)、flush (每次 pipeline 耗时)、
+ * batch.size (每次写出的字段数)、coalesced (被合并掉的更新数)、retried (写入失败后放回重试的字段数)、
+ * failed (重试用尽后被丢弃的字段数)。
+ */
+@Service
+public class RedisHashBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisHashBatchWriter.class);
+
+    public static final String METRIC_PREFIX = "cpe.redis.writer";
+
+    // 待写表中表示 HDEL 的占位值
+    private static final Object DELETE = new Object();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final int maxPendingFields;
+    private final int maxAttempts;
+    private final long retryBackoffNanos;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    // key -> (field -> value)，由 this 保护
+    private Map<String, Map<String, Object>> pending = new HashMap<>();
+    private int pendingFields;
+    // 待写表中写入失败过的字段已经尝试的次数: key -> (field -> 次数)，由 this 保护；只在 Redis 出错时非空
+    private final Map<String, Map<String, Integer>> attempts = new HashMap<>();
+    // 写入失败后下一次写入的最早时间 (System.nanoTime)，只由写入线程访问
+    private boolean backingOff;
+    private long retryNotBefore;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSize;
+    private final Counter coalesced;
+    private final Counter retried;
+    private final Counter failed;
+
+    public RedisHashBatchWriter(RedisTemplate<String, Object> redisTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.redis.batch.flush-interval-ms:20}") long flushIntervalMs,
+                                @Value("${app.redis.batch.max-pending-fields:2000}") int maxPendingFields,
+                                @Value("${app.redis.batch.max-attempts:5}") int maxAttempts,
+                                @Value("${app.redis.batch.retry-backoff-ms:200}") long retryBackoffMs) {
+        this.redisTemplate = redisTemplate;
+        this.maxPendingFields = Math.max(1, maxPendingFields);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, retryBackoffMs));
+
+        Gauge.builder(METRIC_PREFIX + ".pending", this, RedisHashBatchWriter::pendingFields)
+                .description("等待写入 Redis 的 Hash 字段数")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder(METRIC_PREFIX + ".flush")
+                .description("一次 pipeline 批量写入的耗时")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder(METRIC_PREFIX + ".batch.size")
+                .description("每次批量写入的字段数")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder(METRIC_PREFIX + ".coalesced").register(meterRegistry);
+        this.retried = Counter.builder(METRIC_PREFIX + ".retried").register(meterRegistry);
+        this.failed = Counter.builder(METRIC_PREFIX + ".failed").register(meterRegistry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-hash-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, flushIntervalMs);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 异步设置 Hash 字段 (HSET key field value)。
+     */
+    public void put(String key, String field, Object value) {
+        enqueue(key, field, value);
+    }
+
+    /**
+     * 异步删除 Hash 字段 (HDEL key field)，会覆盖同一窗口内尚未写出的 put。
+     */
+    public void delete(String key, String field) {
+        enqueue(key, field, DELETE);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        // Kafka 监听容器已先于本 Bean 停止，这里把最后一个窗口写完
+        flush(true);
+    }
+
+    private void enqueue(String key, String field, Object value) {
+        boolean full;
+        synchronized (this) {
+            Object previous = pending.computeIfAbsent(key, k -> new HashMap<>()).put(field, value);
+            if (previous == null) {
+                pendingFields++;
+            } else {
+                coalesced.increment();
+            }
+            if (!attempts.isEmpty()) {
+                // 新的值还没有失败过
+                forgetAttempts(key, field);
+            }
+            full = pendingFields >= maxPendingFields;
+        }
+        // 达到上限时提前触发一次写入，不等待定时窗口
+        if (full && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private synchronized int pendingFields() {
+        return pendingFields;
+    }
+
+    private void flushQuietly() {
+        flush(false);
+    }
+
+    private void flush(boolean last) {
+        flushRequested.set(false);
+        if (!last && backingOff && System.nanoTime() - retryNotBefore < 0) {
+            return;
+        }
+        Map<String, Map<String, Object>> batch;
+        int fields;
+        synchronized (this) {
+            if (pendingFields == 0) {
+                return;
+            }
+            batch = pending;
+            fields = pendingFields;
+            pending = new HashMap<>();
+            pendingFields = 0;
+        }
+        long start = System.nanoTime();
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    batch.forEach((key, values) -> writeHash(ops, key, values));
+                    return null;
+                }
+            });
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSize.record(fields);
+            backingOff = false;
+            synchronized (this) {
+                if (!attempts.isEmpty()) {
+                    batch.forEach((key, values) -> values.keySet().forEach(field -> forgetAttempts(key, field)));
+                }
+            }
+        } catch (Exception e) {
+            int dropped = requeue(batch, last);
+            backingOff = true;
+            retryNotBefore = System.nanoTime() + retryBackoffNanos;
+            if (dropped > 0) {
+                logger.error("❌ 批量写入 Redis 失败，{} 个字段重试 {} 次后仍失败，丢弃这些字段的更新", dropped, maxAttempts, e);
+            } else {
+                logger.warn("⚠️ 批量写入 Redis 失败，{} 个字段放回待写表重试", fields, e);
+            }
+        }
+    }
+
+    /**
+     * 把写入失败的一批放回待写表。待写表中同一字段已有的值 (失败期间的新更新) 优先；
+     * 尝试次数达到 maxAttempts (或是关闭前的最后一次写入) 的字段被丢弃。
+     *
+     * @return 丢弃的字段数
+     */
+    private synchronized int requeue(Map<String, Map<String, Object>> batch, boolean last) {
+        int dropped = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : batch.entrySet()) {
+            String key = entry.getKey();
+            for (Map.Entry<String, Object> fieldEntry : entry.getValue().entrySet()) {
+                String field = fieldEntry.getKey();
+                Map<String, Object> values = pending.computeIfAbsent(key, k -> new HashMap<>());
+                if (values.containsKey(field)) {
+                    // 已被更新的值取代，失败的旧值不再需要写出
+                    coalesced.increment();
+                    continue;
+                }
+                int attempt = attempts.computeIfAbsent(key, k -> new HashMap<>()).merge(field, 1, Integer::sum);
+                if (last || attempt >= maxAttempts) {
+                    forgetAttempts(key, field);
+                    if (values.isEmpty()) {
+                        pending.remove(key);
+                    }
+                    dropped++;
+                    continue;
+                }
+                values.put(field, fieldEntry.getValue());
+                pendingFields++;
+                retried.increment();
+            }
+        }
+        failed.increment(dropped);
+        return dropped;
+    }
+
+    // 调用方持有 this
+    private void forgetAttempts(String key, String field) {
+        Map<String, Integer> fields = attempts.get(key);
+        if (fields != null && fields.remove(field) != null && fields.isEmpty()) {
+            attempts.remove(key);
+        }
+    }
+
+    private static void writeHash(RedisOperations<String, Object> ops, String key, Map<String, Object> values) {
+        Map<String, Object> puts = new HashMap<>(values.size() * 2);
+        List<Object> deletes = new ArrayList<>();
+        values.forEach((field, value) -> {
+            if (value == DELETE) {
+                deletes.add(field);
+            } else {
+                puts.put(field, value);
+            }
+        });
+        if (!puts.isEmpty()) {
+            ops.opsForHash().putAll(key, puts);
+        }
+        if (!deletes.isEmpty()) {
+            ops.opsForHash().delete(key, deletes.toArray());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.cpeplatform.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * 把一个逻辑上的大 Hash 按字段 (设备ID) 分散到固定数量的桶 {@code <baseKey>:{<bucket>}} 中。
+ * <p>
+ * 桶号由字段的 CRC32 对桶数取模得到，与进程无关；花括号是 Redis Cluster 的 hash tag，
+ * 不同的桶落在不同的 slot 上，避免整个设备群挤在一个热点 key / slot 里。
+ * 读取时按桶分组：批量查询在一次 pipeline 中对每个桶发一条 HMGET，全量遍历对每个桶做游标式 HSCAN 并按桶并行，
+ * 不会像对大 key 执行 HGETALL 那样长时间阻塞 Redis。
+ * <p>
+ * 桶数一旦有数据就不能随意修改，否则已有字段会被路由到错误的桶。
+ */
+public class ShardedRedisHash {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedRedisHash.class);
+
+    // HSCAN 每次迭代建议返回的条数，以及迁移时每个 pipeline 写入的条数
+    private static final int SCAN_COUNT = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String baseKey;
+    private final int buckets;
+    private final Executor scanExecutor;
+    private final List<String> bucketKeys;
+
+    public ShardedRedisHash(RedisTemplate<String, Object> redisTemplate, String baseKey, int buckets,
+                            Executor scanExecutor) {
+        this.redisTemplate = redisTemplate;
+        this.baseKey = baseKey;
+        this.buckets = Math.max(1, buckets);
+        this.scanExecutor = scanExecutor;
+        List<String> keys = new ArrayList<>(this.buckets);
+        for (int bucket = 0; bucket < this.buckets; bucket++) {
+            keys.add(baseKey + ":{" + bucket + "}");
+        }
+        this.bucketKeys = List.copyOf(keys);
+    }
+
+    /**
+     * @return 字段所在桶的 key
+     */
+    public String keyFor(String field) {
+        return bucketKeys.get(bucketOf(field));
+    }
+
+    public List<String> bucketKeys() {
+        return bucketKeys;
+    }
+
+    /**
+     * 读取单个字段 (HGET)。
+     */
+    public Object get(String field) {
+        return redisTemplate.opsForHash().get(keyFor(field), field);
+    }
+
+    /**
+     * 批量读取多个字段：按桶分组后在一次 pipeline 中对每个桶发一条 HMGET。
+     *
+     * @return 存在的字段及其值，不存在的字段不出现在结果中
+     */
+    public Map<String, Object> multiGet(Collection<String> fields) {
+        Map<String, List<Object>> byKey = new LinkedHashMap<>();
+        for (String field : fields) {
+            byKey.computeIfAbsent(keyFor(field), k -> new ArrayList<>()).add(field);
+        }
+        if (byKey.isEmpty()) {
+            return Map.of();
+        }
+        List<Object> replies = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                byKey.forEach((key, keyFields) -> ops.opsForHash().multiGet(key, keyFields));
+                return null;
+            }
+        });
+        Map<String, Object> result = new HashMap<>(fields.size() * 2);
+        int reply = 0;
+        for (List<Object> keyFields : byKey.values()) {
+            List<?> values = (List<?>) replies.get(reply++);
+            for (int i = 0; i < keyFields.size(); i++) {
+                Object value = values.get(i);
+                if (value != null) {
+                    result.put((String) keyFields.get(i), value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 遍历全部字段：每个桶用游标式 HSCAN 分批读取，不同的桶在 scanExecutor 上并行。
+     * consumer 会被多个线程同时调用，必须是线程安全的。方法在所有桶遍历完成后返回。
+     */
+    public void scan(BiConsumer<String, Object> consumer) {
+        CompletableFuture<?>[] scans = new CompletableFuture<?>[buckets];
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            String key = bucketKeys.get(bucket);
+            scans[bucket] = CompletableFuture.runAsync(() -> scanKey(key, consumer), scanExecutor);
+        }
+        CompletableFuture.allOf(scans).join();
+    }
+
+    /**
+     * 把旧的单 key 格式迁移到分桶格式：对旧 key 做 HSCAN，每批在一次 pipeline 中用 HSETNX 写入对应的桶，
+     * 完成后以 UNLINK 异步删除旧 key。中途失败时旧 key 保留，重新执行时 HSETNX 跳过已迁移的字段 (幂等)。
+     * <p>
+     * 必须在对分桶的任何写入之前执行：HSETNX 只能保护分桶中已存在的字段，
+     * 迁移开始后被 HDEL 删除的字段会被旧值重新写回 (见 {@link RedisCacheMigration})。
+     *
+     * @return 迁移的字段数；旧 key 不存在时为 0
+     */
+    public long migrateFrom(String legacyKey) {
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(legacyKey))) {
+            return 0;
+        }
+        logger.info("开始将 Redis Hash [{}] 迁移到 {} 个分桶 [{}:{bucket}]", legacyKey, buckets, baseKey);
+        long migrated = 0;
+        List<Map.Entry<Object, Object>> chunk = new ArrayList<>(SCAN_COUNT);
+        try (Cursor<Map.Entry<Object, Object>> cursor = redisTemplate.opsForHash()
+                .scan(legacyKey, ScanOptions.scanOptions().count(SCAN_COUNT).build())) {
+            while (cursor.hasNext()) {
+                chunk.add(cursor.next());
+                if (chunk.size() >= SCAN_COUNT) {
+                    migrated += writeIfAbsent(chunk);
+                    chunk.clear();
+                }
+            }
+        }
+        migrated += writeIfAbsent(chunk);
+        redisTemplate.unlink(legacyKey);
+        logger.info("✅ Redis Hash [{}] 迁移完成，共 {} 个字段，旧 key 已删除", legacyKey, migrated);
+        return migrated;
+    }
+
+    private int bucketOf(String field) {
+        CRC32 crc = new CRC32();
+        crc.update(field.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % buckets);
+    }
+
+    private void scanKey(String key, BiConsumer<String, Object> consumer) {
+        try (Cursor<Map.Entry<Object, Object>> cursor = redisTemplate.opsForHash()
+                .scan(key, ScanOptions.scanOptions().count(SCAN_COUNT).build())) {
+            while (cursor.hasNext()) {
+                Map.Entry<Object, Object> entry = cursor.next();
+                consumer.accept((String) entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private int writeIfAbsent(List<Map.Entry<Object, Object>> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (Map.Entry<Object, Object> entry : entries) {
+                    String field = (String) entry.getKey();
+                    ops.opsForHash().putIfAbsent(keyFor(field), field, entry.getValue());
+                }
+                return null;
+            }
+        });
+        return entries.size();
+    }
+}
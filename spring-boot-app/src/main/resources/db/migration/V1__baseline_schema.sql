@@ -0,0 +1,24 @@
+-- ===================================================================
+-- V1: 基线表结构 (此前由 Hibernate ddl-auto: update 自动创建)
+-- 使用 IF NOT EXISTS，已有数据库在 baseline-on-migrate 后可直接执行
+-- ===================================================================
+
+-- 每个 CPE 设备的最新状态 (见 DeviceStatus 实体)
+CREATE TABLE IF NOT EXISTS device_statuses
+(
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    device_id    VARCHAR(255) NOT NULL,
+    status       VARCHAR(255) NOT NULL,
+    last_updated BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_device_statuses_device_id (device_id)
+) ENGINE = InnoDB;
+
+-- 丢包事件按设备、按天 (UTC) 汇总的计数，明细分区被删除前写入
+CREATE TABLE IF NOT EXISTS packet_loss_daily_counts
+(
+    device_id   VARCHAR(255) NOT NULL,
+    event_day   DATE         NOT NULL,
+    event_count BIGINT       NOT NULL,
+    PRIMARY KEY (device_id, event_day)
+) ENGINE = InnoDB;
@@ -0,0 +1,5 @@
+-- ===================================================================
+-- V3: 为全网丢包历史的 keyset 分页 (ORDER BY event_timestamp, id) 提供索引
+-- 按设备查询使用 V2 中的 (device_id, event_timestamp) 索引 (InnoDB 二级索引隐含主键列 id)
+-- ===================================================================
+CREATE INDEX idx_packet_loss_events_ts_id ON packet_loss_events (event_timestamp, id);
@@ -0,0 +1,14 @@
+-- ===================================================================
+-- V4: (device_id, event_timestamp) 作为丢包事件的幂等键
+-- 一批预测结果部分写入后被 Kafka 重新投递时，已写入的事件不再产生重复行 (也不会重复计入按天汇总)。
+-- 唯一键包含分区列 event_timestamp，满足 MySQL 分区表的要求；它同时取代 V2 中同列的普通索引。
+-- 先删除已有的重复行 (保留 id 最小的一行)，中途失败后重新执行不受影响
+-- ===================================================================
+DELETE t
+FROM packet_loss_events t
+         JOIN packet_loss_events d
+              ON d.device_id = t.device_id AND d.event_timestamp = t.event_timestamp AND d.id < t.id;
+
+ALTER TABLE packet_loss_events
+    DROP INDEX idx_packet_loss_events_device_ts,
+    ADD UNIQUE INDEX uk_packet_loss_events_device_ts (device_id, event_timestamp);
@@ -0,0 +1,13 @@
+-- ===================================================================
+-- V5: 已汇总分区的记录表
+-- 删除分区后，更早的迟到事件会落入剩余最早的分区，同一 (设备, 天) 因此可能先后出现在多个分区中。
+-- 汇总改为累加，并与本表的记录在同一事务中写入：已记录的分区不再汇总，汇总后、删除前失败也不会重复计数。
+-- 分区名与上界一起作为主键，与 p_history 这类可能被重建的分区名区分开
+-- ===================================================================
+CREATE TABLE IF NOT EXISTS packet_loss_rolled_partitions
+(
+    partition_name VARCHAR(64) NOT NULL,
+    upper_bound    BIGINT      NOT NULL,
+    rolled_at      TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (partition_name, upper_bound)
+) ENGINE = InnoDB;
@@ -0,0 +1,97 @@
+package com.cpeplatform.adapter.kafka;
+
+import com.cpeplatform.dto.CpeStatusDataDto;
+import com.cpeplatform.service.CpeStatusCacheService;
+import com.cpeplatform.service.DeviceStatusService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link DeviceStatusConsumer} 对无法反序列化的记录的处理：写入它之前的记录后以其下标抛出
+ * {@link BatchListenerFailedException}，交给错误处理器发往死信主题。
+ * 失败记录与应用中一样由 ErrorHandlingDeserializer 包装的 JsonDeserializer 产生。
+ */
+class DeviceStatusConsumerTest {
+
+    private static final String TOPIC = "cpe-processed-status";
+
+    private final DeviceStatusService deviceStatusService = mock(DeviceStatusService.class);
+    private final CpeStatusCacheService statusCacheService = mock(CpeStatusCacheService.class);
+    private final DeviceStatusConsumer consumer = new DeviceStatusConsumer(deviceStatusService, statusCacheService);
+
+    private final ErrorHandlingDeserializer<CpeStatusDataDto> deserializer =
+            new ErrorHandlingDeserializer<>(new JsonDeserializer<>(CpeStatusDataDto.class));
+
+    @Test
+    void validBatchIsPersistedAndCached() {
+        List<ConsumerRecord<String, CpeStatusDataDto>> records = List.of(
+                record(0, "{\"deviceId\":\"a\",\"status\":\"ONLINE\",\"timestamp\":1}"),
+                record(1, "{\"deviceId\":\"b\",\"status\":\"OFFLINE\",\"timestamp\":2}"));
+        List<CpeStatusDataDto> persisted = List.of(records.get(0).value(), records.get(1).value());
+        when(deviceStatusService.updateDeviceStatuses(persisted)).thenReturn(persisted);
+
+        consumer.consumeDeviceStatuses(records);
+
+        verify(statusCacheService).updateStatuses(persisted);
+    }
+
+    @Test
+    void recordsBeforeAFailedOneArePersistedAndItsIndexIsReported() {
+        List<ConsumerRecord<String, CpeStatusDataDto>> records = List.of(
+                record(0, "{\"deviceId\":\"a\",\"status\":\"ONLINE\",\"timestamp\":1}"),
+                record(1, "not json"),
+                record(2, "{\"deviceId\":\"c\",\"status\":\"ONLINE\",\"timestamp\":3}"));
+        assertThat(records.get(1).value()).isNull();
+        List<CpeStatusDataDto> beforeFailure = List.of(records.get(0).value());
+        when(deviceStatusService.updateDeviceStatuses(any())).thenReturn(beforeFailure);
+
+        assertThatThrownBy(() -> consumer.consumeDeviceStatuses(records))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> {
+                    assertThat(e.getIndex()).isEqualTo(1);
+                    assertThat(e.getCause()).isInstanceOf(DeserializationException.class);
+                    assertThat(((DeserializationException) e.getCause()).getData())
+                            .isEqualTo("not json".getBytes(StandardCharsets.UTF_8));
+                });
+
+        // 失败记录之后的记录由错误处理器重新投递，这里不能写入
+        verify(deviceStatusService).updateDeviceStatuses(beforeFailure);
+        verify(statusCacheService).updateStatuses(beforeFailure);
+    }
+
+    @Test
+    void tombstoneIsSkipped() {
+        ConsumerRecord<String, CpeStatusDataDto> status = record(1, "{\"deviceId\":\"b\",\"status\":\"ONLINE\",\"timestamp\":2}");
+        List<ConsumerRecord<String, CpeStatusDataDto>> records = List.of(
+                new ConsumerRecord<>(TOPIC, 0, 0, "a", null), status);
+        when(deviceStatusService.updateDeviceStatuses(any())).thenReturn(List.of(status.value()));
+
+        consumer.consumeDeviceStatuses(records);
+
+        verify(deviceStatusService).updateDeviceStatuses(List.of(status.value()));
+    }
+
+    private ConsumerRecord<String, CpeStatusDataDto> record(long offset, String json) {
+        Headers headers = new RecordHeaders();
+        CpeStatusDataDto value = deserializer.deserialize(TOPIC, headers, json.getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>(TOPIC, 0, offset, 0L, TimestampType.CREATE_TIME, -1, json.length(),
+                "key-" + offset, value, headers, Optional.empty());
+    }
+}
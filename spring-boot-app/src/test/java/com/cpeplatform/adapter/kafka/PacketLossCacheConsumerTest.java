@@ -0,0 +1,35 @@
+package com.cpeplatform.adapter.kafka;
+
+import com.cpeplatform.dto.PredictionResultDto;
+import com.cpeplatform.service.CpeCacheService;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * {@link PacketLossCacheConsumer} 按丢包状态写入或清除缓存，忽略空消息。
+ */
+class PacketLossCacheConsumerTest {
+
+    private final CpeCacheService cacheService = mock(CpeCacheService.class);
+    private final PacketLossCacheConsumer consumer = new PacketLossCacheConsumer(cacheService);
+
+    @Test
+    void packetLossUpdatesAndRecoveryClearsTheCache() {
+        PredictionResultDto loss = new PredictionResultDto("a", 1L, true);
+        consumer.consumeAndCache(loss);
+        consumer.consumeAndCache(new PredictionResultDto("b", 2L, false));
+
+        verify(cacheService).updateLatestPacketLossEvent(loss);
+        verify(cacheService).clearPacketLossEvent("b");
+    }
+
+    @Test
+    void tombstoneIsIgnored() {
+        consumer.consumeAndCache(null);
+
+        verifyNoInteractions(cacheService);
+    }
+}
@@ -0,0 +1,59 @@
+package com.cpeplatform.adapter.kafka;
+
+import com.cpeplatform.dto.PredictionResultDto;
+import com.cpeplatform.service.PacketLossPersistenceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link PacketLossPersistenceConsumer} 只持久化丢包事件，并把写入失败传播给容器。
+ */
+class PacketLossPersistenceConsumerTest {
+
+    private PacketLossPersistenceService persistenceService;
+    private PacketLossPersistenceConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        persistenceService = mock(PacketLossPersistenceService.class);
+        consumer = new PacketLossPersistenceConsumer(persistenceService);
+    }
+
+    @Test
+    void persistsOnlyPacketLossEvents() {
+        when(persistenceService.persistEvent(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        consumer.consumeAndPersist(Arrays.asList(result("a", true), result("b", false), null, result("c", true)));
+
+        verify(persistenceService, times(2)).persistEvent(any());
+    }
+
+    @Test
+    void propagatesWriteFailureSoTheBatchIsRedelivered() {
+        when(persistenceService.persistEvent(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("写入失败")));
+
+        assertThatThrownBy(() -> consumer.consumeAndPersist(List.of(result("a", true))))
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("写入失败");
+    }
+
+    private static PredictionResultDto result(String deviceId, boolean packetLoss) {
+        PredictionResultDto dto = new PredictionResultDto();
+        dto.setDeviceId(deviceId);
+        dto.setHasPacketLoss(packetLoss);
+        return dto;
+    }
+}
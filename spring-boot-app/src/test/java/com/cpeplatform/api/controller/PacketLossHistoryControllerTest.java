@@ -0,0 +1,106 @@
+package com.cpeplatform.api.controller;
+
+import com.cpeplatform.dto.PacketLossEventDto;
+import com.cpeplatform.persistence.repository.PacketLossHistoryRepository;
+import com.cpeplatform.service.PacketLossHistoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@link PacketLossHistoryController} 的参数校验：不合法的游标与无界 / 过大的导出范围返回 400。
+ * 使用真实的 {@link PacketLossHistoryService}，只模拟仓库层。
+ */
+class PacketLossHistoryControllerTest {
+
+    private static final long DAY_MS = 86_400_000L;
+
+    private PacketLossHistoryRepository repository;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PacketLossHistoryRepository.class);
+        PacketLossHistoryService service = new PacketLossHistoryService(repository, new ObjectMapper(),
+                2, 1_000, DAY_MS, 10);
+        mvc = MockMvcBuilders.standaloneSetup(new PacketLossHistoryController(service)).build();
+    }
+
+    @Test
+    void malformedCursorReturnsBadRequest() throws Exception {
+        for (String cursor : new String[]{"abc", "123", ":5", "123:", "x:5", "5:y"}) {
+            mvc.perform(get("/api/cpe/packet-loss").param("cursor", cursor)).andExpect(status().isBadRequest());
+            mvc.perform(get("/api/cpe/CPE-1/packet-loss").param("cursor", cursor)).andExpect(status().isBadRequest());
+        }
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void fullPageCarriesCursorOfItsLastRow() throws Exception {
+        when(repository.findPage(eq("CPE-1"), anyLong(), anyLong(), eq(200L), eq(9L), eq(2)))
+                .thenReturn(List.of(new PacketLossEventDto(8, "CPE-1", 150), new PacketLossEventDto(7, "CPE-1", 120)));
+
+        mvc.perform(get("/api/cpe/CPE-1/packet-loss").param("cursor", "200:9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").value("120:7"));
+    }
+
+    @Test
+    void exportWithoutABoundedRangeReturnsBadRequest() throws Exception {
+        mvc.perform(get("/api/cpe/packet-loss/export")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/cpe/packet-loss/export").param("from", "0")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/cpe/packet-loss/export").param("to", "1000")).andExpect(status().isBadRequest());
+        mvc.perform(get("/api/cpe/packet-loss/export").param("from", "1000").param("to", "1000"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/cpe/packet-loss/export").param("from", "0").param("to", String.valueOf(DAY_MS + 1)))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/cpe/packet-loss/export")
+                        .param("from", String.valueOf(Long.MIN_VALUE)).param("to", String.valueOf(Long.MAX_VALUE)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportStreamsTheRangeWithTheRowCap() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<PacketLossEventDto> sink = invocation.getArgument(4);
+            sink.accept(new PacketLossEventDto(1, "CPE-1", 100));
+            sink.accept(new PacketLossEventDto(2, "CPE-2", 200));
+            return null;
+        }).when(repository).streamRange(isNull(), eq(0L), eq(DAY_MS), eq(10), any(Consumer.class));
+
+        MvcResult result = mvc.perform(get("/api/cpe/packet-loss/export").param("from", "0").param("to", String.valueOf(DAY_MS)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":1,\"deviceId\":\"CPE-1\",\"eventTimestamp\":100},"
+                        + "{\"id\":2,\"deviceId\":\"CPE-2\",\"eventTimestamp\":200}]", true));
+        verify(repository).streamRange(isNull(), eq(0L), eq(DAY_MS), anyInt(), any(Consumer.class));
+    }
+}
@@ -0,0 +1,50 @@
+package com.cpeplatform.persistence;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * 需要真实 MySQL (分区、EXPLAIN) 的测试基类。没有 Docker 的环境自动跳过。
+ * 同一个测试类共用一个容器，每个测试开始前清空库中的所有表。
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class MySqlContainerTest {
+
+    @Container
+    protected static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    protected DataSource dataSource;
+    protected JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void resetSchema() {
+        dataSource = new DriverManagerDataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        List<String> tables = jdbcTemplate.queryForList(
+                "SELECT TABLE_NAME FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE()", String.class);
+        for (String table : tables) {
+            jdbcTemplate.execute("DROP TABLE `" + table + "`");
+        }
+    }
+
+    /**
+     * 与 application.yml 中 spring.flyway 相同的配置；target 为 null 时迁移到最新版本。
+     */
+    protected Flyway flyway(String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:com/cpeplatform/persistence/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .target(target != null ? target : "latest")
+                .load();
+    }
+}
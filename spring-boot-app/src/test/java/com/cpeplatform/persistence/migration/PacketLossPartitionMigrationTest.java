@@ -0,0 +1,296 @@
+package com.cpeplatform.persistence.migration;
+
+import com.cpeplatform.persistence.MySqlContainerTest;
+import com.cpeplatform.persistence.repository.PacketLossPartitionRepository;
+import com.cpeplatform.persistence.repository.PacketLossPartitionRepository.PartitionInfo;
+import com.cpeplatform.persistence.repository.PacketLossPartitions;
+import com.cpeplatform.service.PacketLossRetentionService;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * packet_loss_events 分区化迁移 (V1 → V2 → V3 → V4 → V5) 与分区维护任务在真实 MySQL 上的行为。
+ */
+class PacketLossPartitionMigrationTest extends MySqlContainerTest {
+
+    private static final String LEGACY_TABLE = "packet_loss_events_legacy";
+    private static final long DAY_MS = 86_400_000L;
+
+    private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+    @Test
+    void partitionsLegacyTableAcrossV1ToV4() {
+        createHibernateTable(PacketLossPartitions.TABLE);
+        insertLegacyEvents(PacketLossPartitions.TABLE);
+
+        flyway("1").migrate();
+        assertThat(partitionNames()).isEmpty();
+
+        flyway("2").migrate();
+        List<String> expected = new ArrayList<>();
+        expected.add(PacketLossPartitions.HISTORY_PARTITION);
+        for (int i = 0; i < 7; i++) {
+            expected.add(PacketLossPartitions.nameOf(today.plusDays(i)));
+        }
+        expected.add(PacketLossPartitions.MAX_PARTITION);
+        assertThat(partitionNames()).containsExactlyElementsOf(expected);
+        assertThat(tableExists(LEGACY_TABLE)).isFalse();
+        // 原 id 保留，新行的 id 接在后面
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM packet_loss_events ORDER BY id", Long.class))
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(rowsIn(PacketLossPartitions.HISTORY_PARTITION)).isEqualTo(3);
+        assertThat(rowsIn(PacketLossPartitions.nameOf(today))).isEqualTo(2);
+        assertThat(rowsIn(PacketLossPartitions.MAX_PARTITION)).isEqualTo(1);
+        jdbcTemplate.update("INSERT INTO packet_loss_events (device_id, event_timestamp, has_packet_loss) VALUES (?, ?, ?)",
+                "CPE-NEW", millis(today), true);
+        assertThat(jdbcTemplate.queryForObject("SELECT MAX(id) FROM packet_loss_events", Long.class)).isEqualTo(7L);
+
+        flyway(null).migrate();
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT DISTINCT INDEX_NAME FROM information_schema.STATISTICS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'packet_loss_events'", String.class))
+                .containsExactlyInAnyOrder("PRIMARY", "uk_packet_loss_events_device_ts", "idx_packet_loss_events_ts_id");
+    }
+
+    @Test
+    void v4RemovesDuplicateEventsAndRejectsNewOnes() {
+        createHibernateTable(PacketLossPartitions.TABLE);
+        insertLegacyEvents(PacketLossPartitions.TABLE);
+        // 部分写入后重新投递留下的重复行
+        insertLegacyEvents(PacketLossPartitions.TABLE);
+
+        flyway(null).migrate();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM packet_loss_events ORDER BY id", Long.class))
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        assertThatThrownBy(() -> insertEvent("CPE-0", millis(today.minusDays(40))))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void createsPartitionedTableOnEmptyDatabase() {
+        flyway(null).migrate();
+
+        assertThat(partitionNames()).startsWith(PacketLossPartitions.HISTORY_PARTITION).endsWith(PacketLossPartitions.MAX_PARTITION);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM packet_loss_events", Long.class)).isZero();
+    }
+
+    @Test
+    void resumesAfterFailingBetweenRenameAndCreate() throws Exception {
+        flyway("1").migrate();
+        // 上一次执行只完成了改名
+        createHibernateTable(LEGACY_TABLE);
+        insertLegacyEvents(LEGACY_TABLE);
+
+        runV2();
+
+        assertThat(partitionNames()).contains(PacketLossPartitions.HISTORY_PARTITION, PacketLossPartitions.MAX_PARTITION);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM packet_loss_events", Long.class)).isEqualTo(6L);
+        assertThat(tableExists(LEGACY_TABLE)).isFalse();
+    }
+
+    @Test
+    void resumesAfterFailingBetweenCopyAndDrop() throws Exception {
+        createHibernateTable(PacketLossPartitions.TABLE);
+        insertLegacyEvents(PacketLossPartitions.TABLE);
+        flyway("2").migrate();
+        // 上一次执行已建表并复制了全部行，但没有删除旧表；旧表中另有一行尚未复制
+        createHibernateTable(LEGACY_TABLE);
+        insertLegacyEvents(LEGACY_TABLE);
+        jdbcTemplate.update("INSERT INTO " + LEGACY_TABLE + " (device_id, event_timestamp, has_packet_loss) VALUES (?, ?, ?)",
+                "CPE-LATE", millis(today) + 1_000, true);
+
+        runV2();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM packet_loss_events ORDER BY id", Long.class))
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L);
+        assertThat(tableExists(LEGACY_TABLE)).isFalse();
+    }
+
+    @Test
+    void refusesToGuessWhenBothUnpartitionedTablesExist() {
+        flyway("1").migrate();
+        createHibernateTable(PacketLossPartitions.TABLE);
+        createHibernateTable(LEGACY_TABLE);
+
+        assertThatThrownBy(this::runV2).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void maintenanceRollsUpAndDropsExpiredPartitionsAndPrecreatesUpcomingOnes() {
+        flyway(null).migrate();
+        // 把 p_history 拆成: 40 天前之前 / 第 40 天 / 39 天前到今天，模拟运行了一段时间的表
+        LocalDate day40 = today.minusDays(40);
+        jdbcTemplate.execute("ALTER TABLE packet_loss_events REORGANIZE PARTITION " + PacketLossPartitions.HISTORY_PARTITION
+                + " INTO (PARTITION " + PacketLossPartitions.HISTORY_PARTITION + " VALUES LESS THAN (" + millis(day40) + "), "
+                + PacketLossPartitions.dailyDefinition(day40) + ", "
+                + "PARTITION " + PacketLossPartitions.nameOf(today.minusDays(1)) + " VALUES LESS THAN (" + millis(today) + "))");
+        insertEvent("CPE-A", millis(today.minusDays(45)));
+        insertEvent("CPE-A", millis(today.minusDays(45)) + 1);
+        insertEvent("CPE-B", millis(today.minusDays(45)) + 2);
+        insertEvent("CPE-A", millis(day40));
+        insertEvent("CPE-A", millis(day40) + DAY_MS - 1);
+        insertEvent("CPE-A", millis(today.minusDays(1)));
+
+        PacketLossRetentionService retention = retention(30, 10);
+        retention.maintainPartitions();
+
+        List<String> names = partitionNames();
+        assertThat(names).doesNotContain(PacketLossPartitions.HISTORY_PARTITION, PacketLossPartitions.nameOf(day40));
+        assertThat(names).contains(PacketLossPartitions.nameOf(today.minusDays(1)), PacketLossPartitions.nameOf(today.plusDays(9)));
+        assertThat(names).last().isEqualTo(PacketLossPartitions.MAX_PARTITION);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM packet_loss_events", Long.class)).isEqualTo(1L);
+        assertThat(dailyCounts()).containsExactlyInAnyOrder(
+                List.of("CPE-A", today.minusDays(45).toString(), 2L),
+                List.of("CPE-B", today.minusDays(45).toString(), 1L),
+                List.of("CPE-A", day40.toString(), 2L));
+
+        // 再执行一次不会改变任何东西
+        retention.maintainPartitions();
+        assertThat(partitionNames()).isEqualTo(names);
+        assertThat(dailyCounts()).hasSize(3);
+    }
+
+    @Test
+    void lateEventsInTheOldestPartitionAddToDaysAlreadyRolledUp() {
+        flyway(null).migrate();
+        LocalDate day40 = today.minusDays(40);
+        LocalDate day45 = today.minusDays(45);
+        jdbcTemplate.execute("ALTER TABLE packet_loss_events REORGANIZE PARTITION " + PacketLossPartitions.HISTORY_PARTITION
+                + " INTO (PARTITION " + PacketLossPartitions.HISTORY_PARTITION + " VALUES LESS THAN (" + millis(day40) + "), "
+                + PacketLossPartitions.dailyDefinition(day40) + ", "
+                + "PARTITION " + PacketLossPartitions.nameOf(today.minusDays(1)) + " VALUES LESS THAN (" + millis(today) + "))");
+        insertEvent("CPE-A", millis(day45));
+        insertEvent("CPE-A", millis(day45) + 1);
+        insertEvent("CPE-A", millis(day40));
+
+        // 先只删除 p_history
+        retention(40, 10).maintainPartitions();
+        assertThat(partitionNames()).doesNotContain(PacketLossPartitions.HISTORY_PARTITION).contains(PacketLossPartitions.nameOf(day40));
+        assertThat(dailyCounts()).containsExactly(List.of("CPE-A", day45.toString(), 2L));
+
+        // 第 45 天的迟到事件落入剩余最早的分区 (第 40 天)
+        insertEvent("CPE-A", millis(day45) + 2);
+        assertThat(rowsIn(PacketLossPartitions.nameOf(day40))).isEqualTo(2);
+
+        PacketLossRetentionService retention = retention(30, 10);
+        retention.maintainPartitions();
+        retention.maintainPartitions();
+
+        assertThat(partitionNames()).doesNotContain(PacketLossPartitions.nameOf(day40));
+        assertThat(dailyCounts()).containsExactlyInAnyOrder(
+                List.of("CPE-A", day45.toString(), 3L),
+                List.of("CPE-A", day40.toString(), 1L));
+    }
+
+    @Test
+    void partitionRolledUpBeforeAFailedDropIsNotCountedAgain() {
+        flyway(null).migrate();
+        LocalDate day40 = today.minusDays(40);
+        jdbcTemplate.execute("ALTER TABLE packet_loss_events REORGANIZE PARTITION " + PacketLossPartitions.HISTORY_PARTITION
+                + " INTO (PARTITION " + PacketLossPartitions.HISTORY_PARTITION + " VALUES LESS THAN (" + millis(day40.plusDays(1)) + "), "
+                + "PARTITION " + PacketLossPartitions.nameOf(today.minusDays(1)) + " VALUES LESS THAN (" + millis(today) + "))");
+        insertEvent("CPE-A", millis(day40));
+        insertEvent("CPE-A", millis(day40) + 1);
+        PacketLossPartitionRepository repository = new PacketLossPartitionRepository(jdbcTemplate);
+        PartitionInfo history = repository.listPartitions().get(0);
+
+        // 上一次维护已提交汇总，但删除分区前失败
+        Integer rolledUp = transactionTemplate().execute(status -> repository.rollUpPartition(history));
+        assertThat(rolledUp).isEqualTo(1);
+
+        retention(30, 10).maintainPartitions();
+
+        assertThat(partitionNames()).doesNotContain(PacketLossPartitions.HISTORY_PARTITION);
+        assertThat(dailyCounts()).containsExactly(List.of("CPE-A", day40.toString(), 2L));
+    }
+
+    private PacketLossRetentionService retention(int retentionDays, int precreateDays) {
+        return new PacketLossRetentionService(new PacketLossPartitionRepository(jdbcTemplate), transactionTemplate(),
+                retentionDays, precreateDays);
+    }
+
+    private TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    private void runV2() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            new V2__Partition_packet_loss_events().migrate(new Context() {
+                @Override
+                public Configuration getConfiguration() {
+                    return flyway(null).getConfiguration();
+                }
+
+                @Override
+                public Connection getConnection() {
+                    return connection;
+                }
+            });
+        }
+    }
+
+    /**
+     * 与原来 Hibernate ddl-auto 为 PacketLossEvent 生成的表结构相同 (未分区，主键只有 id)。
+     */
+    private void createHibernateTable(String table) {
+        jdbcTemplate.execute("CREATE TABLE " + table + " (id BIGINT NOT NULL AUTO_INCREMENT, "
+                + "device_id VARCHAR(255) NOT NULL, event_timestamp BIGINT NOT NULL, has_packet_loss BIT(1) NOT NULL, "
+                + "PRIMARY KEY (id)) ENGINE = InnoDB");
+    }
+
+    // 3 行历史数据、2 行今天、1 行超出预建范围 (落入兜底分区)
+    private void insertLegacyEvents(String table) {
+        long[] timestamps = {millis(today.minusDays(40)), millis(today.minusDays(3)), millis(today) - 1,
+                millis(today), millis(today) + 1, millis(today.plusDays(30))};
+        for (int i = 0; i < timestamps.length; i++) {
+            jdbcTemplate.update("INSERT INTO " + table + " (device_id, event_timestamp, has_packet_loss) VALUES (?, ?, ?)",
+                    "CPE-" + i, timestamps[i], true);
+        }
+    }
+
+    private void insertEvent(String deviceId, long timestamp) {
+        jdbcTemplate.update("INSERT INTO packet_loss_events (device_id, event_timestamp, has_packet_loss) VALUES (?, ?, ?)",
+                deviceId, timestamp, true);
+    }
+
+    private List<String> partitionNames() {
+        return new PacketLossPartitionRepository(jdbcTemplate).listPartitions().stream().map(PartitionInfo::name).toList();
+    }
+
+    private long rowsIn(String partition) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM packet_loss_events PARTITION (" + partition + ")", Long.class);
+    }
+
+    private boolean tableExists(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.TABLES "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?", Long.class, table) > 0;
+    }
+
+    private List<List<Object>> dailyCounts() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(
+                "SELECT device_id, event_day, event_count FROM packet_loss_daily_counts")) {
+            rows.add(List.of(row.get("device_id"), row.get("event_day").toString(), ((Number) row.get("event_count")).longValue()));
+        }
+        return rows;
+    }
+
+    private static long millis(LocalDate day) {
+        return PacketLossPartitions.startOfDayMillis(day);
+    }
+}
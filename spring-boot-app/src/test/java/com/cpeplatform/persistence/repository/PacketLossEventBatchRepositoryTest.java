@@ -0,0 +1,51 @@
+package com.cpeplatform.persistence.repository;
+
+import com.cpeplatform.persistence.MySqlContainerTest;
+import com.cpeplatform.persistence.entity.PacketLossEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 丢包事件的多行写入在真实 MySQL 上是幂等的：重新投递的事件不产生重复行。
+ */
+class PacketLossEventBatchRepositoryTest extends MySqlContainerTest {
+
+    private static final long NOW = System.currentTimeMillis();
+
+    private PacketLossEventBatchRepository repository;
+
+    @BeforeEach
+    void migrate() {
+        flyway(null).migrate();
+        // 每条语句 2 行，覆盖整块与尾块两种 SQL
+        repository = new PacketLossEventBatchRepository(jdbcTemplate, 2);
+    }
+
+    @Test
+    void redeliveredEventsAreSkipped() {
+        repository.insertAll(List.of(event("CPE-A", NOW), event("CPE-A", NOW + 1), event("CPE-B", NOW)));
+
+        // 同一批被部分写入后整批重新投递，另带一条新事件
+        repository.insertAll(List.of(event("CPE-A", NOW), event("CPE-A", NOW + 1), event("CPE-B", NOW),
+                event("CPE-B", NOW + 1)));
+
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT CONCAT(device_id, '@', event_timestamp - ?) FROM packet_loss_events ORDER BY id", String.class, NOW))
+                .containsExactly("CPE-A@0", "CPE-A@1", "CPE-B@0", "CPE-B@1");
+    }
+
+    @Test
+    void duplicatesWithinOneBatchCollapse() {
+        repository.insertAll(List.of(event("CPE-A", NOW), event("CPE-A", NOW), event("CPE-A", NOW)));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM packet_loss_events", Long.class)).isEqualTo(1L);
+    }
+
+    private static PacketLossEvent event(String deviceId, long timestamp) {
+        return PacketLossEvent.builder().deviceId(deviceId).eventTimestamp(timestamp).hasPacketLoss(true).build();
+    }
+}
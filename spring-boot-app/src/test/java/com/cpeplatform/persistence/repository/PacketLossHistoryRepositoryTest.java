@@ -0,0 +1,139 @@
+package com.cpeplatform.persistence.repository;
+
+import com.cpeplatform.dto.PacketLossEventDto;
+import com.cpeplatform.dto.PacketLossPageDto;
+import com.cpeplatform.persistence.MySqlContainerTest;
+import com.cpeplatform.service.PacketLossHistoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 丢包历史在真实 MySQL (分区表) 上的 keyset 分页、流式导出与执行计划。
+ */
+class PacketLossHistoryRepositoryTest extends MySqlContainerTest {
+
+    private static final long DAY_MS = 86_400_000L;
+    private static final int DEVICES = 20;
+    private static final int EVENTS = 4_000;
+    private static final int PAGE_SIZE = 7;
+    private static final String DEVICE = "CPE-000003";
+
+    // 记录仓库发出的最后一条分页 SQL 及其参数，用于对同一语句做 EXPLAIN
+    private String lastSql;
+    private Object[] lastArgs;
+    private PacketLossHistoryRepository repository;
+    private PacketLossHistoryService service;
+    private long start;
+
+    @BeforeEach
+    void createEvents() {
+        flyway(null).migrate();
+        // 跨越历史分区、若干日分区与兜底分区；每 4 条共用一个时间戳，覆盖按 id 决定先后的情况
+        start = System.currentTimeMillis() - 3 * DAY_MS;
+        long step = 10 * DAY_MS / EVENTS;
+        List<Object[]> rows = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            rows.add(new Object[]{String.format("CPE-%06d", i % DEVICES), start + (i / 4) * step * 4, true});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO packet_loss_events (device_id, event_timestamp, has_packet_loss) VALUES (?, ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE TABLE packet_loss_events");
+
+        JdbcTemplate recording = new JdbcTemplate(dataSource) {
+            @Override
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) throws DataAccessException {
+                lastSql = sql;
+                lastArgs = args;
+                return super.query(sql, rowMapper, args);
+            }
+        };
+        repository = new PacketLossHistoryRepository(recording, dataSource);
+        service = new PacketLossHistoryService(repository, new ObjectMapper(), PAGE_SIZE, PAGE_SIZE, DAY_MS, EVENTS);
+    }
+
+    @Test
+    void devicePagesCoverTheRangeWithoutGapsOrDuplicates() {
+        long from = start + DAY_MS;
+        long to = start + 6 * DAY_MS;
+
+        assertThat(pageThrough(DEVICE, from, to)).containsExactlyElementsOf(jdbcTemplate.queryForList(
+                "SELECT id FROM packet_loss_events WHERE device_id = ? AND event_timestamp >= ? AND event_timestamp < ? "
+                        + "ORDER BY event_timestamp DESC, id DESC", Long.class, DEVICE, from, to));
+    }
+
+    @Test
+    void fleetPagesCoverAllRowsWithoutGapsOrDuplicates() {
+        assertThat(pageThrough(null, null, null)).containsExactlyElementsOf(jdbcTemplate.queryForList(
+                "SELECT id FROM packet_loss_events ORDER BY event_timestamp DESC, id DESC", Long.class));
+    }
+
+    @Test
+    void pageQueriesSeekThroughTheirIndexes() {
+        PacketLossPageDto page = service.findPage(DEVICE, null, null, null, null);
+        service.findPage(DEVICE, null, null, page.getNextCursor(), null);
+        assertUsesIndexRange("uk_packet_loss_events_device_ts");
+
+        page = service.findPage(null, null, null, null, null);
+        service.findPage(null, null, null, page.getNextCursor(), null);
+        assertUsesIndexRange("idx_packet_loss_events_ts_id");
+    }
+
+    @Test
+    void exportStreamsTheRangeInAscendingOrderUpToTheRowCap() throws Exception {
+        long from = start + DAY_MS;
+        long to = start + 2 * DAY_MS;
+        List<Long> expected = jdbcTemplate.queryForList(
+                "SELECT id FROM packet_loss_events WHERE event_timestamp >= ? AND event_timestamp < ? "
+                        + "ORDER BY event_timestamp, id", Long.class, from, to);
+        assertThat(expected).hasSizeGreaterThan(10);
+
+        assertThat(export(service, from, to)).containsExactlyElementsOf(expected);
+
+        PacketLossHistoryService capped = new PacketLossHistoryService(repository, new ObjectMapper(),
+                PAGE_SIZE, PAGE_SIZE, DAY_MS, 10);
+        assertThat(export(capped, from, to)).containsExactlyElementsOf(expected.subList(0, 10));
+    }
+
+    private List<Long> pageThrough(String deviceId, Long from, Long to) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            PacketLossPageDto page = service.findPage(deviceId, from, to, cursor, null);
+            assertThat(page.getEvents()).hasSizeLessThanOrEqualTo(PAGE_SIZE);
+            page.getEvents().forEach(event -> ids.add(event.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private void assertUsesIndexRange(String index) {
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + lastSql, lastArgs);
+        assertThat(plan).hasSize(1);
+        Map<String, Object> row = plan.get(0);
+        assertThat(row.get("key")).as("EXPLAIN %s", row).isEqualTo(index);
+        assertThat(row.get("type")).as("EXPLAIN %s", row).isEqualTo("range");
+        assertThat(String.valueOf(row.get("Extra"))).as("EXPLAIN %s", row).doesNotContain("Using filesort");
+    }
+
+    private static List<Long> export(PacketLossHistoryService service, long from, long to) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(null, from, to, out);
+        PacketLossEventDto[] events = new ObjectMapper().readValue(out.toByteArray(), PacketLossEventDto[].class);
+        List<Long> ids = new ArrayList<>(events.length);
+        for (PacketLossEventDto event : events) {
+            ids.add(event.getId());
+        }
+        return ids;
+    }
+}
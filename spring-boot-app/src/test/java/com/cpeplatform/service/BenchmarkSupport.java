@@ -0,0 +1,43 @@
+package com.cpeplatform.service;
+
+import java.util.Arrays;
+
+/**
+ * 基准测试 (*Benchmark) 共用的分位数计算与结果输出。
+ * 基准测试不属于常规测试 (类名不匹配 surefire 的默认规则)，需要用 -Dtest=&lt;类名&gt; 显式运行，
+ * 结果以表格形式输出到标准输出，每个基准一行表头、每条写入路径一行数据。
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 最近秩法的分位数，单位与输入相同 (纳秒)。
+     */
+    static long percentile(long[] nanos, double quantile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)];
+    }
+
+    static double micros(long[] nanos, double quantile) {
+        return percentile(nanos, quantile) / 1e3;
+    }
+
+    static double millis(long[] nanos, double quantile) {
+        return percentile(nanos, quantile) / 1e6;
+    }
+
+    /**
+     * 输出表头，前面空一行，与测试日志分开。
+     */
+    static void printHeader(String format, Object... columns) {
+        System.out.printf("%n" + format + "%n", columns);
+    }
+
+    static void printRow(String format, Object... values) {
+        System.out.printf(format + "%n", values);
+    }
+}
@@ -0,0 +1,155 @@
+package com.cpeplatform.service;
+
+import com.cpeplatform.dto.CpeStatusDataDto;
+import com.cpeplatform.persistence.MySqlContainerTest;
+import com.cpeplatform.persistence.entity.DeviceStatus;
+import com.cpeplatform.persistence.repository.DeviceStatusBatchRepository;
+import com.cpeplatform.persistence.repository.DeviceStatusRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.cpeplatform.service.BenchmarkSupport.millis;
+import static com.cpeplatform.service.BenchmarkSupport.printHeader;
+import static com.cpeplatform.service.BenchmarkSupport.printRow;
+
+/**
+ * 设备状态持久化的两种写入路径对比 (Testcontainers MySQL)：逐条调用 JPA 的
+ * {@link DeviceStatusRepository#upsertStatus} (每行一个事务，改动前的做法) 与
+ * {@link DeviceStatusService#updateDeviceStatuses} (批内去重后多行 UPSERT，一批一个事务)。
+ * 运行方式 (见 {@link BenchmarkSupport}):
+ * <pre>
+ * mvn -pl spring-boot-app test -Dtest=DeviceStatusServiceBenchmark -Dbenchmark.rows=100000 -Dbenchmark.devices=10000
+ * </pre>
+ * 两条路径使用与应用相同的 Hikari 连接池和事务管理器，处理同一条状态流 (按 max-poll-records 默认值每 500 条一批)，
+ * 输出每秒处理的状态数 (rows/s) 与每批耗时的 p50/p99，并校验两者最终写入的表内容一致。
+ */
+class DeviceStatusServiceBenchmark extends MySqlContainerTest {
+
+    private static final int POLL_SIZE = 500;
+    private static final String[] STATES = {"ONLINE", "OFFLINE", "DEGRADED"};
+
+    private final int rows = Integer.getInteger("benchmark.rows", 100_000);
+    private final int devices = Integer.getInteger("benchmark.devices", 10_000);
+
+    @Test
+    void comparePerRowJpaWithBatchedUpsert() {
+        flyway(null).migrate();
+        List<List<CpeStatusDataDto>> polls = polls();
+
+        try (HikariDataSource pool = new HikariDataSource();
+             AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            pool.setJdbcUrl(MYSQL.getJdbcUrl());
+            pool.setUsername(MYSQL.getUsername());
+            pool.setPassword(MYSQL.getPassword());
+            context.registerBean(DataSource.class, () -> pool);
+            context.register(PersistenceConfig.class);
+            context.refresh();
+
+            DeviceStatusRepository repository = context.getBean(DeviceStatusRepository.class);
+            DeviceStatusService service = context.getBean(DeviceStatusService.class);
+
+            printHeader("%-10s %10s %12s %12s", "path", "rows/s", "poll p50", "poll p99");
+
+            long[] perRow = new long[polls.size()];
+            long start = System.nanoTime();
+            for (int i = 0; i < polls.size(); i++) {
+                long pollStart = System.nanoTime();
+                for (CpeStatusDataDto status : polls.get(i)) {
+                    repository.upsertStatus(status.getDeviceId(), status.getStatus(), status.getTimestamp());
+                }
+                perRow[i] = System.nanoTime() - pollStart;
+            }
+            print("per-row", start, perRow);
+            List<Map<String, Object>> perRowTable = table();
+
+            jdbcTemplate.execute("TRUNCATE TABLE device_statuses");
+
+            long[] batched = new long[polls.size()];
+            start = System.nanoTime();
+            for (int i = 0; i < polls.size(); i++) {
+                long pollStart = System.nanoTime();
+                service.updateDeviceStatuses(polls.get(i));
+                batched[i] = System.nanoTime() - pollStart;
+            }
+            print("batched", start, batched);
+
+            if (!table().equals(perRowTable)) {
+                throw new IllegalStateException("批量写入与逐条写入后的 device_statuses 内容不一致");
+            }
+        }
+    }
+
+    private List<List<CpeStatusDataDto>> polls() {
+        Random random = new Random(42);
+        List<List<CpeStatusDataDto>> polls = new ArrayList<>();
+        for (int from = 0; from < rows; from += POLL_SIZE) {
+            List<CpeStatusDataDto> poll = new ArrayList<>(POLL_SIZE);
+            for (int i = from; i < Math.min(rows, from + POLL_SIZE); i++) {
+                String deviceId = String.format("CPE-%06d", random.nextInt(devices));
+                poll.add(new CpeStatusDataDto(deviceId, STATES[random.nextInt(STATES.length)], i));
+            }
+            polls.add(poll);
+        }
+        return polls;
+    }
+
+    private List<Map<String, Object>> table() {
+        return jdbcTemplate.queryForList(
+                "SELECT device_id, status, last_updated FROM device_statuses ORDER BY device_id");
+    }
+
+    private void print(String path, long start, long[] pollNanos) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        printRow("%-10s %10.0f %10.2fms %10.2fms", path, rows / seconds,
+                millis(pollNanos, 0.50), millis(pollNanos, 0.99));
+    }
+
+    /**
+     * 只包含设备状态相关 Bean 的最小 JPA 配置 (应用中由 Spring Boot 自动配置)。
+     */
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = DeviceStatusRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = DeviceStatusRepository.class))
+    @Import({DeviceStatusBatchRepository.class, DeviceStatusService.class})
+    static class PersistenceConfig {
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setPackagesToScan(DeviceStatus.class.getPackageName());
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            return factory;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.cpeplatform.service;
+
+import com.cpeplatform.persistence.entity.PacketLossEvent;
+import com.cpeplatform.persistence.repository.PacketLossEventBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link PacketLossEventWriter} 的组提交、重试与背压行为 (仓库以内存桩代替数据库)。
+ */
+class PacketLossEventWriterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> groupSizes = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger rowsWritten = new AtomicInteger();
+    private PacketLossEventWriter writer;
+
+    @AfterEach
+    void stopWriter() throws InterruptedException {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void groupsEventsUpToMaxBatchSizeAndCompletesEveryFuture() {
+        writer = start(1000, 200, 50, 3, events -> { });
+
+        List<CompletableFuture<Void>> futures = submit(1000);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+        assertThat(rowsWritten).hasValue(1000);
+        assertThat(groupSizes).allSatisfy(size -> assertThat(size).isBetween(1, 200));
+        assertThat(groupSizes.size()).isLessThan(1000);
+        assertThat(meterRegistry.counter(PacketLossEventWriter.METRIC_PREFIX + ".events.written").count()).isEqualTo(1000);
+    }
+
+    @Test
+    void flushesPartialGroupAfterLinger() throws Exception {
+        writer = start(100, 500, 20, 3, events -> { });
+
+        List<CompletableFuture<Void>> futures = submit(3);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        assertThat(groupSizes).containsExactly(3);
+        assertThat(meterRegistry.timer(PacketLossEventWriter.METRIC_PREFIX + ".commit.latency").count()).isEqualTo(1);
+    }
+
+    @Test
+    void retriesFailedGroupWithoutDroppingEvents() {
+        AtomicInteger calls = new AtomicInteger();
+        writer = start(100, 500, 10, 3, events -> {
+            if (calls.incrementAndGet() <= 2) {
+                throw new IllegalStateException("模拟数据库故障");
+            }
+        });
+
+        List<CompletableFuture<Void>> futures = submit(5);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+        assertThat(rowsWritten).hasValue(5);
+        assertThat(meterRegistry.counter(PacketLossEventWriter.METRIC_PREFIX + ".flush.retries").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter(PacketLossEventWriter.METRIC_PREFIX + ".events.failed").count()).isZero();
+    }
+
+    @Test
+    void failsFuturesWhenRetriesAreExhausted() {
+        writer = start(100, 500, 10, 2, events -> {
+            throw new IllegalStateException("模拟数据库故障");
+        });
+
+        List<CompletableFuture<Void>> futures = submit(4);
+
+        assertThatThrownBy(() -> CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join())
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("模拟数据库故障");
+        assertThat(futures).allSatisfy(future -> assertThat(future).isCompletedExceptionally());
+        assertThat(rowsWritten).hasValue(0);
+        assertThat(meterRegistry.counter(PacketLossEventWriter.METRIC_PREFIX + ".events.failed").count()).isEqualTo(4);
+    }
+
+    @Test
+    void blocksSubmitWhileTheQueueIsFull() throws Exception {
+        CountDownLatch inserting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writer = start(2, 1, 0, 1, events -> {
+            inserting.countDown();
+            await(release);
+        });
+
+        // 第一条被写入线程取走并阻塞在 insert 上之后再提交两条，队列已满
+        List<CompletableFuture<Void>> futures = new ArrayList<>(submit(1));
+        assertThat(inserting.await(5, TimeUnit.SECONDS)).isTrue();
+        futures.addAll(submit(2));
+        CompletableFuture<List<CompletableFuture<Void>>> blocked = CompletableFuture.supplyAsync(() -> submit(1));
+        try {
+            assertThat(meterRegistry.get(PacketLossEventWriter.METRIC_PREFIX + ".queue.depth").gauge().value()).isEqualTo(2);
+            // 调用方 (监听线程) 停在 submit 上，不会继续 poll
+            assertThatThrownBy(() -> blocked.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        } finally {
+            release.countDown();
+        }
+        futures.addAll(blocked.get(5, TimeUnit.SECONDS));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        assertThat(rowsWritten).hasValue(4);
+    }
+
+    private PacketLossEventWriter start(int capacity, int maxBatchSize, long lingerMs, int maxAttempts,
+                                        Consumer<List<PacketLossEvent>> onInsert) {
+        PacketLossEventBatchRepository repository = new PacketLossEventBatchRepository(null, 500) {
+            @Override
+            public int insertAll(List<PacketLossEvent> events) {
+                onInsert.accept(events);
+                groupSizes.add(events.size());
+                rowsWritten.addAndGet(events.size());
+                return events.size();
+            }
+        };
+        PacketLossEventWriter started = new PacketLossEventWriter(repository,
+                new TransactionTemplate(new NoOpTransactionManager()), meterRegistry,
+                capacity, maxBatchSize, lingerMs, maxAttempts, 1);
+        started.start();
+        return started;
+    }
+
+    private List<CompletableFuture<Void>> submit(int count) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(writer.submit(PacketLossEvent.builder()
+                    .deviceId("cpe-" + i)
+                    .eventTimestamp(i)
+                    .hasPacketLoss(true)
+                    .build()));
+        }
+        return futures;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
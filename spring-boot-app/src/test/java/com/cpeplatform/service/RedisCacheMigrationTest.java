@@ -0,0 +1,87 @@
+package com.cpeplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link RedisCacheMigration} 必须在 Kafka 监听容器开始消费之前完成，失败时阻止应用启动。
+ */
+class RedisCacheMigrationTest {
+
+    private final List<String> events = new CopyOnWriteArrayList<>();
+    private final CpeCacheService cacheService = mock(CpeCacheService.class);
+    private final CpeStatusCacheService statusCacheService = mock(CpeStatusCacheService.class);
+
+    @Test
+    void migratesBeforeKafkaListenerContainersStart() {
+        doAnswer(invocation -> {
+            events.add("migrate packet-loss");
+            return 10L;
+        }).when(cacheService).migrateLegacyKey();
+        doAnswer(invocation -> {
+            events.add("migrate statuses");
+            return 20L;
+        }).when(statusCacheService).migrateLegacyKey();
+
+        try (GenericApplicationContext context = context()) {
+            context.refresh();
+            assertThat(context.getBean(RedisCacheMigration.class).isRunning()).isTrue();
+        }
+
+        assertThat(events).containsExactly("migrate packet-loss", "migrate statuses", "listeners started");
+    }
+
+    @Test
+    void failedMigrationAbortsStartupBeforeListenersStart() {
+        when(cacheService.migrateLegacyKey()).thenThrow(new IllegalStateException("redis down"));
+
+        try (GenericApplicationContext context = context()) {
+            assertThatThrownBy(context::refresh).hasRootCauseMessage("redis down");
+        }
+
+        assertThat(events).doesNotContain("listeners started");
+    }
+
+    private GenericApplicationContext context() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(RedisCacheMigration.class, () -> new RedisCacheMigration(cacheService, statusCacheService));
+        // 与 KafkaListenerEndpointRegistry 处于同一生命周期阶段的替身
+        int listenerPhase = new KafkaListenerEndpointRegistry().getPhase();
+        context.registerBean("kafkaListeners", SmartLifecycle.class, () -> new SmartLifecycle() {
+            private volatile boolean running;
+
+            @Override
+            public void start() {
+                events.add("listeners started");
+                running = true;
+            }
+
+            @Override
+            public void stop() {
+                running = false;
+            }
+
+            @Override
+            public boolean isRunning() {
+                return running;
+            }
+
+            @Override
+            public int getPhase() {
+                return listenerPhase;
+            }
+        });
+        return context;
+    }
+}
@@ -0,0 +1,44 @@
+package com.cpeplatform.service;
+
+import com.cpeplatform.config.RedisConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * 需要真实 Redis 的测试基类。没有 Docker 的环境自动跳过。
+ * 同一个测试类共用一个容器，每个测试开始前清空数据；RedisTemplate 与应用中的配置相同 (见 {@link RedisConfig})。
+ */
+@Testcontainers(disabledWithoutDocker = true)
+abstract class RedisContainerTest {
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    LettuceConnectionFactory connectionFactory;
+    RedisTemplate<String, Object> redisTemplate;
+
+    @BeforeEach
+    void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+    }
+
+    @AfterEach
+    void disconnect() {
+        connectionFactory.destroy();
+    }
+}
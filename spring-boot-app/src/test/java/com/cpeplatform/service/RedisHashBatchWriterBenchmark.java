@@ -0,0 +1,132 @@
+package com.cpeplatform.service;
+
+import com.cpeplatform.dto.PredictionResultDto;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.cpeplatform.service.BenchmarkSupport.micros;
+import static com.cpeplatform.service.BenchmarkSupport.printHeader;
+import static com.cpeplatform.service.BenchmarkSupport.printRow;
+
+/**
+ * 丢包缓存维护的两种写入路径对比 (Testcontainers Redis)：逐条同步 HSET / HDEL (改动前的做法)
+ * 与 {@link RedisHashBatchWriter} 合并后的 pipeline 批量写入。
+ * 运行方式 (见 {@link BenchmarkSupport}):
+ * <pre>
+ * mvn -pl spring-boot-app test -Dtest=RedisHashBatchWriterBenchmark -Dbenchmark.events=500000 -Dbenchmark.devices=100000
+ * </pre>
+ * 事件流与 PacketLossCacheConsumer 相同：约 30% 为丢包 (put)，其余为恢复 (delete)，设备随机。
+ * 单线程调用 (与监听容器的单个消费线程一致)，对每条路径输出:
+ * 端到端吞吐量 (批量路径包含最后一次写出)，调用方每条事件的 p50/p99/max 耗时 (即监听线程被占用的时间)；
+ * 批量路径另外输出每次 pipeline 的 p99 与平均批大小，写入对读方可见的延迟上限约为 flush 间隔 + pipeline p99。
+ */
+class RedisHashBatchWriterBenchmark extends RedisContainerTest {
+
+    private static final String BASE_KEY = "bench:latest_packetloss_events";
+    private static final int BUCKETS = 64;
+    private static final long FLUSH_INTERVAL_MS = 20;
+    private static final int MAX_PENDING_FIELDS = 2_000;
+
+    private final int events = Integer.getInteger("benchmark.events", 500_000);
+    private final int devices = Integer.getInteger("benchmark.devices", 100_000);
+
+    @Test
+    void comparePerCallWithBatchedWrites() throws InterruptedException {
+        ShardedRedisHash hash = new ShardedRedisHash(redisTemplate, BASE_KEY, BUCKETS, Runnable::run);
+
+        printHeader("%-10s %12s %10s %10s %10s %12s %10s", "path", "ops/s",
+                "call p50", "call p99", "call max", "flush p99", "avg batch");
+
+        long[] perCall = new long[events];
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            String deviceId = deviceId(random.nextInt(devices));
+            boolean packetLoss = random.nextInt(10) < 3;
+            long callStart = System.nanoTime();
+            if (packetLoss) {
+                redisTemplate.opsForHash().put(hash.keyFor(deviceId), deviceId, value(deviceId, i));
+            } else {
+                redisTemplate.opsForHash().delete(hash.keyFor(deviceId), deviceId);
+            }
+            perCall[i] = System.nanoTime() - callStart;
+        }
+        double perCallSeconds = (System.nanoTime() - start) / 1e9;
+        printRow("%-10s %12.0f %8.1fus %8.1fus %8.1fus %12s %10s", "per-call", events / perCallSeconds,
+                micros(perCall, 0.50), micros(perCall, 0.99), micros(perCall, 1.0), "-", "-");
+        long perCallFields = fieldCount(hash);
+
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder().percentiles(0.99).build().merge(config);
+            }
+        });
+        RedisHashBatchWriter writer = new RedisHashBatchWriter(redisTemplate, meterRegistry,
+                FLUSH_INTERVAL_MS, MAX_PENDING_FIELDS, 5, 200);
+        long[] batched = new long[events];
+        random = new Random(42);
+        start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            String deviceId = deviceId(random.nextInt(devices));
+            boolean packetLoss = random.nextInt(10) < 3;
+            long callStart = System.nanoTime();
+            if (packetLoss) {
+                writer.put(hash.keyFor(deviceId), deviceId, value(deviceId, i));
+            } else {
+                writer.delete(hash.keyFor(deviceId), deviceId);
+            }
+            batched[i] = System.nanoTime() - callStart;
+        }
+        writer.shutdown();
+        double batchedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Timer flush = meterRegistry.get(RedisHashBatchWriter.METRIC_PREFIX + ".flush").timer();
+        double flushP99Ms = Arrays.stream(flush.takeSnapshot().percentileValues())
+                .mapToDouble(p -> p.value(TimeUnit.MILLISECONDS))
+                .max().orElse(Double.NaN);
+        double avgBatch = meterRegistry.get(RedisHashBatchWriter.METRIC_PREFIX + ".batch.size").summary().mean();
+        printRow("%-10s %12.0f %8.1fus %8.1fus %8.1fus %10.2fms %10.0f", "batched", events / batchedSeconds,
+                micros(batched, 0.50), micros(batched, 0.99), micros(batched, 1.0), flushP99Ms, avgBatch);
+        printRow("coalesced: %.0f, failed: %.0f, visibility <= %d ms + flush p99",
+                meterRegistry.get(RedisHashBatchWriter.METRIC_PREFIX + ".coalesced").counter().count(),
+                meterRegistry.get(RedisHashBatchWriter.METRIC_PREFIX + ".failed").counter().count(),
+                FLUSH_INTERVAL_MS);
+
+        // 两条路径处理同一事件流，最终缓存内容必须一致
+        long batchedFields = fieldCount(hash);
+        if (batchedFields != perCallFields) {
+            throw new IllegalStateException("批量写入后有 " + batchedFields + " 个字段，逐条写入后有 " + perCallFields + " 个");
+        }
+    }
+
+    private long fieldCount(ShardedRedisHash hash) {
+        long total = 0;
+        for (String key : hash.bucketKeys()) {
+            total += redisTemplate.opsForHash().size(key);
+        }
+        return total;
+    }
+
+    private static String deviceId(int index) {
+        return String.format("CPE-%07d", index);
+    }
+
+    private static PredictionResultDto value(String deviceId, long timestamp) {
+        return new PredictionResultDto(deviceId, timestamp, true);
+    }
+}
@@ -0,0 +1,206 @@
+package com.cpeplatform.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link RedisHashBatchWriter} 的合并语义：同一字段只写最后一次更新，delete 覆盖窗口内未写出的 put；
+ * 写入失败的字段放回待写表，重试用尽后才计入 failed。
+ * 定时窗口设为 1 分钟，由 shutdown() 写出最后一个窗口，使每个测试只有一次确定的 pipeline。
+ */
+class RedisHashBatchWriterTest {
+
+    private static final long NO_TIMED_FLUSH_MS = 60_000;
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private HashOperations<String, Object, Object> hashOperations;
+    private SimpleMeterRegistry meterRegistry;
+    private Answer<Object> pipeline;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        hashOperations = mock(HashOperations.class);
+        RedisOperations<String, Object> operations = mock(RedisOperations.class);
+        doReturn(hashOperations).when(operations).opsForHash();
+        pipeline = invocation -> {
+            SessionCallback<Object> callback = invocation.getArgument(0);
+            callback.execute(operations);
+            return List.of();
+        };
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(pipeline);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void repeatedPutsToTheSameFieldAreCoalescedToTheLastValue() throws InterruptedException {
+        RedisHashBatchWriter writer = writer(1_000);
+
+        writer.put("k", "a", "a1");
+        writer.put("k", "a", "a2");
+        writer.put("k", "b", "b1");
+        writer.put("k", "a", "a3");
+        writer.shutdown();
+
+        verify(hashOperations).putAll("k", Map.of("a", "a3", "b", "b1"));
+        verify(hashOperations, never()).delete(anyString(), any(Object[].class));
+        assertThat(counter("coalesced")).isEqualTo(2);
+        assertThat(meterRegistry.get(RedisHashBatchWriter.METRIC_PREFIX + ".batch.size").summary().totalAmount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void deleteOverridesAPendingPut() throws InterruptedException {
+        RedisHashBatchWriter writer = writer(1_000);
+
+        writer.put("k", "a", "a1");
+        writer.delete("k", "a");
+        writer.put("k", "b", "b1");
+        writer.shutdown();
+
+        verify(hashOperations).putAll("k", Map.of("b", "b1"));
+        verify(hashOperations).delete("k", "a");
+    }
+
+    @Test
+    void putAfterDeleteInTheSameWindowWins() throws InterruptedException {
+        RedisHashBatchWriter writer = writer(1_000);
+
+        writer.delete("k", "a");
+        writer.put("k", "a", "a2");
+        writer.shutdown();
+
+        verify(hashOperations).putAll("k", Map.of("a", "a2"));
+        verify(hashOperations, never()).delete(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void fieldsOfDifferentKeysAreNotCoalesced() throws InterruptedException {
+        RedisHashBatchWriter writer = writer(1_000);
+
+        writer.put("k1", "a", "v1");
+        writer.put("k2", "a", "v2");
+        writer.shutdown();
+
+        verify(hashOperations).putAll("k1", Map.of("a", "v1"));
+        verify(hashOperations).putAll("k2", Map.of("a", "v2"));
+        assertThat(counter("coalesced")).isZero();
+    }
+
+    @Test
+    void reachingMaxPendingFieldsFlushesWithoutWaitingForTheWindow() throws InterruptedException {
+        RedisHashBatchWriter writer = writer(2);
+
+        writer.put("k", "a", "a1");
+        writer.put("k", "b", "b1");
+
+        verify(hashOperations, timeout(5_000)).putAll("k", Map.of("a", "a1", "b", "b1"));
+        writer.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedBatchIsRetriedAndNewerValuesWin() throws InterruptedException {
+        doThrow(new RedisSystemException("down", new IllegalStateException()))
+                .doAnswer(pipeline)
+                .when(redisTemplate).executePipelined(any(SessionCallback.class));
+        RedisHashBatchWriter writer = writer(2, 3);
+
+        writer.put("k", "a", "a1");
+        writer.put("k", "b", "b1");
+        verify(redisTemplate, timeout(5_000)).executePipelined(any(SessionCallback.class));
+        // 失败期间 a 有了新值，放回时不能被旧值覆盖
+        writer.put("k", "a", "a2");
+        writer.put("k", "c", "c1");
+        writer.shutdown();
+
+        // 重试与新的更新可能分成一次或两次写出，按顺序合并后检查最终结果
+        ArgumentCaptor<Map<Object, Object>> written = ArgumentCaptor.forClass(Map.class);
+        verify(hashOperations, atLeastOnce()).putAll(eq("k"), written.capture());
+        Map<Object, Object> hash = new HashMap<>();
+        written.getAllValues().forEach(hash::putAll);
+        assertThat(hash).isEqualTo(Map.of("a", "a2", "b", "b1", "c", "c1"));
+        assertThat(counter("failed")).isZero();
+    }
+
+    @Test
+    void fieldsAreDroppedOnlyAfterMaxAttempts() throws InterruptedException {
+        doThrow(new RedisSystemException("down", new IllegalStateException()))
+                .when(redisTemplate).executePipelined(any(SessionCallback.class));
+        RedisHashBatchWriter writer = writer(1, 2);
+
+        // 第一次失败后放回待写表
+        writer.put("k", "a", "a1");
+        awaitCounter("retried", 1);
+        assertThat(counter("failed")).isZero();
+
+        // 第二次失败: a 用尽重试被丢弃，b 放回
+        writer.put("k", "b", "b1");
+        awaitCounter("failed", 1);
+        assertThat(counter("retried")).isEqualTo(2);
+
+        // 关闭时的最后一次写入失败不再重试
+        writer.shutdown();
+        assertThat(counter("failed")).isEqualTo(2);
+        assertThat(meterRegistry.get(RedisHashBatchWriter.METRIC_PREFIX + ".pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void emptyWindowSendsNothing() throws InterruptedException {
+        RedisHashBatchWriter writer = writer(1_000);
+
+        writer.shutdown();
+
+        verify(redisTemplate, never()).executePipelined(any(SessionCallback.class));
+        verify(hashOperations, never()).putAll(anyString(), anyMap());
+    }
+
+    private RedisHashBatchWriter writer(int maxPendingFields) {
+        return writer(maxPendingFields, 3);
+    }
+
+    // 重试间隔为 0: 放回的字段随下一次触发的写入立即重试
+    private RedisHashBatchWriter writer(int maxPendingFields, int maxAttempts) {
+        return new RedisHashBatchWriter(redisTemplate, meterRegistry, NO_TIMED_FLUSH_MS, maxPendingFields, maxAttempts, 0);
+    }
+
+    private void awaitCounter(String name, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (counter(name) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(counter(name)).isEqualTo(expected);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(RedisHashBatchWriter.METRIC_PREFIX + "." + name).counter().count();
+    }
+}
@@ -0,0 +1,129 @@
+package com.cpeplatform.service;
+
+import com.cpeplatform.dto.PredictionResultDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.cpeplatform.service.BenchmarkSupport.micros;
+import static com.cpeplatform.service.BenchmarkSupport.millis;
+import static com.cpeplatform.service.BenchmarkSupport.printHeader;
+import static com.cpeplatform.service.BenchmarkSupport.printRow;
+
+/**
+ * 单个大 Hash (桶数 1，即旧版单 key 格式) 与 64 个分桶在 100 万个字段下的读写延迟对比 (Testcontainers Redis)。
+ * 运行方式 (见 {@link BenchmarkSupport}):
+ * <pre>
+ * mvn -pl spring-boot-app test -Dtest=ShardedRedisHashBenchmark -Dbenchmark.entries=1000000
+ * </pre>
+ * 对每种桶数输出: pipeline 批量写入的吞吐量，逐条 HSET / HGET 的 p50/p99，
+ * 每次 500 个字段的 multiGet 的 p50/p99，以及全量 HSCAN 遍历的耗时。
+ */
+class ShardedRedisHashBenchmark extends RedisContainerTest {
+
+    private static final int LOAD_CHUNK = 1_000;
+    private static final int SINGLE_OPS = 20_000;
+    private static final int MULTI_GET_FIELDS = 500;
+    private static final int MULTI_GET_ROUNDS = 200;
+
+    private final int entries = Integer.getInteger("benchmark.entries", 1_000_000);
+
+    @Test
+    void compareSingleKeyWithBuckets() {
+        printHeader("%-8s %12s %10s %10s %10s %10s %12s %12s %10s", "buckets", "load/s",
+                "hset p50", "hset p99", "hget p50", "hget p99", "mget p50", "mget p99", "scan s");
+        for (int buckets : new int[]{1, 64}) {
+            redisTemplate.execute(connection -> {
+                connection.serverCommands().flushAll();
+                return null;
+            }, true);
+            run(buckets);
+        }
+    }
+
+    private void run(int buckets) {
+        ExecutorService scanExecutor = Executors.newFixedThreadPool(Math.min(buckets, 8));
+        try {
+            ShardedRedisHash hash = new ShardedRedisHash(redisTemplate, "bench:statuses", buckets, scanExecutor);
+
+            long loadStart = System.nanoTime();
+            for (int from = 0; from < entries; from += LOAD_CHUNK) {
+                loadChunk(hash, from, Math.min(entries, from + LOAD_CHUNK));
+            }
+            double loadSeconds = (System.nanoTime() - loadStart) / 1e9;
+
+            Random random = new Random(42);
+            long[] hset = new long[SINGLE_OPS];
+            for (int i = 0; i < SINGLE_OPS; i++) {
+                String deviceId = deviceId(random.nextInt(entries));
+                long start = System.nanoTime();
+                redisTemplate.opsForHash().put(hash.keyFor(deviceId), deviceId, value(deviceId, i));
+                hset[i] = System.nanoTime() - start;
+            }
+
+            long[] hget = new long[SINGLE_OPS];
+            for (int i = 0; i < SINGLE_OPS; i++) {
+                String deviceId = deviceId(random.nextInt(entries));
+                long start = System.nanoTime();
+                hash.get(deviceId);
+                hget[i] = System.nanoTime() - start;
+            }
+
+            long[] mget = new long[MULTI_GET_ROUNDS];
+            for (int round = 0; round < MULTI_GET_ROUNDS; round++) {
+                List<String> fields = new ArrayList<>(MULTI_GET_FIELDS);
+                for (int i = 0; i < MULTI_GET_FIELDS; i++) {
+                    fields.add(deviceId(random.nextInt(entries)));
+                }
+                long start = System.nanoTime();
+                hash.multiGet(fields);
+                mget[round] = System.nanoTime() - start;
+            }
+
+            LongAdder scanned = new LongAdder();
+            long scanStart = System.nanoTime();
+            hash.scan((field, value) -> scanned.increment());
+            double scanSeconds = (System.nanoTime() - scanStart) / 1e9;
+            if (scanned.sum() != entries) {
+                throw new IllegalStateException("HSCAN 只遍历到 " + scanned.sum() + " / " + entries + " 个字段");
+            }
+
+            printRow("%-8d %12.0f %8.0fus %8.0fus %8.0fus %8.0fus %10.2fms %10.2fms %10.2f", buckets,
+                    entries / loadSeconds, micros(hset, 0.50), micros(hset, 0.99), micros(hget, 0.50), micros(hget, 0.99),
+                    millis(mget, 0.50), millis(mget, 0.99), scanSeconds);
+        } finally {
+            scanExecutor.shutdownNow();
+        }
+    }
+
+    private void loadChunk(ShardedRedisHash hash, int from, int to) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (int i = from; i < to; i++) {
+                    String deviceId = deviceId(i);
+                    ops.opsForHash().put(hash.keyFor(deviceId), deviceId, value(deviceId, i));
+                }
+                return null;
+            }
+        });
+    }
+
+    private static String deviceId(int index) {
+        return String.format("CPE-%07d", index);
+    }
+
+    private static PredictionResultDto value(String deviceId, long timestamp) {
+        return new PredictionResultDto(deviceId, timestamp, timestamp % 2 == 0);
+    }
+}
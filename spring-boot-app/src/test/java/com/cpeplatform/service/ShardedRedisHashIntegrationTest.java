@@ -0,0 +1,119 @@
+package com.cpeplatform.service;
+
+import com.cpeplatform.dto.PredictionResultDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link ShardedRedisHash} 在真实 Redis 上的批量读取、HSCAN 遍历和旧 key 迁移。
+ */
+class ShardedRedisHashIntegrationTest extends RedisContainerTest {
+
+    private static final String BASE_KEY = "device:statuses";
+
+    private ExecutorService scanExecutor;
+    private ShardedRedisHash hash;
+
+    @BeforeEach
+    void createHash() {
+        scanExecutor = Executors.newFixedThreadPool(4);
+        hash = new ShardedRedisHash(redisTemplate, BASE_KEY, 8, scanExecutor);
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        scanExecutor.shutdownNow();
+    }
+
+    @Test
+    void fieldsAreStoredInTheirBucketAndReadBackWithMultiGet() {
+        Map<String, Object> values = values(1_000);
+        putAll(values);
+
+        long total = 0;
+        for (String key : hash.bucketKeys()) {
+            total += redisTemplate.opsForHash().size(key);
+        }
+        assertThat(total).isEqualTo(1_000);
+        assertThat(redisTemplate.opsForHash().hasKey(hash.keyFor("CPE-000123"), "CPE-000123")).isTrue();
+        assertThat(hash.get("CPE-000123")).isEqualTo(values.get("CPE-000123"));
+
+        List<String> fields = new ArrayList<>(values.keySet());
+        fields.add("CPE-MISSING-1");
+        fields.add("CPE-MISSING-2");
+        assertThat(hash.multiGet(fields)).isEqualTo(values);
+        assertThat(hash.multiGet(List.of())).isEmpty();
+    }
+
+    @Test
+    void scanVisitsEveryFieldExactlyOnce() {
+        // 每个桶约 2500 个字段，超过 HSCAN 的 COUNT，每个桶需要多次游标迭代
+        Map<String, Object> values = values(20_000);
+        putAll(values);
+
+        Map<String, Integer> visits = new ConcurrentHashMap<>();
+        Map<String, Object> seen = new ConcurrentHashMap<>();
+        hash.scan((field, value) -> {
+            visits.merge(field, 1, Integer::sum);
+            seen.put(field, value);
+        });
+
+        assertThat(visits).hasSize(20_000);
+        assertThat(visits.values()).containsOnly(1);
+        assertThat(seen).isEqualTo(values);
+    }
+
+    @Test
+    void migrationCopiesLegacyFieldsWithoutOverwritingBucketsAndRemovesLegacyKey() {
+        Map<String, Object> legacy = values(3_000);
+        redisTemplate.opsForHash().putAll(BASE_KEY, legacy);
+        // 分桶中已有的字段比旧 key 中的值新，不能被覆盖
+        PredictionResultDto newer = new PredictionResultDto("CPE-000007", 99L, true);
+        redisTemplate.opsForHash().put(hash.keyFor("CPE-000007"), "CPE-000007", newer);
+
+        long migrated = hash.migrateFrom(BASE_KEY);
+
+        assertThat(migrated).isEqualTo(3_000);
+        assertThat(redisTemplate.hasKey(BASE_KEY)).isFalse();
+        Map<String, Object> expected = new HashMap<>(legacy);
+        expected.put("CPE-000007", newer);
+        assertThat(hash.multiGet(legacy.keySet())).isEqualTo(expected);
+        // 再执行一次什么都不做
+        assertThat(hash.migrateFrom(BASE_KEY)).isZero();
+    }
+
+    private static Map<String, Object> values(int devices) {
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < devices; i++) {
+            String deviceId = String.format("CPE-%06d", i);
+            values.put(deviceId, new PredictionResultDto(deviceId, i, i % 2 == 0));
+        }
+        return values;
+    }
+
+    private void putAll(Map<String, Object> values) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                values.forEach((field, value) -> ops.opsForHash().put(hash.keyFor(field), field, value));
+                return null;
+            }
+        });
+    }
+}
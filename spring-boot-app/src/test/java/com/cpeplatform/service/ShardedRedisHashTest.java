@@ -0,0 +1,48 @@
+package com.cpeplatform.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link ShardedRedisHash} 的分桶路由 (不需要 Redis)。
+ */
+class ShardedRedisHashTest {
+
+    @Test
+    void bucketKeysUseHashTagsAndRoutingIsStable() {
+        ShardedRedisHash hash = new ShardedRedisHash(null, "device:statuses", 64, Runnable::run);
+
+        assertThat(hash.bucketKeys()).hasSize(64).first().isEqualTo("device:statuses:{0}");
+        assertThat(hash.bucketKeys()).last().isEqualTo("device:statuses:{63}");
+        // 路由结果写死在测试里 (zlib.crc32(b"CPE-000001") % 64 == 37)：算法或桶号格式一旦改变，已有数据就会被路由到错误的桶
+        assertThat(hash.keyFor("CPE-000001")).isEqualTo("device:statuses:{37}");
+        assertThat(hash.keyFor("CPE-000002")).isEqualTo("device:statuses:{31}");
+    }
+
+    @Test
+    void spreadsDevicesEvenlyOverBuckets() {
+        ShardedRedisHash hash = new ShardedRedisHash(null, "cpe:latest_packetloss_events", 64, Runnable::run);
+        Map<String, Integer> perBucket = new HashMap<>();
+        int devices = 1_000_000;
+        for (int i = 0; i < devices; i++) {
+            perBucket.merge(hash.keyFor(String.format("CPE-%06d", i)), 1, Integer::sum);
+        }
+
+        assertThat(perBucket).hasSize(64);
+        int mean = devices / 64;
+        assertThat(perBucket.values()).allSatisfy(count -> assertThat(count).isBetween(mean * 9 / 10, mean * 11 / 10));
+    }
+
+    @Test
+    void nonPositiveBucketCountFallsBackToOneBucket() {
+        ShardedRedisHash hash = new ShardedRedisHash(null, "device:statuses", 0, Runnable::run);
+
+        assertThat(hash.bucketKeys()).isEqualTo(List.of("device:statuses:{0}"));
+        assertThat(hash.keyFor("anything")).isEqualTo("device:statuses:{0}");
+    }
+}